@@ -0,0 +1,88 @@
+package com.fierydragon.wire;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A JMH benchmark of the binary protocol: encodes the TurnDelta of a flip as a DELTA frame in a direct buffer and
+ * decodes it back, as the server and a client do for every turn. Both should take well under 100 nanoseconds together.
+ * Build and run with the benchmark profile, from the folder of the pom:
+ * <pre>
+ * mvn -P benchmark package
+ * java -jar target/benchmarks.jar TurnDeltaBenchmark
+ * </pre>
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see TurnDelta
+ * @see FrameCodec
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurnDeltaBenchmark {
+    /**
+     * The buffer the frame is encoded in and decoded from, like one from the server's BufferPool.
+     */
+    private ByteBuffer buffer;
+    /**
+     * The delta encoded.
+     */
+    private TurnDelta delta;
+    /**
+     * The delta decoded.
+     */
+    private TurnDelta decoded;
+    /**
+     * The version of the next delta, so no two are the same.
+     */
+    private long version;
+
+    /**
+     * Allocates the buffer and the deltas once for the whole run.
+     */
+    @Setup
+    public void setUp() {
+        buffer = ByteBuffer.allocateDirect(4096);
+        delta = new TurnDelta();
+        decoded = new TurnDelta();
+        version = 1000;
+    }
+
+    /**
+     * Encodes the delta of a flip that moved one Dragon as a DELTA frame, then decodes it.
+     * @return the version decoded, so the work is not thrown away.
+     */
+    @Benchmark
+    public long encodeDecode() {
+        version++;
+        buffer.clear();
+        delta.set(version, 321, 2, 3, -1, (int) version & 31, 4, 3, 1);
+        delta.addMove(2, 40, 43);
+        int start = FrameCodec.begin(buffer, FrameCodec.DELTA);
+        delta.encode(buffer);
+        FrameCodec.end(buffer, start);
+        buffer.flip();
+        // Skip the length and the type, as a FrameReader does.
+        Varint.getInt(buffer);
+        buffer.get();
+        decoded.decode(buffer);
+        return decoded.getVersion();
+    }
+}
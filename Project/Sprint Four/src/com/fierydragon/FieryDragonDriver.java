@@ -1,15 +1,26 @@
 package com.fierydragon;
 
-import com.fierydragon.components.Cave;
-import com.fierydragon.display.creations.*;
-import com.fierydragon.movement.MovementManager;
-import com.fierydragon.utils.Constants;
+import com.fierydragon.engine.BoardTopology;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.LayoutCache;
+import com.fierydragon.notifications.NotificationManager;
+import com.fierydragon.notifications.NotificationType;
+import com.fierydragon.notifications.NotificationView;
+import com.fierydragon.pieces.Dragon;
+import com.fierydragon.pieces.PieceAnimator;
+import com.fierydragon.utils.ServerGame;
 import com.fierydragon.utils.TurnManager;
+import com.fierydragon.utils.TurnPacing;
+import com.fierydragon.utils.TurnScheduler;
+import com.fierydragon.volcano.BoardPool;
 import com.fierydragon.volcano.GameBoard;
 import com.fierydragon.volcano.GameManager;
+import com.fierydragon.volcano.PreparedBoard;
 import javafx.application.Application;
 import javafx.scene.Scene;
+import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
@@ -25,13 +36,18 @@ public class FieryDragonDriver extends Application {
     /**
      * Maximum number of players/dragons in the game
      * */
-    private int MAX_PLAYERS = 4;
+    private int MAX_PLAYERS = 16;
 
     /**
      * If no number of players assigned, default number of players/dragons in the game
      * */
     private int DEFAULT_NUM_OF_PLAYERS = 4;
 
+    /**
+     * If no turn pacing assigned, default pacing between turns
+     * */
+    private TurnPacing DEFAULT_TURN_PACING = TurnPacing.HUMAN;
+
     /**
      * Stage for the scene
      * */
@@ -47,6 +63,11 @@ public class FieryDragonDriver extends Application {
      * */
     private GridPane chitCardGrid;
 
+    /**
+     * The Game Board currently being played
+     * */
+    private GameBoard gameBoard;
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -58,63 +79,36 @@ public class FieryDragonDriver extends Application {
         boardGrid = new GridPane();
         chitCardGrid = new GridPane();
 
-        // Create a new Game Board instance
-        GameBoard gameBoard = new GameBoard(0, 0, Color.WHITE, "White", Constants.NUM_SQUARES, Constants.NUM_CARDS);
-
-        // Define the animal creation strategies for each Animal.
-        BabyDragonCreationStrategy babyDragonCreationStrategy = new BabyDragonCreationStrategy();
-        BatCreationStrategy batCreationStrategy = new BatCreationStrategy();
-        SalamanderCreationStrategy salamanderCreationStrategy = new SalamanderCreationStrategy();
-        SpiderCreationStrategy spiderCreationStrategy = new SpiderCreationStrategy();
-
-        // List of all the Display Animal Creation Strategies.
-        List<CreationStrategy> allDisplayCreationStrategies = List.of(babyDragonCreationStrategy, batCreationStrategy, salamanderCreationStrategy, spiderCreationStrategy);
-        // Create the list of all Animal Creation Strategies for all 4 cut Volcano Cards.
-        List<List<CreationStrategy>> cutCardDisplayCreationStrategies = new java.util.ArrayList<>(List.of(
-            List.of(babyDragonCreationStrategy, batCreationStrategy, spiderCreationStrategy),
-            List.of(salamanderCreationStrategy, spiderCreationStrategy, batCreationStrategy),
-            List.of(spiderCreationStrategy, salamanderCreationStrategy, babyDragonCreationStrategy),
-            List.of(batCreationStrategy, spiderCreationStrategy, babyDragonCreationStrategy)
-        ));
-
-        // Create the list of all Animal Creation Strategies for all 4 uncut Volcano Cards.
-        List<List<CreationStrategy>> cardDisplayCreationStrategies = new ArrayList<>(List.of(
-            List.of(spiderCreationStrategy, batCreationStrategy, salamanderCreationStrategy),
-            List.of(babyDragonCreationStrategy, salamanderCreationStrategy, batCreationStrategy),
-            List.of(batCreationStrategy, babyDragonCreationStrategy, salamanderCreationStrategy),
-            List.of(salamanderCreationStrategy, babyDragonCreationStrategy, spiderCreationStrategy)
-        ));
-
-        // Create a list of all the Caves with their colour.
-        List<Cave> caves = new ArrayList<>();
-        caves.add(new Cave(Color.LIGHTCORAL, "Red", salamanderCreationStrategy.createDisplayComponent()));
-        caves.add(new Cave(Color.LIGHTGREEN, "Green", babyDragonCreationStrategy.createDisplayComponent()));
-        caves.add(new Cave(Color.LIGHTBLUE, "Blue", batCreationStrategy.createDisplayComponent()));
-        caves.add(new Cave(Color.KHAKI, "Yellow", spiderCreationStrategy.createDisplayComponent()));
-
-        // Shuffle the order of the Card Creation Strategies multiple times so no game is the same.
-        Random random =  new Random();
-        for (int i = 0; i < 5; i++) {
-            Collections.shuffle(cutCardDisplayCreationStrategies, random);
-        }
-        for (int i = 0; i < 5; i++) {
-            Collections.shuffle(cardDisplayCreationStrategies, random);
-        }
-        // Shuffle the order of the caves too.
-        for (int i = 0; i < 5; i++) {
-            Collections.shuffle(caves, random);
+        // Make sure boards of the configured layout are being prepared in the background, and take a ready-to-play one.
+        CompiledLayout layout = readBoard();
+        BoardPool.getInstance().setLayout(layout);
+        BoardPool.getInstance().start();
+        // A board given a seed is dealt from it, the same board a lockstep game or a server game with that seed plays.
+        Long seed = readSeed();
+        int numOfDragons = readNumOfPlayers();
+        // A game played on a server is dealt from the server game's board and seed, so both play the same board.
+        ServerGame serverGame = ServerGame.getInstance();
+        if (connectToServer(layout.getName(), numOfDragons, seed)) {
+            layout = loadBoard(serverGame.getBoardName());
+            seed = serverGame.getSeed();
+            numOfDragons = serverGame.getNumPlayers();
         }
+        PreparedBoard preparedBoard = (seed != null) ? PreparedBoard.fromLayout(layout, new Random(seed))
+                : BoardPool.getInstance().take();
 
-        // Call the cardSetup method to setup the Volcano Cards in the Game Board.
-        gameBoard.cardSetup(cutCardDisplayCreationStrategies, cardDisplayCreationStrategies, caves);
-        // Call the chitCardSetup method to setup the Chit Cards in the Game Board.
-        gameBoard.chitCardSetup(allDisplayCreationStrategies, Constants.NUM_CHIT_CARDS, Constants.NUM_PIRATES, Constants.NUM_KNIGHTS);
+        // Create a new Game Board instance and add the Volcano Cards, Chit Cards and Caves of the prepared board.
+        BoardTopology topology = layout.getTopology();
+        gameBoard = new GameBoard(0, 0, Color.WHITE, "White", topology.getSquaresPerCard(), topology.getNumCards());
+        gameBoard.setup(preparedBoard);
         // Setup the Dragon and their respective Cave, setting the turn order in a clockwise direction starting from the top Dragon.
-        // Can set 2 or 4 number of Dragons for 2 or 4 numbers of Players.
-        int numOfDragons = readNumOfPlayers();
-        gameBoard.dragonSetup(numOfDragons, caves);
-        // Add the caves into the Game Board
-        gameBoard.setCaves(caves);
+        // Can set one Dragon for each Player, up to the number of Caves on the board, such as 16 on the grand board.
+        if (numOfDragons > topology.getNumCaves()) {
+            throw new RuntimeException("The " + layout.getName() + " board only has Caves for " + topology.getNumCaves() + " players");
+        }
+        // Set how long the game pauses between turns and whether notifications need acknowledging.
+        readTurnPacing();
+        readAcknowledgeNotifications();
+        gameBoard.dragonSetup(numOfDragons, gameBoard.getCaves(), preparedBoard.getSeatOffset());
 
         // Render the UI.
         gameBoard.render(boardGrid, chitCardGrid);
@@ -127,12 +121,63 @@ public class FieryDragonDriver extends Application {
         // Add the chitCardGrid to the boardGrid
         boardGrid.add(chitCardGrid, 4, 4, 5, 5);
 
+        // Show the notifications as toasts over the board and in an event feed beside it.
+        NotificationView notificationView = new NotificationView();
+        NotificationManager.getInstance().addListener(notificationView);
+        BorderPane root = new BorderPane();
+        root.setCenter(new StackPane(boardGrid, notificationView.getToastLayer()));
+        root.setRight(notificationView.createEventFeedPane());
+
         // Create the scene and set the scene.
-        Scene scene = new Scene(boardGrid);
+        Scene scene = new Scene(root);
         GameManager.getInstance().setDriver(this);
         stage.setScene(scene);
         stage.setTitle("Fiery Dragon");
         stage.show();
+
+        // Start playing the flips of the server game once the board is on screen.
+        if (serverGame.isConnected()) {
+            stage.setTitle("Fiery Dragon - Game " + serverGame.getId());
+            NotificationManager.getInstance().publish(NotificationType.INFO, "Connected",
+                    String.format("You are the %s Dragon in game %d.",
+                            gameBoard.getDragons().get(serverGame.getSeat()).getColourString(), serverGame.getId()));
+            serverGame.start();
+        }
+    }
+
+    /**
+     * Connects to the server given by the SERVER property of the game_config.properties file, if there is one, and
+     * takes a seat in the game given by the GAME property, or in a new game created on that server.
+     * @param boardName: The name of the board to create a game from.
+     * @param numOfDragons: The number of Dragons in a game created.
+     * @param seed: The seed to deal a game created from, or null for a random one.
+     * @return True if the game is played on a server.
+     */
+    private boolean connectToServer(String boardName, int numOfDragons, Long seed) {
+        Properties properties = readConfig();
+        String server = properties.getProperty("SERVER", "").trim();
+        if (server.isEmpty()) {
+            return false;
+        }
+        String game = properties.getProperty("GAME", "").trim();
+        int colon = server.lastIndexOf(':');
+        try {
+            ServerGame.getInstance().connect(server.substring(0, colon), Integer.parseInt(server.substring(colon + 1)),
+                    game.isEmpty() ? null : Long.valueOf(game), boardName, numOfDragons,
+                    (seed != null) ? seed : new Random().nextLong());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Could not play on the server " + server + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops preparing boards in the background and leaves the server game, if any, when the game is closed.
+     * */
+    @Override
+    public void stop() {
+        BoardPool.getInstance().shutdown();
+        ServerGame.getInstance().close();
     }
 
     /**
@@ -185,21 +230,26 @@ public class FieryDragonDriver extends Application {
     }
 
     /**
-     * Restarts the game
-     * */
-    public void restart(Stage primaryStage) {
-        GameManager.getInstance().reset();
-        start(primaryStage);
-    }
-
-    /**
-     * Cleans up the references and resets them before restarting the game
+     * Restarts the game while keeping the scene, reusing every Node and only resetting the state of the game.
+     * Much quicker than a full restart as nothing is rebuilt.
+     * @param reshuffle: True to reshuffle the Chit Cards and the Volcano Cards, false to replay the same board.
      * */
-    public void cleanup() {
-        setBoardGrid(null);
-        setChitCardGrid(null);
-        MovementManager.getInstance().reset();
-        TurnManager.getInstance().reset();
+    public void warmRestart(boolean reshuffle) {
+        // Stop anything still pending from the previous game.
+        TurnScheduler.getInstance().cancel();
+        PieceAnimator.getInstance().finishAll();
+
+        // Reset the state of the board and the turn order.
+        gameBoard.resetState(reshuffle ? BoardPool.getInstance().take() : null);
+        TurnManager.getInstance().restart();
+
+        // Move the Dragons back to their Caves and update the turn indicator.
+        for (Dragon dragon : gameBoard.getDragons()) {
+            dragon.render(boardGrid, chitCardGrid);
+        }
+        TurnManager.getInstance().updateTurnIndicator(boardGrid);
+        NotificationManager.getInstance().publish(NotificationType.INFO, "New Game",
+                reshuffle ? "The board has been reshuffled." : "The same board is being replayed.");
     }
 
     /**
@@ -210,6 +260,14 @@ public class FieryDragonDriver extends Application {
         return stage;
     }
 
+    /**
+     * Gets the Game Board currently being played
+     * @return The Game Board currently being played
+     * */
+    public GameBoard getGameBoard() {
+        return gameBoard;
+    }
+
     /**
      * Gets the main grid of game board
      * @return The Grid Pane of the main game board
@@ -248,12 +306,7 @@ public class FieryDragonDriver extends Application {
      * @return The number of players
      */
     public int readNumOfPlayers() {
-        Properties properties = new Properties();
-        try (FileInputStream fis = new FileInputStream("Project/Sprint Four/src/com/fierydragon/game_config.properties")) {
-            properties.load(fis);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        Properties properties = readConfig();
 
         // Get the NUM_OF_PLAYERS property, and if not found, use default value
         int numOfPlayers = Integer.parseInt(properties.getProperty("NUM_OF_PLAYERS", String.valueOf(DEFAULT_NUM_OF_PLAYERS)));
@@ -264,4 +317,86 @@ public class FieryDragonDriver extends Application {
 
         return numOfPlayers;
     }
+
+    /**
+     * Reads the BOARD property from the game_config.properties file, and if not found, uses the standard board.
+     * The board definition file of that name is compiled, or its compiled layout is taken from the LayoutCache.
+     * @return The compiled layout of the board
+     */
+    public CompiledLayout readBoard() {
+        Properties properties = readConfig();
+
+        // Get the BOARD property, and if not found, use default value
+        return loadBoard(properties.getProperty("BOARD", BoardPool.DEFAULT_BOARD).trim());
+    }
+
+    /**
+     * Loads the compiled layout of a board from the LayoutCache.
+     * @param boardName: The name of the board definition file.
+     * @return The compiled layout of the board
+     */
+    private CompiledLayout loadBoard(String boardName) {
+        try {
+            return LayoutCache.getInstance().load(boardName);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new RuntimeException("The " + boardName + " board cannot be loaded: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the SEED property from the game_config.properties file, and if not found, deals a random board.
+     * @return The seed to deal the board from, or null for a random board
+     */
+    public Long readSeed() {
+        Properties properties = readConfig();
+        String seed = properties.getProperty("SEED", "").trim();
+        try {
+            return seed.isEmpty() ? null : Long.valueOf(seed);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("The seed should be a whole number, not " + seed);
+        }
+    }
+
+    /**
+     * Reads the TURN_PACING and REPLAY_SPEED properties from the game_config.properties file and applies them to the
+     * TurnScheduler. If not found, uses the human pacing at normal speed.
+     */
+    public void readTurnPacing() {
+        Properties properties = readConfig();
+
+        // Get the TURN_PACING property, and if not found, use default value
+        String pacing = properties.getProperty("TURN_PACING", DEFAULT_TURN_PACING.name()).trim().toUpperCase();
+        String replaySpeed = properties.getProperty("REPLAY_SPEED", "1").trim();
+
+        try {
+            TurnScheduler.getInstance().setPacing(TurnPacing.valueOf(pacing));
+            TurnScheduler.getInstance().setReplaySpeed(Double.parseDouble(replaySpeed));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Turn pacing should be one of " + Arrays.toString(TurnPacing.values()) + " with a positive replay speed");
+        }
+    }
+
+    /**
+     * Reads the ACKNOWLEDGE_NOTIFICATIONS property from the game_config.properties file, and if not found, does not
+     * require notifications to be acknowledged. Only applies when playing at the human pace.
+     */
+    public void readAcknowledgeNotifications() {
+        Properties properties = readConfig();
+        boolean acknowledge = Boolean.parseBoolean(properties.getProperty("ACKNOWLEDGE_NOTIFICATIONS", "false").trim());
+        NotificationManager.getInstance().setAcknowledgementRequired(acknowledge);
+    }
+
+    /**
+     * Reads all the properties from the game_config.properties file.
+     * @return The properties read, empty if the file could not be read.
+     */
+    private Properties readConfig() {
+        Properties properties = new Properties();
+        try (FileInputStream fis = new FileInputStream("Project/Sprint Four/src/com/fierydragon/game_config.properties")) {
+            properties.load(fis);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return properties;
+    }
 }
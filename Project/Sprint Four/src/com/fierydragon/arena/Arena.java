@@ -0,0 +1,526 @@
+package com.fierydragon.arena;
+
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.tournament.Ratings;
+import com.fierydragon.tournament.Tournament;
+import com.fierydragon.tournament.TournamentResult;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class that runs a round-robin tournament between bots that run as processes of their own and speak the
+ * BotProtocol, so bots written in any language can play against each other. The games are the same as those of the
+ * Tournament: every pair of bots plays every board in both seat rotations, dealt from the same seeds.
+ * Each bot has a fixed pool of BotProcesses, and each process plays many games at once, so a few processes keep every
+ * core busy without a process being started for every game. The engine of every game runs on the Arena's one thread:
+ * it writes the position and the go line of each move to the process of the seat whose turn it is, without waiting,
+ * and takes the answers of all the processes from one queue.
+ * Every move has to be answered within the move time, counted from when its go line was written, so a process given
+ * many games has to answer them all in time. A late or wrong flip forfeits the game, and a process that is late on
+ * several moves in a row is killed. A process that exits forfeits every game it was playing and is started again.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BotProcess
+ * @see BotProtocol
+ * @see Tournament
+ */
+
+public class Arena {
+    /**
+     * The number of Dragons in each game.
+     */
+    private static final int NUM_PLAYERS = Tournament.NUM_PLAYERS;
+    /**
+     * The milliseconds a process has to answer the start of the protocol, long enough for a JVM to start.
+     */
+    private static final long START_MILLIS = 20_000;
+    /**
+     * The number of late moves in a row after which a process is killed.
+     */
+    private static final int MAX_TIMEOUTS = 3;
+    /**
+     * The number of times each process of a bot may be started again before the bot is given up.
+     */
+    private static final int MAX_RESTARTS = 3;
+    /**
+     * The names of the bots.
+     */
+    private final List<String> names;
+    /**
+     * The command starting a process of each bot.
+     */
+    private final List<List<String>> commands;
+    /**
+     * The compiled layout the boards are dealt from.
+     */
+    private final CompiledLayout layout;
+    /**
+     * The number of boards each pairing plays.
+     */
+    private final int numBoards;
+    /**
+     * The seed of the tournament.
+     */
+    private final long seed;
+    /**
+     * The number of processes of each bot.
+     */
+    private final int processesPerBot;
+    /**
+     * The most seats a process plays at once.
+     */
+    private final int gamesPerProcess;
+    /**
+     * The milliseconds a bot has to answer each move.
+     */
+    private final long moveMillis;
+    /**
+     * The queue every process hands its replies to.
+     */
+    private final BlockingQueue<BotReply> replies;
+    /**
+     * The processes of each bot.
+     */
+    private final List<List<BotProcess>> pools;
+    /**
+     * The game of each seat being played, by the number given to the seat.
+     */
+    private final Map<Long, ArenaGame> seats;
+    /**
+     * The moves waiting for an answer, in the order they were asked, which is also the order they run out of time.
+     */
+    private final ArrayDeque<Move> moves;
+    /**
+     * The points each bot scored against each other bot.
+     */
+    private final double[][] points;
+    /**
+     * The games each bot played against each other bot.
+     */
+    private final int[][] games;
+    /**
+     * For each bot, the moves answered in time, the moves that ran out of time, the games forfeited and the processes
+     * started again.
+     */
+    private final long[] numMoves, numTimeouts, numForfeits, numRestarts;
+    /**
+     * For each bot, the nanoseconds its moves took to be answered, in all.
+     */
+    private final long[] moveNanos;
+    /**
+     * The number given to the next seat.
+     */
+    private long nextSeat;
+    /**
+     * The number of games over.
+     */
+    private int numFinished;
+
+    /**
+     * Arena Constructor.
+     * @param names: The names of the bots.
+     * @param commands: The command starting a process of each bot.
+     * @param layout: The compiled layout the boards are dealt from.
+     * @param numBoards: The number of boards each pairing plays, each in both seat rotations.
+     * @param seed: The seed of the tournament. The same seed deals the same games.
+     * @param processesPerBot: The number of processes of each bot.
+     * @param gamesPerProcess: The most seats a process plays at once.
+     * @param moveMillis: The milliseconds a bot has to answer each move.
+     */
+    public Arena(List<String> names, List<List<String>> commands, CompiledLayout layout, int numBoards, long seed,
+                 int processesPerBot, int gamesPerProcess, long moveMillis) {
+        if (names.size() < NUM_PLAYERS || names.size() != commands.size() || numBoards < 1 || processesPerBot < 1
+                || gamesPerProcess < 1 || moveMillis < 1) {
+            throw new IllegalArgumentException("An arena needs 2 bots, a board, a process and a game per process");
+        }
+        this.names = List.copyOf(names);
+        this.commands = List.copyOf(commands);
+        this.layout = layout;
+        this.numBoards = numBoards;
+        this.seed = seed;
+        this.processesPerBot = processesPerBot;
+        this.gamesPerProcess = gamesPerProcess;
+        this.moveMillis = moveMillis;
+        this.replies = new LinkedBlockingQueue<>();
+        this.pools = new ArrayList<>();
+        this.seats = new HashMap<>();
+        this.moves = new ArrayDeque<>();
+        int numBots = names.size();
+        this.points = new double[numBots][numBots];
+        this.games = new int[numBots][numBots];
+        this.numMoves = new long[numBots];
+        this.numTimeouts = new long[numBots];
+        this.numForfeits = new long[numBots];
+        this.numRestarts = new long[numBots];
+        this.moveNanos = new long[numBots];
+    }
+
+    /**
+     * Starts the processes, plays every game of the tournament, stops the processes and rates the bots.
+     * @return the results.
+     * @throws IOException if a bot cannot be started, or keeps exiting.
+     * @throws InterruptedException if the thread is interrupted while waiting for the bots.
+     */
+    public TournamentResult run() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ArrayDeque<int[]> pending = schedule();
+        int numGames = pending.size();
+        try {
+            startPools();
+            while (numFinished < numGames) {
+                startGames(pending);
+
+                // Wait for an answer until the oldest move runs out of time, then take every answer that has arrived.
+                long waitNanos = moves.isEmpty() ? TimeUnit.SECONDS.toNanos(1) : moves.peek().deadline - System.nanoTime();
+                BotReply reply = replies.poll(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+                while (reply != null) {
+                    handle(reply);
+                    reply = replies.poll();
+                }
+                expire(System.nanoTime());
+            }
+        } finally {
+            for (List<BotProcess> pool : pools) {
+                pool.forEach(BotProcess::stop);
+            }
+        }
+        return new TournamentResult(Ratings.fit(names, points, games), numGames, System.nanoTime() - start);
+    }
+
+    /**
+     * Lists every game of the tournament, board by board, so the games being played at any time are shared out
+     * between every pairing and every process is kept busy.
+     * @return for each game, the bot in seat 0, the bot in seat 1 and the board.
+     */
+    private ArrayDeque<int[]> schedule() {
+        ArrayDeque<int[]> pending = new ArrayDeque<>();
+        for (int board = 0; board < numBoards; board++) {
+            for (int a = 0; a < names.size(); a++) {
+                for (int b = a + 1; b < names.size(); b++) {
+                    // Swapping the bots swaps both their home Caves and who moves first.
+                    pending.add(new int[] {a, b, board});
+                    pending.add(new int[] {b, a, board});
+                }
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Starts the processes of every bot at once, and waits until they are all ready.
+     * @throws IOException if a process cannot be started or is not ready in time.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private void startPools() throws IOException, InterruptedException {
+        for (int bot = 0; bot < names.size(); bot++) {
+            List<BotProcess> pool = new ArrayList<>();
+            for (int i = 0; i < processesPerBot; i++) {
+                BotProcess process = new BotProcess(bot, commands.get(bot), replies);
+                pool.add(process);
+                process.start();
+            }
+            pools.add(pool);
+        }
+        for (List<BotProcess> pool : pools) {
+            for (BotProcess process : pool) {
+                process.awaitReady(START_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Starts the waiting games while both of their bots have a process with room for another game.
+     * @param pending: The games waiting to start.
+     */
+    private void startGames(ArrayDeque<int[]> pending) {
+        while (!pending.isEmpty()) {
+            int[] next = pending.peek();
+            BotProcess first = leastBusy(next[0]);
+            BotProcess second = leastBusy(next[1]);
+            if (first == null || second == null) {
+                return;
+            }
+            pending.poll();
+
+            // Deal the board from the same seed as the Tournament, and tell each seat its game.
+            GameState state = GameState.deal(layout, NUM_PLAYERS, new Random(Tournament.boardSeed(seed, next[2])));
+            ArenaGame game = new ArenaGame(new int[] {next[0], next[1]}, new BotProcess[] {first, second}, state);
+            for (int seat = 0; seat < NUM_PLAYERS; seat++) {
+                game.handles[seat] = nextSeat++;
+                seats.put(game.handles[seat], game);
+                game.processes[seat].setNumGames(game.processes[seat].getNumGames() + 1);
+                game.processes[seat].send(BotProtocol.newGame(game.handles[seat], seat, state));
+            }
+            ask(game);
+        }
+    }
+
+    /**
+     * Finds the process of a bot playing the fewest games, if any has room for another.
+     * @param bot: The number of the bot.
+     * @return the process, or null if every process is full.
+     */
+    private BotProcess leastBusy(int bot) {
+        BotProcess best = null;
+        for (BotProcess process : pools.get(bot)) {
+            if (!process.isLost() && process.getNumGames() < gamesPerProcess
+                    && (best == null || process.getNumGames() < best.getNumGames())) {
+                best = process;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Asks the seat whose turn it is for its flip, or ends a game that has run too long.
+     * @param game: The game.
+     */
+    private void ask(ArenaGame game) {
+        if (game.ply >= Tournament.MAX_FLIPS) {
+            finish(game, GameState.NOBODY, BotProtocol.DRAW);
+            return;
+        }
+        int seat = game.state.getCurrent();
+        long handle = game.handles[seat];
+        game.askedAt = System.nanoTime();
+        moves.add(new Move(game, game.ply, game.askedAt + TimeUnit.MILLISECONDS.toNanos(moveMillis)));
+        game.processes[seat].send(BotProtocol.position(handle, game.ply, game.state),
+                BotProtocol.go(handle, game.ply, moveMillis));
+    }
+
+    /**
+     * Carries out a reply: a flip answering the move a game is waiting for is played, a late one is ignored, and a lost
+     * process is started again.
+     * @param reply: The reply.
+     * @throws IOException if a bot keeps exiting.
+     */
+    private void handle(BotReply reply) throws IOException {
+        if (reply.isLost()) {
+            restart(reply.getProcess());
+            return;
+        }
+        ArenaGame game = seats.get(reply.getGame());
+        // Only the seat whose turn it is can answer, and only the move it was last asked.
+        if (game == null || game.over || reply.getPly() != game.ply
+                || game.handles[game.state.getCurrent()] != reply.getGame()) {
+            return;
+        }
+        int seat = game.state.getCurrent();
+        int bot = game.bots[seat];
+        int chit = reply.getChit();
+        if (chit < 0 || chit >= game.state.getNumChits() || game.state.isFlipped(chit)) {
+            forfeit(game, seat);
+            return;
+        }
+        numMoves[bot]++;
+        moveNanos[bot] += System.nanoTime() - game.askedAt;
+        reply.getProcess().setNumTimeouts(0);
+        game.state.flip(chit);
+        game.ply++;
+        if (game.state.isOver()) {
+            finish(game, game.state.getWinner(), BotProtocol.WIN);
+        }
+        else {
+            ask(game);
+        }
+    }
+
+    /**
+     * Forfeits the games whose moves have run out of time, and kills a process that is late too often.
+     * @param now: The time, from System.nanoTime.
+     */
+    private void expire(long now) {
+        while (!moves.isEmpty()) {
+            Move move = moves.peek();
+            // A move already answered is dropped, and the rest are in the order they run out of time.
+            if (!move.game.over && move.ply == move.game.ply && move.deadline > now) {
+                return;
+            }
+            moves.poll();
+            if (move.game.over || move.ply != move.game.ply) {
+                continue;
+            }
+            int seat = move.game.state.getCurrent();
+            BotProcess process = move.game.processes[seat];
+            numTimeouts[move.game.bots[seat]]++;
+            process.setNumTimeouts(process.getNumTimeouts() + 1);
+            forfeit(move.game, seat);
+            if (process.getNumTimeouts() >= MAX_TIMEOUTS) {
+                process.kill();
+            }
+        }
+    }
+
+    /**
+     * Ends a game lost by a seat, which is then given to the other seat.
+     * @param game: The game.
+     * @param seat: The seat that lost it.
+     */
+    private void forfeit(ArenaGame game, int seat) {
+        numForfeits[game.bots[seat]]++;
+        finish(game, NUM_PLAYERS - 1 - seat, BotProtocol.FORFEIT);
+    }
+
+    /**
+     * Ends a game: tells both seats, frees their processes and adds up the points, as the Tournament does.
+     * @param game: The game.
+     * @param winner: The seat that won, or NOBODY for a draw.
+     * @param reason: WIN, DRAW or FORFEIT.
+     */
+    private void finish(ArenaGame game, int winner, String reason) {
+        game.over = true;
+        for (int seat = 0; seat < NUM_PLAYERS; seat++) {
+            game.processes[seat].send(BotProtocol.result(game.handles[seat], winner, reason));
+            game.processes[seat].setNumGames(game.processes[seat].getNumGames() - 1);
+            seats.remove(game.handles[seat]);
+        }
+        int first = game.bots[0], second = game.bots[1];
+        if (winner == GameState.NOBODY) {
+            points[first][second] += 0.5;
+            points[second][first] += 0.5;
+        }
+        else {
+            points[game.bots[winner]][game.bots[NUM_PLAYERS - 1 - winner]] += 1;
+        }
+        games[first][second]++;
+        games[second][first]++;
+        numFinished++;
+    }
+
+    /**
+     * Forfeits every game a lost process was playing and starts another process of its bot in its place.
+     * @param lost: The process that was lost.
+     * @throws IOException if the bot has been started again too often, or cannot be started.
+     */
+    private void restart(BotProcess lost) throws IOException {
+        for (ArenaGame game : new ArrayList<>(seats.values())) {
+            for (int seat = 0; seat < NUM_PLAYERS && !game.over; seat++) {
+                if (game.processes[seat] == lost) {
+                    forfeit(game, seat);
+                }
+            }
+        }
+        int bot = lost.getBot();
+        List<BotProcess> pool = pools.get(bot);
+        if (!pool.remove(lost)) {
+            return;
+        }
+        if (++numRestarts[bot] > (long) MAX_RESTARTS * processesPerBot) {
+            throw new IOException("Bot " + names.get(bot) + " keeps exiting");
+        }
+        BotProcess process = new BotProcess(bot, commands.get(bot), replies);
+        pool.add(process);
+        process.start();
+        try {
+            process.awaitReady(START_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while starting bot " + names.get(bot), e);
+        }
+    }
+
+    /**
+     * Creates a table of how each bot played: its moves, how long they took, and its timeouts, forfeits and restarts.
+     * @return the table.
+     */
+    public String toStatsTable() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-16s %10s %10s %9s %9s %9s%n", "Bot", "Moves", "Mean ms", "Timeouts",
+                "Forfeits", "Restarts"));
+        for (int bot = 0; bot < names.size(); bot++) {
+            builder.append(String.format("%-16s %10d %10.3f %9d %9d %9d%n", names.get(bot), numMoves[bot],
+                    moveNanos[bot] / 1e6 / Math.max(1, numMoves[bot]), numTimeouts[bot], numForfeits[bot],
+                    numRestarts[bot]));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A class representing one game being played in the Arena.
+     */
+    private static final class ArenaGame {
+        /**
+         * The bot in each seat.
+         */
+        final int[] bots;
+        /**
+         * The process playing each seat.
+         */
+        final BotProcess[] processes;
+        /**
+         * The number given to each seat.
+         */
+        final long[] handles;
+        /**
+         * The game.
+         */
+        final GameState state;
+        /**
+         * The number of Chit Cards flipped so far.
+         */
+        int ply;
+        /**
+         * When the seat whose turn it is was asked for its flip, from System.nanoTime.
+         */
+        long askedAt;
+        /**
+         * A boolean denoting if the game is over.
+         */
+        boolean over;
+
+        /**
+         * ArenaGame Constructor.
+         * @param bots: The bot in each seat.
+         * @param processes: The process playing each seat.
+         * @param state: The game, as dealt.
+         */
+        ArenaGame(int[] bots, BotProcess[] processes, GameState state) {
+            this.bots = bots;
+            this.processes = processes;
+            this.handles = new long[bots.length];
+            this.state = state;
+        }
+    }
+
+    /**
+     * A class representing a move waiting for an answer.
+     */
+    private static final class Move {
+        /**
+         * The game of the move.
+         */
+        final ArenaGame game;
+        /**
+         * The ply of the move.
+         */
+        final int ply;
+        /**
+         * When the move runs out of time, from System.nanoTime.
+         */
+        final long deadline;
+
+        /**
+         * Move Constructor.
+         * @param game: The game of the move.
+         * @param ply: The ply of the move.
+         * @param deadline: When the move runs out of time, from System.nanoTime.
+         */
+        Move(ArenaGame game, int ply, long deadline) {
+            this.game = game;
+            this.ply = ply;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.fierydragon.arena;
+
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.LayoutCache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The entry point of the arena mode, which plays a round-robin tournament between bots that run as processes of their
+ * own and speak the BotProtocol, and prints their ratings. Run from the repository root so the board definitions are
+ * found, giving each bot with --bot as its name, "=" and the command starting it, for example:
+ * <pre>
+ * java com.fierydragon.arena.ArenaMain --bot "mybot=python3 mybot.py" --bot seen --boards 500 --move-millis 200
+ * </pre>
+ * A bot given without a command, random or seen, is a ProtocolBot of that strategy. Each bot gets --processes
+ * processes, by default the cores shared between the bots, each playing up to --games-per-process games at once.
+ * --board and --seed choose the boards, as for the TournamentMain.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Arena
+ * @see ProtocolBot
+ */
+
+public class ArenaMain {
+
+    /**
+     * Reads the options, plays the tournament and prints the ratings and how each bot played.
+     * @param args: The options, each a name followed by its value: --bot, given once for each bot, --boards, --board,
+     *              --seed, --processes, --games-per-process and --move-millis.
+     * @throws IOException if a bot cannot be started, or keeps exiting.
+     * @throws InterruptedException if the tournament is interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> names = new ArrayList<>();
+        List<List<String>> commands = new ArrayList<>();
+        int numBoards = 100;
+        String board = "standard";
+        long seed = 1;
+        int processes = 0;
+        int gamesPerProcess = 16;
+        long moveMillis = 1000;
+
+        // Read each option and its value.
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--bot" -> addBot(args[i + 1], names, commands);
+                case "--boards" -> numBoards = Integer.parseInt(args[i + 1]);
+                case "--board" -> board = args[i + 1];
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--processes" -> processes = Integer.parseInt(args[i + 1]);
+                case "--games-per-process" -> gamesPerProcess = Integer.parseInt(args[i + 1]);
+                case "--move-millis" -> moveMillis = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (names.size() < 2) {
+            throw new IllegalArgumentException("Give at least 2 bots with --bot");
+        }
+        // Share the cores between the bots, as each game keeps a process of two bots busy by turns.
+        if (processes < 1) {
+            processes = Math.max(1, Runtime.getRuntime().availableProcessors() / names.size());
+        }
+
+        CompiledLayout layout = LayoutCache.getInstance().load(board);
+        Arena arena = new Arena(names, commands, layout, numBoards, seed, processes, gamesPerProcess, moveMillis);
+        System.out.print(arena.run().toTable());
+        System.out.print(arena.toStatsTable());
+    }
+
+    /**
+     * Adds a bot from its option.
+     * @param option: The name of the bot, "=" and the command starting it, split at spaces, or random or seen for a
+     *                ProtocolBot of that strategy.
+     * @param names: The names of the bots, added to.
+     * @param commands: The command of each bot, added to.
+     */
+    static void addBot(String option, List<String> names, List<List<String>> commands) {
+        int equals = option.indexOf('=');
+        if (equals < 0) {
+            if (!option.equals("random") && !option.equals("seen")) {
+                throw new IllegalArgumentException("Give a bot as name=command, or random or seen");
+            }
+            // A ProtocolBot run by the same Java as the Arena.
+            names.add(option);
+            commands.add(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(), "-cp",
+                    System.getProperty("java.class.path"), ProtocolBot.class.getName(), "--name", option,
+                    "--strategy", option));
+            return;
+        }
+        names.add(option.substring(0, equals));
+        commands.add(Arrays.asList(option.substring(equals + 1).trim().split("\\s+")));
+    }
+}
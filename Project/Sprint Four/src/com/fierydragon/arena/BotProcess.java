@@ -0,0 +1,249 @@
+package com.fierydragon.arena;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class representing one process of a bot playing in the Arena, spoken to with the BotProtocol over its standard
+ * input and output. A process plays many games at once: the Arena writes the lines of all of them to it without
+ * waiting, and a thread of its own reads its answers and hands them to the Arena as BotReplies, along with a reply
+ * telling when the process is lost. What the bot writes to its standard error is passed on to the Arena's.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Arena
+ * @see BotProtocol
+ */
+
+public class BotProcess {
+    /**
+     * The number of the bot in the Arena.
+     */
+    private final int bot;
+    /**
+     * The command starting the process.
+     */
+    private final List<String> command;
+    /**
+     * The queue the replies are handed to the Arena on.
+     */
+    private final BlockingQueue<BotReply> replies;
+    /**
+     * Counted down once the bot is ready, or lost before it was.
+     */
+    private final CountDownLatch ready;
+    /**
+     * The running process.
+     */
+    private Process process;
+    /**
+     * The writer of the bot's standard input. Guarded by this process.
+     */
+    private BufferedWriter input;
+    /**
+     * The name the bot gave itself, or null.
+     */
+    private volatile String name;
+    /**
+     * A boolean denoting if the process has exited or stopped answering.
+     */
+    private volatile boolean lost;
+    /**
+     * The number of seats the process is playing, counted by the Arena's thread.
+     */
+    private int numGames;
+    /**
+     * The number of moves in a row the process has run out of time on, counted by the Arena's thread.
+     */
+    private int numTimeouts;
+
+    /**
+     * BotProcess Constructor.
+     * @param bot: The number of the bot in the Arena.
+     * @param command: The command starting the process.
+     * @param replies: The queue the replies are handed to the Arena on.
+     */
+    BotProcess(int bot, List<String> command, BlockingQueue<BotReply> replies) {
+        this.bot = bot;
+        this.command = command;
+        this.replies = replies;
+        this.ready = new CountDownLatch(1);
+    }
+
+    /**
+     * Starts the process and begins the protocol, without waiting for the bot, so many can start at once.
+     * @throws IOException if the process cannot be started.
+     */
+    void start() throws IOException {
+        process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        Thread reader = new Thread(() -> read(output), "bot-" + bot + "-output");
+        reader.setDaemon(true);
+        reader.start();
+        send(BotProtocol.HELLO);
+    }
+
+    /**
+     * Waits until the bot has answered the start of the protocol.
+     * @param timeoutMillis: The most milliseconds to wait for the bot to be ready.
+     * @throws IOException if the bot is not ready in time.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    void awaitReady(long timeoutMillis) throws IOException, InterruptedException {
+        if (!ready.await(timeoutMillis, TimeUnit.MILLISECONDS) || lost) {
+            kill();
+            throw new IOException("Bot " + String.join(" ", command) + " did not answer " + BotProtocol.HELLO);
+        }
+    }
+
+    /**
+     * Reads the lines of the bot until it exits, handing each flip to the Arena.
+     * @param output: The bot's standard output.
+     */
+    private void read(BufferedReader output) {
+        try {
+            String line;
+            while ((line = output.readLine()) != null) {
+                String[] words = line.trim().split(" ");
+                switch (words[0]) {
+                    case "flip" -> {
+                        if (words.length == 4) {
+                            try {
+                                replies.add(new BotReply(this, Long.parseLong(words[1]), Integer.parseInt(words[2]),
+                                        Integer.parseInt(words[3])));
+                            } catch (NumberFormatException e) {
+                                // A flip that cannot be read is ignored, and runs out of time.
+                            }
+                        }
+                    }
+                    case "id" -> {
+                        if (words.length == 3 && words[1].equals("name")) {
+                            name = words[2];
+                        }
+                    }
+                    case BotProtocol.READY -> ready.countDown();
+                    default -> {
+                        // Any other line, such as info, is ignored.
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // The process exited.
+        } finally {
+            lost = true;
+            ready.countDown();
+            replies.add(BotReply.lost(this));
+        }
+    }
+
+    /**
+     * Writes lines to the bot and flushes them together. A process that cannot be written to is killed.
+     * @param lines: The lines.
+     */
+    synchronized void send(String... lines) {
+        if (lost) {
+            return;
+        }
+        try {
+            for (String line : lines) {
+                input.write(line);
+                input.write('\n');
+            }
+            input.flush();
+        } catch (IOException e) {
+            kill();
+        }
+    }
+
+    /**
+     * Asks the bot to exit, and kills it if it has not within a second.
+     */
+    void stop() {
+        send(BotProtocol.QUIT);
+        try {
+            if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                kill();
+            }
+        } catch (InterruptedException e) {
+            kill();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Kills the process without waiting, for a bot that has stopped answering. It is given no more lines, and its
+     * reader then tells the Arena it is lost.
+     */
+    void kill() {
+        lost = true;
+        if (process != null) {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * A method to return the bot data attribute.
+     * @return the number of the bot in the Arena.
+     */
+    public int getBot() {
+        return bot;
+    }
+
+    /**
+     * A method to return the name data attribute.
+     * @return the name the bot gave itself, or null.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * A method to check whether the process has been lost.
+     * @return True if the process has exited or stopped answering.
+     */
+    public boolean isLost() {
+        return lost;
+    }
+
+    /**
+     * A method to return the numGames data attribute.
+     * @return the number of seats the process is playing.
+     */
+    int getNumGames() {
+        return numGames;
+    }
+
+    /**
+     * A method to set the numGames data attribute.
+     * @param numGames: The number of seats the process is playing.
+     */
+    void setNumGames(int numGames) {
+        this.numGames = numGames;
+    }
+
+    /**
+     * A method to return the numTimeouts data attribute.
+     * @return the number of moves in a row the process has run out of time on.
+     */
+    int getNumTimeouts() {
+        return numTimeouts;
+    }
+
+    /**
+     * A method to set the numTimeouts data attribute.
+     * @param numTimeouts: The number of moves in a row the process has run out of time on.
+     */
+    void setNumTimeouts(int numTimeouts) {
+        this.numTimeouts = numTimeouts;
+    }
+}
@@ -0,0 +1,173 @@
+package com.fierydragon.arena;
+
+import com.fierydragon.engine.BoardTopology;
+import com.fierydragon.engine.ChitDeck;
+import com.fierydragon.engine.GameState;
+
+/**
+ * A class holding the line protocol spoken between the Arena and a bot running as a process of its own, so bots can
+ * be written in any language, in the same way as UCI for chess engines. The Arena writes lines to the bot's standard
+ * input and reads the bot's lines from its standard output; words are separated by single spaces and lists by commas.
+ * <pre>
+ * fdp 1                                  the protocol and its version; the bot answers "id name NAME" then "ready"
+ * newgame G SEAT PLAYERS CHITS squares A,A,... caves A@S,... homes C,C,...
+ * position G PLY turn SEAT dragons E,E,... passed 0,1,... stunned 0,1,... chits C,C,...
+ * go G PLY MILLIS                        the bot answers "flip G PLY CHIT" within MILLIS milliseconds
+ * result G WINNER REASON                 the seat that won, or -1, and win, draw or forfeit
+ * quit
+ * </pre>
+ * G is a number the Arena gives one seat of one game, so a bot process can play many games at once, and even both
+ * seats of the same game. The bot plays seat SEAT of PLAYERS Dragons with CHITS Chit Cards. Animals are written as on
+ * the Chit Cards (BD, BA, SA or SP): squares lists the Animal of each Square clockwise from 0, caves lists the Animal
+ * of each Cave and the Square it is joined to, and homes lists the home Cave of each seat.
+ * A position gives the path entry of each Dragon: a Square, or the number of Squares plus a Cave. It also gives
+ * whether each Dragon has gone past its home Cave and whether it is stunned, and for each Chit Card "?" if it is face
+ * down and has not been seen, its face such as "BA2" or "PD1" if it is face down but has been seen, or its face after
+ * "*" if it is face up this turn. Only face-down Chit Cards can be flipped.
+ * A flip that is late, or of a Chit Card that cannot be flipped, forfeits the game. Any other line from the bot, such
+ * as "info ...", is ignored.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Arena
+ * @see ProtocolBot
+ */
+
+public final class BotProtocol {
+    /**
+     * The version of the protocol.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The line starting the protocol.
+     */
+    public static final String HELLO = "fdp " + VERSION;
+    /**
+     * The line a bot sends once it is ready to play.
+     */
+    public static final String READY = "ready";
+    /**
+     * The line asking a bot to exit.
+     */
+    public static final String QUIT = "quit";
+    /**
+     * The reason of a game a Dragon won.
+     */
+    public static final String WIN = "win";
+    /**
+     * The reason of a game that ran too long.
+     */
+    public static final String DRAW = "draw";
+    /**
+     * The reason of a game lost by a late or wrong flip.
+     */
+    public static final String FORFEIT = "forfeit";
+
+    /**
+     * BotProtocol Constructor. Not used, as the class only holds static methods.
+     */
+    private BotProtocol() {
+    }
+
+    /**
+     * Writes the line starting a game for one seat.
+     * @param game: The number of the seat in the game.
+     * @param seat: The seat the bot plays.
+     * @param state: The game, as dealt.
+     * @return the newgame line.
+     */
+    public static String newGame(long game, int seat, GameState state) {
+        BoardTopology topology = state.getTopology();
+        StringBuilder line = new StringBuilder("newgame ").append(game).append(' ').append(seat).append(' ')
+                .append(state.getNumPlayers()).append(' ').append(state.getNumChits());
+        line.append(" squares ");
+        for (int square = 0; square < topology.getNumSquares(); square++) {
+            line.append(square == 0 ? "" : ",").append(topology.getSquareAnimal(square).getDisplay());
+        }
+        line.append(" caves ");
+        for (int cave = 0; cave < topology.getNumCaves(); cave++) {
+            line.append(cave == 0 ? "" : ",").append(topology.getCaveAnimal(cave).getDisplay()).append('@')
+                    .append(topology.getCaveSquare(cave));
+        }
+        line.append(" homes ");
+        for (int player = 0; player < state.getNumPlayers(); player++) {
+            line.append(player == 0 ? "" : ",").append(state.getHomeCave(player));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Writes the line giving the position of a game, as a player at the table sees it.
+     * @param game: The number of the seat in the game.
+     * @param ply: The number of Chit Cards flipped in the game so far.
+     * @param state: The game.
+     * @return the position line.
+     */
+    public static String position(long game, int ply, GameState state) {
+        int numPlayers = state.getNumPlayers();
+        StringBuilder line = new StringBuilder("position ").append(game).append(' ').append(ply)
+                .append(" turn ").append(state.getCurrent());
+        line.append(" dragons ");
+        for (int player = 0; player < numPlayers; player++) {
+            line.append(player == 0 ? "" : ",").append(state.getPosition(player));
+        }
+        line.append(" passed ");
+        for (int player = 0; player < numPlayers; player++) {
+            line.append(player == 0 ? "" : ",").append(state.hasPassedCave(player) ? 1 : 0);
+        }
+        line.append(" stunned ");
+        for (int player = 0; player < numPlayers; player++) {
+            line.append(player == 0 ? "" : ",").append(state.isStunned(player) ? 1 : 0);
+        }
+        line.append(" chits ");
+        for (int chit = 0; chit < state.getNumChits(); chit++) {
+            if (chit > 0) {
+                line.append(',');
+            }
+            // Only the faces a player could have seen are given.
+            if (!state.isRevealed(chit)) {
+                line.append('?');
+                continue;
+            }
+            if (state.isFlipped(chit)) {
+                line.append('*');
+            }
+            line.append(ChitDeck.displayOf(state.getRevealedKind(chit))).append(state.getRevealedValue(chit));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Writes the line asking a bot to flip a Chit Card.
+     * @param game: The number of the seat in the game.
+     * @param ply: The number of Chit Cards flipped in the game so far, which the answer repeats.
+     * @param millis: The milliseconds the bot has to answer.
+     * @return the go line.
+     */
+    public static String go(long game, int ply, long millis) {
+        return "go " + game + " " + ply + " " + millis;
+    }
+
+    /**
+     * Writes the line telling a bot how a game ended.
+     * @param game: The number of the seat in the game.
+     * @param winner: The seat that won, or -1.
+     * @param reason: WIN, DRAW or FORFEIT.
+     * @return the result line.
+     */
+    public static String result(long game, int winner, String reason) {
+        return "result " + game + " " + winner + " " + reason;
+    }
+
+    /**
+     * Writes the line a bot answers a go line with.
+     * @param game: The number of the seat in the game.
+     * @param ply: The ply of the go line.
+     * @param chit: The Chit Card to flip.
+     * @return the flip line.
+     */
+    public static String flip(long game, int ply, int chit) {
+        return "flip " + game + " " + ply + " " + chit;
+    }
+}
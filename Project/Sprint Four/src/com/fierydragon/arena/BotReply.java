@@ -0,0 +1,93 @@
+package com.fierydragon.arena;
+
+/**
+ * A class representing something a BotProcess has told the Arena: a flip, or that the process has been lost.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BotProcess
+ * @see Arena
+ */
+
+public class BotReply {
+    /**
+     * The process the reply came from.
+     */
+    private final BotProcess process;
+    /**
+     * The number of the seat in the game, or -1 if the process was lost.
+     */
+    private final long game;
+    /**
+     * The ply the flip answers.
+     */
+    private final int ply;
+    /**
+     * The Chit Card to flip.
+     */
+    private final int chit;
+
+    /**
+     * BotReply Constructor.
+     * @param process: The process the reply came from.
+     * @param game: The number of the seat in the game, or -1 if the process was lost.
+     * @param ply: The ply the flip answers.
+     * @param chit: The Chit Card to flip.
+     */
+    BotReply(BotProcess process, long game, int ply, int chit) {
+        this.process = process;
+        this.game = game;
+        this.ply = ply;
+        this.chit = chit;
+    }
+
+    /**
+     * Creates the reply telling that a process has been lost.
+     * @param process: The process that exited or stopped answering.
+     * @return the reply.
+     */
+    static BotReply lost(BotProcess process) {
+        return new BotReply(process, -1, -1, -1);
+    }
+
+    /**
+     * A method to check whether the process has been lost.
+     * @return True if the reply is not a flip.
+     */
+    public boolean isLost() {
+        return game < 0;
+    }
+
+    /**
+     * A method to return the process data attribute.
+     * @return the process the reply came from.
+     */
+    public BotProcess getProcess() {
+        return process;
+    }
+
+    /**
+     * A method to return the game data attribute.
+     * @return the number of the seat in the game, or -1 if the process was lost.
+     */
+    public long getGame() {
+        return game;
+    }
+
+    /**
+     * A method to return the ply data attribute.
+     * @return the ply the flip answers.
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * A method to return the chit data attribute.
+     * @return the Chit Card to flip.
+     */
+    public int getChit() {
+        return chit;
+    }
+}
@@ -0,0 +1,333 @@
+package com.fierydragon.arena;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A bot that plays through the BotProtocol on its standard input and output, as an example for bots written in other
+ * languages and to try out the Arena. It only knows what the protocol tells it, and keeps each game it is playing by
+ * the number the Arena gave the seat. Run it with --name, --strategy and --think-millis, for example:
+ * <pre>
+ * java com.fierydragon.arena.ProtocolBot --name seen --strategy seen
+ * </pre>
+ * The random strategy flips any face-down Chit Card. The seen strategy flips a seen Chit Card that lands its Dragon
+ * on its own Cave first, then one matching the Animal its Dragon is on, the more Animals the better, then an unseen
+ * one, and one that would go past its Cave, a Pirate Dragon or a Knight only when nothing else is left.
+ * --think-millis waits before each answer, to try out the move time.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BotProtocol
+ * @see Arena
+ */
+
+public class ProtocolBot {
+    /**
+     * The score of a Chit Card whose face is not known.
+     */
+    private static final int UNKNOWN = 50;
+    /**
+     * The name the bot gives itself.
+     */
+    private final String name;
+    /**
+     * True for the seen strategy, false for the random one.
+     */
+    private final boolean seen;
+    /**
+     * The milliseconds waited before each answer.
+     */
+    private final long thinkMillis;
+    /**
+     * The random numbers breaking ties.
+     */
+    private final Random random;
+    /**
+     * The games being played, by the number given to the seat.
+     */
+    private final Map<Long, BotGame> botGames;
+
+    /**
+     * ProtocolBot Constructor.
+     * @param name: The name the bot gives itself.
+     * @param seen: True for the seen strategy, false for the random one.
+     * @param thinkMillis: The milliseconds waited before each answer.
+     */
+    public ProtocolBot(String name, boolean seen, long thinkMillis) {
+        this.name = name;
+        this.seen = seen;
+        this.thinkMillis = thinkMillis;
+        this.random = new Random();
+        this.botGames = new HashMap<>();
+    }
+
+    /**
+     * Reads the options and plays until told to quit.
+     * @param args: The options, each a name followed by its value: --name, --strategy and --think-millis.
+     * @throws IOException if the standard input cannot be read.
+     * @throws InterruptedException if the bot is interrupted while thinking.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String name = null;
+        String strategy = "seen";
+        long thinkMillis = 0;
+
+        // Read each option and its value.
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--name" -> name = args[i + 1];
+                case "--strategy" -> strategy = args[i + 1];
+                case "--think-millis" -> thinkMillis = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (!strategy.equals("seen") && !strategy.equals("random")) {
+            throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+        ProtocolBot bot = new ProtocolBot(name == null ? strategy : name, strategy.equals("seen"), thinkMillis);
+        bot.play(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                new PrintWriter(System.out, false, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Answers the lines of the Arena until it says quit or closes the standard input.
+     * @param in: The lines from the Arena.
+     * @param out: The lines to the Arena.
+     * @throws IOException if the lines cannot be read.
+     * @throws InterruptedException if the bot is interrupted while thinking.
+     */
+    public void play(BufferedReader in, PrintWriter out) throws IOException, InterruptedException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] words = line.trim().split(" ");
+            switch (words[0]) {
+                case "fdp" -> {
+                    out.println("id name " + name);
+                    out.println(BotProtocol.READY);
+                    out.flush();
+                }
+                case "newgame" -> botGames.put(Long.parseLong(words[1]), new BotGame(words));
+                case "position" -> {
+                    BotGame botGame = botGames.get(Long.parseLong(words[1]));
+                    if (botGame != null) {
+                        botGame.setPosition(words);
+                    }
+                }
+                case "go" -> {
+                    long game = Long.parseLong(words[1]);
+                    BotGame botGame = botGames.get(game);
+                    if (botGame != null) {
+                        if (thinkMillis > 0) {
+                            Thread.sleep(thinkMillis);
+                        }
+                        out.println(BotProtocol.flip(game, Integer.parseInt(words[2]), choose(botGame)));
+                        out.flush();
+                    }
+                }
+                case "result" -> botGames.remove(Long.parseLong(words[1]));
+                case BotProtocol.QUIT -> {
+                    return;
+                }
+                default -> {
+                    // Any other line is ignored, so later versions of the protocol can add more.
+                }
+            }
+        }
+    }
+
+    /**
+     * Chooses the face-down Chit Card with the best score, breaking ties at random.
+     * @param botGame: The game, at the position last sent.
+     * @return the number of the Chit Card.
+     */
+    private int choose(BotGame botGame) {
+        String animal = botGame.getAnimalUnder(botGame.seat);
+        boolean inCave = botGame.dragons[botGame.seat] >= botGame.squares.length;
+        int stepsHome = botGame.getStepsHome();
+
+        int best = -1, bestScore = Integer.MIN_VALUE, ties = 0;
+        for (int chit = 0; chit < botGame.chits.length; chit++) {
+            String face = botGame.chits[chit];
+            if (face.startsWith("*")) {
+                continue;
+            }
+            int score = seen ? score(botGame, face, animal, inCave, stepsHome) : 0;
+            // Keep the best score, choosing evenly among equal ones.
+            if (score > bestScore) {
+                best = chit;
+                bestScore = score;
+                ties = 1;
+            }
+            else if (score == bestScore && random.nextInt(++ties) == 0) {
+                best = chit;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores a face-down Chit Card for the seen strategy.
+     * @param botGame: The game, at the position last sent.
+     * @param face: The Chit Card as given in the position: "?" or its face, such as "BA2".
+     * @param animal: The Animal the Dragon is on.
+     * @param inCave: True if the Dragon is in a Cave.
+     * @param stepsHome: The Animals that land the Dragon on its own Cave, or -1 if it has not passed its Cave.
+     * @return higher for better Chit Cards: a winning match, then matches moving to a free Square with more Animals,
+     *         then unseen ones, then the others.
+     */
+    private static int score(BotGame botGame, String face, String animal, boolean inCave, int stepsHome) {
+        if (face.equals("?")) {
+            return UNKNOWN;
+        }
+        String kind = face.substring(0, 2);
+        int value = Integer.parseInt(face.substring(2));
+        if (kind.equals(animal)) {
+            if (stepsHome >= 0 && value >= stepsHome) {
+                // Going past the Cave ends the turn without moving, like a Chit Card that does not match.
+                return (value == stepsHome) ? 1000 : 0;
+            }
+            // An attack stuns the other Dragon but ends the turn without moving.
+            return botGame.isTaken(value) ? 5 : 100 + value;
+        }
+        boolean backward = kind.equals("PD") || kind.equals("KN");
+        if (backward && inCave) {
+            return 10;
+        }
+        return backward ? -10 - value : 0;
+    }
+
+    /**
+     * A class representing one seat of a game the bot is playing, as the protocol describes it.
+     */
+    private static final class BotGame {
+        /**
+         * The seat the bot plays.
+         */
+        final int seat;
+        /**
+         * The Animal on each Square.
+         */
+        final String[] squares;
+        /**
+         * The Animal in each Cave.
+         */
+        final String[] caves;
+        /**
+         * The Square each Cave is joined to.
+         */
+        final int[] caveSquares;
+        /**
+         * The home Cave of the bot's Dragon.
+         */
+        final int home;
+        /**
+         * The path entry of each Dragon, at the position last sent.
+         */
+        int[] dragons;
+        /**
+         * A boolean denoting if the bot's Dragon has passed its Cave, at the position last sent.
+         */
+        boolean passed;
+        /**
+         * Each Chit Card as given at the position last sent.
+         */
+        String[] chits;
+
+        /**
+         * BotGame Constructor.
+         * @param words: The words of the newgame line.
+         */
+        BotGame(String[] words) {
+            this.seat = Integer.parseInt(words[2]);
+            Map<String, String> lists = readLists(words, 5);
+            this.squares = lists.get("squares").split(",");
+            String[] caveList = lists.get("caves").split(",");
+            this.caves = new String[caveList.length];
+            this.caveSquares = new int[caveList.length];
+            for (int cave = 0; cave < caveList.length; cave++) {
+                // Each Cave is its Animal and the Square it is joined to.
+                int at = caveList[cave].indexOf('@');
+                caves[cave] = caveList[cave].substring(0, at);
+                caveSquares[cave] = Integer.parseInt(caveList[cave].substring(at + 1));
+            }
+            this.home = Integer.parseInt(lists.get("homes").split(",")[seat]);
+        }
+
+        /**
+         * Takes in a position line.
+         * @param words: The words of the position line.
+         */
+        void setPosition(String[] words) {
+            Map<String, String> lists = readLists(words, 3);
+            String[] entries = lists.get("dragons").split(",");
+            dragons = new int[entries.length];
+            for (int player = 0; player < entries.length; player++) {
+                dragons[player] = Integer.parseInt(entries[player]);
+            }
+            passed = lists.get("passed").split(",")[seat].equals("1");
+            chits = lists.get("chits").split(",");
+        }
+
+        /**
+         * Checks whether another Dragon is on the Square the bot's Dragon would land on. The Square is one for each
+         * Animal clockwise from the Dragon's Square, or from the Square its Cave is joined to, counting that Square.
+         * @param steps: The number of Animals on the Chit Card.
+         * @return True if the move would attack another Dragon.
+         */
+        boolean isTaken(int steps) {
+            int entry = dragons[seat];
+            int from = (entry < squares.length) ? entry : caveSquares[entry - squares.length] - 1;
+            int landing = (from + steps) % squares.length;
+            for (int player = 0; player < dragons.length; player++) {
+                if (player != seat && dragons[player] == landing) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Counts the Animals that land the bot's Dragon on its own Cave: one for each Square clockwise up to the
+         * Square its Cave is joined to, and one more to go in. Other Caves are walked around at no cost.
+         * @return the number of Animals, or -1 if the Dragon has not passed its Cave and so cannot go home yet.
+         */
+        int getStepsHome() {
+            int entry = dragons[seat];
+            if (!passed || entry >= squares.length) {
+                return -1;
+            }
+            return (caveSquares[home] - entry + squares.length) % squares.length + 1;
+        }
+
+        /**
+         * A method to return the Animal a Dragon is on.
+         * @param player: The Dragon.
+         * @return the Animal of its Square or Cave, as written on the Chit Cards.
+         */
+        String getAnimalUnder(int player) {
+            int entry = dragons[player];
+            return (entry < squares.length) ? squares[entry] : caves[entry - squares.length];
+        }
+
+        /**
+         * Reads the named lists of a line, each a name followed by its list.
+         * @param words: The words of the line.
+         * @param from: The first word naming a list.
+         * @return each list, by its name.
+         */
+        private static Map<String, String> readLists(String[] words, int from) {
+            Map<String, String> lists = new HashMap<>();
+            for (int i = from; i + 1 < words.length; i += 2) {
+                lists.put(words[i], words[i + 1]);
+            }
+            return lists;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.fierydragon.bots;
+
+import com.fierydragon.engine.GameState;
+
+import java.util.Random;
+
+/**
+ * An interface for a bot that chooses which Chit Card to flip in a game played without the UI.
+ * A policy only sees what a player at the table could see: the board, the Dragons and the faces of the Chit Cards
+ * that have been flipped during the game. It must not keep any state of its own between calls, so one policy can play
+ * many games at once.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameState
+ */
+
+public interface ChitPolicy {
+
+    /**
+     * A method to return the name of the policy, as shown in tournament results.
+     * @return the name of the policy.
+     */
+    String getName();
+
+    /**
+     * Chooses a face-down Chit Card for the Dragon whose turn it is. Must be implemented by any class that implements
+     * this interface.
+     * @param state: The game being played.
+     * @param random: The Random of this seat in this game, used for any random choice.
+     * @return the number of a face-down Chit Card.
+     */
+    int choose(GameState state, Random random);
+
+}
@@ -0,0 +1,118 @@
+package com.fierydragon.bots;
+
+import com.fierydragon.engine.ChitDeck;
+import com.fierydragon.engine.GameState;
+
+import java.util.Random;
+
+/**
+ * A bot that remembers the faces of Chit Cards flipped earlier in the game, each time recalling any one of them with
+ * a chance set by its recall. It flips a remembered match that lands it on its own Cave first, then a remembered
+ * match with the most Animals that moves it to a free Square, then an unknown Chit Card, and only flips a Chit Card
+ * it knows is bad, such as one that would go past its Cave or attack another Dragon, when nothing else is left.
+ * Policies with different recalls make a field of bots of different strength for tournaments.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see ChitPolicy
+ */
+
+public class MemoryPolicy implements ChitPolicy {
+    /**
+     * The score of a Chit Card whose face is not known.
+     */
+    private static final int UNKNOWN = 50;
+    /**
+     * The chance of recalling the face of a Chit Card seen earlier, from 0 to 1.
+     */
+    private final double recall;
+    /**
+     * The name of the policy.
+     */
+    private final String name;
+
+    /**
+     * MemoryPolicy Constructor.
+     * @param recall: The chance of recalling the face of a Chit Card seen earlier, from 0 to 1.
+     */
+    public MemoryPolicy(double recall) {
+        if (recall < 0 || recall > 1) {
+            throw new IllegalArgumentException("Recall should be between 0 and 1");
+        }
+        this.recall = recall;
+        this.name = String.format("memory-%03d", Math.round(recall * 100));
+    }
+
+    /**
+     * The overridden getName method.
+     * @return the name of the policy.
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The overridden choose method, flipping the face-down Chit Card with the best score and breaking ties at random.
+     * @param state: The game being played.
+     * @param random: The Random of this seat in this game.
+     * @return the number of a face-down Chit Card.
+     */
+    @Override
+    public int choose(GameState state, Random random) {
+        int player = state.getCurrent();
+        int animal = state.getAnimalUnder(player);
+        boolean inCave = state.isInCave(player);
+
+        int best = -1, bestScore = Integer.MIN_VALUE, ties = 0;
+        for (int chit = 0; chit < state.getNumChits(); chit++) {
+            if (state.isFlipped(chit)) {
+                continue;
+            }
+            boolean remembered = state.isRevealed(chit) && random.nextDouble() < recall;
+            int score = remembered ? score(state, player, state.getRevealedKind(chit), state.getRevealedValue(chit), animal, inCave) : UNKNOWN;
+            // Keep the best score, choosing evenly among equal ones.
+            if (score > bestScore) {
+                best = chit;
+                bestScore = score;
+                ties = 1;
+            }
+            else if (score == bestScore && random.nextInt(++ties) == 0) {
+                best = chit;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores a remembered Chit Card.
+     * @param state: The game being played.
+     * @param player: The Dragon whose turn it is.
+     * @param kind: The kind of the Chit Card.
+     * @param value: The number of things on it.
+     * @param animal: The Animal the Dragon is on.
+     * @param inCave: True if the Dragon is in a Cave.
+     * @return higher for better Chit Cards: a winning match, then matches moving to a free Square above unknown ones,
+     *         then harmless ones, then attacks, then those ending the turn, then those moving the Dragon back.
+     */
+    private static int score(GameState state, int player, int kind, int value, int animal, boolean inCave) {
+        if (kind == animal) {
+            int landing = state.getForwardLanding(player, value);
+            // Going past the Cave ends the turn without moving, like a Chit Card that does not match.
+            if (landing == GameState.NOBODY) {
+                return 0;
+            }
+            if (landing == state.getTopology().getNumSquares() + state.getHomeCave(player)) {
+                return 1000;
+            }
+            // An attack stuns the other Dragon but ends the turn without moving.
+            return (state.getOccupant(landing) != GameState.NOBODY) ? 5 : 100 + value;
+        }
+        boolean backward = kind == ChitDeck.PIRATE_DRAGON || kind == ChitDeck.KNIGHT;
+        if (backward && inCave) {
+            return 10;
+        }
+        return backward ? -10 - value : 0;
+    }
+}
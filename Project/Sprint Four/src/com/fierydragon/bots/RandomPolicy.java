@@ -0,0 +1,54 @@
+package com.fierydragon.bots;
+
+import com.fierydragon.engine.GameState;
+
+import java.util.Random;
+
+/**
+ * A bot that flips a face-down Chit Card at random, like a player who remembers nothing.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see ChitPolicy
+ */
+
+public class RandomPolicy implements ChitPolicy {
+
+    /**
+     * The overridden getName method.
+     * @return the name of the policy.
+     */
+    @Override
+    public String getName() {
+        return "random";
+    }
+
+    /**
+     * The overridden choose method, choosing uniformly among the face-down Chit Cards.
+     * @param state: The game being played.
+     * @param random: The Random of this seat in this game.
+     * @return the number of a face-down Chit Card.
+     */
+    @Override
+    public int choose(GameState state, Random random) {
+        return pickFaceDown(state, random);
+    }
+
+    /**
+     * Picks a face-down Chit Card uniformly at random.
+     * @param state: The game being played.
+     * @param random: The Random used to pick.
+     * @return the number of a face-down Chit Card.
+     */
+    static int pickFaceDown(GameState state, Random random) {
+        int numFaceDown = state.getNumChits() - state.getNumFlipped();
+        int pick = random.nextInt(numFaceDown);
+        for (int chit = 0; chit < state.getNumChits(); chit++) {
+            if (!state.isFlipped(chit) && pick-- == 0) {
+                return chit;
+            }
+        }
+        throw new IllegalStateException("Every Chit Card is face up");
+    }
+}
@@ -1,7 +1,7 @@
 package com.fierydragon.components;
 
 import com.fierydragon.display.Displayable;
-import com.fierydragon.pieces.Dragon;
+import com.fierydragon.engine.ChitDeck;
 import com.fierydragon.utils.Constants;
 import com.fierydragon.utils.TurnManager;
 import javafx.scene.layout.GridPane;
@@ -20,6 +20,7 @@ import javafx.scene.text.Text;
  * @see UIComponent
  * @see Constants
  * @see Interactable
+ * @see ChitDeck
  */
 
 public class ChitCard extends UIComponent implements Interactable {
@@ -32,9 +33,17 @@ public class ChitCard extends UIComponent implements Interactable {
      */
     private int numOfDisplayables;
     /**
-     * The boolean indicating if the card has been flipped or not.
+     * The boolean indicating if the card has been flipped or not, used until the card joins a ChitDeck.
      */
     private boolean flipped = false;
+    /**
+     * The ChitDeck holding the face and flipped state of the card, or null if it has not joined one yet.
+     */
+    private ChitDeck deck;
+    /**
+     * The number of the card in its ChitDeck.
+     */
+    private int deckIndex;
     /**
      * The Text of the ChitCard.
      */
@@ -57,22 +66,26 @@ public class ChitCard extends UIComponent implements Interactable {
 
     /**
      * Overridden interact method.
-     * Will use the TurnManager to get the current Dragon and call its move method.
+     * Asks the TurnManager to flip the Chit Card. The flip is carried out on the next tick of its GameLoop, which turns
+     * it away if the turn is changing, the game is over or the Chit Card has been flipped in the meantime. When the
+     * game is played on a server, the flip is sent there first.
      * @param grid: The ChitCard GridPane object.
      */
     @Override
     public void interact(GridPane grid) {
-        // Do not do anything if the Chit Card is already flipped or if the game is paused.
-        if (isFlipped() || TurnManager.getInstance().isPaused()) {
+        // Do not ask again for a Chit Card that is already flipped.
+        if (isFlipped()) {
             return;
         }
-        // Set the flipped variable to true and make the text visible.
+        TurnManager.getInstance().requestFlip(getDeckIndex());
+    }
+
+    /**
+     * Turns the Chit Card face up, setting the flipped variable to true and making the text visible.
+     */
+    public void reveal() {
         text.setVisible(true);
         setFlipped(true);
-
-        // Get the current Dragon from Turn Manager and invoke its move method.
-        Dragon currentDragon = TurnManager.getInstance().getCurrentDragon();
-        currentDragon.move(this);
     }
 
     /**
@@ -174,6 +187,8 @@ public class ChitCard extends UIComponent implements Interactable {
                     break;
             }
         }
+        // Give the ChitDeck the loaded face, as the Displayable was changed in place.
+        refreshFace();
     }
 
     /**
@@ -197,7 +212,44 @@ public class ChitCard extends UIComponent implements Interactable {
      * @return the boolean indicating if the ChitCard is flipped or not.
      */
     public boolean isFlipped() {
-        return flipped;
+        return (deck != null) ? deck.isFlipped(deckIndex) : flipped;
+    }
+
+    /**
+     * A method to return the deck data attribute.
+     * @return the ChitDeck holding the face and flipped state of the card, or null if it has not joined one.
+     */
+    public ChitDeck getDeck() {
+        return deck;
+    }
+
+    /**
+     * A method to return the deckIndex data attribute.
+     * @return the number of the card in its ChitDeck.
+     */
+    public int getDeckIndex() {
+        return deckIndex;
+    }
+
+    /**
+     * Joins a ChitDeck, which holds the face and flipped state of the card from now on.
+     * @param deck: The ChitDeck to join.
+     * @param deckIndex: The number of the card in the ChitDeck.
+     */
+    public void attach(ChitDeck deck, int deckIndex) {
+        this.deck = deck;
+        this.deckIndex = deckIndex;
+        deck.setFlipped(deckIndex, flipped);
+        refreshFace();
+    }
+
+    /**
+     * Gives the ChitDeck the current face of the card, after its Displayable or number of Displayables changed.
+     */
+    public void refreshFace() {
+        if (deck != null && display != null) {
+            deck.setFace(deckIndex, ChitDeck.face(ChitDeck.kindOf(display.getDisplay()), numOfDisplayables));
+        }
     }
 
     /**
@@ -214,6 +266,7 @@ public class ChitCard extends UIComponent implements Interactable {
      */
     public void setDisplay(Displayable display) {
         this.display = display;
+        refreshFace();
     }
 
 
@@ -223,6 +276,7 @@ public class ChitCard extends UIComponent implements Interactable {
      */
     public void setNumOfDisplayables(int numOfDisplayables) {
         this.numOfDisplayables = numOfDisplayables;
+        refreshFace();
     }
 
     /**
@@ -231,6 +285,9 @@ public class ChitCard extends UIComponent implements Interactable {
      */
     public void setFlipped(boolean flipped) {
         this.flipped = flipped;
+        if (deck != null) {
+            deck.setFlipped(deckIndex, flipped);
+        }
     }
 
     /**
@@ -245,7 +302,7 @@ public class ChitCard extends UIComponent implements Interactable {
      * A method to reset the flipped data attribute to false.
      */
     public void reset() {
-        this.flipped = false;
+        setFlipped(false);
         text.setVisible(false);
     }
 }
@@ -36,6 +36,10 @@ public class ChitCardFactory implements DisplayComponentFactory {
      * An integer representing the maximum number of Knight Chit Cards.
      */
     private int numOfKnights;
+    /**
+     * An integer representing the largest number of Animals on one Animal Chit Card.
+     */
+    private int maxAnimalChitCards;
 
     /**
      * ChitCard Constructor.
@@ -46,10 +50,23 @@ public class ChitCardFactory implements DisplayComponentFactory {
      * @param numOfKnights: The maximum number of Knight Chit Cards available.
      */
     public ChitCardFactory(int maxNumChitCards, int numOfPirates, int numOfKnights) {
+        this(maxNumChitCards, numOfPirates, numOfKnights, Constants.MAX_ANIMAL_CHIT_CARDS);
+    }
+
+    /**
+     * ChitCard Constructor.
+     * Add one Animal Chit Card of each number up to maxAnimalChitCards for every Animal, as given by a board definition.
+     * @param maxNumChitCards: The maximum number of Chit Cards available.
+     * @param numOfPirates: The maximum number of Pirate Chit Cards available.
+     * @param numOfKnights: The maximum number of Knight Chit Cards available.
+     * @param maxAnimalChitCards: The largest number of Animals on one Animal Chit Card.
+     */
+    public ChitCardFactory(int maxNumChitCards, int numOfPirates, int numOfKnights, int maxAnimalChitCards) {
         // Set the instance variables of the ChitCardFactory.
         setMaxNumChitCards(maxNumChitCards);
         setNumOfPirates(numOfPirates);
         setNumOfKnights(numOfKnights);
+        setMaxAnimalChitCards(maxAnimalChitCards);
     }
 
     /**
@@ -63,7 +80,7 @@ public class ChitCardFactory implements DisplayComponentFactory {
         // Add all the Animal Chit Cards.
         for (CreationStrategy creationStrategy : creationStrategies) {
             // Will add in 1, 2, ... up to the maximum allowed of animals on a chit card.
-            for (int j = 1; j <= Constants.MAX_ANIMAL_CHIT_CARDS; j++) {
+            for (int j = 1; j <= maxAnimalChitCards; j++) {
                 // Call the createDisplayComponent in creationStrategy to create the specific Displayable on the Chit Card.
                 // Add it to the chitCards list to be returned.
                 chitCards.add(new ChitCard(Color.GREY, "Grey", creationStrategy.createDisplayComponent(), j));
@@ -97,6 +114,14 @@ public class ChitCardFactory implements DisplayComponentFactory {
         return numOfKnights;
     }
 
+    /**
+     * A method to return the maxAnimalChitCards data attribute.
+     * @return the largest number of Animals on one Animal Chit Card.
+     */
+    public int getMaxAnimalChitCards() {
+        return maxAnimalChitCards;
+    }
+
     /**
      * A method to set the maxNumChitCards data attribute.
      * @param maxNumChitCards: The maximum number of Chit Cards available.
@@ -121,6 +146,14 @@ public class ChitCardFactory implements DisplayComponentFactory {
         this.numOfKnights = numOfKnights;
     }
 
+    /**
+     * A method to set the maxAnimalChitCards data attribute.
+     * @param maxAnimalChitCards: The largest number of Animals on one Animal Chit Card.
+     */
+    public void setMaxAnimalChitCards(int maxAnimalChitCards) {
+        this.maxAnimalChitCards = maxAnimalChitCards;
+    }
+
     /**
      * Returns the instance of the chitCardFactory stored as a data attribute.
      * If one has not been created yet, create a new instance of chitCardFactory.
@@ -1,6 +1,7 @@
 package com.fierydragon.display.creations;
 
 import com.fierydragon.display.animals.Animal;
+import com.fierydragon.engine.AnimalType;
 
 /**
  * Strategy Design Pattern to create the Animal.
@@ -19,4 +20,18 @@ public abstract class AnimalCreationStrategy implements CreationStrategy {
      */
     @Override
     public abstract Animal createDisplayComponent();
+
+    /**
+     * Gets the Creation Strategy that creates the given kind of Animal.
+     * @param animalType: The kind of Animal to create.
+     * @return a new Creation Strategy for the Animal.
+     */
+    public static AnimalCreationStrategy forType(AnimalType animalType) {
+        return switch (animalType) {
+            case BABY_DRAGON -> new BabyDragonCreationStrategy();
+            case BAT -> new BatCreationStrategy();
+            case SALAMANDER -> new SalamanderCreationStrategy();
+            case SPIDER -> new SpiderCreationStrategy();
+        };
+    }
 }
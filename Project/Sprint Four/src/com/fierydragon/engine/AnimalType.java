@@ -0,0 +1,83 @@
+package com.fierydragon.engine;
+
+/**
+ * Enum class that depicts the kinds of Animals found on the Volcano Squares and the Caves, without anything to display
+ * them, so that boards can be generated and played without the UI.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BoardTopology
+ */
+
+public enum AnimalType {
+    BABY_DRAGON("BD", "Baby Dragon"),
+    BAT("BA", "Bat"),
+    SALAMANDER("SA", "Salamander"),
+    SPIDER("SP", "Spider");
+
+    /**
+     * The string representing the Animal on the Game Board and the Chit Cards.
+     */
+    private final String display;
+    /**
+     * The name of the Animal.
+     */
+    private final String animalName;
+
+    /**
+     * AnimalType Constructor.
+     * @param display: The string representing the Animal on the Game Board and the Chit Cards.
+     * @param animalName: The name of the Animal.
+     */
+    AnimalType(String display, String animalName) {
+        this.display = display;
+        this.animalName = animalName;
+    }
+
+    /**
+     * A method to return the display data attribute.
+     * @return the string representing the Animal on the Game Board and the Chit Cards.
+     */
+    public String getDisplay() {
+        return display;
+    }
+
+    /**
+     * A method to return the animalName data attribute.
+     * @return the name of the Animal.
+     */
+    public String getAnimalName() {
+        return animalName;
+    }
+
+    /**
+     * Finds the AnimalType with the given name.
+     * @param animalName: The name of the Animal, as shown by its Displayable.
+     * @return the matching AnimalType.
+     * @throws IllegalArgumentException if no AnimalType has the name.
+     */
+    public static AnimalType fromName(String animalName) {
+        for (AnimalType animalType : values()) {
+            if (animalType.animalName.equals(animalName)) {
+                return animalType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Animal " + animalName);
+    }
+
+    /**
+     * Finds the AnimalType shown by the given string, such as "BD" for the Baby Dragon.
+     * @param display: The string representing the Animal on the Game Board.
+     * @return the matching AnimalType.
+     * @throws IllegalArgumentException if no AnimalType is shown by the string.
+     */
+    public static AnimalType fromDisplay(String display) {
+        for (AnimalType animalType : values()) {
+            if (animalType.display.equalsIgnoreCase(display)) {
+                return animalType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Animal " + display);
+    }
+}
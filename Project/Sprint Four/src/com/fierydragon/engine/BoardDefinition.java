@@ -0,0 +1,299 @@
+package com.fierydragon.engine;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A class representing a board definition file as it was read: the Volcano Cards or the size of a generated Volcano,
+ * the Caves and the Chit Card deck. Definition files use the properties format, for example:
+ * <pre>
+ * name=Standard
+ * squaresPerCard=3
+ * cut.1=BD BA SP
+ * uncut.1=SP BA SA
+ * cave.1=SA Red LIGHTCORAL
+ * shuffle=true
+ * chit.maxAnimals=3
+ * chit.pirates=4
+ * chit.knights=1
+ * </pre>
+ * Numbered keys are read from 1 until one is missing. Instead of listing the Volcano Cards, "cards" can be set to
+ * generate a Volcano of that many Volcano Cards with the Animals shared out at random each game.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see CompiledLayout
+ * @see LayoutCache
+ */
+
+public class BoardDefinition {
+    /**
+     * The name of the board.
+     */
+    private final String name;
+    /**
+     * The number of Squares on each Volcano Card.
+     */
+    private final int squaresPerCard;
+    /**
+     * The Animals on each cut Volcano Card, as the ordinals of their AnimalType.
+     */
+    private final List<byte[]> cutCards;
+    /**
+     * The Animals on each uncut Volcano Card, as the ordinals of their AnimalType.
+     */
+    private final List<byte[]> uncutCards;
+    /**
+     * The number of Volcano Cards to generate, or 0 if the Volcano Cards are listed.
+     */
+    private final int generatedCards;
+    /**
+     * The Animal in each Cave, as the ordinal of its AnimalType.
+     */
+    private final List<Byte> caveAnimals;
+    /**
+     * The name of the colour of each Cave, such as "Red".
+     */
+    private final List<String> caveColourNames;
+    /**
+     * The colour of each Cave as a web colour, such as "LIGHTCORAL" or "#F08080".
+     */
+    private final List<String> caveColours;
+    /**
+     * A boolean denoting if the Volcano Cards and Caves are shuffled each game.
+     */
+    private final boolean shuffle;
+    /**
+     * The largest number of Animals on one Chit Card. Each Animal has one Chit Card of each number up to it.
+     */
+    private final int maxAnimalChitCards;
+    /**
+     * The number of Pirate Dragon Chit Cards.
+     */
+    private final int numPirates;
+    /**
+     * The number of Knight Chit Cards.
+     */
+    private final int numKnights;
+
+    /**
+     * BoardDefinition Constructor.
+     * Reads the definition from the text of a definition file.
+     * @param text: The text of the definition file.
+     * @throws IllegalArgumentException if the definition is missing something or cannot be read.
+     */
+    public BoardDefinition(String text) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(text));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("The board definition cannot be read", e);
+        }
+
+        this.name = properties.getProperty("name", "Unnamed").trim();
+        this.squaresPerCard = readInt(properties, "squaresPerCard", 3);
+        this.generatedCards = readInt(properties, "cards", 0);
+        this.shuffle = Boolean.parseBoolean(properties.getProperty("shuffle", "true").trim());
+        this.maxAnimalChitCards = readInt(properties, "chit.maxAnimals", 3);
+        this.numPirates = readInt(properties, "chit.pirates", 4);
+        this.numKnights = readInt(properties, "chit.knights", 1);
+
+        // Read the numbered Volcano Cards.
+        this.cutCards = readCards(properties, "cut.");
+        this.uncutCards = readCards(properties, "uncut.");
+
+        // Read the numbered Caves, each an Animal, a colour name and a colour.
+        this.caveAnimals = new ArrayList<>();
+        this.caveColourNames = new ArrayList<>();
+        this.caveColours = new ArrayList<>();
+        for (int i = 1; properties.containsKey("cave." + i); i++) {
+            String[] parts = properties.getProperty("cave." + i).trim().split("\\s+");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("cave." + i + " should be an Animal, a colour name and a colour");
+            }
+            caveAnimals.add((byte) AnimalType.fromDisplay(parts[0]).ordinal());
+            caveColourNames.add(parts[1]);
+            caveColours.add(parts[2]);
+        }
+
+        checkDefinition();
+    }
+
+    /**
+     * Reads a whole number from the definition.
+     * @param properties: The properties of the definition.
+     * @param key: The key of the number.
+     * @param defaultValue: The number to use if the key is missing.
+     * @return the number.
+     * @throws IllegalArgumentException if the value is not a whole number.
+     */
+    private static int readInt(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " should be a whole number", e);
+        }
+    }
+
+    /**
+     * Reads the numbered Volcano Cards starting with the given prefix, each a list of Animals.
+     * @param properties: The properties of the definition.
+     * @param prefix: The prefix of the keys, such as "cut.".
+     * @return the Animals on each Volcano Card, as the ordinals of their AnimalType.
+     */
+    private static List<byte[]> readCards(Properties properties, String prefix) {
+        List<byte[]> cards = new ArrayList<>();
+        for (int i = 1; properties.containsKey(prefix + i); i++) {
+            String[] animals = properties.getProperty(prefix + i).trim().split("\\s+");
+            byte[] card = new byte[animals.length];
+            for (int j = 0; j < animals.length; j++) {
+                card[j] = (byte) AnimalType.fromDisplay(animals[j]).ordinal();
+            }
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    /**
+     * Checks that the definition describes a board that can be laid out.
+     * @throws IllegalArgumentException if it does not.
+     */
+    private void checkDefinition() {
+        if (caveAnimals.isEmpty()) {
+            throw new IllegalArgumentException(name + " has no Caves");
+        }
+        if (maxAnimalChitCards < 1 || numPirates < 0 || numKnights < 0) {
+            throw new IllegalArgumentException(name + " has an empty Chit Card deck");
+        }
+        // A generated Volcano must not list any Volcano Cards.
+        if (generatedCards > 0) {
+            if (!cutCards.isEmpty() || !uncutCards.isEmpty()) {
+                throw new IllegalArgumentException(name + " cannot both list and generate its Volcano Cards");
+            }
+            return;
+        }
+        // A listed Volcano needs one cut Volcano Card for each Cave, all of the same size.
+        if (cutCards.size() != caveAnimals.size()) {
+            throw new IllegalArgumentException(name + " has " + cutCards.size() + " cut Volcano Cards for " + caveAnimals.size() + " Caves");
+        }
+        for (byte[] card : getCards()) {
+            if (card.length != squaresPerCard) {
+                throw new IllegalArgumentException(name + " has a Volcano Card without " + squaresPerCard + " Squares");
+            }
+        }
+    }
+
+    /**
+     * A method to return every listed Volcano Card, the cut ones first.
+     * @return the Animals on each Volcano Card.
+     */
+    private List<byte[]> getCards() {
+        List<byte[]> cards = new ArrayList<>(cutCards);
+        cards.addAll(uncutCards);
+        return cards;
+    }
+
+    /**
+     * A method to return the name data attribute.
+     * @return the name of the board.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * A method to return the squaresPerCard data attribute.
+     * @return the number of Squares on each Volcano Card.
+     */
+    public int getSquaresPerCard() {
+        return squaresPerCard;
+    }
+
+    /**
+     * A method to return the cutCards data attribute.
+     * @return the Animals on each cut Volcano Card.
+     */
+    public List<byte[]> getCutCards() {
+        return cutCards;
+    }
+
+    /**
+     * A method to return the uncutCards data attribute.
+     * @return the Animals on each uncut Volcano Card.
+     */
+    public List<byte[]> getUncutCards() {
+        return uncutCards;
+    }
+
+    /**
+     * A method to return the generatedCards data attribute.
+     * @return the number of Volcano Cards to generate, or 0 if the Volcano Cards are listed.
+     */
+    public int getGeneratedCards() {
+        return generatedCards;
+    }
+
+    /**
+     * A method to return the caveAnimals data attribute.
+     * @return the Animal in each Cave.
+     */
+    public List<Byte> getCaveAnimals() {
+        return caveAnimals;
+    }
+
+    /**
+     * A method to return the caveColourNames data attribute.
+     * @return the name of the colour of each Cave.
+     */
+    public List<String> getCaveColourNames() {
+        return caveColourNames;
+    }
+
+    /**
+     * A method to return the caveColours data attribute.
+     * @return the colour of each Cave as a web colour.
+     */
+    public List<String> getCaveColours() {
+        return caveColours;
+    }
+
+    /**
+     * A method to check the shuffle data attribute.
+     * @return True if the Volcano Cards and Caves are shuffled each game.
+     */
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    /**
+     * A method to return the maxAnimalChitCards data attribute.
+     * @return the largest number of Animals on one Chit Card.
+     */
+    public int getMaxAnimalChitCards() {
+        return maxAnimalChitCards;
+    }
+
+    /**
+     * A method to return the numPirates data attribute.
+     * @return the number of Pirate Dragon Chit Cards.
+     */
+    public int getNumPirates() {
+        return numPirates;
+    }
+
+    /**
+     * A method to return the numKnights data attribute.
+     * @return the number of Knight Chit Cards.
+     */
+    public int getNumKnights() {
+        return numKnights;
+    }
+}
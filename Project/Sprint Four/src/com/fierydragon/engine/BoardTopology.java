@@ -0,0 +1,508 @@
+package com.fierydragon.engine;
+
+import com.fierydragon.utils.Constants;
+
+import java.util.Arrays;
+
+/**
+ * An immutable class representing the shape of a Volcano: where each Square and Cave is, which Animal each one shows
+ * and the order the Dragons move along them. Everything is held in flat arrays so that boards of thousands of Squares
+ * can be built, checked and played without the UI.
+ * Squares are numbered clockwise around the ring from 0, and Caves are numbered in the order of their Squares.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see AnimalType
+ * @see VolcanoGenerator
+ */
+
+public final class BoardTopology {
+    /**
+     * Every AnimalType, looked up by ordinal.
+     */
+    private static final AnimalType[] ANIMAL_TYPES = AnimalType.values();
+    /**
+     * The number of Volcano Cards.
+     */
+    private final int numCards;
+    /**
+     * The number of Squares on each Volcano Card.
+     */
+    private final int squaresPerCard;
+    /**
+     * The x and y coordinates of each Square.
+     */
+    private final int[] squareX, squareY;
+    /**
+     * The Animal on each Square, as the ordinal of its AnimalType.
+     */
+    private final byte[] squareAnimals;
+    /**
+     * The Square each Cave is joined to.
+     */
+    private final int[] caveSquare;
+    /**
+     * The x and y coordinates of each Cave.
+     */
+    private final int[] caveX, caveY;
+    /**
+     * The Animal in each Cave, as the ordinal of its AnimalType.
+     */
+    private final byte[] caveAnimals;
+    /**
+     * The Cave joined to each Square, or -1 if it has none.
+     */
+    private final int[] caveAt;
+    /**
+     * The order the Dragons move along, in the same way as the DragonSquareIterator. Each Square with a Cave is
+     * followed by its Cave and then by itself again. Squares are stored as their number, and Caves as the number of
+     * Squares plus their own number.
+     */
+    private final int[] path;
+    /**
+     * The first place each Square and Cave appears on the path, indexed in the same way as the path.
+     */
+    private final int[] firstIndex;
+    /**
+     * The smallest and largest coordinates of the Squares, the edges of the ring.
+     */
+    private final int minX, minY, maxX, maxY;
+    /**
+     * A hash of everything above, equal for two boards with the same shape and Animals.
+     */
+    private final long fingerprint;
+
+    /**
+     * BoardTopology Constructor.
+     * The arrays are copied, so they can be reused by the caller.
+     * @param numCards: The number of Volcano Cards.
+     * @param squaresPerCard: The number of Squares on each Volcano Card.
+     * @param squareX: The x-coordinate of each Square.
+     * @param squareY: The y-coordinate of each Square.
+     * @param squareAnimals: The Animal on each Square, as the ordinal of its AnimalType.
+     * @param caveSquare: The Square each Cave is joined to, in clockwise order.
+     * @param caveX: The x-coordinate of each Cave.
+     * @param caveY: The y-coordinate of each Cave.
+     * @param caveAnimals: The Animal in each Cave, as the ordinal of its AnimalType.
+     * @throws IllegalArgumentException if the arrays do not match the number of Squares or Caves, or a Cave is joined
+     *                                  to a missing Square or to the same Square as another Cave.
+     */
+    public BoardTopology(int numCards, int squaresPerCard, int[] squareX, int[] squareY, byte[] squareAnimals,
+                         int[] caveSquare, int[] caveX, int[] caveY, byte[] caveAnimals) {
+        int numSquares = numCards * squaresPerCard;
+        if (squareX.length != numSquares || squareY.length != numSquares || squareAnimals.length != numSquares) {
+            throw new IllegalArgumentException("Expected " + numSquares + " Squares");
+        }
+        if (caveX.length != caveSquare.length || caveY.length != caveSquare.length || caveAnimals.length != caveSquare.length) {
+            throw new IllegalArgumentException("Expected " + caveSquare.length + " Caves");
+        }
+        this.numCards = numCards;
+        this.squaresPerCard = squaresPerCard;
+        this.squareX = squareX.clone();
+        this.squareY = squareY.clone();
+        this.squareAnimals = squareAnimals.clone();
+        this.caveSquare = caveSquare.clone();
+        this.caveX = caveX.clone();
+        this.caveY = caveY.clone();
+        this.caveAnimals = caveAnimals.clone();
+
+        // Join each Square to its Cave.
+        this.caveAt = new int[numSquares];
+        Arrays.fill(caveAt, -1);
+        for (int cave = 0; cave < caveSquare.length; cave++) {
+            int square = caveSquare[cave];
+            if (square < 0 || square >= numSquares || caveAt[square] != -1) {
+                throw new IllegalArgumentException("Cave " + cave + " cannot be joined to Square " + square);
+            }
+            caveAt[square] = cave;
+        }
+
+        // Compile the order the Dragons move along.
+        this.path = new int[numSquares + 2 * caveSquare.length];
+        int index = 0;
+        for (int square = 0; square < numSquares; square++) {
+            path[index++] = square;
+            if (caveAt[square] != -1) {
+                path[index++] = numSquares + caveAt[square];
+                path[index++] = square;
+            }
+        }
+
+        // Remember where each Square and Cave first appears on the path.
+        this.firstIndex = new int[numSquares + caveSquare.length];
+        Arrays.fill(firstIndex, -1);
+        for (int i = 0; i < path.length; i++) {
+            if (firstIndex[path[i]] < 0) {
+                firstIndex[path[i]] = i;
+            }
+        }
+
+        // Find the edges of the ring.
+        int lowX = Integer.MAX_VALUE, lowY = Integer.MAX_VALUE, highX = Integer.MIN_VALUE, highY = Integer.MIN_VALUE;
+        for (int square = 0; square < numSquares; square++) {
+            lowX = Math.min(lowX, squareX[square]);
+            lowY = Math.min(lowY, squareY[square]);
+            highX = Math.max(highX, squareX[square]);
+            highY = Math.max(highY, squareY[square]);
+        }
+        this.minX = lowX;
+        this.minY = lowY;
+        this.maxX = highX;
+        this.maxY = highY;
+
+        this.fingerprint = computeFingerprint();
+    }
+
+    /**
+     * BoardTopology Constructor used to give a board new Animals.
+     * The shape of the board is shared with the given board rather than worked out again.
+     * @param shape: The board to take the shape from.
+     * @param squareAnimals: The Animal on each Square, as the ordinal of its AnimalType.
+     * @param caveAnimals: The Animal in each Cave, as the ordinal of its AnimalType.
+     */
+    private BoardTopology(BoardTopology shape, byte[] squareAnimals, byte[] caveAnimals) {
+        if (squareAnimals.length != shape.getNumSquares() || caveAnimals.length != shape.getNumCaves()) {
+            throw new IllegalArgumentException("Expected " + shape.getNumSquares() + " Squares and " + shape.getNumCaves() + " Caves");
+        }
+        this.numCards = shape.numCards;
+        this.squaresPerCard = shape.squaresPerCard;
+        this.squareX = shape.squareX;
+        this.squareY = shape.squareY;
+        this.squareAnimals = squareAnimals.clone();
+        this.caveSquare = shape.caveSquare;
+        this.caveX = shape.caveX;
+        this.caveY = shape.caveY;
+        this.caveAnimals = caveAnimals.clone();
+        this.caveAt = shape.caveAt;
+        this.path = shape.path;
+        this.firstIndex = shape.firstIndex;
+        this.minX = shape.minX;
+        this.minY = shape.minY;
+        this.maxX = shape.maxX;
+        this.maxY = shape.maxY;
+        this.fingerprint = computeFingerprint();
+    }
+
+    /**
+     * Creates a board of the same shape with different Animals. Only the Animals are copied, so this is much quicker
+     * than laying the board out again.
+     * @param squareAnimals: The Animal on each Square, as the ordinal of its AnimalType.
+     * @param caveAnimals: The Animal in each Cave, as the ordinal of its AnimalType.
+     * @return the new board.
+     */
+    public BoardTopology withAnimals(byte[] squareAnimals, byte[] caveAnimals) {
+        return new BoardTopology(this, squareAnimals, caveAnimals);
+    }
+
+    /**
+     * Checks whether another board has the same shape and Animals as this one, for two boards with the same
+     * fingerprint. Arrays shared by the two boards are not compared.
+     * @param other: The other board.
+     * @return True if the two boards are the same Volcano.
+     */
+    public boolean sameAs(BoardTopology other) {
+        return numCards == other.numCards && squaresPerCard == other.squaresPerCard
+                && Arrays.equals(squareX, other.squareX) && Arrays.equals(squareY, other.squareY)
+                && Arrays.equals(squareAnimals, other.squareAnimals) && Arrays.equals(caveSquare, other.caveSquare)
+                && Arrays.equals(caveX, other.caveX) && Arrays.equals(caveY, other.caveY)
+                && Arrays.equals(caveAnimals, other.caveAnimals);
+    }
+
+    /**
+     * Checks that the board can be played: no two Squares or Caves share a place, each Square is next to the one
+     * before it, each Cave is next to its Square and no Animal is on more Squares than allowed.
+     * A ring with an odd number of Squares cannot close on a grid, so it may skip over one place.
+     * @throws IllegalStateException if the board cannot be played.
+     */
+    public void validate() {
+        int numSquares = getNumSquares();
+        int numCaves = getNumCaves();
+        if (numCaves == 0) {
+            throw new IllegalStateException("The Volcano has no Caves");
+        }
+
+        // No two Squares or Caves may share a place. Sorting the packed places finds any repeat.
+        long[] places = new long[numSquares + numCaves];
+        for (int square = 0; square < numSquares; square++) {
+            places[square] = pack(squareX[square], squareY[square]);
+        }
+        for (int cave = 0; cave < numCaves; cave++) {
+            places[numSquares + cave] = pack(caveX[cave], caveY[cave]);
+        }
+        Arrays.sort(places);
+        for (int i = 1; i < places.length; i++) {
+            if (places[i] == places[i - 1]) {
+                throw new IllegalStateException("Two Squares are placed at (" + (int) (places[i] >> 32) + ", " + (int) places[i] + ")");
+            }
+        }
+
+        // Each Square must be next to the one before it, going all the way round.
+        int numGaps = 0;
+        for (int square = 0; square < numSquares; square++) {
+            int previous = (square + numSquares - 1) % numSquares;
+            int distance = Math.abs(squareX[square] - squareX[previous]) + Math.abs(squareY[square] - squareY[previous]);
+            if (distance != 1) {
+                numGaps++;
+            }
+        }
+        if (numGaps > numSquares % 2) {
+            throw new IllegalStateException("The Volcano Squares do not form a ring");
+        }
+
+        // Each Cave must be next to its Square, including diagonally at a corner.
+        for (int cave = 0; cave < numCaves; cave++) {
+            int square = caveSquare[cave];
+            if (Math.max(Math.abs(caveX[cave] - squareX[square]), Math.abs(caveY[cave] - squareY[square])) != 1) {
+                throw new IllegalStateException("Cave " + cave + " is not next to its Square");
+            }
+        }
+
+        // No Animal may be on more Squares than allowed.
+        int[] numOfAnimals = new int[ANIMAL_TYPES.length];
+        int maxAnimals = getMaxAnimalsPerType();
+        for (byte animal : squareAnimals) {
+            if (++numOfAnimals[animal] > maxAnimals) {
+                throw new IllegalStateException("Too many " + ANIMAL_TYPES[animal].getAnimalName() + " on the Volcano");
+            }
+        }
+    }
+
+    /**
+     * Packs a place into a single long, the x-coordinate in the high half and the y-coordinate in the low half.
+     * @param x: The x-coordinate.
+     * @param y: The y-coordinate.
+     * @return the packed place.
+     */
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the shape and Animals of the board.
+     * @return the fingerprint.
+     */
+    private long computeFingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, numCards);
+        hash = mix(hash, squaresPerCard);
+        for (int square = 0; square < getNumSquares(); square++) {
+            hash = mix(hash, squareX[square]);
+            hash = mix(hash, squareY[square]);
+            hash = mix(hash, squareAnimals[square]);
+        }
+        for (int cave = 0; cave < getNumCaves(); cave++) {
+            hash = mix(hash, caveSquare[cave]);
+            hash = mix(hash, caveX[cave]);
+            hash = mix(hash, caveY[cave]);
+            hash = mix(hash, caveAnimals[cave]);
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes the four bytes of a value into an FNV-1a hash.
+     * @param hash: The hash so far.
+     * @param value: The value to mix in.
+     * @return the new hash.
+     */
+    private static long mix(long hash, int value) {
+        for (int i = 0; i < 4; i++) {
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * A method to return the numCards data attribute.
+     * @return the number of Volcano Cards.
+     */
+    public int getNumCards() {
+        return numCards;
+    }
+
+    /**
+     * A method to return the squaresPerCard data attribute.
+     * @return the number of Squares on each Volcano Card.
+     */
+    public int getSquaresPerCard() {
+        return squaresPerCard;
+    }
+
+    /**
+     * A method to return the number of Squares.
+     * @return the number of Squares around the Volcano.
+     */
+    public int getNumSquares() {
+        return squareX.length;
+    }
+
+    /**
+     * A method to return the number of Caves.
+     * @return the number of Caves.
+     */
+    public int getNumCaves() {
+        return caveSquare.length;
+    }
+
+    /**
+     * A method to return the most Squares any one Animal may be on, with the Animals shared out as evenly as possible.
+     * @return the maximum number of Squares for each Animal.
+     */
+    public int getMaxAnimalsPerType() {
+        return (getNumSquares() + Constants.NUM_ANIMAL_TYPES - 1) / Constants.NUM_ANIMAL_TYPES;
+    }
+
+    /**
+     * A method to return the x-coordinate of a Square.
+     * @param square: The number of the Square.
+     * @return the x-coordinate of the Square.
+     */
+    public int getSquareX(int square) {
+        return squareX[square];
+    }
+
+    /**
+     * A method to return the y-coordinate of a Square.
+     * @param square: The number of the Square.
+     * @return the y-coordinate of the Square.
+     */
+    public int getSquareY(int square) {
+        return squareY[square];
+    }
+
+    /**
+     * A method to return the Animal on a Square.
+     * @param square: The number of the Square.
+     * @return the Animal on the Square.
+     */
+    public AnimalType getSquareAnimal(int square) {
+        return ANIMAL_TYPES[squareAnimals[square]];
+    }
+
+    /**
+     * A method to return the Cave joined to a Square.
+     * @param square: The number of the Square.
+     * @return the number of the Cave, or -1 if the Square has none.
+     */
+    public int getCaveAt(int square) {
+        return caveAt[square];
+    }
+
+    /**
+     * A method to check if a Volcano Card has a Cave joined to one of its Squares.
+     * @param card: The number of the Volcano Card, clockwise from 0.
+     * @return True if the Volcano Card is cut, false otherwise.
+     */
+    public boolean isCutCard(int card) {
+        for (int square = card * squaresPerCard; square < (card + 1) * squaresPerCard; square++) {
+            if (caveAt[square] != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A method to return the Square a Cave is joined to.
+     * @param cave: The number of the Cave.
+     * @return the number of the Square.
+     */
+    public int getCaveSquare(int cave) {
+        return caveSquare[cave];
+    }
+
+    /**
+     * A method to return the x-coordinate of a Cave.
+     * @param cave: The number of the Cave.
+     * @return the x-coordinate of the Cave.
+     */
+    public int getCaveX(int cave) {
+        return caveX[cave];
+    }
+
+    /**
+     * A method to return the y-coordinate of a Cave.
+     * @param cave: The number of the Cave.
+     * @return the y-coordinate of the Cave.
+     */
+    public int getCaveY(int cave) {
+        return caveY[cave];
+    }
+
+    /**
+     * A method to return the Animal in a Cave.
+     * @param cave: The number of the Cave.
+     * @return the Animal in the Cave.
+     */
+    public AnimalType getCaveAnimal(int cave) {
+        return ANIMAL_TYPES[caveAnimals[cave]];
+    }
+
+    /**
+     * A method to return the length of the path data attribute.
+     * @return the number of entries in the order the Dragons move along.
+     */
+    public int getPathLength() {
+        return path.length;
+    }
+
+    /**
+     * A method to return an entry of the path data attribute.
+     * @param index: The index in the order the Dragons move along.
+     * @return the number of the Square, or the number of Squares plus the number of the Cave.
+     */
+    public int getPathEntry(int index) {
+        return path[index];
+    }
+
+    /**
+     * A method to return an entry of the firstIndex data attribute.
+     * @param entry: The number of the Square, or the number of Squares plus the number of the Cave.
+     * @return the first index in the order the Dragons move along at which the entry appears.
+     */
+    public int getFirstIndex(int entry) {
+        return firstIndex[entry];
+    }
+
+    /**
+     * A method to return the minX data attribute.
+     * @return the smallest x-coordinate of the Squares.
+     */
+    public int getMinX() {
+        return minX;
+    }
+
+    /**
+     * A method to return the minY data attribute.
+     * @return the smallest y-coordinate of the Squares.
+     */
+    public int getMinY() {
+        return minY;
+    }
+
+    /**
+     * A method to return the maxX data attribute.
+     * @return the largest x-coordinate of the Squares.
+     */
+    public int getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * A method to return the maxY data attribute.
+     * @return the largest y-coordinate of the Squares.
+     */
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * A method to return the fingerprint data attribute.
+     * @return a hash equal for two boards with the same shape and Animals.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+}
@@ -0,0 +1,358 @@
+package com.fierydragon.engine;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A class representing the Chit Card deck without anything to display it. The face of each Chit Card is one byte,
+ * holding its kind and the number of things on it, and which Chit Cards are flipped is kept as a bitset, so flipping a
+ * Chit Card is setting one bit and turning the whole deck face down is clearing a few words.
+ * A mask of the Chit Cards with each face and each kind is kept up to date as well, so questions such as how many
+ * face-down Chit Cards show two Bats are answered with a handful of bit counts, for bots and hints. The masks are only
+ * built the first time such a question is asked, so a game that is never asked one, such as a game hosted by the
+ * server, does not carry them.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see AnimalType
+ */
+
+public final class ChitDeck {
+    /**
+     * The kind of a Pirate Dragon Chit Card. The Animal Chit Cards use the ordinal of their AnimalType as their kind.
+     */
+    public static final int PIRATE_DRAGON = 4;
+    /**
+     * The kind of a Knight Chit Card.
+     */
+    public static final int KNIGHT = 5;
+    /**
+     * The number of kinds of Chit Card.
+     */
+    public static final int NUM_KINDS = 6;
+    /**
+     * The number of bits of a face holding the number of things on the Chit Card.
+     */
+    private static final int VALUE_BITS = 4;
+    /**
+     * The largest number of things on one Chit Card.
+     */
+    public static final int MAX_VALUE = (1 << VALUE_BITS) - 1;
+    /**
+     * The face of each Chit Card, or 0 if it has not been given one yet.
+     */
+    private final byte[] faces;
+    /**
+     * The bits of the Chit Cards that are flipped.
+     */
+    private final long[] flipped;
+    /**
+     * For each face, the bits of the Chit Cards showing it, or null if none has shown it. Null until first counted.
+     */
+    private long[][] faceMasks;
+    /**
+     * For each kind, the bits of the Chit Cards of that kind. Null until first counted.
+     */
+    private long[][] kindMasks;
+    /**
+     * The number of columns of the Chit Card grid.
+     */
+    private final int columns;
+    /**
+     * The number of Chit Cards that are flipped.
+     */
+    private int numFlipped;
+
+    /**
+     * ChitDeck Constructor.
+     * @param size: The number of Chit Cards.
+     * @param columns: The number of columns of the Chit Card grid.
+     */
+    public ChitDeck(int size, int columns) {
+        if (size < 0 || columns < 1) {
+            throw new IllegalArgumentException("A deck of " + size + " Chit Cards cannot have " + columns + " columns");
+        }
+        int words = (size + Long.SIZE - 1) / Long.SIZE;
+        this.faces = new byte[size];
+        this.flipped = new long[words];
+        this.columns = columns;
+    }
+
+    /**
+     * Creates the face of a Chit Card.
+     * @param kind: The kind of the Chit Card, the ordinal of its AnimalType, PIRATE_DRAGON or KNIGHT.
+     * @param value: The number of things on the Chit Card, from 1 to MAX_VALUE.
+     * @return the face.
+     * @throws IllegalArgumentException if the kind or the number is out of range.
+     */
+    public static byte face(int kind, int value) {
+        if (kind < 0 || kind >= NUM_KINDS || value < 1 || value > MAX_VALUE) {
+            throw new IllegalArgumentException("No Chit Card has kind " + kind + " and value " + value);
+        }
+        return (byte) ((kind << VALUE_BITS) | value);
+    }
+
+    /**
+     * Finds the kind of Chit Card shown by the given string, such as "BD" for the Baby Dragon or "PD" for the Pirate
+     * Dragon.
+     * @param display: The string representing the thing on the Chit Card.
+     * @return the kind of the Chit Card.
+     * @throws IllegalArgumentException if no kind is shown by the string.
+     */
+    public static int kindOf(String display) {
+        return switch (display) {
+            case "PD" -> PIRATE_DRAGON;
+            case "KN" -> KNIGHT;
+            default -> AnimalType.fromDisplay(display).ordinal();
+        };
+    }
+
+    /**
+     * Finds the string shown on the Chit Cards of a kind, the reverse of kindOf.
+     * @param kind: The kind of Chit Card.
+     * @return the string representing the thing on the Chit Card, such as "BD" or "PD".
+     * @throws IllegalArgumentException if there is no such kind.
+     */
+    public static String displayOf(int kind) {
+        if (kind < 0 || kind >= NUM_KINDS) {
+            throw new IllegalArgumentException("No Chit Card has kind " + kind);
+        }
+        return switch (kind) {
+            case PIRATE_DRAGON -> "PD";
+            case KNIGHT -> "KN";
+            default -> AnimalType.values()[kind].getDisplay();
+        };
+    }
+
+    /**
+     * Gives a Chit Card its face, keeping the face and kind masks up to date once they are built.
+     * @param index: The number of the Chit Card.
+     * @param face: Its new face.
+     */
+    public void setFace(int index, byte face) {
+        if (faceMasks != null) {
+            addToMasks(index, face);
+        }
+        faces[index] = face;
+    }
+
+    /**
+     * Builds the face and kind masks from the faces of the Chit Cards, the first time they are needed.
+     */
+    private void buildMasks() {
+        faceMasks = new long[NUM_KINDS << VALUE_BITS][];
+        kindMasks = new long[NUM_KINDS][flipped.length];
+        for (int index = 0; index < faces.length; index++) {
+            byte face = faces[index];
+            if (face != 0) {
+                if (faceMasks[face] == null) {
+                    faceMasks[face] = new long[flipped.length];
+                }
+                faceMasks[face][index / Long.SIZE] |= 1L << index;
+                kindMasks[face >>> VALUE_BITS][index / Long.SIZE] |= 1L << index;
+            }
+        }
+    }
+
+    /**
+     * Moves a Chit Card from the masks of its old face to the masks of a new face.
+     * @param index: The number of the Chit Card.
+     * @param face: Its new face.
+     */
+    private void addToMasks(int index, byte face) {
+        int word = index / Long.SIZE;
+        long bit = 1L << index;
+        // Take the Chit Card out of the masks of its old face.
+        byte oldFace = faces[index];
+        if (oldFace != 0) {
+            faceMasks[oldFace][word] &= ~bit;
+            kindMasks[oldFace >>> VALUE_BITS][word] &= ~bit;
+        }
+        // Put it in the masks of its new face.
+        if (faceMasks[face] == null) {
+            faceMasks[face] = new long[flipped.length];
+        }
+        faceMasks[face][word] |= bit;
+        kindMasks[face >>> VALUE_BITS][word] |= bit;
+    }
+
+    /**
+     * Flips a Chit Card face up.
+     * @param index: The number of the Chit Card.
+     * @return True if it was face down.
+     */
+    public boolean flip(int index) {
+        if (isFlipped(index)) {
+            return false;
+        }
+        setFlipped(index, true);
+        return true;
+    }
+
+    /**
+     * A method to set whether a Chit Card is flipped.
+     * @param index: The number of the Chit Card.
+     * @param isFlipped: True if the Chit Card is face up.
+     */
+    public void setFlipped(int index, boolean isFlipped) {
+        int word = index / Long.SIZE;
+        long bit = 1L << index;
+        if (isFlipped == ((flipped[word] & bit) != 0)) {
+            return;
+        }
+        flipped[word] ^= bit;
+        numFlipped += isFlipped ? 1 : -1;
+    }
+
+    /**
+     * A method to check whether a Chit Card is flipped.
+     * @param index: The number of the Chit Card.
+     * @return True if the Chit Card is face up.
+     */
+    public boolean isFlipped(int index) {
+        return (flipped[index / Long.SIZE] & (1L << index)) != 0;
+    }
+
+    /**
+     * Calls the given action with the number of each flipped Chit Card, without visiting the face-down ones.
+     * The action may turn the Chit Cards face down.
+     * @param action: The action to call.
+     */
+    public void forEachFlipped(IntConsumer action) {
+        for (int word = 0; word < flipped.length; word++) {
+            for (long bits = flipped[word]; bits != 0; bits &= bits - 1) {
+                action.accept(word * Long.SIZE + Long.numberOfTrailingZeros(bits));
+            }
+        }
+    }
+
+    /**
+     * Turns every Chit Card face down by clearing the flipped bitset.
+     */
+    public void reset() {
+        Arrays.fill(flipped, 0L);
+        numFlipped = 0;
+    }
+
+    /**
+     * Counts the face-down Chit Cards with a face.
+     * @param kind: The kind of the Chit Cards.
+     * @param value: The number of things on the Chit Cards.
+     * @return the number of face-down Chit Cards of that kind with that number of things on them.
+     */
+    public int countUnflipped(int kind, int value) {
+        if (faceMasks == null) {
+            buildMasks();
+        }
+        long[] mask = faceMasks[face(kind, value)];
+        return (mask == null) ? 0 : countUnflipped(mask);
+    }
+
+    /**
+     * Counts the face-down Chit Cards of a kind.
+     * @param kind: The kind of the Chit Cards.
+     * @return the number of face-down Chit Cards of that kind.
+     */
+    public int countUnflipped(int kind) {
+        if (kindMasks == null) {
+            buildMasks();
+        }
+        return countUnflipped(kindMasks[kind]);
+    }
+
+    /**
+     * Counts the face-down Chit Cards in a mask.
+     * @param mask: The bits of the Chit Cards to count.
+     * @return the number of them that are face down.
+     */
+    private int countUnflipped(long[] mask) {
+        int count = 0;
+        for (int word = 0; word < mask.length; word++) {
+            count += Long.bitCount(mask[word] & ~flipped[word]);
+        }
+        return count;
+    }
+
+    /**
+     * A method to return the number of Chit Cards.
+     * @return the number of Chit Cards in the deck.
+     */
+    public int size() {
+        return faces.length;
+    }
+
+    /**
+     * A method to return the face of a Chit Card.
+     * @param index: The number of the Chit Card.
+     * @return its face, or 0 if it has not been given one.
+     */
+    public byte getFace(int index) {
+        return faces[index];
+    }
+
+    /**
+     * A method to return the kind of a Chit Card.
+     * @param index: The number of the Chit Card.
+     * @return the ordinal of its AnimalType, PIRATE_DRAGON or KNIGHT.
+     */
+    public int getKind(int index) {
+        return faces[index] >>> VALUE_BITS;
+    }
+
+    /**
+     * A method to return the number of things on a Chit Card.
+     * @param index: The number of the Chit Card.
+     * @return the number of things on it.
+     */
+    public int getValue(int index) {
+        return faces[index] & MAX_VALUE;
+    }
+
+    /**
+     * A method to return the column of a Chit Card in the Chit Card grid.
+     * @param index: The number of the Chit Card.
+     * @return its column.
+     */
+    public int getColumn(int index) {
+        return index % columns;
+    }
+
+    /**
+     * A method to return the row of a Chit Card in the Chit Card grid.
+     * @param index: The number of the Chit Card.
+     * @return its row.
+     */
+    public int getRow(int index) {
+        return index / columns;
+    }
+
+    /**
+     * Estimates the bytes of heap the deck takes up: its faces, its flipped bits and the masks of each face and kind
+     * if they have been built.
+     * @return the estimated bytes.
+     */
+    public long getFootprint() {
+        long bytes = GameState.arrayBytes(faces.length, 1) + GameState.arrayBytes(flipped.length, Long.BYTES);
+        if (faceMasks == null) {
+            return bytes;
+        }
+        bytes += GameState.arrayBytes(faceMasks.length, Integer.BYTES)
+                + GameState.arrayBytes(kindMasks.length, Integer.BYTES);
+        for (long[] mask : faceMasks) {
+            bytes += (mask == null) ? 0 : GameState.arrayBytes(mask.length, Long.BYTES);
+        }
+        for (long[] mask : kindMasks) {
+            bytes += GameState.arrayBytes(mask.length, Long.BYTES);
+        }
+        return bytes;
+    }
+
+    /**
+     * A method to return the numFlipped data attribute.
+     * @return the number of Chit Cards that are flipped.
+     */
+    public int getNumFlipped() {
+        return numFlipped;
+    }
+}
@@ -0,0 +1,141 @@
+package com.fierydragon.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A class representing a bounded queue that many threads put commands into and a single thread takes them out of.
+ * The commands sit in a ring of slots, each with a sequence number saying whether it is free or filled for the current
+ * lap, so putting a command in is one compare-and-set and taking commands out needs no lock at all. When the ring is
+ * full, new commands are refused instead of waiting, so a flood of input can never stall the game.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameLoop
+ */
+
+public final class CommandQueue<T> {
+    /**
+     * The commands in the ring. A slot is only read after its sequence number says it has been filled.
+     */
+    private final Object[] slots;
+    /**
+     * For each slot, the position it is free for, or one more than the position it has been filled for.
+     */
+    private final AtomicLongArray sequences;
+    /**
+     * The number of slots less one, as the number of slots is a power of two.
+     */
+    private final int mask;
+    /**
+     * The position the next command is put in.
+     */
+    private final AtomicLong tail;
+    /**
+     * The position the next command is taken from. Only changed by the thread taking commands, but read by others to
+     * check whether the queue is empty.
+     */
+    private volatile long head;
+
+    /**
+     * CommandQueue Constructor.
+     * @param capacity: The most commands the queue holds, rounded up to a power of two.
+     */
+    public CommandQueue(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("A command queue cannot hold " + capacity + " commands");
+        }
+        int size = Integer.highestOneBit(capacity);
+        size = (size < capacity) ? size << 1 : size;
+        this.slots = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     * Puts a command in the queue. Safe to call from any thread.
+     * @param command: The command.
+     * @return False if the queue is full and the command was refused.
+     */
+    public boolean offer(T command) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            // The slot is free for this lap: claim it, fill it, then mark it filled.
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = command;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            }
+            // The slot still holds a command from the last lap, so the queue is full.
+            else if (difference < 0) {
+                return false;
+            }
+            // Otherwise another thread claimed the slot first; try the next one.
+        }
+    }
+
+    /**
+     * Takes up to a number of commands out of the queue, oldest first. Only one thread may take commands at a time.
+     * @param action: The action to call with each command.
+     * @param maxCommands: The most commands to take.
+     * @return the number of commands taken.
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<T> action, int maxCommands) {
+        int taken = 0;
+        long position = head;
+        while (taken < maxCommands) {
+            int index = (int) position & mask;
+            // Stop at a slot that has not been filled yet.
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            T command = (T) slots[index];
+            slots[index] = null;
+            // Free the slot for the next lap.
+            sequences.set(index, position + slots.length);
+            head = ++position;
+            taken++;
+            action.accept(command);
+        }
+        return taken;
+    }
+
+    /**
+     * A method to check whether the queue has no commands waiting.
+     * @return True if no commands are waiting.
+     */
+    public boolean isEmpty() {
+        long position = head;
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    /**
+     * A method to return the number of commands the queue holds.
+     * @return the capacity of the queue.
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Estimates the bytes of heap the queue takes up, with its ring of slots and their sequence numbers, as a queue
+     * takes up the same however many commands it holds.
+     * @return the estimated bytes.
+     */
+    public long getFootprint() {
+        // The queue, its slots, the sequence numbers and their array, and the tail.
+        return 32 + GameState.arrayBytes(slots.length, Integer.BYTES)
+                + 16 + GameState.arrayBytes(slots.length, Long.BYTES) + 24;
+    }
+}
@@ -0,0 +1,559 @@
+package com.fierydragon.engine;
+
+import com.fierydragon.utils.Constants;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * An immutable class representing a board definition compiled once into a ready layout: the Volcano is laid out and
+ * checked, and everything needed to deal a new game is kept in flat arrays. Dealing a game only shuffles the Volcano
+ * Cards and Caves onto the precomputed shape, so nothing is laid out again.
+ * A compiled layout can be written to and read from a compact binary form, which the LayoutCache keeps on disk.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BoardDefinition
+ * @see BoardTopology
+ * @see LayoutCache
+ */
+
+public final class CompiledLayout {
+    /**
+     * The number written at the start of the binary form, "FDLY".
+     */
+    private static final int MAGIC = 0x46444C59;
+    /**
+     * The version of the binary form. Increased whenever the form changes, so older cached layouts are compiled again.
+     */
+    public static final int FORMAT_VERSION = 1;
+    /**
+     * The name of the board.
+     */
+    private final String name;
+    /**
+     * A hash of the definition file the layout was compiled from.
+     */
+    private final long sourceHash;
+    /**
+     * A boolean denoting if the Animals on the Volcano are generated each game rather than listed.
+     */
+    private final boolean generated;
+    /**
+     * A boolean denoting if the Volcano Cards and Caves are shuffled each game.
+     */
+    private final boolean shuffle;
+    /**
+     * The Animals on each cut and uncut Volcano Card, as the ordinals of their AnimalType.
+     */
+    private final byte[][] cutCards, uncutCards;
+    /**
+     * The Animal in each Cave, as the ordinal of its AnimalType.
+     */
+    private final byte[] caveAnimals;
+    /**
+     * The name of the colour and the web colour of each Cave.
+     */
+    private final String[] caveColourNames, caveColours;
+    /**
+     * The Chit Card deck: the largest number of Animals on one Chit Card, and the number of Pirate Dragon and Knight
+     * Chit Cards.
+     */
+    private final int maxAnimalChitCards, numPirates, numKnights;
+    /**
+     * The shape of the Volcano, with the Volcano Cards in the order they were defined.
+     */
+    private final BoardTopology topology;
+    /**
+     * For each Volcano Card around the Volcano, True if it is cut.
+     */
+    private final boolean[] isCutCard;
+    /**
+     * A hash of the compiled layout, equal for two definitions that compile to the same layout.
+     */
+    private final long fingerprint;
+
+    /**
+     * CompiledLayout Constructor.
+     * @param name: The name of the board.
+     * @param sourceHash: A hash of the definition file the layout was compiled from.
+     * @param generated: True if the Animals on the Volcano are generated each game.
+     * @param shuffle: True if the Volcano Cards and Caves are shuffled each game.
+     * @param cutCards: The Animals on each cut Volcano Card.
+     * @param uncutCards: The Animals on each uncut Volcano Card.
+     * @param caveAnimals: The Animal in each Cave.
+     * @param caveColourNames: The name of the colour of each Cave.
+     * @param caveColours: The web colour of each Cave.
+     * @param maxAnimalChitCards: The largest number of Animals on one Chit Card.
+     * @param numPirates: The number of Pirate Dragon Chit Cards.
+     * @param numKnights: The number of Knight Chit Cards.
+     * @param topology: The shape of the Volcano.
+     * @param fingerprint: A hash of the compiled layout.
+     */
+    private CompiledLayout(String name, long sourceHash, boolean generated, boolean shuffle, byte[][] cutCards,
+                           byte[][] uncutCards, byte[] caveAnimals, String[] caveColourNames, String[] caveColours,
+                           int maxAnimalChitCards, int numPirates, int numKnights, BoardTopology topology, long fingerprint) {
+        this.name = name;
+        this.sourceHash = sourceHash;
+        this.generated = generated;
+        this.shuffle = shuffle;
+        this.cutCards = cutCards;
+        this.uncutCards = uncutCards;
+        this.caveAnimals = caveAnimals;
+        this.caveColourNames = caveColourNames;
+        this.caveColours = caveColours;
+        this.maxAnimalChitCards = maxAnimalChitCards;
+        this.numPirates = numPirates;
+        this.numKnights = numKnights;
+        this.topology = topology;
+        this.fingerprint = fingerprint;
+
+        // Remember which Volcano Cards are cut, so dealing does not have to look.
+        this.isCutCard = new boolean[topology.getNumCards()];
+        for (int cave = 0; cave < topology.getNumCaves(); cave++) {
+            isCutCard[topology.getCaveSquare(cave) / topology.getSquaresPerCard()] = true;
+        }
+    }
+
+    /**
+     * Compiles a board definition, laying out and checking its Volcano.
+     * @param definition: The board definition.
+     * @param sourceHash: A hash of the definition file.
+     * @return the compiled layout.
+     * @throws IllegalArgumentException if the Volcano cannot be laid out.
+     * @throws IllegalStateException if the Volcano cannot be played.
+     */
+    public static CompiledLayout compile(BoardDefinition definition, long sourceHash) {
+        int numCaves = definition.getCaveAnimals().size();
+        byte[] caveAnimals = new byte[numCaves];
+        for (int cave = 0; cave < numCaves; cave++) {
+            caveAnimals[cave] = definition.getCaveAnimals().get(cave);
+        }
+        byte[][] cutCards = definition.getCutCards().toArray(new byte[0][]);
+        byte[][] uncutCards = definition.getUncutCards().toArray(new byte[0][]);
+        boolean generated = definition.getGeneratedCards() > 0;
+        int numCards = generated ? definition.getGeneratedCards() : cutCards.length + uncutCards.length;
+
+        // Lay out the Volcano with the Volcano Cards in the order they were defined, or with generated Animals.
+        byte[] squareAnimals;
+        if (generated) {
+            squareAnimals = VolcanoGenerator.shareAnimals(numCards, definition.getSquaresPerCard(), new Random(sourceHash));
+        }
+        else {
+            squareAnimals = placeCards(cutCards, uncutCards, identity(cutCards.length), identity(uncutCards.length), numCaves, definition.getSquaresPerCard());
+        }
+        BoardTopology topology = VolcanoGenerator.layout(numCards, definition.getSquaresPerCard(), numCaves, squareAnimals, caveAnimals);
+        topology.validate();
+
+        // Build the layout through its binary form, so the fingerprint is the same however the layout was made.
+        CompiledLayout layout = new CompiledLayout(definition.getName(), sourceHash, generated, definition.isShuffle(),
+                cutCards, uncutCards, caveAnimals, definition.getCaveColourNames().toArray(new String[0]),
+                definition.getCaveColours().toArray(new String[0]), definition.getMaxAnimalChitCards(),
+                definition.getNumPirates(), definition.getNumKnights(), topology, 0);
+        try {
+            return read(layout.toBytes());
+        } catch (IOException e) {
+            throw new IllegalStateException("The layout of " + definition.getName() + " cannot be compiled", e);
+        }
+    }
+
+    /**
+     * Puts the Animals of the Volcano Cards onto the Squares, placing the cut Volcano Cards where the Caves are and
+     * the uncut ones in between.
+     * @param cutCards: The Animals on each cut Volcano Card.
+     * @param uncutCards: The Animals on each uncut Volcano Card.
+     * @param cutOrder: The order to place the cut Volcano Cards in.
+     * @param uncutOrder: The order to place the uncut Volcano Cards in.
+     * @param numCaves: The number of Caves.
+     * @param squaresPerCard: The number of Squares on each Volcano Card.
+     * @return the Animal on each Square, as the ordinal of its AnimalType.
+     */
+    private static byte[] placeCards(byte[][] cutCards, byte[][] uncutCards, int[] cutOrder, int[] uncutOrder, int numCaves, int squaresPerCard) {
+        int numCards = cutCards.length + uncutCards.length;
+        boolean[] isCut = new boolean[numCards];
+        for (int cave = 0; cave < numCaves; cave++) {
+            isCut[VolcanoGenerator.getCutCard(cave, numCards, numCaves)] = true;
+        }
+        return placeCards(cutCards, uncutCards, cutOrder, uncutOrder, isCut, squaresPerCard);
+    }
+
+    /**
+     * Puts the Animals of the Volcano Cards onto the Squares in the given order.
+     * @param cutCards: The Animals on each cut Volcano Card.
+     * @param uncutCards: The Animals on each uncut Volcano Card.
+     * @param cutOrder: The order to place the cut Volcano Cards in.
+     * @param uncutOrder: The order to place the uncut Volcano Cards in.
+     * @param isCut: For each Volcano Card around the Volcano, True if it is cut.
+     * @param squaresPerCard: The number of Squares on each Volcano Card.
+     * @return the Animal on each Square, as the ordinal of its AnimalType.
+     */
+    private static byte[] placeCards(byte[][] cutCards, byte[][] uncutCards, int[] cutOrder, int[] uncutOrder, boolean[] isCut, int squaresPerCard) {
+        byte[] squareAnimals = new byte[isCut.length * squaresPerCard];
+        int j = 0, k = 0;
+        for (int card = 0; card < isCut.length; card++) {
+            byte[] animals = isCut[card] ? cutCards[cutOrder[k++]] : uncutCards[uncutOrder[j++]];
+            System.arraycopy(animals, 0, squareAnimals, card * squaresPerCard, squaresPerCard);
+        }
+        return squareAnimals;
+    }
+
+    /**
+     * Chooses which Cave goes in each place around the Volcano for a new game.
+     * @param random: The Random used to shuffle the Caves.
+     * @return for each place around the Volcano, the number of the defined Cave to put there.
+     */
+    public int[] shuffleCaves(Random random) {
+        return shuffle ? permutation(caveAnimals.length, random) : identity(caveAnimals.length);
+    }
+
+    /**
+     * Deals a new game onto the Volcano, shuffling the Volcano Cards if the board is shuffled or generating new
+     * Animals if the board is generated.
+     * @param caveOrder: For each place around the Volcano, the number of the defined Cave to put there.
+     * @param random: The Random used to shuffle the Volcano Cards.
+     * @return the Volcano of the new game, shared with any other game dealt the same Volcano.
+     */
+    public BoardTopology deal(int[] caveOrder, Random random) {
+        int squaresPerCard = topology.getSquaresPerCard();
+        byte[] squareAnimals;
+        if (generated) {
+            squareAnimals = VolcanoGenerator.shareAnimals(topology.getNumCards(), squaresPerCard, random);
+        }
+        else if (shuffle) {
+            squareAnimals = placeCards(cutCards, uncutCards, permutation(cutCards.length, random), permutation(uncutCards.length, random), isCutCard, squaresPerCard);
+        }
+        else {
+            squareAnimals = placeCards(cutCards, uncutCards, identity(cutCards.length), identity(uncutCards.length), isCutCard, squaresPerCard);
+        }
+
+        // Put the Animal of each chosen Cave in its place.
+        byte[] dealtCaveAnimals = new byte[caveOrder.length];
+        for (int cave = 0; cave < caveOrder.length; cave++) {
+            dealtCaveAnimals[cave] = caveAnimals[caveOrder[cave]];
+        }
+        // Games dealt the same Volcano share one copy of it.
+        return TopologyInterner.getInstance().intern(topology.withAnimals(squareAnimals, dealtCaveAnimals));
+    }
+
+    /**
+     * Deals the Chit Card deck of the board without the UI, with the same Chit Cards as the GameBoard builds: one
+     * Chit Card of each number of each Animal, the Pirate Dragon Chit Cards split between one and two Pirate Dragons,
+     * and the Knight Chit Cards.
+     * @param random: The Random used to shuffle the Chit Cards.
+     * @return the shuffled deck, all face down.
+     */
+    public ChitDeck dealChitDeck(Random random) {
+        byte[] faces = new byte[getNumChitCards()];
+        int index = 0;
+        // Add the Animal Chit Cards.
+        for (int kind = 0; kind < AnimalType.values().length; kind++) {
+            for (int value = 1; value <= maxAnimalChitCards; value++) {
+                faces[index++] = ChitDeck.face(kind, value);
+            }
+        }
+        // Add the Pirate Dragon Chit Cards, the second half showing two Pirate Dragons.
+        int value = 1;
+        for (int i = 0; i < numPirates; i++) {
+            if (i == numPirates / Constants.MAX_PIRATE) {
+                value++;
+            }
+            faces[index++] = ChitDeck.face(ChitDeck.PIRATE_DRAGON, value);
+        }
+        // Add the Knight Chit Cards.
+        for (int i = 0; i < numKnights; i++) {
+            faces[index++] = ChitDeck.face(ChitDeck.KNIGHT, 1);
+        }
+
+        // Shuffle the faces into the deck.
+        int[] order = shuffleChits(random);
+        ChitDeck chitDeck = new ChitDeck(faces.length, Constants.COLUMNS);
+        for (int i = 0; i < faces.length; i++) {
+            chitDeck.setFace(i, faces[order[i]]);
+        }
+        return chitDeck;
+    }
+
+    /**
+     * Chooses the order of the Chit Cards of a new game, the same for the deck dealt without the UI and for the Chit
+     * Cards the PreparedBoard builds, so a game dealt from a seed is the same game in both.
+     * @param random: The Random used to shuffle the Chit Cards.
+     * @return for each place in the deck, the index of the Chit Card put there from the unshuffled deck.
+     */
+    public int[] shuffleChits(Random random) {
+        return permutation(getNumChitCards(), random);
+    }
+
+    /**
+     * Creates the numbers from 0 in order.
+     * @param length: How many numbers to create.
+     * @return the numbers 0 to length - 1.
+     */
+    private static int[] identity(int length) {
+        int[] order = new int[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Creates the numbers from 0 in a random order.
+     * @param length: How many numbers to create.
+     * @param random: The Random used to shuffle them.
+     * @return the numbers 0 to length - 1, shuffled.
+     */
+    private static int[] permutation(int length, Random random) {
+        int[] order = identity(length);
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    /**
+     * Writes the layout in its binary form.
+     * @return the binary form of the layout.
+     */
+    public byte[] toBytes() {
+        try {
+            // Write the body first so its fingerprint can be checked when it is read back.
+            ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+            DataOutputStream body = new DataOutputStream(bodyBytes);
+            body.writeUTF(name);
+            body.writeBoolean(generated);
+            body.writeBoolean(shuffle);
+            writeCards(body, cutCards);
+            writeCards(body, uncutCards);
+            body.writeInt(caveAnimals.length);
+            for (int cave = 0; cave < caveAnimals.length; cave++) {
+                body.writeByte(caveAnimals[cave]);
+                body.writeUTF(caveColourNames[cave]);
+                body.writeUTF(caveColours[cave]);
+            }
+            body.writeInt(maxAnimalChitCards);
+            body.writeInt(numPirates);
+            body.writeInt(numKnights);
+
+            // Write the shape of the Volcano.
+            body.writeInt(topology.getNumCards());
+            body.writeInt(topology.getSquaresPerCard());
+            for (int square = 0; square < topology.getNumSquares(); square++) {
+                body.writeInt(topology.getSquareX(square));
+                body.writeInt(topology.getSquareY(square));
+                body.writeByte(topology.getSquareAnimal(square).ordinal());
+            }
+            for (int cave = 0; cave < topology.getNumCaves(); cave++) {
+                body.writeInt(topology.getCaveSquare(cave));
+                body.writeInt(topology.getCaveX(cave));
+                body.writeInt(topology.getCaveY(cave));
+            }
+            body.flush();
+
+            // Write the header followed by the body.
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(sourceHash);
+            out.writeInt(bodyBytes.size());
+            bodyBytes.writeTo(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("The layout of " + name + " cannot be written", e);
+        }
+    }
+
+    /**
+     * Writes a list of Volcano Cards.
+     * @param out: The stream to write to.
+     * @param cards: The Animals on each Volcano Card.
+     * @throws IOException if the stream cannot be written to.
+     */
+    private static void writeCards(DataOutputStream out, byte[][] cards) throws IOException {
+        out.writeInt(cards.length);
+        for (byte[] card : cards) {
+            out.writeInt(card.length);
+            out.write(card);
+        }
+    }
+
+    /**
+     * Reads a layout from its binary form.
+     * @param bytes: The binary form of the layout.
+     * @return the layout.
+     * @throws IOException if the bytes are not a layout of the current version.
+     */
+    public static CompiledLayout read(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a compiled layout of version " + FORMAT_VERSION);
+        }
+        long sourceHash = in.readLong();
+        byte[] bodyBytes = new byte[in.readInt()];
+        in.readFully(bodyBytes);
+
+        DataInputStream body = new DataInputStream(new ByteArrayInputStream(bodyBytes));
+        String name = body.readUTF();
+        boolean generated = body.readBoolean();
+        boolean shuffle = body.readBoolean();
+        byte[][] cutCards = readCards(body);
+        byte[][] uncutCards = readCards(body);
+        int numCaves = body.readInt();
+        byte[] caveAnimals = new byte[numCaves];
+        String[] caveColourNames = new String[numCaves];
+        String[] caveColours = new String[numCaves];
+        for (int cave = 0; cave < numCaves; cave++) {
+            caveAnimals[cave] = body.readByte();
+            caveColourNames[cave] = body.readUTF();
+            caveColours[cave] = body.readUTF();
+        }
+        int maxAnimalChitCards = body.readInt();
+        int numPirates = body.readInt();
+        int numKnights = body.readInt();
+
+        // Read the shape of the Volcano.
+        int numCards = body.readInt();
+        int squaresPerCard = body.readInt();
+        int numSquares = numCards * squaresPerCard;
+        int[] squareX = new int[numSquares];
+        int[] squareY = new int[numSquares];
+        byte[] squareAnimals = new byte[numSquares];
+        for (int square = 0; square < numSquares; square++) {
+            squareX[square] = body.readInt();
+            squareY[square] = body.readInt();
+            squareAnimals[square] = body.readByte();
+        }
+        int[] caveSquare = new int[numCaves];
+        int[] caveX = new int[numCaves];
+        int[] caveY = new int[numCaves];
+        for (int cave = 0; cave < numCaves; cave++) {
+            caveSquare[cave] = body.readInt();
+            caveX[cave] = body.readInt();
+            caveY[cave] = body.readInt();
+        }
+        BoardTopology topology = new BoardTopology(numCards, squaresPerCard, squareX, squareY, squareAnimals, caveSquare, caveX, caveY, caveAnimals);
+
+        return new CompiledLayout(name, sourceHash, generated, shuffle, cutCards, uncutCards, caveAnimals, caveColourNames,
+                caveColours, maxAnimalChitCards, numPirates, numKnights, topology, hash(bodyBytes));
+    }
+
+    /**
+     * Reads a list of Volcano Cards.
+     * @param in: The stream to read from.
+     * @return the Animals on each Volcano Card.
+     * @throws IOException if the stream cannot be read from.
+     */
+    private static byte[][] readCards(DataInputStream in) throws IOException {
+        byte[][] cards = new byte[in.readInt()][];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = new byte[in.readInt()];
+            in.readFully(cards[i]);
+        }
+        return cards;
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of some bytes.
+     * @param bytes: The bytes to hash.
+     * @return the hash.
+     */
+    public static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * A method to return the name data attribute.
+     * @return the name of the board.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * A method to return the sourceHash data attribute.
+     * @return a hash of the definition file the layout was compiled from.
+     */
+    public long getSourceHash() {
+        return sourceHash;
+    }
+
+    /**
+     * A method to return the fingerprint data attribute.
+     * @return a hash of the compiled layout.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * A method to return the topology data attribute.
+     * @return the shape of the Volcano, with the Volcano Cards in the order they were defined.
+     */
+    public BoardTopology getTopology() {
+        return topology;
+    }
+
+    /**
+     * A method to return the name of the colour of a Cave.
+     * @param cave: The number of the defined Cave.
+     * @return the name of its colour, such as "Red".
+     */
+    public String getCaveColourName(int cave) {
+        return caveColourNames[cave];
+    }
+
+    /**
+     * A method to return the colour of a Cave.
+     * @param cave: The number of the defined Cave.
+     * @return its web colour, such as "LIGHTCORAL".
+     */
+    public String getCaveColour(int cave) {
+        return caveColours[cave];
+    }
+
+    /**
+     * A method to return the maxAnimalChitCards data attribute.
+     * @return the largest number of Animals on one Chit Card.
+     */
+    public int getMaxAnimalChitCards() {
+        return maxAnimalChitCards;
+    }
+
+    /**
+     * A method to return the numPirates data attribute.
+     * @return the number of Pirate Dragon Chit Cards.
+     */
+    public int getNumPirates() {
+        return numPirates;
+    }
+
+    /**
+     * A method to return the numKnights data attribute.
+     * @return the number of Knight Chit Cards.
+     */
+    public int getNumKnights() {
+        return numKnights;
+    }
+
+    /**
+     * A method to return the number of Chit Cards in the deck.
+     * @return one Chit Card of each number of each Animal, plus the Pirate Dragon and Knight Chit Cards.
+     */
+    public int getNumChitCards() {
+        return AnimalType.values().length * maxAnimalChitCards + numPirates + numKnights;
+    }
+}
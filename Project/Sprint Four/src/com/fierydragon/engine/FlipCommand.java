@@ -0,0 +1,49 @@
+package com.fierydragon.engine;
+
+/**
+ * A class representing a request to flip a Chit Card, from a click, a bot, a network message or a timer.
+ * The command remembers the turn it was made in, so a command that arrives after the turn has moved on is stale and is
+ * turned away rather than flipping a Chit Card for the wrong Dragon.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameLoop
+ */
+
+public final class FlipCommand {
+    /**
+     * The number of the Chit Card to flip.
+     */
+    private final int chit;
+    /**
+     * The turn the command was made in.
+     */
+    private final long turn;
+
+    /**
+     * FlipCommand Constructor.
+     * @param chit: The number of the Chit Card to flip.
+     * @param turn: The turn the command was made in, from GameLoop.getTurn.
+     */
+    public FlipCommand(int chit, long turn) {
+        this.chit = chit;
+        this.turn = turn;
+    }
+
+    /**
+     * A method to return the chit data attribute.
+     * @return the number of the Chit Card to flip.
+     */
+    public int getChit() {
+        return chit;
+    }
+
+    /**
+     * A method to return the turn data attribute.
+     * @return the turn the command was made in.
+     */
+    public long getTurn() {
+        return turn;
+    }
+}
@@ -0,0 +1,58 @@
+package com.fierydragon.engine;
+
+/**
+ * Enum class that depicts what happened when a Chit Card was flipped in a game played without the UI.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameState
+ */
+
+public enum FlipOutcome {
+    /**
+     * The Chit Card did not match the Square of the Dragon, so the turn passed.
+     */
+    NO_MATCH(true),
+    /**
+     * The Dragon moved, and keeps its turn.
+     */
+    MOVED(false),
+    /**
+     * The Dragon moved onto another Dragon, stunning it, and the turn passed.
+     */
+    ATTACKED(true),
+    /**
+     * The Dragon would have gone past its own Cave, so it stayed and the turn passed.
+     */
+    OVERSHOT(true),
+    /**
+     * A Pirate Dragon or Knight Chit Card was flipped while the Dragon was in a Cave, so nothing happened.
+     */
+    NOTHING(false),
+    /**
+     * The Dragon reached its own Cave and won the game.
+     */
+    WON(true);
+
+    /**
+     * A boolean denoting if the turn ended with the flip.
+     */
+    private final boolean turnOver;
+
+    /**
+     * FlipOutcome Constructor.
+     * @param turnOver: True if the turn ended with the flip.
+     */
+    FlipOutcome(boolean turnOver) {
+        this.turnOver = turnOver;
+    }
+
+    /**
+     * A method to check the turnOver data attribute.
+     * @return True if the turn ended with the flip.
+     */
+    public boolean isTurnOver() {
+        return turnOver;
+    }
+}
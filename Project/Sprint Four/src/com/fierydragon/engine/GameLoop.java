@@ -0,0 +1,194 @@
+package com.fierydragon.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class that feeds the commands of one game to it one at a time, whatever thread they come from.
+ * Clicks, bots, network messages and timers all put FlipCommands in a bounded CommandQueue, and the single thread
+ * running the game takes them out in batches on each tick. A TurnPhase decides which commands are accepted: a flip is
+ * only carried out while the game awaits one, a flip made in an earlier turn is stale, and a flip of a Chit Card that
+ * is already face up is a duplicate. Each check is a comparison or a bit test, so a flood of bad commands costs next to
+ * nothing.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see CommandQueue
+ * @see FlipCommand
+ * @see TurnPhase
+ */
+
+public class GameLoop {
+    /**
+     * The most commands that can wait for the next tick.
+     */
+    public static final int QUEUE_CAPACITY = 64;
+    /**
+     * The most commands carried out in one tick.
+     */
+    public static final int BATCH_SIZE = 16;
+    /**
+     * The commands waiting for the next tick.
+     */
+    private final CommandQueue<FlipCommand> commands;
+    /**
+     * The game the flips are carried out on.
+     */
+    private final FlipHandler handler;
+    /**
+     * The part of the turn the game is in. Only changed by the thread running the game.
+     */
+    private volatile TurnPhase phase;
+    /**
+     * The number of the current turn, counted up each time the turn changes or the game restarts.
+     */
+    private volatile long turn;
+    /**
+     * The number of commands refused because the queue was full, counted by the threads submitting them.
+     */
+    private final AtomicLong numRefused;
+    /**
+     * The number of commands turned away because they were stale, duplicates or came in the wrong phase.
+     */
+    private long numRejected;
+
+    /**
+     * The game a GameLoop carries out flips on.
+     */
+    public interface FlipHandler {
+        /**
+         * A method to check whether a Chit Card is face up.
+         * @param chit: The number of the Chit Card.
+         * @return True if it is face up.
+         */
+        boolean isFlipped(int chit);
+
+        /**
+         * Flips a Chit Card for the Dragon whose turn it is and applies the rules. The handler moves the GameLoop on
+         * to the next phase when the flip ends the turn or the game.
+         * @param chit: The number of the Chit Card.
+         */
+        void flip(int chit);
+    }
+
+    /**
+     * GameLoop Constructor.
+     * @param handler: The game the flips are carried out on.
+     */
+    public GameLoop(FlipHandler handler) {
+        this.commands = new CommandQueue<>(QUEUE_CAPACITY);
+        this.handler = handler;
+        this.phase = TurnPhase.AWAITING_FLIP;
+        this.numRefused = new AtomicLong();
+    }
+
+    /**
+     * Asks to flip a Chit Card in the current turn. Safe to call from any thread.
+     * @param chit: The number of the Chit Card.
+     * @return False if the queue was full and the command was refused.
+     */
+    public boolean submit(int chit) {
+        return submit(new FlipCommand(chit, turn));
+    }
+
+    /**
+     * Puts a command in the queue for the next tick. Safe to call from any thread.
+     * @param command: The command.
+     * @return False if the queue was full and the command was refused.
+     */
+    public boolean submit(FlipCommand command) {
+        if (!commands.offer(command)) {
+            numRefused.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Carries out the waiting commands, up to a batch of them. Only called by the thread running the game.
+     * @return the number of commands taken from the queue, carried out or not.
+     */
+    public int tick() {
+        return commands.drain(this::accept, BATCH_SIZE);
+    }
+
+    /**
+     * Carries out a command if the game can accept it.
+     * @param command: The command.
+     */
+    private void accept(FlipCommand command) {
+        int chit = command.getChit();
+        if (phase != TurnPhase.AWAITING_FLIP || command.getTurn() != turn || handler.isFlipped(chit)) {
+            numRejected++;
+            return;
+        }
+        phase = TurnPhase.RESOLVING;
+        handler.flip(chit);
+        // A flip that neither ended the turn nor the game lets the same Dragon flip again.
+        if (phase == TurnPhase.RESOLVING) {
+            phase = TurnPhase.AWAITING_FLIP;
+        }
+    }
+
+    /**
+     * Marks the end of a turn, while the result is shown before the turn is handed on.
+     */
+    public void endTurn() {
+        phase = TurnPhase.ANIMATING;
+    }
+
+    /**
+     * Hands the turn on, so flips made in the last turn are now stale.
+     */
+    public void startTurn() {
+        turn++;
+        phase = TurnPhase.AWAITING_FLIP;
+    }
+
+    /**
+     * Marks the end of the game, so nothing more can be flipped.
+     */
+    public void endGame() {
+        phase = TurnPhase.GAME_OVER;
+    }
+
+    /**
+     * A method to check whether commands are waiting for the next tick.
+     * @return True if the queue has commands.
+     */
+    public boolean hasCommands() {
+        return !commands.isEmpty();
+    }
+
+    /**
+     * A method to return the phase data attribute.
+     * @return the part of the turn the game is in.
+     */
+    public TurnPhase getPhase() {
+        return phase;
+    }
+
+    /**
+     * A method to return the turn data attribute.
+     * @return the number of the current turn.
+     */
+    public long getTurn() {
+        return turn;
+    }
+
+    /**
+     * A method to return the numRefused data attribute.
+     * @return the number of commands refused because the queue was full.
+     */
+    public long getNumRefused() {
+        return numRefused.get();
+    }
+
+    /**
+     * A method to return the numRejected data attribute.
+     * @return the number of commands turned away as stale, duplicate or in the wrong phase.
+     */
+    public long getNumRejected() {
+        return numRejected;
+    }
+}
@@ -0,0 +1,283 @@
+package com.fierydragon.engine;
+
+import java.util.Arrays;
+
+/**
+ * A class representing the state of a game at one moment, which never changes once made.
+ * The thread running a game publishes a new GameSnapshot through a single volatile reference after each resolved flip,
+ * and any other thread (rendering, spectators, metrics, bots) reads the latest one without locking. A reader can never
+ * see half of a move, and the game never waits for its readers.
+ * Dragons are given by their ring index, their place on the Volcano path, which the UI and the GameState agree on.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameState
+ */
+
+public final class GameSnapshot {
+    /**
+     * The number of times the game had changed when the snapshot was made.
+     */
+    private final long version;
+    /**
+     * The number of turns that had ended.
+     */
+    private final long turns;
+    /**
+     * The Dragon whose turn it was.
+     */
+    private final int current;
+    /**
+     * The Dragon that had won, or GameState.NOBODY.
+     */
+    private final int winner;
+    /**
+     * The home Cave of each Dragon.
+     */
+    private final int[] homeCaves;
+    /**
+     * The ring index of each Dragon.
+     */
+    private final int[] ringIndices;
+    /**
+     * The bits of the Dragons in a Cave.
+     */
+    private final long inCaveMask;
+    /**
+     * The bits of the Dragons that were stunned.
+     */
+    private final long stunnedMask;
+    /**
+     * The bits of the Dragons that had passed their own Cave.
+     */
+    private final long passedMask;
+    /**
+     * The face of each face-up Chit Card, as made by ChitDeck.face, or 0 for face-down ones.
+     */
+    private final byte[] flippedFaces;
+    /**
+     * The hash of everything in the snapshot but its version, or 0 until it is first asked for.
+     */
+    private volatile long contentHash;
+
+    /**
+     * GameSnapshot Constructor. The arrays are copied, so the caller may go on changing its own.
+     * @param version: The number of times the game had changed.
+     * @param turns: The number of turns that had ended.
+     * @param current: The Dragon whose turn it was.
+     * @param winner: The Dragon that had won, or GameState.NOBODY.
+     * @param homeCaves: The home Cave of each Dragon.
+     * @param ringIndices: The ring index of each Dragon.
+     * @param inCaveMask: The bits of the Dragons in a Cave.
+     * @param stunnedMask: The bits of the Dragons that were stunned.
+     * @param passedMask: The bits of the Dragons that had passed their own Cave.
+     * @param flippedFaces: The face of each face-up Chit Card, or 0 for face-down ones.
+     */
+    public GameSnapshot(long version, long turns, int current, int winner, int[] homeCaves, int[] ringIndices,
+                        long inCaveMask, long stunnedMask, long passedMask, byte[] flippedFaces) {
+        if (homeCaves.length != ringIndices.length || homeCaves.length >= Long.SIZE) {
+            throw new IllegalArgumentException("A snapshot needs a home Cave and ring index for each of up to 63 Dragons");
+        }
+        this.version = version;
+        this.turns = turns;
+        this.current = current;
+        this.winner = winner;
+        this.homeCaves = homeCaves.clone();
+        this.ringIndices = ringIndices.clone();
+        this.inCaveMask = inCaveMask;
+        this.stunnedMask = stunnedMask;
+        this.passedMask = passedMask;
+        this.flippedFaces = flippedFaces.clone();
+    }
+
+    /**
+     * Makes a snapshot of a game played without the UI.
+     * @param state: The game.
+     * @param version: The number of times the game has changed.
+     * @return the snapshot.
+     */
+    public static GameSnapshot of(GameState state, long version) {
+        int numPlayers = state.getNumPlayers();
+        int[] homeCaves = new int[numPlayers];
+        int[] ringIndices = new int[numPlayers];
+        long inCaveMask = 0, stunnedMask = 0, passedMask = 0;
+        for (int player = 0; player < numPlayers; player++) {
+            homeCaves[player] = state.getHomeCave(player);
+            ringIndices[player] = state.getRingIndex(player);
+            inCaveMask |= state.isInCave(player) ? 1L << player : 0;
+            stunnedMask |= state.isStunned(player) ? 1L << player : 0;
+            passedMask |= state.hasPassedCave(player) ? 1L << player : 0;
+        }
+        byte[] flippedFaces = new byte[state.getNumChits()];
+        for (int chit = 0; chit < flippedFaces.length; chit++) {
+            if (state.isFlipped(chit)) {
+                flippedFaces[chit] = ChitDeck.face(state.getRevealedKind(chit), state.getRevealedValue(chit));
+            }
+        }
+        return new GameSnapshot(version, state.getTurns(), state.getCurrent(), state.getWinner(), homeCaves,
+                ringIndices, inCaveMask, stunnedMask, passedMask, flippedFaces);
+    }
+
+    /**
+     * A method to return the version data attribute.
+     * @return the number of times the game had changed when the snapshot was made.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * A method to return the turns data attribute.
+     * @return the number of turns that had ended.
+     */
+    public long getTurns() {
+        return turns;
+    }
+
+    /**
+     * A method to return the current data attribute.
+     * @return the Dragon whose turn it was.
+     */
+    public int getCurrent() {
+        return current;
+    }
+
+    /**
+     * A method to return the winner data attribute.
+     * @return the Dragon that had won, or GameState.NOBODY.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * A method to check whether the game was over.
+     * @return True if a Dragon had won.
+     */
+    public boolean isOver() {
+        return winner != GameState.NOBODY;
+    }
+
+    /**
+     * A method to return the number of Dragons.
+     * @return the number of Dragons.
+     */
+    public int getNumPlayers() {
+        return ringIndices.length;
+    }
+
+    /**
+     * A method to return the home Cave of a Dragon.
+     * @param player: The Dragon.
+     * @return the number of its home Cave.
+     */
+    public int getHomeCave(int player) {
+        return homeCaves[player];
+    }
+
+    /**
+     * A method to return the ring index of a Dragon.
+     * @param player: The Dragon.
+     * @return its place on the Volcano path.
+     */
+    public int getRingIndex(int player) {
+        return ringIndices[player];
+    }
+
+    /**
+     * A method to check whether a Dragon was in a Cave.
+     * @param player: The Dragon.
+     * @return True if it was in a Cave.
+     */
+    public boolean isInCave(int player) {
+        return (inCaveMask & (1L << player)) != 0;
+    }
+
+    /**
+     * A method to check whether a Dragon was stunned.
+     * @param player: The Dragon.
+     * @return True if it was stunned.
+     */
+    public boolean isStunned(int player) {
+        return (stunnedMask & (1L << player)) != 0;
+    }
+
+    /**
+     * A method to check whether a Dragon had passed its own Cave.
+     * @param player: The Dragon.
+     * @return True if it had passed its own Cave.
+     */
+    public boolean hasPassedCave(int player) {
+        return (passedMask & (1L << player)) != 0;
+    }
+
+    /**
+     * A method to return the number of Chit Cards.
+     * @return the number of Chit Cards.
+     */
+    public int getNumChits() {
+        return flippedFaces.length;
+    }
+
+    /**
+     * A method to check whether a Chit Card was face up.
+     * @param chit: The number of the Chit Card.
+     * @return True if it was face up.
+     */
+    public boolean isFlipped(int chit) {
+        return flippedFaces[chit] != 0;
+    }
+
+    /**
+     * A method to return a hash of everything in the snapshot but its version, so two snapshots of the same game can
+     * be told apart even when they have the same version, as when a game is recovered or handed to another process
+     * and counts its versions again from the start.
+     * @return the hash, worked out the first time it is asked for.
+     */
+    public long getContentHash() {
+        long hash = contentHash;
+        if (hash == 0) {
+            hash = turns * 31 + current;
+            hash = hash * 31 + winner;
+            hash = hash * 31 + Arrays.hashCode(homeCaves);
+            hash = hash * 31 + Arrays.hashCode(ringIndices);
+            hash = hash * 31 + inCaveMask;
+            hash = hash * 31 + stunnedMask;
+            hash = hash * 31 + passedMask;
+            hash = hash * 31 + Arrays.hashCode(flippedFaces);
+            // Keep 0 for a hash not worked out yet.
+            hash = (hash == 0) ? 1 : hash;
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * A method to return the kind of a face-up Chit Card.
+     * @param chit: The number of the Chit Card.
+     * @return the ordinal of its AnimalType, PIRATE_DRAGON or KNIGHT, or -1 if it was face down.
+     */
+    public int getFlippedKind(int chit) {
+        return isFlipped(chit) ? (flippedFaces[chit] & 0xFF) >>> 4 : -1;
+    }
+
+    /**
+     * A method to return the number of things on a face-up Chit Card.
+     * @param chit: The number of the Chit Card.
+     * @return the number of things on it, or -1 if it was face down.
+     */
+    public int getFlippedValue(int chit) {
+        return isFlipped(chit) ? flippedFaces[chit] & ChitDeck.MAX_VALUE : -1;
+    }
+
+    /**
+     * Estimates the bytes of heap the snapshot takes up, with its arrays.
+     * @return the estimated bytes.
+     */
+    public long getFootprint() {
+        // The snapshot with its numbers and masks, its two arrays of Dragons and its Chit Card faces.
+        return 72 + 2 * GameState.arrayBytes(homeCaves.length, Integer.BYTES)
+                + GameState.arrayBytes(flippedFaces.length, 1);
+    }
+}
@@ -0,0 +1,647 @@
+package com.fierydragon.engine;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A class representing a game of Fiery Dragons played without the UI, so that bots can play thousands of games.
+ * The rules are the same as the Dragon, ForwardMovement and BackwardMovement classes: Dragons move along the Volcano
+ * path of the BoardTopology, where each Square with a Cave is followed by its Cave and then by itself again, and a
+ * Dragon on a Square is always looked up at the first place the Square appears on the path.
+ * Dragons are held by their position on the path and Chit Cards by a ChitDeck, so a move never allocates.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BoardTopology
+ * @see ChitDeck
+ * @see FlipOutcome
+ * @see Seating
+ */
+
+public final class GameState {
+    /**
+     * The player number used when no Dragon is at a Square, or when no Dragon has won.
+     */
+    public static final int NOBODY = -1;
+    /**
+     * The path entry returned when a Dragon would go past its own Cave.
+     */
+    private static final int OVERSHOOT = -2;
+    /**
+     * The shape of the Volcano.
+     */
+    private final BoardTopology topology;
+    /**
+     * The Chit Card deck.
+     */
+    private final ChitDeck deck;
+    /**
+     * The number of Squares on the Volcano. Path entries from this number on are Caves.
+     */
+    private final int numSquares;
+    /**
+     * The Dragon at each path entry, or NOBODY.
+     */
+    private final int[] occupant;
+    /**
+     * The home Cave of each Dragon.
+     */
+    private final int[] homeCave;
+    /**
+     * The path entry each Dragon is at.
+     */
+    private final int[] position;
+    /**
+     * For each Dragon, True if it has moved beyond the Square outside its Cave.
+     */
+    private final boolean[] passedCave;
+    /**
+     * For each Dragon, True if it is stunned and skips its next turn.
+     */
+    private final boolean[] stunned;
+    /**
+     * The bits of the Chit Cards that have been seen face up during the game.
+     */
+    private final long[] revealed;
+    /**
+     * The Dragon whose turn it is.
+     */
+    private int current;
+    /**
+     * The Dragon that won, or NOBODY.
+     */
+    private int winner;
+    /**
+     * The number of turns that have ended.
+     */
+    private int turns;
+
+    /**
+     * GameState Constructor.
+     * Seats the Dragons in their home Caves in the same way as the DragonFactory, with the first Dragon to move.
+     * @param topology: The shape of the Volcano.
+     * @param deck: The Chit Card deck, all face down.
+     * @param numPlayers: The number of Dragons.
+     * @param seatOffset: The number of Caves the seats are turned by clockwise.
+     */
+    public GameState(BoardTopology topology, ChitDeck deck, int numPlayers, int seatOffset) {
+        this.topology = topology;
+        this.deck = deck;
+        this.numSquares = topology.getNumSquares();
+
+        // Seat the Dragons in their home Caves.
+        int numEntries = numSquares + topology.getNumCaves();
+        this.occupant = new int[numEntries];
+        Arrays.fill(occupant, NOBODY);
+        this.homeCave = new int[numPlayers];
+        this.position = new int[numPlayers];
+        this.passedCave = new boolean[numPlayers];
+        this.stunned = new boolean[numPlayers];
+        for (int player = 0; player < numPlayers; player++) {
+            homeCave[player] = Seating.caveOf(player, numPlayers, topology.getNumCaves(), seatOffset);
+            position[player] = numSquares + homeCave[player];
+            occupant[position[player]] = player;
+        }
+
+        this.revealed = new long[(deck.size() + Long.SIZE - 1) / Long.SIZE];
+        this.current = 0;
+        this.winner = NOBODY;
+    }
+
+    /**
+     * Deals a new game from a compiled layout: the Caves, the Volcano Squares, the Chit Card deck and the seats are all
+     * drawn from the given random numbers, so the same seed always deals the same game.
+     * @param layout: The compiled layout of the board.
+     * @param numPlayers: The number of Dragons.
+     * @param random: The random numbers to deal with.
+     * @return the new game.
+     */
+    public static GameState deal(CompiledLayout layout, int numPlayers, Random random) {
+        BoardTopology topology = layout.deal(layout.shuffleCaves(random), random);
+        ChitDeck deck = layout.dealChitDeck(random);
+        return new GameState(topology, deck, numPlayers, random.nextInt(topology.getNumCaves()));
+    }
+
+    /**
+     * Flips a Chit Card for the Dragon whose turn it is and applies the rules, in the same way as Dragon.move.
+     * If every Chit Card is face up after the flip and the turn has not ended, the turn passes so the game cannot stall.
+     * @param chit: The number of the Chit Card to flip.
+     * @return what happened.
+     * @throws IllegalStateException if the game is over or the Chit Card is already face up.
+     */
+    public FlipOutcome flip(int chit) {
+        if (isOver()) {
+            throw new IllegalStateException("The game is over");
+        }
+        if (!deck.flip(chit)) {
+            throw new IllegalStateException("Chit Card " + chit + " is already face up");
+        }
+        revealed[chit / Long.SIZE] |= 1L << chit;
+
+        int kind = deck.getKind(chit);
+        int value = deck.getValue(chit);
+        int entry = position[current];
+        boolean inCave = entry >= numSquares;
+        boolean backward = kind == ChitDeck.PIRATE_DRAGON || kind == ChitDeck.KNIGHT;
+
+        FlipOutcome outcome;
+        // An Animal that does not match the Square ends the turn.
+        if (!backward && kind != getAnimalAt(entry)) {
+            outcome = FlipOutcome.NO_MATCH;
+        }
+        // A Pirate Dragon or Knight moves the Dragon backwards unless it is in a Cave.
+        else if (backward && !inCave) {
+            outcome = (kind == ChitDeck.KNIGHT) ? moveBackToFreeCave() : moveBack(value);
+        }
+        else if (!backward) {
+            outcome = moveForward(value);
+        }
+        else {
+            outcome = FlipOutcome.NOTHING;
+        }
+
+        // Hand the turn over, also when every Chit Card has been flipped.
+        if (outcome.isTurnOver() && outcome != FlipOutcome.WON) {
+            passTurn();
+        }
+        else if (outcome != FlipOutcome.WON && deck.getNumFlipped() == deck.size()) {
+            passTurn();
+        }
+        return outcome;
+    }
+
+    /**
+     * Moves the Dragon whose turn it is forwards, in the same way as the ForwardMovement.
+     * @param steps: The number of Animals on the Chit Card.
+     * @return what happened.
+     */
+    private FlipOutcome moveForward(int steps) {
+        int entry = walkForward(current, steps, true);
+        if (entry == OVERSHOOT) {
+            return FlipOutcome.OVERSHOT;
+        }
+        // Landing exactly on its own Cave wins the game.
+        if (entry == numSquares + homeCave[current]) {
+            moveTo(entry);
+            winner = current;
+            return FlipOutcome.WON;
+        }
+        return moveTo(entry);
+    }
+
+    /**
+     * Walks a Dragon forwards along the Volcano path without moving it. A Dragon leaving its own Cave for the first
+     * time, or reaching the Square two after it, has passed its Cave; after that it can only stop exactly on it.
+     * @param player: The Dragon.
+     * @param steps: The number of Animals on the Chit Card.
+     * @param apply: True to remember whether the Dragon passed its Cave, False to only look.
+     * @return the path entry the Dragon would stop at, which is its own Cave if it would win, or OVERSHOOT.
+     */
+    private int walkForward(int player, int steps, boolean apply) {
+        int pathLength = topology.getPathLength();
+        int home = numSquares + homeCave[player];
+        int passedEntry = topology.getPathEntry((topology.getFirstIndex(home) + 2) % pathLength);
+        int index = topology.getFirstIndex(position[player]);
+        int entry = position[player];
+        boolean passed = passedCave[player];
+
+        while (steps > 0) {
+            index = (index + 1) % pathLength;
+            entry = topology.getPathEntry(index);
+
+            if (entry == home) {
+                // Leaving its own Cave for the first time.
+                if (!passed) {
+                    steps += 2;
+                    passed = true;
+                }
+                // Stopping exactly on its own Cave.
+                else if (steps == 1) {
+                    break;
+                }
+                // Otherwise it would go past its own Cave.
+                else {
+                    entry = OVERSHOOT;
+                    break;
+                }
+            }
+            // Move along another Dragon's Cave.
+            else if (entry >= numSquares) {
+                steps += 2;
+            }
+            else if (!passed && entry == passedEntry) {
+                passed = true;
+            }
+            steps--;
+        }
+
+        if (apply) {
+            passedCave[player] = passed;
+        }
+        return entry;
+    }
+
+    /**
+     * Moves the Dragon whose turn it is backwards for a Pirate Dragon Chit Card, in the same way as the
+     * BackwardMovement.
+     * @param steps: The number of Pirate Dragons on the Chit Card.
+     * @return what happened.
+     */
+    private FlipOutcome moveBack(int steps) {
+        int pathLength = topology.getPathLength();
+        int home = numSquares + homeCave[current];
+        int behindEntry = topology.getPathEntry((topology.getFirstIndex(home) + 1) % pathLength);
+        int index = topology.getFirstIndex(position[current]);
+        int entry = position[current];
+
+        while (steps > 0) {
+            index = (index + pathLength - 1) % pathLength;
+            entry = topology.getPathEntry(index);
+
+            // Move along another Dragon's Cave.
+            if (entry >= numSquares && entry != home) {
+                steps += 2;
+            }
+            // Moving back behind the Square outside its Cave.
+            else if (passedCave[current]) {
+                if (entry == behindEntry) {
+                    passedCave[current] = false;
+                }
+            }
+            // A Dragon that has not passed its Cave goes back into it.
+            else {
+                entry = home;
+            }
+            steps--;
+        }
+        return moveTo(entry);
+    }
+
+    /**
+     * Moves the Dragon whose turn it is back to the nearest free Cave for a Knight Chit Card, in the same way as the
+     * BackwardMovement. A Dragon on the Square outside its own free Cave goes straight back into it.
+     * @return what happened.
+     */
+    private FlipOutcome moveBackToFreeCave() {
+        int pathLength = topology.getPathLength();
+        int home = numSquares + homeCave[current];
+        int square = position[current];
+        boolean outsideHome = topology.getCaveAt(square) == homeCave[current] && occupant[home] == NOBODY;
+        int index = topology.getFirstIndex(square);
+
+        while (true) {
+            index = (index + pathLength - 1) % pathLength;
+            int entry = topology.getPathEntry(index);
+            if (entry >= numSquares && occupant[entry] == NOBODY) {
+                return moveTo(entry);
+            }
+            if (outsideHome) {
+                return moveTo(home);
+            }
+        }
+    }
+
+    /**
+     * Moves the Dragon whose turn it is to a path entry, or stuns the Dragon there instead, in the same way as the
+     * DragonSquareIterator.
+     * @param entry: The path entry to move to.
+     * @return MOVED, or ATTACKED if a Dragon was there.
+     */
+    private FlipOutcome moveTo(int entry) {
+        int attacked = occupant[entry];
+        if (attacked != NOBODY) {
+            stunned[attacked] = true;
+            return FlipOutcome.ATTACKED;
+        }
+        occupant[position[current]] = NOBODY;
+        position[current] = entry;
+        occupant[entry] = current;
+        return FlipOutcome.MOVED;
+    }
+
+    /**
+     * Turns every Chit Card face down and hands the turn to the next Dragon that is not stunned, in the same way as the
+     * TurnManager. Stunned Dragons recover as their turn passes.
+     */
+    private void passTurn() {
+        deck.reset();
+        turns++;
+        current = (current + 1) % position.length;
+        for (int skipped = 0; stunned[current] && skipped < position.length; skipped++) {
+            stunned[current] = false;
+            current = (current + 1) % position.length;
+        }
+    }
+
+    /**
+     * A method to return the Animal shown at a path entry.
+     * @param entry: The path entry, a Square or a Cave.
+     * @return the ordinal of its AnimalType.
+     */
+    private int getAnimalAt(int entry) {
+        return (entry < numSquares) ? topology.getSquareAnimal(entry).ordinal() : topology.getCaveAnimal(entry - numSquares).ordinal();
+    }
+
+    /**
+     * A method to check whether the game is over.
+     * @return True if a Dragon has won.
+     */
+    public boolean isOver() {
+        return winner != NOBODY;
+    }
+
+    /**
+     * A method to return the winner data attribute.
+     * @return the Dragon that won, or NOBODY.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * A method to return the current data attribute.
+     * @return the Dragon whose turn it is.
+     */
+    public int getCurrent() {
+        return current;
+    }
+
+    /**
+     * A method to return the turns data attribute.
+     * @return the number of turns that have ended.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * A method to return the number of Dragons.
+     * @return the number of Dragons.
+     */
+    public int getNumPlayers() {
+        return position.length;
+    }
+
+    /**
+     * A method to return the topology data attribute.
+     * @return the shape of the Volcano.
+     */
+    public BoardTopology getTopology() {
+        return topology;
+    }
+
+    /**
+     * A method to return the number of Chit Cards.
+     * @return the number of Chit Cards in the deck.
+     */
+    public int getNumChits() {
+        return deck.size();
+    }
+
+    /**
+     * A method to check whether a Chit Card is face up.
+     * @param chit: The number of the Chit Card.
+     * @return True if it is face up this turn.
+     */
+    public boolean isFlipped(int chit) {
+        return deck.isFlipped(chit);
+    }
+
+    /**
+     * A method to return the number of Chit Cards face up this turn.
+     * @return the number of face-up Chit Cards.
+     */
+    public int getNumFlipped() {
+        return deck.getNumFlipped();
+    }
+
+    /**
+     * A method to check whether a Chit Card has been seen face up during the game, so that its face is known.
+     * @param chit: The number of the Chit Card.
+     * @return True if it has been seen.
+     */
+    public boolean isRevealed(int chit) {
+        return (revealed[chit / Long.SIZE] & (1L << chit)) != 0;
+    }
+
+    /**
+     * A method to return the kind of a Chit Card that has been seen. The kinds of unseen Chit Cards are hidden.
+     * @param chit: The number of the Chit Card.
+     * @return the ordinal of its AnimalType, PIRATE_DRAGON or KNIGHT, or -1 if it has not been seen.
+     */
+    public int getRevealedKind(int chit) {
+        return isRevealed(chit) ? deck.getKind(chit) : -1;
+    }
+
+    /**
+     * A method to return the number of things on a Chit Card that has been seen.
+     * @param chit: The number of the Chit Card.
+     * @return the number of things on it, or -1 if it has not been seen.
+     */
+    public int getRevealedValue(int chit) {
+        return isRevealed(chit) ? deck.getValue(chit) : -1;
+    }
+
+    /**
+     * A method to return the Animal a Dragon is on, which the next Animal Chit Card has to match.
+     * @param player: The Dragon.
+     * @return the ordinal of the AnimalType of its Square or Cave.
+     */
+    public int getAnimalUnder(int player) {
+        return getAnimalAt(position[player]);
+    }
+
+    /**
+     * A method to check whether a Dragon is in a Cave.
+     * @param player: The Dragon.
+     * @return True if it is in a Cave.
+     */
+    public boolean isInCave(int player) {
+        return position[player] >= numSquares;
+    }
+
+    /**
+     * A method to return the position of a Dragon.
+     * @param player: The Dragon.
+     * @return the path entry it is at: a Square, or the number of Squares plus a Cave.
+     */
+    public int getPosition(int player) {
+        return position[player];
+    }
+
+    /**
+     * Writes down everything that has changed since the game was dealt: where each Dragon is, which Chit Cards are
+     * face up or have been seen, whose turn it is and the winner. Together with the board and seed the game was dealt
+     * from, this is enough to bring the game back with loadProgress, in a few dozen bytes.
+     * @return the progress of the game.
+     */
+    public byte[] saveProgress() {
+        int numPlayers = position.length;
+        ByteBuffer out = ByteBuffer.allocate(3 * Integer.BYTES + numPlayers * (Short.BYTES + 1)
+                + 2 * revealed.length * Long.BYTES);
+        out.putInt(turns).putInt(current).putInt(winner);
+        for (int player = 0; player < numPlayers; player++) {
+            out.putShort((short) position[player]);
+            out.put((byte) ((passedCave[player] ? 1 : 0) | (stunned[player] ? 2 : 0)));
+        }
+        for (long word : revealed) {
+            out.putLong(word);
+        }
+        // The face-up Chit Cards, as bits in the same words as the seen ones.
+        for (int word = 0; word < revealed.length; word++) {
+            long bits = 0;
+            for (int bit = 0; bit < Long.SIZE && word * Long.SIZE + bit < deck.size(); bit++) {
+                bits |= deck.isFlipped(word * Long.SIZE + bit) ? 1L << bit : 0;
+            }
+            out.putLong(bits);
+        }
+        return out.array();
+    }
+
+    /**
+     * Brings back the progress written down by saveProgress, on a game freshly dealt from the same board and seed.
+     * @param progress: The progress of the game.
+     */
+    public void loadProgress(byte[] progress) {
+        ByteBuffer in = ByteBuffer.wrap(progress);
+        turns = in.getInt();
+        current = in.getInt();
+        winner = in.getInt();
+        Arrays.fill(occupant, NOBODY);
+        for (int player = 0; player < position.length; player++) {
+            position[player] = in.getShort();
+            occupant[position[player]] = player;
+            byte flags = in.get();
+            passedCave[player] = (flags & 1) != 0;
+            stunned[player] = (flags & 2) != 0;
+        }
+        for (int word = 0; word < revealed.length; word++) {
+            revealed[word] = in.getLong();
+        }
+        for (int word = 0; word < revealed.length; word++) {
+            long bits = in.getLong();
+            for (int bit = 0; bit < Long.SIZE && word * Long.SIZE + bit < deck.size(); bit++) {
+                deck.setFlipped(word * Long.SIZE + bit, (bits & (1L << bit)) != 0);
+            }
+        }
+    }
+
+    /**
+     * Works out a hash of everything that can differ between two games dealt from the same board: the faces of the
+     * Chit Cards and the home Caves as dealt, then where each Dragon is, which Chit Cards are face up or have been seen,
+     * whose turn it is, the winner and the number of turns. Two copies of a game that were dealt and played alike have
+     * the same hash in any process, so peers can compare hashes to find out if their copies have drifted apart.
+     * @return the hash, a 64-bit FNV-1a of the state.
+     */
+    public long stateHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (int chit = 0; chit < deck.size(); chit++) {
+            hash = mix(hash, deck.getFace(chit) | (deck.isFlipped(chit) ? 0x100 : 0));
+        }
+        for (int player = 0; player < position.length; player++) {
+            hash = mix(hash, homeCave[player]);
+            hash = mix(hash, position[player] | (passedCave[player] ? 1 << 16 : 0) | (stunned[player] ? 1 << 17 : 0));
+        }
+        for (long word : revealed) {
+            hash = mix(hash, (int) word);
+            hash = mix(hash, (int) (word >>> 32));
+        }
+        hash = mix(hash, current);
+        hash = mix(hash, winner);
+        return mix(hash, turns);
+    }
+
+    /**
+     * Mixes an int into an FNV-1a hash, a byte at a time.
+     * @param hash: The hash so far.
+     * @param value: The int to mix in.
+     * @return the new hash.
+     */
+    private static long mix(long hash, int value) {
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Estimates the bytes of heap the game takes up beyond the layout it shares with other games: its own arrays, its
+     * Chit Card deck and the Animals it was dealt.
+     * @return the estimated bytes.
+     */
+    public long getFootprint() {
+        return arrayBytes(occupant.length, Integer.BYTES)
+                + 2 * arrayBytes(position.length, Integer.BYTES) + 2 * arrayBytes(position.length, 1)
+                + arrayBytes(revealed.length, Long.BYTES) + deck.getFootprint()
+                + arrayBytes(topology.getNumSquares() + topology.getNumCaves(), 1);
+    }
+
+    /**
+     * Estimates the bytes of heap an array takes up, with its header and rounded up to 8 bytes.
+     * @param length: The length of the array.
+     * @param elementSize: The bytes of each element.
+     * @return the estimated bytes.
+     */
+    public static long arrayBytes(int length, int elementSize) {
+        return (16L + (long) length * elementSize + 7) & ~7L;
+    }
+
+    /**
+     * A method to return the ring index of a Dragon, the same for the UI and for games played without it.
+     * @param player: The Dragon.
+     * @return the first place its path entry appears on the Volcano path.
+     */
+    public int getRingIndex(int player) {
+        return topology.getFirstIndex(position[player]);
+    }
+
+    /**
+     * A method to return the home Cave of a Dragon.
+     * @param player: The Dragon.
+     * @return the number of its home Cave.
+     */
+    public int getHomeCave(int player) {
+        return homeCave[player];
+    }
+
+    /**
+     * A method to check whether a Dragon has moved beyond the Square outside its Cave.
+     * @param player: The Dragon.
+     * @return True if it has.
+     */
+    public boolean hasPassedCave(int player) {
+        return passedCave[player];
+    }
+
+    /**
+     * Works out where a matching Chit Card would move a Dragon, without moving it.
+     * @param player: The Dragon.
+     * @param steps: The number of Animals on the Chit Card.
+     * @return the path entry it would stop at, which is its own Cave if it would win, or NOBODY if it would go past
+     *         its own Cave.
+     */
+    public int getForwardLanding(int player, int steps) {
+        int entry = walkForward(player, steps, false);
+        return (entry == OVERSHOOT) ? NOBODY : entry;
+    }
+
+    /**
+     * A method to return the Dragon at a path entry.
+     * @param entry: The path entry, a Square or the number of Squares plus a Cave.
+     * @return the Dragon there, or NOBODY.
+     */
+    public int getOccupant(int entry) {
+        return occupant[entry];
+    }
+
+    /**
+     * A method to check whether a Dragon is stunned.
+     * @param player: The Dragon.
+     * @return True if it skips its next turn.
+     */
+    public boolean isStunned(int player) {
+        return stunned[player];
+    }
+}
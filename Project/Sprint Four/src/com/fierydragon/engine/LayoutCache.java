@@ -0,0 +1,203 @@
+package com.fierydragon.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A LayoutCache Singleton Design Pattern that loads board definition files and compiles each one only once.
+ * Compiled layouts are kept in memory and written to a cache directory on disk, named after the board and a hash of
+ * its definition file, so a board is only compiled again when its definition file changes. Once in memory, a layout
+ * is used until the board is reloaded.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BoardDefinition
+ * @see CompiledLayout
+ */
+
+public class LayoutCache {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * An instance of itself so that only one LayoutCache instance is created. Default set to null.
+     */
+    private static LayoutCache layoutCache = null;
+    /**
+     * The folder holding the board definition files.
+     */
+    public static final String BOARDS_DIRECTORY = "Project/Sprint Four/src/com/fierydragon/boards";
+    /**
+     * The folder on the classpath holding the board definition files, used when the files are not found on disk.
+     */
+    private static final String BOARDS_RESOURCE = "/com/fierydragon/boards/";
+    /**
+     * The ending of a board definition file.
+     */
+    private static final String DEFINITION_SUFFIX = ".board";
+    /**
+     * The ending of a compiled layout file.
+     */
+    private static final String LAYOUT_SUFFIX = ".layout";
+    /**
+     * The names a board may have, so a name can never reach outside the boards and cache folders.
+     */
+    private static final Pattern BOARD_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+    /**
+     * The compiled layouts already loaded, by board name.
+     */
+    private final Map<String, CompiledLayout> layouts;
+    /**
+     * The folder compiled layouts are written to.
+     */
+    private final Path cacheDirectory;
+
+    /**
+     * LayoutCache Constructor.
+     * The cache directory can be set with the "fierydragon.layoutCache" system property, and is otherwise a folder in
+     * the temporary directory.
+     */
+    public LayoutCache() {
+        this.layouts = new ConcurrentHashMap<>();
+        this.cacheDirectory = Paths.get(System.getProperty("fierydragon.layoutCache",
+                Paths.get(System.getProperty("java.io.tmpdir"), "fierydragon-layouts").toString()));
+    }
+
+    /**
+     * Loads the compiled layout of a board. A layout already in memory is returned as it is, without reading its
+     * definition file again; only the first load of a board, or a reload, reads the file.
+     * @param boardName: The name of the board definition file, without its ending.
+     * @return the compiled layout.
+     * @throws IllegalArgumentException if the name is not a board name, or the definition file is missing or cannot
+     * be compiled.
+     */
+    public CompiledLayout load(String boardName) {
+        CompiledLayout layout = layouts.get(boardName);
+        if (layout != null) {
+            return layout;
+        }
+        return reload(boardName);
+    }
+
+    /**
+     * Reads and hashes the definition file of a board again, and replaces the layout in memory if the file has
+     * changed. If a layout compiled from the same file is on disk it is used, otherwise the file is compiled and the
+     * layout is cached.
+     * @param boardName: The name of the board definition file, without its ending.
+     * @return the compiled layout.
+     * @throws IllegalArgumentException if the name is not a board name, or the definition file is missing or cannot
+     * be compiled.
+     */
+    public CompiledLayout reload(String boardName) {
+        if (!BOARD_NAME.matcher(boardName).matches()) {
+            throw new IllegalArgumentException("Not a board name: " + boardName);
+        }
+        String text = readDefinition(boardName);
+        long sourceHash = CompiledLayout.hash(text.getBytes(StandardCharsets.UTF_8));
+
+        // Keep the layout in memory if the file has not changed.
+        CompiledLayout layout = layouts.get(boardName);
+        if (layout != null && layout.getSourceHash() == sourceHash) {
+            return layout;
+        }
+
+        // Otherwise use the layout on disk, or compile the file if it is missing or out of date.
+        Path layoutFile = cacheDirectory.resolve(boardName + "-" + Long.toHexString(sourceHash) + LAYOUT_SUFFIX);
+        layout = readLayout(layoutFile, sourceHash);
+        if (layout == null) {
+            layout = CompiledLayout.compile(new BoardDefinition(text), sourceHash);
+            writeLayout(layoutFile, layout);
+        }
+        layouts.put(boardName, layout);
+        return layout;
+    }
+
+    /**
+     * Reads the text of a board definition file, from the boards folder or else from the classpath.
+     * @param boardName: The name of the board definition file, without its ending.
+     * @return the text of the file.
+     * @throws IllegalArgumentException if the file cannot be found or read.
+     */
+    private String readDefinition(String boardName) {
+        try {
+            Path definitionFile = Paths.get(BOARDS_DIRECTORY, boardName + DEFINITION_SUFFIX);
+            if (Files.isRegularFile(definitionFile)) {
+                return Files.readString(definitionFile, StandardCharsets.UTF_8);
+            }
+            try (InputStream in = LayoutCache.class.getResourceAsStream(BOARDS_RESOURCE + boardName + DEFINITION_SUFFIX)) {
+                if (in == null) {
+                    throw new IllegalArgumentException("No board definition named " + boardName);
+                }
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("The board definition " + boardName + " cannot be read", e);
+        }
+    }
+
+    /**
+     * Reads a compiled layout from disk.
+     * @param layoutFile: The compiled layout file.
+     * @param sourceHash: The hash of the definition file it should have been compiled from.
+     * @return the layout, or null if it is missing, from an older version or from another definition file.
+     */
+    private CompiledLayout readLayout(Path layoutFile, long sourceHash) {
+        if (!Files.isRegularFile(layoutFile)) {
+            return null;
+        }
+        try {
+            CompiledLayout layout = CompiledLayout.read(Files.readAllBytes(layoutFile));
+            return layout.getSourceHash() == sourceHash ? layout : null;
+        } catch (IOException | RuntimeException e) {
+            // A broken file is compiled again.
+            return null;
+        }
+    }
+
+    /**
+     * Writes a compiled layout to disk. The layout is written to a temporary file first and then moved into place,
+     * so a game starting at the same time never reads half a file. Failing to write only means compiling again later.
+     * @param layoutFile: The compiled layout file.
+     * @param layout: The compiled layout.
+     */
+    private void writeLayout(Path layoutFile, CompiledLayout layout) {
+        try {
+            Files.createDirectories(cacheDirectory);
+            Path temporaryFile = Files.createTempFile(cacheDirectory, layout.getName(), LAYOUT_SUFFIX);
+            Files.write(temporaryFile, layout.toBytes());
+            Files.move(temporaryFile, layoutFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Could not write the compiled layout {0}: {1}", layoutFile, e);
+        }
+    }
+
+    /**
+     * A method to return the cacheDirectory data attribute.
+     * @return the folder compiled layouts are written to.
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Returns the instance of the layoutCache stored as a data attribute.
+     * If one has not been created yet, create a new instance of layoutCache.
+     * @return the layoutCache instance.
+     */
+    public static synchronized LayoutCache getInstance() {
+        if (layoutCache == null) {
+            layoutCache = new LayoutCache();
+        }
+        return layoutCache;
+    }
+}
@@ -0,0 +1,38 @@
+package com.fierydragon.engine;
+
+/**
+ * A class that chooses the home Cave of each Dragon, spreading the Dragons as evenly as possible around the Caves.
+ * Used both by the DragonFactory and by games played without the UI, so both seat the Dragons in the same way.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameState
+ */
+
+public final class Seating {
+    /**
+     * Seating Constructor. Never called, as the class only has static methods.
+     */
+    private Seating() {
+    }
+
+    /**
+     * Chooses the home Cave of a Dragon. Two Dragons on four Caves sit opposite each other and eight Dragons on sixteen
+     * Caves sit on every other Cave. The seats are only turned when some Caves are left empty, so a full table always
+     * starts from the first Cave.
+     * @param player: The position of the Dragon in the turn order.
+     * @param numPlayers: The number of Dragons.
+     * @param numCaves: The number of Caves.
+     * @param seatOffset: The number of Caves the seats are turned by clockwise.
+     * @return the number of the home Cave of the Dragon.
+     * @throws IllegalArgumentException if there are more Dragons than Caves.
+     */
+    public static int caveOf(int player, int numPlayers, int numCaves, int seatOffset) {
+        if (numPlayers > numCaves) {
+            throw new IllegalArgumentException(numPlayers + " Dragons cannot share " + numCaves + " Caves");
+        }
+        int offset = (numPlayers < numCaves) ? seatOffset : 0;
+        return (player * numCaves / numPlayers + offset) % numCaves;
+    }
+}
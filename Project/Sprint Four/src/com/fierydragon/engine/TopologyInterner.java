@@ -0,0 +1,121 @@
+package com.fierydragon.engine;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A TopologyInterner Singleton Design Pattern that keeps one copy of each dealt BoardTopology, so every game dealt the
+ * same Volcano shares it instead of holding its own. A board has only so many ways to deal its Volcano Cards and Caves,
+ * so a busy server soon has many games on each one.
+ * Topologies are found by their fingerprint and checked to be the same before being shared. They are held weakly, so a
+ * Volcano is forgotten once no game is using it.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BoardTopology
+ * @see CompiledLayout
+ */
+
+public class TopologyInterner {
+    /**
+     * An instance of itself so that only one TopologyInterner instance is created. Default set to null.
+     */
+    private static TopologyInterner topologyInterner = null;
+    /**
+     * The topologies being shared, by fingerprint.
+     */
+    private final Map<Long, Entry> topologies;
+    /**
+     * The references of topologies that have been forgotten, to be taken out of the map.
+     */
+    private final ReferenceQueue<BoardTopology> forgotten;
+
+    /**
+     * A class holding a shared topology weakly, together with its fingerprint so it can be taken out of the map once
+     * it is forgotten.
+     */
+    private static final class Entry extends WeakReference<BoardTopology> {
+        /**
+         * The fingerprint of the topology.
+         */
+        private final long fingerprint;
+
+        /**
+         * Entry Constructor.
+         * @param topology: The topology.
+         * @param queue: The queue the entry is put on once the topology is forgotten.
+         */
+        Entry(BoardTopology topology, ReferenceQueue<BoardTopology> queue) {
+            super(topology, queue);
+            this.fingerprint = topology.getFingerprint();
+        }
+    }
+
+    /**
+     * TopologyInterner Constructor.
+     */
+    public TopologyInterner() {
+        this.topologies = new ConcurrentHashMap<>();
+        this.forgotten = new ReferenceQueue<>();
+    }
+
+    /**
+     * Finds the shared copy of a topology, sharing the given one if there is none yet.
+     * @param topology: The topology.
+     * @return the shared topology, which is the same Volcano as the given one.
+     */
+    public BoardTopology intern(BoardTopology topology) {
+        expunge();
+        Long key = topology.getFingerprint();
+        while (true) {
+            Entry entry = topologies.get(key);
+            BoardTopology shared = (entry == null) ? null : entry.get();
+            if (shared != null) {
+                // Two different Volcanoes with the same fingerprint are not shared.
+                return shared.sameAs(topology) ? shared : topology;
+            }
+            Entry created = new Entry(topology, forgotten);
+            boolean added = (entry == null) ? topologies.putIfAbsent(key, created) == null
+                    : topologies.replace(key, entry, created);
+            if (added) {
+                return topology;
+            }
+        }
+    }
+
+    /**
+     * Takes the topologies no game is using any more out of the map.
+     */
+    private void expunge() {
+        Reference<? extends BoardTopology> reference;
+        while ((reference = forgotten.poll()) != null) {
+            Entry entry = (Entry) reference;
+            topologies.remove(entry.fingerprint, entry);
+        }
+    }
+
+    /**
+     * A method to return the number of topologies being shared.
+     * @return the number of topologies.
+     */
+    public int size() {
+        expunge();
+        return topologies.size();
+    }
+
+    /**
+     * Returns the instance of the topologyInterner stored as a data attribute.
+     * If one has not been created yet, create a new instance of topologyInterner.
+     * @return the topologyInterner instance.
+     */
+    public static synchronized TopologyInterner getInstance() {
+        if (topologyInterner == null) {
+            topologyInterner = new TopologyInterner();
+        }
+        return topologyInterner;
+    }
+}
@@ -0,0 +1,30 @@
+package com.fierydragon.engine;
+
+/**
+ * Enum class that depicts which part of a turn a game is in, and so which commands it accepts.
+ * A Chit Card can only be flipped while the game is awaiting a flip; the other phases turn flips away.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameLoop
+ */
+
+public enum TurnPhase {
+    /**
+     * The Dragon whose turn it is may flip a Chit Card.
+     */
+    AWAITING_FLIP,
+    /**
+     * A flipped Chit Card is being applied to the Dragon.
+     */
+    RESOLVING,
+    /**
+     * The turn has ended and the game is showing the result before handing the turn on.
+     */
+    ANIMATING,
+    /**
+     * A Dragon has won, so nothing more can be flipped.
+     */
+    GAME_OVER
+}
@@ -0,0 +1,282 @@
+package com.fierydragon.engine;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A class that lays out a Volcano of any number of Volcano Cards and Caves. The Squares go clockwise around the
+ * edge of a rectangle that is as close to a square as possible, the cut Cards are spread evenly around the ring and
+ * each Cave sits just outside its Square. The Animals are shared out as evenly as the MAX_NUM_ANIMALS rule allows.
+ * With eight Cards of three Squares and four Caves it lays out the standard Volcano.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BoardTopology
+ */
+
+public class VolcanoGenerator {
+    /**
+     * The x-coordinate of the top left corner of the Volcano in the board grid.
+     */
+    public static final int ORIGIN_X = 2;
+    /**
+     * The y-coordinate of the top left corner of the Volcano in the board grid.
+     */
+    public static final int ORIGIN_Y = 2;
+
+    /**
+     * Generates a Volcano with the Animals shared out at random.
+     * @param numCards: The number of Volcano Cards.
+     * @param squaresPerCard: The number of Squares on each Volcano Card, at least 2.
+     * @param numCaves: The number of Caves, between 1 and the number of Volcano Cards.
+     * @param random: The Random used to share out the Animals.
+     * @return the generated Volcano.
+     * @throws IllegalArgumentException if the Volcano cannot be laid out.
+     */
+    public static BoardTopology generate(int numCards, int squaresPerCard, int numCaves, Random random) {
+        checkSize(numCards, squaresPerCard, numCaves);
+        return layout(numCards, squaresPerCard, numCaves, shareAnimals(numCards, squaresPerCard, random), shareCaveAnimals(numCaves, random));
+    }
+
+    /**
+     * Lays out a Volcano with the given Animals.
+     * @param numCards: The number of Volcano Cards.
+     * @param squaresPerCard: The number of Squares on each Volcano Card, at least 2.
+     * @param numCaves: The number of Caves, between 1 and the number of Volcano Cards.
+     * @param squareAnimals: The Animal on each Square clockwise, as the ordinal of its AnimalType.
+     * @param caveAnimals: The Animal in each Cave clockwise, as the ordinal of its AnimalType.
+     * @return the laid out Volcano.
+     * @throws IllegalArgumentException if the Volcano cannot be laid out.
+     */
+    public static BoardTopology layout(int numCards, int squaresPerCard, int numCaves, byte[] squareAnimals, byte[] caveAnimals) {
+        checkSize(numCards, squaresPerCard, numCaves);
+        int numSquares = numCards * squaresPerCard;
+
+        // A ring on a grid always has an even length, so an odd number of Squares leaves one place empty.
+        int perimeter = numSquares + numSquares % 2;
+        int halfPerimeter = perimeter / 2 + 2;
+        int width = (halfPerimeter + 1) / 2;
+        int height = halfPerimeter - width;
+
+        // Place the Squares clockwise, starting just below the top left corner as in the standard Volcano.
+        int[] squareX = new int[numSquares];
+        int[] squareY = new int[numSquares];
+        for (int square = 0; square < numSquares; square++) {
+            int place = (square + perimeter - 1) % perimeter;
+            squareX[square] = ORIGIN_X + perimeterX(place, width, height);
+            squareY[square] = ORIGIN_Y + perimeterY(place, width, height);
+        }
+
+        // Cut evenly spaced Volcano Cards, with the Cave on the second last Square of the Card as the CardBuilder does.
+        int[] caveSquare = new int[numCaves];
+        int[] caveX = new int[numCaves];
+        int[] caveY = new int[numCaves];
+        for (int cave = 0; cave < numCaves; cave++) {
+            int card = getCutCard(cave, numCards, numCaves);
+            int square = card * squaresPerCard + squaresPerCard - 2;
+            caveSquare[cave] = square;
+            // Step outside the ring, diagonally at a corner so no two Caves can meet.
+            int place = (square + perimeter - 1) % perimeter;
+            caveX[cave] = squareX[square] + outwardX(place, width, height);
+            caveY[cave] = squareY[square] + outwardY(place, width, height);
+        }
+
+        return new BoardTopology(numCards, squaresPerCard, squareX, squareY, squareAnimals, caveSquare, caveX, caveY, caveAnimals);
+    }
+
+    /**
+     * Gets the Volcano Card a Cave is joined to, spreading the Caves evenly with the first one half a gap from the
+     * start of the ring.
+     * @param cave: The number of the Cave.
+     * @param numCards: The number of Volcano Cards.
+     * @param numCaves: The number of Caves.
+     * @return the number of the cut Volcano Card.
+     */
+    public static int getCutCard(int cave, int numCards, int numCaves) {
+        return (int) (((long) cave * numCards) / numCaves + numCards / (2 * numCaves));
+    }
+
+    /**
+     * Checks that a Volcano of the given size can be laid out.
+     * @param numCards: The number of Volcano Cards.
+     * @param squaresPerCard: The number of Squares on each Volcano Card.
+     * @param numCaves: The number of Caves.
+     * @throws IllegalArgumentException if the Volcano cannot be laid out.
+     */
+    private static void checkSize(int numCards, int squaresPerCard, int numCaves) {
+        if (numCards < 1 || squaresPerCard < 2 || numCards * squaresPerCard < 3) {
+            throw new IllegalArgumentException("A Volcano needs at least 3 Squares, with at least 2 on each Volcano Card");
+        }
+        if (numCaves < 1 || numCaves > numCards) {
+            throw new IllegalArgumentException("A Volcano of " + numCards + " Volcano Cards can have 1 to " + numCards + " Caves");
+        }
+    }
+
+    /**
+     * Shares the Animals out over the Squares so that each Animal is on as close to the same number of Squares as
+     * possible, and no Animal is on a Volcano Card twice if it can be helped. Each Square takes an Animal at random,
+     * weighted by how many of that Animal are left.
+     * @param numCards: The number of Volcano Cards.
+     * @param squaresPerCard: The number of Squares on each Volcano Card.
+     * @param random: The Random used to choose the Animals.
+     * @return the Animal on each Square, as the ordinal of its AnimalType.
+     */
+    public static byte[] shareAnimals(int numCards, int squaresPerCard, Random random) {
+        int numTypes = AnimalType.values().length;
+        int numSquares = numCards * squaresPerCard;
+
+        // Work out how many of each Animal there are, giving the spare ones to random Animals.
+        int[] remaining = new int[numTypes];
+        for (int type = 0; type < numTypes; type++) {
+            remaining[type] = numSquares / numTypes;
+        }
+        int spare = numSquares % numTypes;
+        while (spare > 0) {
+            int type = random.nextInt(numTypes);
+            if (remaining[type] == numSquares / numTypes) {
+                remaining[type]++;
+                spare--;
+            }
+        }
+
+        byte[] animals = new byte[numSquares];
+        boolean[] onCard = new boolean[numTypes];
+        for (int square = 0; square < numSquares; square++) {
+            // Start a new Volcano Card.
+            if (square % squaresPerCard == 0) {
+                Arrays.fill(onCard, false);
+            }
+            int type = pickAnimal(remaining, onCard, random);
+            // Every Animal left is already on this Volcano Card, so allow a repeat.
+            if (type == -1) {
+                type = pickAnimal(remaining, new boolean[numTypes], random);
+            }
+            animals[square] = (byte) type;
+            remaining[type]--;
+            onCard[type] = true;
+        }
+        return animals;
+    }
+
+    /**
+     * Picks an Animal at random, weighted by how many of it are left, skipping the excluded ones.
+     * @param remaining: The number of each Animal left.
+     * @param excluded: The Animals that cannot be picked.
+     * @param random: The Random used to pick.
+     * @return the ordinal of the picked AnimalType, or -1 if none can be picked.
+     */
+    private static int pickAnimal(int[] remaining, boolean[] excluded, Random random) {
+        int total = 0;
+        for (int type = 0; type < remaining.length; type++) {
+            if (!excluded[type]) {
+                total += remaining[type];
+            }
+        }
+        if (total == 0) {
+            return -1;
+        }
+        int pick = random.nextInt(total);
+        for (int type = 0; type < remaining.length; type++) {
+            if (!excluded[type]) {
+                pick -= remaining[type];
+                if (pick < 0) {
+                    return type;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gives each Cave an Animal, going through every Animal in a random order before any is repeated.
+     * @param numCaves: The number of Caves.
+     * @param random: The Random used to order the Animals.
+     * @return the Animal in each Cave, as the ordinal of its AnimalType.
+     */
+    public static byte[] shareCaveAnimals(int numCaves, Random random) {
+        int numTypes = AnimalType.values().length;
+        byte[] order = new byte[numTypes];
+        byte[] animals = new byte[numCaves];
+        for (int cave = 0; cave < numCaves; cave++) {
+            // Shuffle the Animals again each time all of them have been used.
+            if (cave % numTypes == 0) {
+                for (int type = 0; type < numTypes; type++) {
+                    order[type] = (byte) type;
+                }
+                for (int i = numTypes - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    byte swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                }
+            }
+            animals[cave] = order[cave % numTypes];
+        }
+        return animals;
+    }
+
+    /**
+     * Gets the x-coordinate of a place on the edge of a rectangle, counting clockwise from the top left corner.
+     * @param place: The place on the edge.
+     * @param width: The width of the rectangle.
+     * @param height: The height of the rectangle.
+     * @return the x-coordinate relative to the top left corner.
+     */
+    private static int perimeterX(int place, int width, int height) {
+        if (place < width) {
+            return place;                                   // Top side, going right.
+        }
+        if (place < width + height - 1) {
+            return width - 1;                               // Right side, going down.
+        }
+        if (place < 2 * width + height - 2) {
+            return 2 * width + height - 3 - place;          // Bottom side, going left.
+        }
+        return 0;                                           // Left side, going up.
+    }
+
+    /**
+     * Gets the y-coordinate of a place on the edge of a rectangle, counting clockwise from the top left corner.
+     * @param place: The place on the edge.
+     * @param width: The width of the rectangle.
+     * @param height: The height of the rectangle.
+     * @return the y-coordinate relative to the top left corner.
+     */
+    private static int perimeterY(int place, int width, int height) {
+        if (place < width) {
+            return 0;                                       // Top side, going right.
+        }
+        if (place < width + height - 1) {
+            return place - width + 1;                       // Right side, going down.
+        }
+        if (place < 2 * width + height - 2) {
+            return height - 1;                              // Bottom side, going left.
+        }
+        return 2 * width + 2 * height - 4 - place;          // Left side, going up.
+    }
+
+    /**
+     * Gets the x-direction pointing out of the rectangle at a place on its edge, diagonally at the corners.
+     * @param place: The place on the edge.
+     * @param width: The width of the rectangle.
+     * @param height: The height of the rectangle.
+     * @return -1, 0 or 1.
+     */
+    private static int outwardX(int place, int width, int height) {
+        int x = perimeterX(place, width, height);
+        return (x == 0) ? -1 : (x == width - 1) ? 1 : 0;
+    }
+
+    /**
+     * Gets the y-direction pointing out of the rectangle at a place on its edge, diagonally at the corners.
+     * @param place: The place on the edge.
+     * @param width: The width of the rectangle.
+     * @param height: The height of the rectangle.
+     * @return -1, 0 or 1.
+     */
+    private static int outwardY(int place, int width, int height) {
+        int y = perimeterY(place, width, height);
+        return (y == 0) ? -1 : (y == height - 1) ? 1 : 0;
+    }
+}
@@ -0,0 +1,180 @@
+package com.fierydragon.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A class that counts latencies in buckets that grow with the latency, so any latency from a microsecond to hours is
+ * kept to within about 6% in a fixed few kilobytes, however long a soak test runs.
+ * Each power of two is split into 16 equal buckets. Latencies are recorded by many threads at once without locking.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see LoadTest
+ */
+
+public class LatencyHistogram {
+    /**
+     * The number of bits of each latency kept exactly within its power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    /**
+     * The number of buckets each power of two is split into.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * The number of buckets, enough for any positive long.
+     */
+    private static final int NUM_BUCKETS = SUB_BUCKETS * (Long.SIZE - SUB_BUCKET_BITS + 1);
+    /**
+     * The number of latencies in each bucket.
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * LatencyHistogram Constructor.
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(NUM_BUCKETS);
+    }
+
+    /**
+     * Records a latency.
+     * @param micros: The latency in microseconds.
+     */
+    public void record(long micros) {
+        counts.incrementAndGet(bucketOf(Math.max(0, micros)));
+    }
+
+    /**
+     * Adds the latencies of another histogram to this one.
+     * @param other: The other histogram.
+     */
+    public void add(LatencyHistogram other) {
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            long count = other.counts.get(bucket);
+            if (count != 0) {
+                counts.addAndGet(bucket, count);
+            }
+        }
+    }
+
+    /**
+     * Moves the latencies recorded so far into a new histogram and empties this one, for reports of each interval.
+     * @return the latencies recorded since the last call.
+     */
+    public LatencyHistogram drain() {
+        LatencyHistogram drained = new LatencyHistogram();
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            if (counts.get(bucket) != 0) {
+                drained.counts.set(bucket, counts.getAndSet(bucket, 0));
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * A method to return the number of latencies recorded.
+     * @return the number of latencies.
+     */
+    public long getCount() {
+        long total = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            total += counts.get(bucket);
+        }
+        return total;
+    }
+
+    /**
+     * Works out the latency that a share of the latencies recorded are at or below.
+     * @param percentile: The share, from 0 to 100.
+     * @return the latency in microseconds, or 0 if none have been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        // The rank of the latency wanted, counting from 1.
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return highestIn(bucket);
+            }
+        }
+        return highestIn(NUM_BUCKETS - 1);
+    }
+
+    /**
+     * A method to return the largest latency recorded.
+     * @return the latency in microseconds, to within its bucket, or 0 if none have been recorded.
+     */
+    public long getMax() {
+        for (int bucket = NUM_BUCKETS - 1; bucket >= 0; bucket--) {
+            if (counts.get(bucket) != 0) {
+                return highestIn(bucket);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A method to return the mean latency recorded.
+     * @return the mean in microseconds, taking each latency as the middle of its bucket.
+     */
+    public double getMean() {
+        long total = 0;
+        double sum = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            long count = counts.get(bucket);
+            if (count != 0) {
+                total += count;
+                sum += count * (lowestIn(bucket) + highestIn(bucket)) / 2.0;
+            }
+        }
+        return (total == 0) ? 0 : sum / total;
+    }
+
+    /**
+     * Finds the bucket of a latency.
+     * @param value: The latency.
+     * @return the bucket.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // The power of two of the latency picks the group, and the bits below the top one pick the bucket in it.
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS * (exponent - SUB_BUCKET_BITS + 1) + subBucket;
+    }
+
+    /**
+     * Works out the smallest latency in a bucket.
+     * @param bucket: The bucket.
+     * @return the smallest latency.
+     */
+    private static long lowestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Works out the largest latency in a bucket.
+     * @param bucket: The bucket.
+     * @return the largest latency.
+     */
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return lowestIn(bucket) + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
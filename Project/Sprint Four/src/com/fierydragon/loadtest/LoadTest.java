@@ -0,0 +1,361 @@
+package com.fierydragon.loadtest;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.LayoutCache;
+import com.fierydragon.server.GameServer;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A class representing a load test of a GameServer: thousands of simulated players at many tables, each player on its
+ * own connection, playing with a think time between flips for as long as the test runs.
+ * Every interval a line is printed with the flips per second, the percentiles of the time from sending a flip to
+ * reading its result, the errors, and the heap and garbage collection of this process, which includes the server
+ * when it is run in the same process. A summary over the whole run is printed at the end.
+ * In lobby mode the players are not seated at tables of their own, but each waits in the Lobby of the server to be
+ * matched with strangers of a similar rating, and the time spent waiting is reported as well.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see SimulatedTable
+ * @see SimulatedPlayer
+ * @see LatencyHistogram
+ */
+
+public class LoadTest {
+    /**
+     * The bytes in a megabyte.
+     */
+    private static final long MEGABYTE = 1024 * 1024;
+    /**
+     * The longest think time, as a multiple of the mean.
+     */
+    private static final int MAX_THINK_FACTOR = 10;
+    /**
+     * The lowest rating of a player in lobby mode.
+     */
+    private static final int MIN_PLAYER_RATING = 1000;
+    /**
+     * The spread of the ratings of the players in lobby mode.
+     */
+    private static final int RATING_SPREAD = 1000;
+    /**
+     * The host name of the server.
+     */
+    private final String host;
+    /**
+     * The port of the server.
+     */
+    private final int port;
+    /**
+     * The name of the board definition played on.
+     */
+    private final String boardName;
+    /**
+     * The number of tables.
+     */
+    private final int numTables;
+    /**
+     * The number of players at each table.
+     */
+    private final int numPlayers;
+    /**
+     * The mean milliseconds a player thinks before flipping.
+     */
+    private final long thinkMillis;
+    /**
+     * Makes the bot of each seat.
+     */
+    private final Supplier<ChitPolicy> botFactory;
+    /**
+     * The seed the tables' random numbers are drawn from.
+     */
+    private final long seed;
+    /**
+     * A boolean denoting if the players are matched by the Lobby rather than seated at tables of their own.
+     */
+    private final boolean lobby;
+    /**
+     * The latencies of the whole run.
+     */
+    private final LatencyHistogram total;
+    /**
+     * The latencies since the last report.
+     */
+    private final LatencyHistogram interval;
+    /**
+     * The times players waited in the Lobby to be matched.
+     */
+    private final LatencyHistogram matches;
+    /**
+     * The number of errors.
+     */
+    private final AtomicLong numErrors;
+    /**
+     * The number of games played to the end.
+     */
+    private final AtomicLong numGames;
+    /**
+     * A boolean denoting if the tables are playing.
+     */
+    private volatile boolean running;
+
+    /**
+     * LoadTest Constructor.
+     * @param host: The host name of the server.
+     * @param port: The port of the server.
+     * @param boardName: The name of the board definition played on.
+     * @param numTables: The number of tables.
+     * @param numPlayers: The number of players at each table.
+     * @param thinkMillis: The mean milliseconds a player thinks before flipping.
+     * @param botFactory: Makes the bot of each seat.
+     * @param seed: The seed the tables' random numbers are drawn from.
+     * @param lobby: True to match the players in the Lobby rather than seat them at tables of their own.
+     */
+    public LoadTest(String host, int port, String boardName, int numTables, int numPlayers, long thinkMillis,
+                    Supplier<ChitPolicy> botFactory, long seed, boolean lobby) {
+        this.host = host;
+        this.port = port;
+        this.boardName = boardName;
+        this.numTables = numTables;
+        this.numPlayers = numPlayers;
+        this.thinkMillis = thinkMillis;
+        this.botFactory = botFactory;
+        this.seed = seed;
+        this.lobby = lobby;
+        this.total = new LatencyHistogram();
+        this.interval = new LatencyHistogram();
+        this.matches = new LatencyHistogram();
+        this.numErrors = new AtomicLong();
+        this.numGames = new AtomicLong();
+    }
+
+    /**
+     * Runs the load test, printing a report every interval and a summary at the end.
+     * @param durationSeconds: The seconds to run for.
+     * @param reportSeconds: The seconds between reports.
+     * @param rampSeconds: The seconds over which the tables are started, so they do not all connect at once.
+     * @param out: The stream to print the reports to.
+     * @throws InterruptedException if the load test is interrupted.
+     */
+    public void run(long durationSeconds, long reportSeconds, long rampSeconds, PrintStream out)
+            throws InterruptedException {
+        CompiledLayout layout = LayoutCache.getInstance().load(boardName);
+        ExecutorService tables = GameServer.newConnectionExecutor();
+        Random seeds = new Random(seed);
+        running = true;
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long nextReport = start + TimeUnit.SECONDS.toNanos(reportSeconds);
+        long previousGcCount = gcCount(), previousGcMillis = gcMillis();
+        out.println(" seconds  tables  flips/s   p50 ms   p90 ms   p99 ms p99.9 ms   max ms  errors   games"
+                + "  heap MB  committed MB  gc  gc ms");
+
+        int numStarted = 0;
+        while (System.nanoTime() < end) {
+            // Start the tables due by now in the ramp.
+            long elapsed = System.nanoTime() - start;
+            int due = (rampSeconds <= 0) ? numTables
+                    : (int) Math.min(numTables, numTables * elapsed / TimeUnit.SECONDS.toNanos(rampSeconds) + 1);
+            for (; numStarted < due; numStarted++) {
+                if (lobby) {
+                    // A table's worth of players, each waiting to be matched on their own.
+                    for (int player = 0; player < numPlayers; player++) {
+                        int rating = MIN_PLAYER_RATING + seeds.nextInt(RATING_SPREAD);
+                        tables.execute(new SimulatedPlayer(this, layout, numPlayers, botFactory.get(), rating,
+                                seeds.nextLong()));
+                    }
+                }
+                else {
+                    tables.execute(new SimulatedTable(this, layout, numPlayers, botFactory, seeds.nextLong()));
+                }
+            }
+
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                long gcCount = gcCount(), gcMillis = gcMillis();
+                report(out, now - start, numStarted, reportSeconds, interval.drain(), gcCount - previousGcCount,
+                        gcMillis - previousGcMillis);
+                previousGcCount = gcCount;
+                previousGcMillis = gcMillis;
+                nextReport += TimeUnit.SECONDS.toNanos(reportSeconds);
+            }
+            Thread.sleep(Math.min(100, Math.max(1, TimeUnit.NANOSECONDS.toMillis(Math.min(end, nextReport) - now))));
+        }
+
+        // Let each table finish its flip, then close the connections left.
+        running = false;
+        tables.shutdown();
+        if (!tables.awaitTermination(10, TimeUnit.SECONDS)) {
+            tables.shutdownNow();
+        }
+        out.printf("total: %d flips in %d games, %.0f flips/s, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms,"
+                        + " max %.2f ms, %d errors%n", total.getCount(), numGames.get(),
+                total.getCount() / (double) durationSeconds, total.getMean() / 1000, millis(total.getPercentile(50)),
+                millis(total.getPercentile(99)), millis(total.getPercentile(99.9)), millis(total.getMax()),
+                numErrors.get());
+        if (lobby) {
+            out.printf("lobby: %d matches, mean wait %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    matches.getCount(), matches.getMean() / 1000, millis(matches.getPercentile(50)),
+                    millis(matches.getPercentile(99)), millis(matches.getMax()));
+        }
+    }
+
+    /**
+     * Prints the report of one interval.
+     * @param out: The stream to print to.
+     * @param elapsedNanos: The nanoseconds since the test started.
+     * @param numStarted: The number of tables started.
+     * @param reportSeconds: The seconds in the interval.
+     * @param latencies: The latencies of the interval.
+     * @param gcCount: The number of garbage collections in the interval.
+     * @param gcMillis: The milliseconds spent collecting garbage in the interval.
+     */
+    private void report(PrintStream out, long elapsedNanos, int numStarted, long reportSeconds,
+                        LatencyHistogram latencies, long gcCount, long gcMillis) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        out.printf("%8d %7d %8.0f %8.2f %8.2f %8.2f %8.2f %8.2f %7d %7d %8d %13d %3d %6d%n",
+                TimeUnit.NANOSECONDS.toSeconds(elapsedNanos), numStarted,
+                latencies.getCount() / (double) reportSeconds, millis(latencies.getPercentile(50)),
+                millis(latencies.getPercentile(90)), millis(latencies.getPercentile(99)),
+                millis(latencies.getPercentile(99.9)), millis(latencies.getMax()), numErrors.get(), numGames.get(),
+                heap.getUsed() / MEGABYTE, heap.getCommitted() / MEGABYTE, gcCount, gcMillis);
+    }
+
+    /**
+     * Records the latency of a flip.
+     * @param micros: The microseconds from sending the flip to reading its result.
+     */
+    void recordFlip(long micros) {
+        total.record(micros);
+        interval.record(micros);
+    }
+
+    /**
+     * Records how long a player waited in the Lobby to be matched.
+     * @param micros: The microseconds from queueing to being seated.
+     */
+    void recordMatch(long micros) {
+        matches.record(micros);
+    }
+
+    /**
+     * Counts an error, such as a refused command, a lost connection or a reply that breaks the rules.
+     */
+    void recordError() {
+        numErrors.incrementAndGet();
+    }
+
+    /**
+     * Counts a game played to the end.
+     */
+    void recordGame() {
+        numGames.incrementAndGet();
+    }
+
+    /**
+     * Draws how long a player thinks before flipping, as players arrive at random: exponentially distributed around
+     * the mean, and at most ten times the mean.
+     * @param random: The random numbers of the table.
+     * @return the milliseconds to think.
+     */
+    long nextThinkMillis(Random random) {
+        if (thinkMillis <= 0) {
+            return 0;
+        }
+        double think = -thinkMillis * Math.log(1 - random.nextDouble());
+        return (long) Math.min(think, thinkMillis * MAX_THINK_FACTOR);
+    }
+
+    /**
+     * Adds up the garbage collections of every collector.
+     * @return the number of garbage collections since the process started.
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Adds up the time spent by every garbage collector.
+     * @return the milliseconds spent collecting garbage since the process started.
+     */
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Converts microseconds to milliseconds.
+     * @param micros: The microseconds.
+     * @return the milliseconds.
+     */
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * A method to check whether the tables are playing.
+     * @return True until the test ends.
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * A method to return the host data attribute.
+     * @return the host name of the server.
+     */
+    String getHost() {
+        return host;
+    }
+
+    /**
+     * A method to return the port data attribute.
+     * @return the port of the server.
+     */
+    int getPort() {
+        return port;
+    }
+
+    /**
+     * A method to return the boardName data attribute.
+     * @return the name of the board definition played on.
+     */
+    String getBoardName() {
+        return boardName;
+    }
+
+    /**
+     * A method to return the total data attribute.
+     * @return the latencies of the whole run.
+     */
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+
+    /**
+     * A method to return the numErrors data attribute.
+     * @return the number of errors.
+     */
+    public long getNumErrors() {
+        return numErrors.get();
+    }
+}
@@ -0,0 +1,97 @@
+package com.fierydragon.loadtest;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.bots.MemoryPolicy;
+import com.fierydragon.bots.RandomPolicy;
+import com.fierydragon.server.GameServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.function.Supplier;
+
+/**
+ * The entry point of the load test mode, which plays many tables of bots against a GameServer and reports the latency
+ * of each flip, the errors and the heap and garbage collection over time. Run from the repository root so the board
+ * definitions are found, for example a one-hour soak test of 2000 tables of 4 bots on a server in this process:
+ * <pre>
+ * java com.fierydragon.loadtest.LoadTestMain --embedded true --tables 2000 --players 4 --think-millis 500
+ *      --duration-seconds 3600 --report-seconds 10 --ramp-seconds 60
+ * </pre>
+ * Without --embedded the test connects to the server at --host and --port. With --lobby true the players wait in the
+ * Lobby to be matched with each other instead of creating a game for each table.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see LoadTest
+ */
+
+public class LoadTestMain {
+    /**
+     * Reads the options and runs the load test.
+     * @param args: The options, each a name followed by its value: --host, --port, --embedded, --tables, --players,
+     *              --board, --think-millis, --bot, --seed, --duration-seconds, --report-seconds, --ramp-seconds and
+     *              --lobby.
+     * @throws IOException if the embedded server cannot be started.
+     * @throws InterruptedException if the load test is interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String host = "127.0.0.1";
+        int port = GameServer.DEFAULT_PORT;
+        boolean embedded = false;
+        int numTables = 100;
+        int numPlayers = 2;
+        String board = "standard";
+        long thinkMillis = 200;
+        String bot = "memory";
+        long seed = 1;
+        long durationSeconds = 60;
+        long reportSeconds = 5;
+        long rampSeconds = 5;
+        boolean lobby = false;
+
+        // Read each option and its value.
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--host" -> host = args[i + 1];
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--embedded" -> embedded = Boolean.parseBoolean(args[i + 1]);
+                case "--tables" -> numTables = Integer.parseInt(args[i + 1]);
+                case "--players" -> numPlayers = Integer.parseInt(args[i + 1]);
+                case "--board" -> board = args[i + 1];
+                case "--think-millis" -> thinkMillis = Long.parseLong(args[i + 1]);
+                case "--bot" -> bot = args[i + 1];
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--duration-seconds" -> durationSeconds = Long.parseLong(args[i + 1]);
+                case "--report-seconds" -> reportSeconds = Long.parseLong(args[i + 1]);
+                case "--ramp-seconds" -> rampSeconds = Long.parseLong(args[i + 1]);
+                case "--lobby" -> lobby = Boolean.parseBoolean(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Supplier<ChitPolicy> botFactory = switch (bot) {
+            case "random" -> RandomPolicy::new;
+            case "memory" -> () -> new MemoryPolicy(1);
+            default -> throw new IllegalArgumentException("Unknown bot " + bot);
+        };
+
+        // Host the games in this process, so its heap and garbage collection are the server's.
+        GameServer server = null;
+        if (embedded) {
+            server = new GameServer(0, InetAddress.getLoopbackAddress());
+            server.start();
+            host = InetAddress.getLoopbackAddress().getHostAddress();
+            port = server.getPort();
+        }
+
+        LoadTest loadTest = new LoadTest(host, port, board, numTables, numPlayers, thinkMillis, botFactory, seed,
+                lobby);
+        loadTest.run(durationSeconds, reportSeconds, rampSeconds, System.out);
+        if (server != null) {
+            server.close();
+        }
+        // Connection threads may still be winding down.
+        System.exit(loadTest.getNumErrors() == 0 ? 0 : 1);
+    }
+}
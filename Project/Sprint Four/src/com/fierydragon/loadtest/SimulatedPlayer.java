@@ -0,0 +1,170 @@
+package com.fierydragon.loadtest;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.server.GameClient;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class representing one simulated player who waits in the Lobby of a GameServer to be matched with strangers,
+ * playing game after game, each on a new connection, until the load test stops.
+ * Like the SimulatedTable, each game is also played on a GameState dealt from the same board and seed, so the bot
+ * chooses with the headless rules and any reply that disagrees with the rules is counted as an error. A game that
+ * loses a player is given up, and the player waits for another.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see LoadTest
+ * @see com.fierydragon.server.Lobby
+ */
+
+public class SimulatedPlayer implements Runnable {
+    /**
+     * The milliseconds to wait before playing again after an error.
+     */
+    private static final long BACKOFF_MILLIS = 100;
+    /**
+     * The load test the player is part of.
+     */
+    private final LoadTest loadTest;
+    /**
+     * The compiled layout of the board played on.
+     */
+    private final CompiledLayout layout;
+    /**
+     * The number of players at each table.
+     */
+    private final int numPlayers;
+    /**
+     * The bot choosing the Chit Cards of the player.
+     */
+    private final ChitPolicy bot;
+    /**
+     * The rating the player waits in the Lobby with.
+     */
+    private final int rating;
+    /**
+     * The random numbers for think times and the bot.
+     */
+    private final Random random;
+
+    /**
+     * SimulatedPlayer Constructor.
+     * @param loadTest: The load test the player is part of.
+     * @param layout: The compiled layout of the board played on.
+     * @param numPlayers: The number of players at each table.
+     * @param bot: The bot choosing the Chit Cards of the player.
+     * @param rating: The rating the player waits in the Lobby with.
+     * @param seed: The seed of the player's random numbers.
+     */
+    public SimulatedPlayer(LoadTest loadTest, CompiledLayout layout, int numPlayers, ChitPolicy bot, int rating,
+                           long seed) {
+        this.loadTest = loadTest;
+        this.layout = layout;
+        this.numPlayers = numPlayers;
+        this.bot = bot;
+        this.rating = rating;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Waits to be matched and plays, game after game, until the load test stops.
+     */
+    @Override
+    public void run() {
+        while (loadTest.isRunning() && !Thread.currentThread().isInterrupted()) {
+            try (GameClient client = new GameClient(loadTest.getHost(), loadTest.getPort())) {
+                playGame(client);
+            } catch (IOException e) {
+                // Count the failure and try again with a new connection.
+                loadTest.recordError();
+                sleep(BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Waits in the Lobby for a table and plays its game to the end, or until it loses a player or the load test stops.
+     * @param client: The connection of the player.
+     * @throws IOException if the server cannot be reached or refuses a command.
+     */
+    private void playGame(GameClient client) throws IOException {
+        long queued = System.nanoTime();
+        String[] joined = client.queue(loadTest.getBoardName(), numPlayers, rating);
+        loadTest.recordMatch(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - queued));
+        int seat = Integer.parseInt(joined[2]);
+        long seed = Long.parseLong(joined[6]);
+
+        // Play the same game with the headless rules to choose valid moves and check the replies.
+        GameState mirror = GameState.deal(layout, numPlayers, new Random(seed));
+        while (!mirror.isOver() && loadTest.isRunning() && !Thread.currentThread().isInterrupted()) {
+            long start = 0;
+            if (mirror.getCurrent() == seat) {
+                sleep(loadTest.nextThinkMillis(random));
+                start = System.nanoTime();
+                client.flip(bot.choose(mirror, random));
+            }
+            String[] reply = awaitFlipped(client);
+            if (reply == null) {
+                // Another player left, so nobody will take their turns.
+                return;
+            }
+            if (start != 0) {
+                loadTest.recordFlip(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            }
+            int chit = Integer.parseInt(reply[2]);
+            mirror.flip(chit);
+            if (Integer.parseInt(reply[6]) != mirror.getCurrent() || Integer.parseInt(reply[7]) != mirror.getWinner()) {
+                throw new IOException("The server disagrees with the rules after flipping " + chit);
+            }
+        }
+        if (mirror.isOver() && seat == 0) {
+            // Count each game once, by its first seat.
+            loadTest.recordGame();
+        }
+    }
+
+    /**
+     * Reads lines until the next FLIPPED line, skipping the others such as SEATED.
+     * @param client: The client to read from.
+     * @return the words of the FLIPPED line, or null if another player left the game.
+     * @throws IOException if the connection closes or the server answers with ERROR.
+     */
+    private static String[] awaitFlipped(GameClient client) throws IOException {
+        while (true) {
+            String line = client.readLine();
+            if (line == null) {
+                throw new IOException("The server closed the connection");
+            }
+            if (line.startsWith("FLIPPED ")) {
+                return line.split(" ");
+            }
+            if (line.startsWith("LEFT ")) {
+                return null;
+            }
+            if (line.startsWith("ERROR")) {
+                throw new IOException(line);
+            }
+        }
+    }
+
+    /**
+     * Waits for a number of milliseconds. An interrupt is kept for the loop of the player to see.
+     * @param millis: The milliseconds to wait.
+     */
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
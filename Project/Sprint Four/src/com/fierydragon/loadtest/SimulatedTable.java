@@ -0,0 +1,174 @@
+package com.fierydragon.loadtest;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.server.GameClient;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A class representing one table of simulated players on a GameServer, each with its own connection, playing game
+ * after game until the load test stops.
+ * Each game is also played on a GameState dealt from the same board and seed, so the bots choose with the headless
+ * rules and only ever make valid moves, and any reply that disagrees with the rules is counted as an error.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see LoadTest
+ * @see GameClient
+ */
+
+public class SimulatedTable implements Runnable {
+    /**
+     * The milliseconds to wait before playing again after an error.
+     */
+    private static final long BACKOFF_MILLIS = 100;
+    /**
+     * The load test the table is part of.
+     */
+    private final LoadTest loadTest;
+    /**
+     * The compiled layout of the board played on.
+     */
+    private final CompiledLayout layout;
+    /**
+     * The bot choosing the Chit Cards of each seat.
+     */
+    private final ChitPolicy[] bots;
+    /**
+     * The random numbers for seeds, think times and the bots.
+     */
+    private final Random random;
+
+    /**
+     * SimulatedTable Constructor.
+     * @param loadTest: The load test the table is part of.
+     * @param layout: The compiled layout of the board played on.
+     * @param numPlayers: The number of players at the table.
+     * @param botFactory: Makes the bot of each seat.
+     * @param seed: The seed of the table's random numbers.
+     */
+    public SimulatedTable(LoadTest loadTest, CompiledLayout layout, int numPlayers, Supplier<ChitPolicy> botFactory,
+                          long seed) {
+        this.loadTest = loadTest;
+        this.layout = layout;
+        this.bots = new ChitPolicy[numPlayers];
+        for (int seat = 0; seat < numPlayers; seat++) {
+            bots[seat] = botFactory.get();
+        }
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Plays games until the load test stops.
+     */
+    @Override
+    public void run() {
+        while (loadTest.isRunning() && !Thread.currentThread().isInterrupted()) {
+            try {
+                playGame();
+            } catch (IOException e) {
+                // Count the failure and try again with new connections.
+                loadTest.recordError();
+                sleep(BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Connects a player for each seat, creates a game and plays it to the end, or until the load test stops.
+     * @throws IOException if the server cannot be reached or refuses a command.
+     */
+    private void playGame() throws IOException {
+        GameClient[] clients = new GameClient[bots.length];
+        try {
+            for (int seat = 0; seat < bots.length; seat++) {
+                clients[seat] = new GameClient(loadTest.getHost(), loadTest.getPort());
+            }
+            long seed = random.nextLong();
+            long id = clients[0].create(loadTest.getBoardName(), bots.length, seed);
+            for (GameClient client : clients) {
+                client.join(id);
+            }
+
+            // Play the same game with the headless rules to choose valid moves and check the replies.
+            GameState mirror = GameState.deal(layout, bots.length, new Random(seed));
+            while (!mirror.isOver() && loadTest.isRunning() && !Thread.currentThread().isInterrupted()) {
+                sleep(loadTest.nextThinkMillis(random));
+                int seat = mirror.getCurrent();
+                int chit = bots[seat].choose(mirror, random);
+
+                long start = System.nanoTime();
+                clients[seat].flip(chit);
+                String[] reply = awaitFlipped(clients[seat]);
+                loadTest.recordFlip(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+                // Every other seat is told the same flip.
+                for (int other = 0; other < clients.length; other++) {
+                    if (other != seat) {
+                        awaitFlipped(clients[other]);
+                    }
+                }
+                mirror.flip(chit);
+                if (Integer.parseInt(reply[6]) != mirror.getCurrent()
+                        || Integer.parseInt(reply[7]) != mirror.getWinner()) {
+                    throw new IOException("The server disagrees with the rules after flipping " + chit);
+                }
+            }
+            if (mirror.isOver()) {
+                loadTest.recordGame();
+            }
+        } finally {
+            for (GameClient client : clients) {
+                if (client != null) {
+                    try {
+                        client.close();
+                    } catch (IOException e) {
+                        // The connection is already gone.
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads lines until the next FLIPPED line, skipping the others such as SEATED.
+     * @param client: The client to read from.
+     * @return the words of the FLIPPED line.
+     * @throws IOException if the connection closes or the server answers with ERROR.
+     */
+    private static String[] awaitFlipped(GameClient client) throws IOException {
+        while (true) {
+            String line = client.readLine();
+            if (line == null) {
+                throw new IOException("The server closed the connection");
+            }
+            if (line.startsWith("FLIPPED ")) {
+                return line.split(" ");
+            }
+            if (line.startsWith("ERROR")) {
+                throw new IOException(line);
+            }
+        }
+    }
+
+    /**
+     * Waits for a number of milliseconds. An interrupt is kept for the loop of the table to see.
+     * @param millis: The milliseconds to wait.
+     */
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
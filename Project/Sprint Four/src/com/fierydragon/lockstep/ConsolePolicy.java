@@ -0,0 +1,85 @@
+package com.fierydragon.lockstep;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.engine.GameState;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * A policy for a player at the console of a lockstep peer, who is shown the Dragons and the Chit Cards and types the
+ * number of the Chit Card to flip.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see LockstepMain
+ */
+
+public class ConsolePolicy implements ChitPolicy {
+    /**
+     * The reader of the console.
+     */
+    private final BufferedReader console;
+
+    /**
+     * ConsolePolicy Constructor.
+     */
+    public ConsolePolicy() {
+        this.console = new BufferedReader(new InputStreamReader(System.in));
+    }
+
+    /**
+     * The overridden getName method.
+     * @return the name of the policy.
+     */
+    @Override
+    public String getName() {
+        return "human";
+    }
+
+    /**
+     * The overridden choose method, asking at the console until a face-down Chit Card is typed.
+     * @param state: The game being played.
+     * @param random: Not used, as the player chooses.
+     * @return the number of a face-down Chit Card.
+     */
+    @Override
+    public int choose(GameState state, Random random) {
+        for (int player = 0; player < state.getNumPlayers(); player++) {
+            System.out.println("Dragon " + player + " is on Square " + state.getRingIndex(player)
+                    + (state.isInCave(player) ? " in its Cave" : ""));
+        }
+        StringBuilder chits = new StringBuilder("Chit Cards:");
+        for (int chit = 0; chit < state.getNumChits(); chit++) {
+            chits.append(' ').append(state.isFlipped(chit) ? "-" : Integer.toString(chit));
+        }
+        System.out.println(chits);
+
+        while (true) {
+            System.out.print("Dragon " + state.getCurrent() + ", flip which Chit Card? ");
+            System.out.flush();
+            String line;
+            try {
+                line = console.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (line == null) {
+                throw new IllegalStateException("The console was closed");
+            }
+            try {
+                int chit = Integer.parseInt(line.trim());
+                if (chit >= 0 && chit < state.getNumChits() && !state.isFlipped(chit)) {
+                    return chit;
+                }
+            } catch (NumberFormatException e) {
+                // Not a number, so ask again.
+            }
+            System.out.println("Type the number of a face-down Chit Card");
+        }
+    }
+}
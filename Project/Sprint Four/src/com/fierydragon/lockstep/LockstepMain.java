@@ -0,0 +1,129 @@
+package com.fierydragon.lockstep;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.bots.MemoryPolicy;
+import com.fierydragon.bots.RandomPolicy;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.engine.LayoutCache;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Random;
+
+/**
+ * The entry point of the lockstep mode, which plays one game between peers on a local network with no server. Every
+ * peer is started with the same list of peers, seed, board and number of Dragons, and its own number in the list, for
+ * example on two machines:
+ * <pre>
+ * java com.fierydragon.lockstep.LockstepMain --peers 192.168.1.5:7090,192.168.1.6:7090 --me 0 --seed 42 --bot human
+ * java com.fierydragon.lockstep.LockstepMain --peers 192.168.1.5:7090,192.168.1.6:7090 --me 1 --seed 42 --bot memory
+ * </pre>
+ * The Dragons are shared out between the peers in turn, and each peer's Dragons are played by a bot or, with --bot
+ * human, by the player at its console. Setting SEED in game_config.properties to the same seed deals the same board in
+ * the UI. --hash-interval sets how many flips go between the hashes compared, and --drop-percent drops packets on purpose
+ * to try the game on a lossy network.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see LockstepPeer
+ */
+
+public class LockstepMain {
+
+    /**
+     * Reads the options, plays the game and prints how it ended, or why it was stopped if the peers' games drifted
+     * apart.
+     * @param args: The options, each a name followed by its value: --peers, --me, --seed, --board, --players, --bot,
+     *              --hash-interval and --drop-percent.
+     * @throws IOException if the other peers cannot be reached or are lost.
+     */
+    public static void main(String[] args) throws IOException {
+        String peerList = null;
+        int me = 0;
+        long seed = 1;
+        String board = "standard";
+        int numPlayers = 2;
+        String bot = "memory";
+        int hashInterval = LockstepPeer.DEFAULT_HASH_INTERVAL;
+        double dropPercent = 0;
+
+        // Read each option and its value.
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--peers" -> peerList = args[i + 1];
+                case "--me" -> me = Integer.parseInt(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--board" -> board = args[i + 1];
+                case "--players" -> numPlayers = Integer.parseInt(args[i + 1]);
+                case "--bot" -> bot = args[i + 1];
+                case "--hash-interval" -> hashInterval = Integer.parseInt(args[i + 1]);
+                case "--drop-percent" -> dropPercent = Double.parseDouble(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (peerList == null) {
+            throw new IllegalArgumentException("Give the peers with --peers host:port,host:port");
+        }
+        InetSocketAddress[] peers = parsePeers(peerList);
+        if (me < 0 || me >= peers.length) {
+            throw new IllegalArgumentException("--me must be the number of a peer, from 0 to " + (peers.length - 1));
+        }
+
+        // Every peer deals the same game from the same seed.
+        CompiledLayout layout = LayoutCache.getInstance().load(board);
+        GameState state = GameState.deal(layout, numPlayers, new Random(seed));
+        String desync = null;
+        try (LockstepPeer peer = new LockstepPeer(state, peers, me, hashInterval)) {
+            peer.setDropPercent(dropPercent);
+            try {
+                peer.play(createPolicy(bot), new Random());
+                System.out.println("Dragon " + state.getWinner() + " won after " + peer.getNumFlips() + " flips");
+                System.out.printf("Sent %d packets, %d bytes, %.1f bytes per flip; %d hashes compared%n",
+                        peer.getNumPackets(), peer.getNumBytes(),
+                        (double) peer.getNumBytes() / Math.max(1, peer.getNumFlips()), peer.getNumCompared());
+            } catch (IllegalStateException e) {
+                // The copies of the game drifted apart, which comes from how the peers were started, not a fault.
+                desync = e.getMessage();
+            }
+        }
+        if (desync != null) {
+            System.err.println("Game stopped. " + desync);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a list of peers.
+     * @param peerList: The peers, each a host and port, separated by commas.
+     * @return the address of each peer.
+     */
+    static InetSocketAddress[] parsePeers(String peerList) {
+        String[] parts = peerList.split(",");
+        InetSocketAddress[] peers = new InetSocketAddress[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            int colon = parts[i].lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("A peer must be a host and port: " + parts[i]);
+            }
+            peers[i] = new InetSocketAddress(parts[i].substring(0, colon).trim(),
+                    Integer.parseInt(parts[i].substring(colon + 1).trim()));
+        }
+        return peers;
+    }
+
+    /**
+     * Creates the policy playing this peer's Dragons.
+     * @param bot: The name of the policy: random, memory or human.
+     * @return the policy.
+     */
+    static ChitPolicy createPolicy(String bot) {
+        return switch (bot) {
+            case "random" -> new RandomPolicy();
+            case "memory" -> new MemoryPolicy(1.0);
+            case "human" -> new ConsolePolicy();
+            default -> throw new IllegalArgumentException("Unknown bot " + bot);
+        };
+    }
+}
@@ -0,0 +1,607 @@
+package com.fierydragon.lockstep;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.wire.Varint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class representing one peer of a game played in lockstep, with no server: every peer deals the same GameState
+ * from a shared seed and the peers only tell each other which Chit Card was flipped, over UDP, so every peer plays
+ * every flip on its own copy of the game. The seats are shared out between the peers in turn, and the peer of the seat
+ * whose turn it is chooses its flip.
+ * Each packet holds the flips the peer it is sent to has not yet acknowledged, as a run of varints after the number of
+ * the first, and the number of flips the sender holds, which acknowledges every flip before it. A flip is sent at once,
+ * and acknowledged at once by every peer that receives it; flips not acknowledged in time are sent again, by any peer
+ * that holds them, so a lost packet only delays the game. A flip costs a packet of about six bytes to each other peer
+ * and an acknowledgement of about six back.
+ * Every few flips the peers also send the stateHash of their copy after that flip, and compare it with their own, so
+ * copies that drift apart, or were dealt from different seeds, are found out within a few flips. Hashes are
+ * acknowledged like flips, with the number of hashes heard from the peer a packet is sent to, and the latest hash is
+ * sent again until it is. The peer that finds
+ * them out tells every other peer before it stops, so they all stop at once rather than waiting for flips that will
+ * never come.
+ * Once every flip and hash is acknowledged, the packets that only tell the peer whose turn it is that this peer is
+ * still waiting are sent less and less often, so peers waiting on a slow player do not keep the network busy.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see LockstepMain
+ * @see GameState
+ */
+
+public class LockstepPeer implements Closeable {
+    /**
+     * The number of flips between hashes of the game when none is given.
+     */
+    public static final int DEFAULT_HASH_INTERVAL = 8;
+    /**
+     * The milliseconds after which flips not acknowledged are sent again.
+     */
+    private static final long RESEND_MILLIS = 30;
+    /**
+     * The most milliseconds between packets to the peer whose turn it is once everything is acknowledged, well short
+     * of the time after which a silent peer is given up.
+     */
+    private static final long MAX_KEEP_ALIVE_MILLIS = 1000;
+    /**
+     * The milliseconds without a packet from any peer after which the game is given up.
+     */
+    private static final long LOSS_MILLIS = 10_000;
+    /**
+     * The milliseconds to keep answering peers after the game is over, in case they missed the last flips.
+     */
+    private static final long LINGER_MILLIS = 1000;
+    /**
+     * The most flips sent in one packet.
+     */
+    private static final int MAX_BATCH = 256;
+    /**
+     * The flag of a packet holding the hash of a game.
+     */
+    private static final int FLAG_HASH = 1;
+    /**
+     * The flag of a packet telling the peers the copies of the game have drifted apart.
+     */
+    private static final int FLAG_DESYNC = 2;
+    /**
+     * The number of times the desync notice is sent to each peer, in case some are lost.
+     */
+    private static final int DESYNC_SENDS = 3;
+    /**
+     * The channel the packets are sent and received on.
+     */
+    private final DatagramChannel channel;
+    /**
+     * The selector waiting for packets.
+     */
+    private final Selector selector;
+    /**
+     * The address of each peer, this one included.
+     */
+    private final InetSocketAddress[] peers;
+    /**
+     * The number of this peer.
+     */
+    private final int me;
+    /**
+     * This peer's copy of the game.
+     */
+    private final GameState state;
+    /**
+     * The number of flips between hashes of the game.
+     */
+    private final int hashInterval;
+    /**
+     * The Chit Cards flipped, in order.
+     */
+    private int[] flips;
+    /**
+     * The number of Chit Cards flipped.
+     */
+    private int numFlips;
+    /**
+     * The hash of the game after every hashInterval flips, from the hash of the game as it was dealt.
+     */
+    private long[] hashes;
+    /**
+     * The number of hashes kept.
+     */
+    private int numHashes;
+    /**
+     * For each peer, the number of flips it has acknowledged.
+     */
+    private final int[] acknowledged;
+    /**
+     * For each peer, the number of hashes it has acknowledged hearing from this peer.
+     */
+    private final int[] hashAcknowledged;
+    /**
+     * For each peer, the number of hashes heard from it, one more than the number of the latest.
+     */
+    private final int[] hashHeard;
+    /**
+     * For each peer, the number of a hash it sent for a flip this peer has not reached yet, or -1.
+     */
+    private final int[] pendingHashIndex;
+    /**
+     * For each peer, the hash it sent for a flip this peer has not reached yet.
+     */
+    private final long[] pendingHash;
+    /**
+     * The buffer packets are received into.
+     */
+    private final ByteBuffer in;
+    /**
+     * The buffer packets are written in.
+     */
+    private final ByteBuffer out;
+    /**
+     * The percentage of packets dropped on purpose, to try the game on a lossy network.
+     */
+    private double dropPercent;
+    /**
+     * The random numbers choosing the packets dropped.
+     */
+    private final Random drops;
+    /**
+     * The number of hashes compared with those of other peers.
+     */
+    private int numCompared;
+    /**
+     * The number of packets sent.
+     */
+    private long numPackets;
+    /**
+     * The number of bytes sent, not counting the headers of UDP and IP.
+     */
+    private long numBytes;
+
+    /**
+     * LockstepPeer Constructor. Opens the port of this peer.
+     * @param state: This peer's copy of the game, dealt from the seed shared by every peer.
+     * @param peers: The address of each peer, in the same order for every peer.
+     * @param me: The number of this peer.
+     * @param hashInterval: The number of flips between hashes of the game.
+     * @throws IOException if the port cannot be opened.
+     */
+    public LockstepPeer(GameState state, InetSocketAddress[] peers, int me, int hashInterval) throws IOException {
+        this.state = state;
+        this.peers = peers;
+        this.me = me;
+        this.hashInterval = hashInterval;
+        this.channel = DatagramChannel.open();
+        channel.bind(peers[me]);
+        channel.configureBlocking(false);
+        this.selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        this.flips = new int[64];
+        this.hashes = new long[16];
+        this.acknowledged = new int[peers.length];
+        this.hashAcknowledged = new int[peers.length];
+        this.hashHeard = new int[peers.length];
+        this.pendingHashIndex = new int[peers.length];
+        Arrays.fill(pendingHashIndex, -1);
+        this.pendingHash = new long[peers.length];
+        this.in = ByteBuffer.allocateDirect(2048);
+        this.out = ByteBuffer.allocateDirect(2048);
+        this.drops = new Random();
+        // The first hash is of the game as it was dealt, so peers dealt from different seeds find out at once.
+        addHash();
+    }
+
+    /**
+     * Plays the game to the end, choosing the flips of this peer's seats with a policy and waiting for the flips of the
+     * other peers' seats.
+     * @param policy: The policy choosing the flips of this peer's seats.
+     * @param random: The Random of this peer, used by the policy.
+     * @return the game, once it is over.
+     * @throws IOException if the other peers cannot be reached or are lost.
+     * @throws IllegalStateException if the copies of the game have drifted apart, found out by this peer or another.
+     */
+    public GameState play(ChitPolicy policy, Random random) throws IOException {
+        try {
+            return playUntilOver(policy, random);
+        } catch (IllegalStateException e) {
+            // Tell the other peers, so they stop too rather than waiting for flips that will never come.
+            sendDesync();
+            throw e;
+        }
+    }
+
+    /**
+     * Plays the game to the end, as play does, without telling the other peers if the copies have drifted apart.
+     * @param policy: The policy choosing the flips of this peer's seats.
+     * @param random: The Random of this peer, used by the policy.
+     * @return the game, once it is over.
+     * @throws IOException if the other peers cannot be reached or are lost.
+     * @throws IllegalStateException if the copies of the game have drifted apart.
+     */
+    private GameState playUntilOver(ChitPolicy policy, Random random) throws IOException {
+        long lastHeard = System.nanoTime();
+        long lastSent = 0;
+        long keepAliveMillis = RESEND_MILLIS;
+        int flipsSeen = 0;
+        while (true) {
+            // Choose the flip of this peer's seat and send it at once.
+            if (!state.isOver() && isMine(state.getCurrent())) {
+                apply(policy.choose(state, random));
+                sendAll(false);
+                lastSent = System.nanoTime();
+                continue;
+            }
+            boolean settled = isAcknowledged();
+            if (state.isOver() && settled) {
+                return state;
+            }
+            // The game moving on brings the keep-alive back to its quickest.
+            if (numFlips != flipsSeen) {
+                flipsSeen = numFlips;
+                keepAliveMillis = RESEND_MILLIS;
+            }
+
+            long intervalNanos = TimeUnit.MILLISECONDS.toNanos(settled ? keepAliveMillis : RESEND_MILLIS);
+            long waitNanos = intervalNanos - (System.nanoTime() - lastSent);
+            if (receive(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)))) {
+                lastHeard = System.nanoTime();
+            }
+            long now = System.nanoTime();
+            // Send again what has not been acknowledged, and let the peers know what this peer is waiting for, less
+            // often each time while nothing is missing.
+            if (now - lastSent >= intervalNanos) {
+                sendAll(true);
+                lastSent = now;
+                keepAliveMillis = settled ? Math.min(keepAliveMillis * 2, MAX_KEEP_ALIVE_MILLIS) : RESEND_MILLIS;
+            }
+            long silentMillis = TimeUnit.NANOSECONDS.toMillis(now - lastHeard);
+            if (state.isOver() && silentMillis > LINGER_MILLIS) {
+                return state;
+            }
+            if (silentMillis > LOSS_MILLIS) {
+                throw new IOException("No word from the other peers for " + silentMillis + " ms");
+            }
+        }
+    }
+
+    /**
+     * A method to check whether a seat is played by this peer.
+     * @param seat: The seat.
+     * @return True if this peer chooses its flips.
+     */
+    public boolean isMine(int seat) {
+        return seat % peers.length == me;
+    }
+
+    /**
+     * Flips the next Chit Card of the game, and keeps the hash of the game if it is time for one.
+     * @param chit: The number of the Chit Card.
+     * @throws IllegalStateException if the Chit Card cannot be flipped, as the copies of the game have drifted apart.
+     */
+    private void apply(int chit) {
+        if (state.isOver() || chit < 0 || chit >= state.getNumChits() || state.isFlipped(chit)) {
+            throw new IllegalStateException("Desync: flip " + numFlips + " of Chit Card " + chit
+                    + " cannot be made on this peer's game");
+        }
+        state.flip(chit);
+        if (numFlips == flips.length) {
+            flips = Arrays.copyOf(flips, numFlips * 2);
+        }
+        flips[numFlips++] = chit;
+        if (numFlips % hashInterval == 0) {
+            addHash();
+        }
+    }
+
+    /**
+     * Keeps the hash of the game as it is now, and compares it with any hash of the same flip already sent by a peer.
+     */
+    private void addHash() {
+        if (numHashes == hashes.length) {
+            hashes = Arrays.copyOf(hashes, numHashes * 2);
+        }
+        hashes[numHashes++] = state.stateHash();
+        for (int peer = 0; peer < peers.length; peer++) {
+            if (pendingHashIndex[peer] == numHashes - 1) {
+                compareHash(peer, numHashes - 1, pendingHash[peer]);
+                pendingHashIndex[peer] = -1;
+            }
+        }
+    }
+
+    /**
+     * Compares a hash sent by a peer with this peer's hash of the same flip.
+     * @param peer: The peer that sent the hash.
+     * @param index: The number of the hash.
+     * @param hash: The hash sent.
+     * @throws IllegalStateException if the hashes differ.
+     */
+    private void compareHash(int peer, int index, long hash) {
+        numCompared++;
+        if (hashes[index] != hash) {
+            throw new IllegalStateException("Desync: peer " + peer + " has a different game after flip "
+                    + (index * hashInterval));
+        }
+    }
+
+    /**
+     * Sends every other peer the flips it has not acknowledged, with the latest hash if it has not acknowledged it.
+     * @param idle: True if nothing new has happened, in which case only peers that are missing flips or the latest
+     *              hash are sent to, along with a peer whose flips this peer is waiting for.
+     * @throws IOException if a packet cannot be sent.
+     */
+    private void sendAll(boolean idle) throws IOException {
+        int waitingFor = state.isOver() ? -1 : state.getCurrent() % peers.length;
+        for (int peer = 0; peer < peers.length; peer++) {
+            if (peer != me && (!idle || isMissing(peer) || peer == waitingFor)) {
+                send(peer);
+            }
+        }
+    }
+
+    /**
+     * Sends a peer one packet: the flags, this peer's number, the number of flips it holds, the number of hashes it
+     * has heard from the peer, the number of the first flip sent and how many follow, the Chit Cards, and maybe a hash.
+     * @param peer: The peer to send to.
+     * @throws IOException if the packet cannot be sent.
+     */
+    private void send(int peer) throws IOException {
+        int from = Math.min(acknowledged[peer], numFlips);
+        int count = Math.min(numFlips - from, MAX_BATCH);
+        boolean withHash = hashAcknowledged[peer] < numHashes;
+        out.clear();
+        out.put((byte) (withHash ? FLAG_HASH : 0));
+        Varint.putInt(out, me);
+        Varint.putInt(out, numFlips);
+        Varint.putInt(out, hashHeard[peer]);
+        Varint.putInt(out, from);
+        Varint.putInt(out, count);
+        for (int i = from; i < from + count; i++) {
+            Varint.putInt(out, flips[i]);
+        }
+        if (withHash) {
+            Varint.putInt(out, numHashes - 1);
+            out.putLong(hashes[numHashes - 1]);
+        }
+        out.flip();
+        numPackets++;
+        numBytes += out.remaining();
+        if (dropPercent > 0 && drops.nextDouble() * 100 < dropPercent) {
+            // Dropped on purpose, as if the network had lost it.
+            return;
+        }
+        channel.send(out, peers[peer]);
+    }
+
+    /**
+     * Tells every other peer the copies of the game have drifted apart, with a packet holding only the flag and this
+     * peer's number. The notice is never dropped on purpose, and one that cannot be sent is left, as the peer will
+     * still give up the game once it hears nothing more from this one.
+     */
+    private void sendDesync() {
+        out.clear();
+        out.put((byte) FLAG_DESYNC);
+        Varint.putInt(out, me);
+        out.flip();
+        for (int peer = 0; peer < peers.length; peer++) {
+            if (peer == me) {
+                continue;
+            }
+            for (int i = 0; i < DESYNC_SENDS; i++) {
+                try {
+                    channel.send(out.duplicate(), peers[peer]);
+                } catch (IOException e) {
+                    // The peer cannot be reached, and will give up the game on its own.
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for packets and takes in every one that has arrived.
+     * @param timeoutMillis: The most milliseconds to wait.
+     * @return True if any packet arrived.
+     * @throws IOException if the channel cannot be read.
+     */
+    private boolean receive(long timeoutMillis) throws IOException {
+        if (selector.select(timeoutMillis) == 0) {
+            return false;
+        }
+        selector.selectedKeys().clear();
+        boolean received = false;
+        boolean news = false;
+        while (true) {
+            in.clear();
+            SocketAddress source = channel.receive(in);
+            if (source == null) {
+                break;
+            }
+            in.flip();
+            try {
+                int before = numFlips + sum(hashHeard);
+                if (takeIn(source)) {
+                    received = true;
+                    news |= numFlips + sum(hashHeard) > before;
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                // A packet that cannot be read is ignored, as if it had been lost.
+            }
+        }
+        // Acknowledge new flips and hashes at once, so nobody sends them again.
+        if (news) {
+            sendAll(false);
+        }
+        return received;
+    }
+
+    /**
+     * Takes in one packet: the flips this peer does not hold yet are played, and those it holds are checked.
+     * @param source: The address the packet came from.
+     * @return False if the packet was not from a peer of the game.
+     * @throws IllegalStateException if the packet shows the copies of the game have drifted apart.
+     */
+    private boolean takeIn(SocketAddress source) {
+        int flags = in.get();
+        int peer = Varint.getInt(in);
+        if (peer < 0 || peer >= peers.length || peer == me || !peers[peer].equals(source)) {
+            return false;
+        }
+        if ((flags & FLAG_DESYNC) != 0) {
+            throw new IllegalStateException("Desync: peer " + peer + " found its game has drifted apart from another");
+        }
+        int held = Varint.getInt(in);
+        int hashesHeard = Varint.getInt(in);
+        int from = Varint.getInt(in);
+        int count = Varint.getInt(in);
+        for (int i = from; i < from + count; i++) {
+            int chit = Varint.getInt(in);
+            if (i == numFlips) {
+                apply(chit);
+            }
+            else if (i < numFlips && flips[i] != chit) {
+                throw new IllegalStateException("Desync: peer " + peer + " flipped Chit Card " + chit + " at flip " + i
+                        + " where this peer flipped " + flips[i]);
+            }
+        }
+        acknowledged[peer] = Math.max(acknowledged[peer], Math.min(held, numFlips));
+        hashAcknowledged[peer] = Math.max(hashAcknowledged[peer], Math.min(hashesHeard, numHashes));
+        if ((flags & FLAG_HASH) != 0) {
+            int index = Varint.getInt(in);
+            long hash = in.getLong();
+            if (index < 0) {
+                throw new IllegalArgumentException("Hash number " + index);
+            }
+            hashHeard[peer] = Math.max(hashHeard[peer], index + 1);
+            if (index < numHashes) {
+                compareHash(peer, index, hash);
+            }
+            else {
+                pendingHashIndex[peer] = index;
+                pendingHash[peer] = hash;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method to check whether every other peer has acknowledged every flip and the latest hash.
+     * @return True if no peer is missing a flip or the latest hash.
+     */
+    private boolean isAcknowledged() {
+        for (int peer = 0; peer < peers.length; peer++) {
+            if (peer != me && isMissing(peer)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method to check whether a peer has not acknowledged every flip or the latest hash.
+     * @param peer: The peer.
+     * @return True if the peer is missing a flip or the latest hash.
+     */
+    private boolean isMissing(int peer) {
+        return acknowledged[peer] < numFlips || hashAcknowledged[peer] < numHashes;
+    }
+
+    /**
+     * Adds up the numbers held for each peer.
+     * @param counts: The number held for each peer.
+     * @return the total.
+     */
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * A method to return the number of hashes heard from a peer.
+     * @param peer: The peer.
+     * @return one more than the number of the latest hash heard from the peer.
+     */
+    int getNumHashesHeard(int peer) {
+        return hashHeard[peer];
+    }
+
+    /**
+     * A method to return the numHashes data attribute.
+     * @return the number of hashes kept.
+     */
+    int getNumHashes() {
+        return numHashes;
+    }
+
+    /**
+     * A method to set the dropPercent data attribute.
+     * @param dropPercent: The percentage of packets to drop on purpose, to try the game on a lossy network.
+     */
+    public void setDropPercent(double dropPercent) {
+        this.dropPercent = dropPercent;
+    }
+
+    /**
+     * A method to return the numFlips data attribute.
+     * @return the number of Chit Cards flipped.
+     */
+    public int getNumFlips() {
+        return numFlips;
+    }
+
+    /**
+     * A method to return the numCompared data attribute.
+     * @return the number of hashes compared with those of other peers.
+     */
+    public int getNumCompared() {
+        return numCompared;
+    }
+
+    /**
+     * A method to return the numPackets data attribute.
+     * @return the number of packets sent.
+     */
+    public long getNumPackets() {
+        return numPackets;
+    }
+
+    /**
+     * A method to return the numBytes data attribute.
+     * @return the number of bytes sent, not counting the headers of UDP and IP.
+     */
+    public long getNumBytes() {
+        return numBytes;
+    }
+
+    /**
+     * A method to return the state data attribute.
+     * @return this peer's copy of the game.
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * Closes the port of this peer.
+     * @throws IOException if the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        selector.close();
+        channel.close();
+    }
+}
@@ -37,17 +37,20 @@ public class BackwardMovement implements MovementStrategy {
         dragonSquareIterator.setIndex(dragonSquareIterator.locateSquare(oldSquare));
         // Set the new location variable before executing the movement
         Square newLocation = dragonSquareIterator.locationOf(currentDragon);
+        // Record the path of the move so it can be animated
+        MovementPath path = new MovementPath(currentDragon, oldSquare);
 
         // If the Chit Card Displayable is a Knight, move the Dragon token to the nearest free Cave behind it
         if (chitCard.getDisplay().getDisplay().equals("KN")) {
-            newLocation = moveBackToFreeCave(dragonSquareIterator, currentDragon, newLocation);
+            newLocation = moveBackToFreeCave(dragonSquareIterator, currentDragon, newLocation, path);
         // Otherwise, move backwards according to the number of Displayables on the Chit Card
         } else {
-            newLocation = moveBack(dragonSquareIterator, currentDragon, newLocation, chitCard);
+            newLocation = moveBack(dragonSquareIterator, currentDragon, newLocation, chitCard, path);
         }
 
         // Update the Dragon position
-        dragonSquareIterator.move(currentDragon, newLocation);
+        path.end(newLocation);
+        dragonSquareIterator.move(currentDragon, newLocation, path);
     }
 
     /**
@@ -56,9 +59,10 @@ public class BackwardMovement implements MovementStrategy {
      * @param currentDragon: The current Dragon.
      * @param newLocation: The new location for the Dragon to move.
      * @param chitCard: The chosen Chit Card.
+     * @param path: The path of the move to record each step in.
      * @return The new Square location for the Dragon to move to.
      */
-    public Square moveBack(DragonSquareIterator dragonSquareIterator, Dragon currentDragon, Square newLocation, ChitCard chitCard) {
+    public Square moveBack(DragonSquareIterator dragonSquareIterator, Dragon currentDragon, Square newLocation, ChitCard chitCard, MovementPath path) {
         // Get the squareIterator instance.
         Iterator<Square> squareIterator = dragonSquareIterator.iterator();
 
@@ -89,6 +93,7 @@ public class BackwardMovement implements MovementStrategy {
                 newLocation = currentDragon.getHomeCave(); // Set the next location to its own Cave
             }
 
+            path.addStep(newLocation);
             numSteps -= 1; // Decrement number of steps to take
         }
 
@@ -100,9 +105,10 @@ public class BackwardMovement implements MovementStrategy {
      * @param dragonSquareIterator: Iterator for the dragon tokens and squares.
      * @param currentDragon: The current Dragon.
      * @param newLocation: The new location for the Dragon to move.
+     * @param path: The path of the move to record each step in.
      * @return The nearest unoccupied Cave location for the Dragon to move to.
      */
-    public Square moveBackToFreeCave(DragonSquareIterator dragonSquareIterator, Dragon currentDragon, Square newLocation) {
+    public Square moveBackToFreeCave(DragonSquareIterator dragonSquareIterator, Dragon currentDragon, Square newLocation, MovementPath path) {
         // Get the squareIterator instance.
         Iterator<Square> squareIterator = dragonSquareIterator.iterator();
         // Boolean flag to check if the Dragon token is at an unoccupied Cave.
@@ -130,6 +136,11 @@ public class BackwardMovement implements MovementStrategy {
                     atFreeCave = true;
                 }
             }
+
+            // Record the step unless it is the Cave the Dragon stops at, which ends the path.
+            if (!atFreeCave) {
+                path.addStep(newLocation);
+            }
         }
 
         return newLocation;
@@ -1,13 +1,13 @@
 package com.fierydragon.movement;
 
+import com.fierydragon.notifications.NotificationManager;
+import com.fierydragon.notifications.NotificationType;
 import com.fierydragon.pieces.Dragon;
 import com.fierydragon.utils.TurnManager;
 import com.fierydragon.volcano.Card;
 import com.fierydragon.volcano.GameManager;
 import com.fierydragon.volcano.Square;
 import com.fierydragon.volcano.VolcanoSquare;
-import javafx.scene.control.Alert;
-import javafx.scene.control.ButtonType;
 
 import java.util.*;
 
@@ -99,11 +99,21 @@ public class DragonSquareIterator implements Iterable<Square> {
     }
 
     /**
-     * Moves an existing Dragon to a new Square.
+     * Moves an existing Dragon to a new Square, placing it there straight away.
      * @param dragon: The Dragon to move.
      * @param newSquare: The Dragon's destination.
      */
     public void move(Dragon dragon, Square newSquare) {
+        move(dragon, newSquare, null);
+    }
+
+    /**
+     * Moves an existing Dragon to a new Square, sliding it along the path of the move.
+     * @param dragon: The Dragon to move.
+     * @param newSquare: The Dragon's destination.
+     * @param path: The path of the move, or null to place the Dragon straight away.
+     */
+    public void move(Dragon dragon, Square newSquare, MovementPath path) {
         // Only move if there is no Dragon at the new Square.
         if(!isDragonAt(newSquare)) {
             // Get the current Square the Dragon is at and remove it from the HashMap.
@@ -115,23 +125,33 @@ public class DragonSquareIterator implements Iterable<Square> {
             // Set the dragon new coordinates.
             dragon.setCoordinates(newSquare.getX(), newSquare.getY());
             // Update the Dragon position on the grid board
-            dragon.render(GameManager.getInstance().getBoardGrid(), GameManager.getInstance().getChitCardGrid());
+            if (path != null) {
+                dragon.animate(GameManager.getInstance().getBoardGrid(), GameManager.getInstance().getChitCardGrid(), path);
+            } else {
+                dragon.render(GameManager.getInstance().getBoardGrid(), GameManager.getInstance().getChitCardGrid());
+            }
         }
         // Else if there's a Dragon at the new Square, attack the Dragon and force it to skip a turn.
         else {
             Dragon attackedDragon = squareToDragon.get(newSquare);
             attackedDragon.setStunned(true);        // Stun the attacked Dragon.
-            // Create an alert about the attack.
-            Alert alert = new Alert(Alert.AlertType.NONE);
-            alert.getDialogPane().getButtonTypes().add(ButtonType.OK);
-            alert.setTitle(String.format("%s Dragon Attacked %s Dragon", dragon.getColourString(), attackedDragon.getColourString()));
-            alert.setContentText(String.format("%s Dragon is stunned and skips a turn to recover.", attackedDragon.getColourString()));
-            alert.showAndWait();
+            // Notify the players about the attack without holding up the turn.
+            NotificationManager.getInstance().publish(NotificationType.ATTACK,
+                    String.format("%s Dragon Attacked %s Dragon", dragon.getColourString(), attackedDragon.getColourString()),
+                    String.format("%s Dragon is stunned and skips a turn to recover.", attackedDragon.getColourString()));
             // Go to the next Dragon's turn.
             TurnManager.getInstance().nextTurn();
         }
     }
 
+    /**
+     * Clear the Dragon placements, keeping the list of Squares.
+     */
+    public void clearDragons() {
+        this.getSquareToDragon().clear();
+        this.getDragonToSquare().clear();
+    }
+
     /**
      * Clear all the lists in the DragonSquareIterator.
      */
@@ -41,10 +41,13 @@ public class ForwardMovement implements MovementStrategy {
         Square newLocation = dragonSquareIterator.locationOf(currentDragon);
         // Get the number of steps the Dragon will take
         int numSteps = chitCard.getNumOfDisplayables();
+        // Record the path of the move so it can be animated
+        MovementPath path = new MovementPath(currentDragon, oldSquare);
 
         // Execute the forward movement based on the number of Animal Displayables on the chosen Chit Card
         while (numSteps > 0) {
             newLocation = squareIterator.next(); // Get the next location
+            path.addStep(newLocation);
 
             // Checks if the next location is a Cave or not
             if (newLocation.isCave()) {
@@ -57,7 +60,8 @@ public class ForwardMovement implements MovementStrategy {
                     // If the Dragon only has 1 step left, it means they win
                     } else if (numSteps == 1) {
                         // Move the Dragon Position to the Cave
-                        dragonSquareIterator.move(currentDragon, newLocation);
+                        path.end(newLocation);
+                        dragonSquareIterator.move(currentDragon, newLocation, path);
                         TurnManager.getInstance().win(currentDragon); // Activate the win condition
                         return;
                     // Otherwise, they overshoot their own Cave
@@ -87,6 +91,7 @@ public class ForwardMovement implements MovementStrategy {
         }
 
         // Update the Dragon position
-        dragonSquareIterator.move(currentDragon, newLocation);
+        path.end(newLocation);
+        dragonSquareIterator.move(currentDragon, newLocation, path);
     }
 }
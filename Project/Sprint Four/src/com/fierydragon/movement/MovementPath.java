@@ -0,0 +1,89 @@
+package com.fierydragon.movement;
+
+import com.fierydragon.pieces.Dragon;
+import com.fierydragon.volcano.Square;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class representing the Squares a Dragon passes through during one move, in order, starting from the Square it
+ * leaves. Recorded by the MovementStrategy so that the move can be animated step by step.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Dragon
+ * @see MovementStrategy
+ * @see Square
+ */
+
+public class MovementPath {
+    /**
+     * The Dragon that is moving.
+     */
+    private final Dragon dragon;
+    /**
+     * The Squares the Dragon passes through, starting from the Square it leaves.
+     */
+    private final List<Square> squares;
+
+    /**
+     * MovementPath Constructor.
+     * @param dragon: The Dragon that is moving.
+     * @param start: The Square the Dragon leaves.
+     */
+    public MovementPath(Dragon dragon, Square start) {
+        this.dragon = dragon;
+        this.squares = new ArrayList<>();
+        squares.add(start);
+    }
+
+    /**
+     * Records a step of the move.
+     * Other Dragons' Caves are stepped over rather than entered, and standing still on a Square is not a step.
+     * @param square: The Square the Dragon is on after the step.
+     */
+    public void addStep(Square square) {
+        // Only the Dragon's own Cave is entered, the other Caves are only counted.
+        if (square.isCave() && !(square.getX() == dragon.getHomeCave().getX() && square.getY() == dragon.getHomeCave().getY())) {
+            return;
+        }
+        addSquare(square);
+    }
+
+    /**
+     * Ends the path at the destination of the move, which may be any Cave.
+     * @param destination: The Square the Dragon ends the move on.
+     */
+    public void end(Square destination) {
+        addSquare(destination);
+    }
+
+    /**
+     * Adds a Square to the path unless the Dragon is already on it.
+     * @param square: The Square to add.
+     */
+    private void addSquare(Square square) {
+        if (squares.get(squares.size() - 1) != square) {
+            squares.add(square);
+        }
+    }
+
+    /**
+     * A method to return the number of steps in the path.
+     * @return the number of Squares moved through, not counting the starting one.
+     */
+    public int getNumSteps() {
+        return squares.size() - 1;
+    }
+
+    /**
+     * A method to return the squares list data attribute.
+     * @return the Squares the Dragon passes through, starting from the Square it leaves.
+     */
+    public List<Square> getSquares() {
+        return Collections.unmodifiableList(squares);
+    }
+}
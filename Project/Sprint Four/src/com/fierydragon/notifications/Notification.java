@@ -0,0 +1,121 @@
+package com.fierydragon.notifications;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class representing a single in-game Notification, such as an attack or a win. Notifications never block the game;
+ * they are only shown as toasts and kept in the event feed.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see NotificationManager
+ * @see NotificationType
+ */
+
+public class Notification {
+    /**
+     * The kind of game event the Notification is about.
+     */
+    private final NotificationType type;
+    /**
+     * The title of the Notification.
+     */
+    private final String title;
+    /**
+     * The message of the Notification.
+     */
+    private final String message;
+    /**
+     * The actions the player can take from the Notification, in the order they are shown.
+     */
+    private final Map<String, Runnable> actions;
+    /**
+     * A boolean denoting if the toast stays until the player acknowledges it.
+     */
+    private boolean requiresAcknowledgement;
+
+    /**
+     * Notification Constructor.
+     * @param type: The kind of game event the Notification is about.
+     * @param title: The title of the Notification.
+     * @param message: The message of the Notification.
+     */
+    public Notification(NotificationType type, String title, String message) {
+        this.type = type;
+        this.title = title;
+        this.message = message;
+        this.actions = new LinkedHashMap<>();
+        setRequiresAcknowledgement(false);
+    }
+
+    /**
+     * Adds an action the player can take from the Notification. A Notification with actions stays until one is chosen.
+     * @param label: The label of the action's button.
+     * @param action: The action to run when the button is clicked.
+     * @return the Notification itself, to chain more actions.
+     */
+    public Notification addAction(String label, Runnable action) {
+        actions.put(label, action);
+        return this;
+    }
+
+    /**
+     * A method to return the type data attribute.
+     * @return the kind of game event the Notification is about.
+     */
+    public NotificationType getType() {
+        return type;
+    }
+
+    /**
+     * A method to return the title data attribute.
+     * @return the title of the Notification.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * A method to return the message data attribute.
+     * @return the message of the Notification.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * A method to return the actions data attribute.
+     * @return the actions the player can take from the Notification.
+     */
+    public Map<String, Runnable> getActions() {
+        return Collections.unmodifiableMap(actions);
+    }
+
+    /**
+     * A method to check if the toast stays until the player acknowledges it.
+     * @return True if an acknowledgement or an action is needed to dismiss it, false otherwise.
+     */
+    public boolean requiresAcknowledgement() {
+        return requiresAcknowledgement || !actions.isEmpty();
+    }
+
+    /**
+     * A method to set the requiresAcknowledgement data attribute.
+     * @param requiresAcknowledgement: True if the toast stays until the player acknowledges it.
+     */
+    public void setRequiresAcknowledgement(boolean requiresAcknowledgement) {
+        this.requiresAcknowledgement = requiresAcknowledgement;
+    }
+
+    /**
+     * Formats the Notification as a single line for the event feed.
+     * @return the title and message of the Notification.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: %s", title, message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.fierydragon.notifications;
+
+/**
+ * An interface that enforces the method called whenever a Notification is published.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see NotificationManager
+ */
+
+public interface NotificationListener {
+    /**
+     * A method called for each published Notification. Must return quickly as it runs in the move path.
+     * @param notification: The Notification that was published.
+     */
+    void onNotification(Notification notification);
+}
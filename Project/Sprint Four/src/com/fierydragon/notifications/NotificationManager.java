@@ -0,0 +1,148 @@
+package com.fierydragon.notifications;
+
+import com.fierydragon.utils.TurnPacing;
+import com.fierydragon.utils.TurnScheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A NotificationManager Singleton Design Pattern that queues the game events and hands them to its listeners.
+ * Publishing never waits on the player, so turns keep resolving whether or not anyone is watching.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Notification
+ * @see NotificationListener
+ */
+
+public class NotificationManager {
+    /**
+     * An instance of itself so that only one NotificationManager instance is created. Default set to null.
+     */
+    private static NotificationManager notificationManager = null;
+    /**
+     * The maximum number of Notifications kept in the event history.
+     */
+    public static final int MAX_HISTORY = 50;
+    /**
+     * The listeners told about each published Notification.
+     */
+    private final List<NotificationListener> listeners;
+    /**
+     * The most recent Notifications, oldest first.
+     */
+    private final Deque<Notification> history;
+    /**
+     * A boolean denoting if Notifications need to be acknowledged when playing at the human pace.
+     */
+    private boolean acknowledgementRequired;
+
+    /**
+     * NotificationManager Constructor.
+     */
+    public NotificationManager() {
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.history = new ArrayDeque<>();
+        setAcknowledgementRequired(false);
+    }
+
+    /**
+     * Publishes a Notification to the event history and all the listeners.
+     * @param notification: The Notification to publish.
+     */
+    public void publish(Notification notification) {
+        // Only human players are asked to acknowledge, bots and replays are never held up.
+        if (acknowledgementRequired && TurnScheduler.getInstance().getPacing() == TurnPacing.HUMAN) {
+            notification.setRequiresAcknowledgement(true);
+        }
+
+        // Keep the history bounded by dropping the oldest Notification.
+        synchronized (history) {
+            if (history.size() == MAX_HISTORY) {
+                history.removeFirst();
+            }
+            history.addLast(notification);
+        }
+
+        // Tell every listener about the Notification.
+        for (NotificationListener listener : listeners) {
+            listener.onNotification(notification);
+        }
+    }
+
+    /**
+     * Publishes a new Notification built from the inputs.
+     * @param type: The kind of game event the Notification is about.
+     * @param title: The title of the Notification.
+     * @param message: The message of the Notification.
+     */
+    public void publish(NotificationType type, String title, String message) {
+        publish(new Notification(type, title, message));
+    }
+
+    /**
+     * Add a listener to be told about each published Notification.
+     * @param listener: The listener to add.
+     */
+    public void addListener(NotificationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener so it is no longer told about published Notifications.
+     * @param listener: The listener to remove.
+     */
+    public void removeListener(NotificationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * A method to return a copy of the history data attribute.
+     * @return the most recent Notifications, oldest first.
+     */
+    public List<Notification> getHistory() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    /**
+     * A method to check the acknowledgementRequired data attribute.
+     * @return True if Notifications need to be acknowledged when playing at the human pace.
+     */
+    public boolean isAcknowledgementRequired() {
+        return acknowledgementRequired;
+    }
+
+    /**
+     * A method to set the acknowledgementRequired data attribute.
+     * @param acknowledgementRequired: True if Notifications need to be acknowledged when playing at the human pace.
+     */
+    public void setAcknowledgementRequired(boolean acknowledgementRequired) {
+        this.acknowledgementRequired = acknowledgementRequired;
+    }
+
+    /**
+     * Returns the instance of the notificationManager stored as a data attribute.
+     * If one has not been created yet, create a new instance of notificationManager.
+     * @return the notificationManager instance.
+     */
+    public static NotificationManager getInstance() {
+        if (notificationManager == null) {
+            notificationManager = new NotificationManager();
+        }
+        return notificationManager;
+    }
+
+    /**
+     * Reset the NotificationManager instance.
+     */
+    public void reset() {
+        notificationManager = new NotificationManager();
+    }
+}
@@ -0,0 +1,52 @@
+package com.fierydragon.notifications;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Enum class that depicts the kind of game event a Notification is about, along with the colour it is shown in.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Notification
+ */
+
+public enum NotificationType {
+    /**
+     * General information about the game.
+     */
+    INFO(Color.LIGHTGREY),
+    /**
+     * A Dragon attacked another Dragon and stunned it.
+     */
+    ATTACK(Color.LIGHTSALMON),
+    /**
+     * Something went wrong, for example when loading a save file.
+     */
+    WARNING(Color.KHAKI),
+    /**
+     * A Dragon has won the game.
+     */
+    GAME_OVER(Color.LIGHTGREEN);
+
+    /**
+     * The background colour of the Notification.
+     */
+    private final Color colour;
+
+    /**
+     * NotificationType Constructor.
+     * @param colour: The background colour of the Notification.
+     */
+    NotificationType(Color colour) {
+        this.colour = colour;
+    }
+
+    /**
+     * A method to return the colour data attribute.
+     * @return the background colour of the Notification.
+     */
+    public Color getColour() {
+        return colour;
+    }
+}
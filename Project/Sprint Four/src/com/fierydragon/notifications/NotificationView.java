@@ -0,0 +1,202 @@
+package com.fierydragon.notifications;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.util.Duration;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * A class that shows published Notifications as non-modal toasts over the Game Board and in a side event feed.
+ * Toasts that do not need acknowledging fade away by themselves; extra toasts wait in a queue until there is room.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Notification
+ * @see NotificationListener
+ * @see NotificationManager
+ */
+
+public class NotificationView implements NotificationListener {
+    /**
+     * The maximum number of toasts shown at the same time.
+     */
+    public static final int MAX_TOASTS = 3;
+    /**
+     * The number of seconds a toast is shown for if it does not need acknowledging.
+     */
+    public static final double TOAST_SECONDS = 3;
+    /**
+     * The width of the toasts and the event feed.
+     */
+    public static final double WIDTH = 240;
+    /**
+     * The layer drawn over the Game Board that holds the toasts.
+     */
+    private final VBox toastLayer;
+    /**
+     * The list of past Notifications shown beside the Game Board.
+     */
+    private final VBox eventFeed;
+    /**
+     * The Notifications waiting for room to be shown as a toast.
+     */
+    private final Deque<Notification> pending;
+
+    /**
+     * NotificationView Constructor.
+     * Creates the toast layer and the event feed.
+     */
+    public NotificationView() {
+        // The toast layer must let clicks through to the Game Board wherever there is no toast.
+        toastLayer = new VBox(5);
+        toastLayer.setAlignment(Pos.TOP_CENTER);
+        toastLayer.setPadding(new Insets(10));
+        toastLayer.setPickOnBounds(false);
+
+        // Create the event feed with a heading.
+        eventFeed = new VBox(5);
+        eventFeed.setPadding(new Insets(10));
+        eventFeed.setPrefWidth(WIDTH);
+        Text heading = new Text("Events");
+        heading.setFont(Font.font("Arial", FontWeight.BOLD, 15));
+        eventFeed.getChildren().add(heading);
+
+        pending = new ArrayDeque<>();
+    }
+
+    /**
+     * Overridden onNotification method.
+     * Shows the Notification on the JavaFX thread without waiting for it.
+     * @param notification: The Notification that was published.
+     */
+    @Override
+    public void onNotification(Notification notification) {
+        if (Platform.isFxApplicationThread()) {
+            show(notification);
+        } else {
+            Platform.runLater(() -> show(notification));
+        }
+    }
+
+    /**
+     * Adds the Notification to the event feed and queues its toast.
+     * @param notification: The Notification to show.
+     */
+    private void show(Notification notification) {
+        // Add the Notification to the event feed, dropping the oldest one if it is full. The heading is kept.
+        Text entry = new Text(notification.toString());
+        entry.setWrappingWidth(WIDTH - 20);
+        eventFeed.getChildren().add(1, entry);
+        if (eventFeed.getChildren().size() > NotificationManager.MAX_HISTORY + 1) {
+            eventFeed.getChildren().remove(eventFeed.getChildren().size() - 1);
+        }
+
+        // Queue the toast and show as many as there is room for.
+        pending.addLast(notification);
+        showPending();
+    }
+
+    /**
+     * Shows the queued toasts while there is room for them.
+     */
+    private void showPending() {
+        while (toastLayer.getChildren().size() < MAX_TOASTS && !pending.isEmpty()) {
+            toastLayer.getChildren().add(createToast(pending.removeFirst()));
+        }
+    }
+
+    /**
+     * Creates the toast for a Notification.
+     * @param notification: The Notification to create the toast for.
+     * @return the toast Node.
+     */
+    private Node createToast(Notification notification) {
+        // Create the box holding the title and the message.
+        VBox toast = new VBox(5);
+        toast.setPadding(new Insets(10));
+        toast.setMaxWidth(WIDTH);
+        toast.setBackground(new Background(new BackgroundFill(notification.getType().getColour(), new CornerRadii(5), Insets.EMPTY)));
+
+        Text title = new Text(notification.getTitle());
+        title.setFont(Font.font("Arial", FontWeight.BOLD, 13));
+        title.setWrappingWidth(WIDTH - 20);
+        Text message = new Text(notification.getMessage());
+        message.setFill(Color.BLACK);
+        message.setWrappingWidth(WIDTH - 20);
+        toast.getChildren().addAll(title, message);
+
+        // If it does not need acknowledging, fade it away after a while.
+        if (!notification.requiresAcknowledgement()) {
+            PauseTransition pause = new PauseTransition(Duration.seconds(TOAST_SECONDS));
+            pause.setOnFinished(event -> dismiss(toast));
+            pause.play();
+            return toast;
+        }
+
+        // Otherwise, add a button for each action, or a single OK button if there are none.
+        HBox buttons = new HBox(5);
+        buttons.setAlignment(Pos.CENTER_RIGHT);
+        if (notification.getActions().isEmpty()) {
+            Button okButton = new Button("OK");
+            okButton.setOnMouseClicked(e -> dismiss(toast));
+            buttons.getChildren().add(okButton);
+        }
+        for (Map.Entry<String, Runnable> action : notification.getActions().entrySet()) {
+            Button actionButton = new Button(action.getKey());
+            actionButton.setOnMouseClicked(e -> {
+                dismiss(toast);
+                action.getValue().run();
+            });
+            buttons.getChildren().add(actionButton);
+        }
+        toast.getChildren().add(buttons);
+
+        return toast;
+    }
+
+    /**
+     * Removes a toast and shows the next queued one.
+     * @param toast: The toast to remove.
+     */
+    private void dismiss(Node toast) {
+        toastLayer.getChildren().remove(toast);
+        showPending();
+    }
+
+    /**
+     * A method to return the toastLayer data attribute.
+     * @return the layer drawn over the Game Board that holds the toasts.
+     */
+    public Node getToastLayer() {
+        return toastLayer;
+    }
+
+    /**
+     * A method to return the event feed wrapped in a scroll pane.
+     * @return the scrollable list of past Notifications.
+     */
+    public Node createEventFeedPane() {
+        ScrollPane scrollPane = new ScrollPane(eventFeed);
+        scrollPane.setPrefWidth(WIDTH + 20);
+        scrollPane.setFitToWidth(true);
+        return scrollPane;
+    }
+}
@@ -12,6 +12,8 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 
+import java.util.List;
+
 /**
  * A class representing the Dragon Piece/Token. Inherits from Piece.
  * Created by:
@@ -28,6 +30,10 @@ import javafx.scene.shape.Circle;
 
 
 public class Dragon extends UIComponent implements Moveable {
+    /**
+     * The x translation that centres the Circle in its grid cell.
+     */
+    private static final double CENTRE_TRANSLATE_X = (double) Constants.SQUARE_WIDTH / 4;
     /**
      * The home Cave of the Dragon.
      */
@@ -46,6 +52,14 @@ public class Dragon extends UIComponent implements Moveable {
      * Boolean object denoting if Dragon is stunned and its turn is skipped
      * */
     private boolean stunned = false;
+    /**
+     * The DragonIterator the Dragon takes turns in, or null if it is not taking turns yet.
+     * */
+    private DragonIterator turnOrder;
+    /**
+     * The position of the Dragon in the turn order.
+     * */
+    private int turnPosition;
     /**
      * The Dragon constructor.
      * Calls the super class to set the inherited attributes.
@@ -92,20 +106,57 @@ public class Dragon extends UIComponent implements Moveable {
      */
     @Override
     public void render(GridPane boardGrid, GridPane chitCardGrid) {
-        // Remove the existing Circle if it exists.
-        if (dragon != null) {
-            boardGrid.getChildren().remove(dragon);
+        // Create the Circle to represent a dragon the first time it is rendered, with a black border.
+        if (dragon == null) {
+            dragon = new Circle((double) Constants.SQUARE_WIDTH / 4);
+            dragon.setStroke(Color.BLACK);
+            dragon.setStrokeWidth(3);
         }
-
-        // Create a new Circle to represent a dragon and fill it up with the colour and border is black.
-        dragon = new Circle((double) Constants.SQUARE_WIDTH / 4);
+        // Stop any move it is doing and fill it up with the colour.
+        PieceAnimator.getInstance().cancel(dragon);
         dragon.setFill(this.getColour());
-        dragon.setStroke(Color.BLACK);
-        dragon.setStrokeWidth(3);
         // Centralise the dragon.
-        dragon.setTranslateX( (double) Constants.SQUARE_WIDTH / 4);
-        // Add it to the grid.
-        boardGrid.add(dragon, this.getX(), this.getY());
+        dragon.setTranslateX(CENTRE_TRANSLATE_X);
+        dragon.setTranslateY(0);
+
+        // Reuse the same Circle, adding it to the grid only if it is not in it already.
+        if (dragon.getParent() == boardGrid) {
+            GridPane.setConstraints(dragon, this.getX(), this.getY());
+        } else {
+            boardGrid.add(dragon, this.getX(), this.getY());
+        }
+    }
+
+    /**
+     * Slides the Dragon Piece along the path of its move, step by step.
+     * The Dragon's coordinates must already be set to the end of the path.
+     * @param boardGrid: The GameBoard GridPane object
+     * @param chitCardGrid: The ChitCard GridPane object.
+     * @param path: The path of the move.
+     */
+    public void animate(GridPane boardGrid, GridPane chitCardGrid, MovementPath path) {
+        // Render it instead if the Circle is not on the grid yet.
+        if (dragon == null || dragon.getParent() != boardGrid) {
+            render(boardGrid, chitCardGrid);
+            return;
+        }
+
+        // Convert the path into grid cells.
+        List<Square> squares = path.getSquares();
+        int[] xs = new int[squares.size()];
+        int[] ys = new int[squares.size()];
+        for (int i = 0; i < squares.size(); i++) {
+            xs[i] = squares.get(i).getX();
+            ys[i] = squares.get(i).getY();
+        }
+
+        // Start from where the Circle is drawn and end wherever the Dragon now is, in case the path is out of date.
+        xs[0] = GridPane.getColumnIndex(dragon);
+        ys[0] = GridPane.getRowIndex(dragon);
+        xs[xs.length - 1] = this.getX();
+        ys[ys.length - 1] = this.getY();
+
+        PieceAnimator.getInstance().animate(dragon, xs, ys, CENTRE_TRANSLATE_X, 0);
     }
 
     /**
@@ -216,6 +267,20 @@ public class Dragon extends UIComponent implements Moveable {
      */
     public void setStunned(boolean stunned) {
         this.stunned = stunned;
+        // Let the turn order know, so it can skip stunned Dragons straight away.
+        if (turnOrder != null) {
+            turnOrder.setStunned(turnPosition, stunned);
+        }
+    }
+
+    /**
+     * A method to set the turn order the Dragon takes turns in. Called by the DragonIterator when the Dragon is added.
+     * @param turnOrder: The DragonIterator the Dragon takes turns in.
+     * @param turnPosition: The position of the Dragon in the turn order.
+     */
+    void setTurnOrder(DragonIterator turnOrder, int turnPosition) {
+        this.turnOrder = turnOrder;
+        this.turnPosition = turnPosition;
     }
 
     /**
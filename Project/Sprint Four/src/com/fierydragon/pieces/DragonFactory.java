@@ -2,6 +2,7 @@ package com.fierydragon.pieces;
 
 
 import com.fierydragon.components.Cave;
+import com.fierydragon.engine.Seating;
 import com.fierydragon.movement.MovementManager;
 import com.fierydragon.utils.TurnManager;
 
@@ -10,8 +11,8 @@ import java.util.List;
 import java.util.Random;
 
 /**
- * A Factory Design Pattern that o will create the Dragons based on the number of Players (2-4) and link them to their respective
- * Caves.
+ * A Factory Design Pattern that o will create the Dragons based on the number of Players and link them to their respective
+ * Caves, spread evenly around the Volcano.
  * Created by:
  * @author Bryan Wong
  * Modified by:
@@ -19,6 +20,7 @@ import java.util.Random;
  * @see Dragon
  * @see Cave
  * @see TurnManager
+ * @see Seating
  */
 
 public class DragonFactory {
@@ -44,46 +46,27 @@ public class DragonFactory {
      * @param caves: The list of Caves in the GameBoard.
      */
     public List<Dragon> createDragons(List<Cave> caves) {
+        // Randomly choose how far the seats are turned, such as whether two Dragons are placed opposite horizontal-wise or vertical-wise.
+        return createDragons(caves, new Random().nextInt(caves.size()));
+    }
+
+    /**
+     * A method to create the Dragons based on the number of Players playing in seats chosen in advance. Will attach
+     * their respective Caves to them. The Dragons are spread as evenly as possible around the Caves, so two Dragons
+     * on four Caves sit opposite each other and eight Dragons on sixteen Caves sit on every other Cave.
+     * @param caves: The list of Caves in the GameBoard.
+     * @param seatOffset: The number of Caves the seats are turned by clockwise. Only used when there are fewer Dragons
+     *                  than Caves, where for two Dragons on four Caves an even offset is horizontal-wise and an odd one
+     *                  vertical-wise.
+     */
+    public List<Dragon> createDragons(List<Cave> caves, int seatOffset) {
         // Create empty list of dragons to store the dragon players.
         List<Dragon> dragons = new ArrayList<>();
-        // If there are two players, setOpposite to true to set the Dragon to be at the opposite of the board.
-        boolean setOpposite = false;
-        if (this.getNumberOfDragons() <= 2) {
-            setOpposite = true;
-        }
-
-        // If need to set at opposite row, choose to randomly placed vertical wise or horizontal wise.
-        // Set horizontal to true if its horizontal. If it false means its vertical.
-        boolean horizontal = true;
-        if (setOpposite) {
-            // Create a Random class.
-            Random rand = new Random();
-            // Obtain a number between [0 - 1].
-            int n = rand.nextInt(2) + 1;
-            // Choose to be place the Dragons opposite on horizontal-wise or vertical-wise.
-            horizontal = switch (n) {
-                case 1 -> true;
-                case 2 -> false;
-                default -> horizontal;
-            };
-        }
 
-        int index = 0;
         // Create all the dragons and their respective caves.
         for (int i = 0; i < getNumberOfDragons(); i++) {
-            // If opposite then modify the index based on horizontal or not.
-            if (setOpposite) {
-                if (horizontal) {
-                    index = i * 2;
-                }
-                else {
-                    index = (i * 2) + 1;
-                }
-            }
-            // Else just set index as i as normal.
-            else {
-                index = i;
-            }
+            // Spread the Dragons evenly around the Caves in a clockwise direction.
+            int index = Seating.caveOf(i, getNumberOfDragons(), caves.size(), seatOffset);
 
             // Create a new Dragon instance with their respective Cave.
             Dragon dragon = new Dragon(caves.get(index));
@@ -15,6 +15,15 @@ public class DragonIterator implements Iterator<Dragon> {
      * An integer representing the current position of the Iterator.
      */
     private int currentPosition;
+    /**
+     * The largest number of Dragons that can take turns, one bit of the stunned mask each.
+     */
+    public static final int MAX_DRAGONS = Long.SIZE - 1;
+    /**
+     * A mask with the bit of each stunned Dragon set, by their position in the turn order, so that stunned Dragons can
+     * be skipped without visiting each of them.
+     */
+    private long stunnedMask;
 
     /**
      * DragonIterator Constructor.
@@ -50,11 +59,92 @@ public class DragonIterator implements Iterator<Dragon> {
     }
 
     /**
-     * Add a Dragon to the dragons list
+     * Moves to the next Dragon that is not stunned, in a constant number of steps however many Dragons are playing.
+     * Every stunned Dragon passed over recovers, as its turn has passed. If every Dragon is stunned, they all recover
+     * and the turn goes to the next Dragon.
+     * @return the Dragon whose turn it is.
+     */
+    public Dragon nextAwake() {
+        int numDragons = dragons.size();
+        long allDragons = (1L << numDragons) - 1;
+        int start = (currentPosition + 1) % numDragons;
+
+        // Turn the mask so the next Dragon is the lowest bit, and find the first Dragon that is awake.
+        long awake = ~rotateRight(stunnedMask, start, numDragons) & allDragons;
+        int skipped = (awake == 0) ? numDragons : Long.numberOfTrailingZeros(awake);
+
+        // The skipped Dragons recover.
+        long skippedMask = rotateLeft((1L << skipped) - 1, start, numDragons);
+        for (long recovered = stunnedMask & skippedMask; recovered != 0; recovered &= recovered - 1) {
+            dragons.get(Long.numberOfTrailingZeros(recovered)).setStunned(false);
+        }
+
+        currentPosition = (start + skipped) % numDragons;
+        return dragons.get(currentPosition);
+    }
+
+    /**
+     * Turns the lowest bits of a mask to the right, moving the bits that fall off back to the top.
+     * @param mask: The mask to turn.
+     * @param distance: How many bits to turn it by.
+     * @param width: The number of bits used.
+     * @return the turned mask.
+     */
+    private static long rotateRight(long mask, int distance, int width) {
+        if (distance == 0) {
+            return mask;
+        }
+        return ((mask >>> distance) | (mask << (width - distance))) & ((1L << width) - 1);
+    }
+
+    /**
+     * Turns the lowest bits of a mask to the left, moving the bits that fall off back to the bottom.
+     * @param mask: The mask to turn.
+     * @param distance: How many bits to turn it by.
+     * @param width: The number of bits used.
+     * @return the turned mask.
+     */
+    private static long rotateLeft(long mask, int distance, int width) {
+        if (distance == 0) {
+            return mask;
+        }
+        return ((mask << distance) | (mask >>> (width - distance))) & ((1L << width) - 1);
+    }
+
+    /**
+     * Add a Dragon to the dragons list, giving it the next place in the turn order.
      * @param dragon: the Dragon to add.
      */
     public void add(Dragon dragon) {
+        if (dragons.size() == MAX_DRAGONS) {
+            throw new IllegalStateException("At most " + MAX_DRAGONS + " Dragons can take turns");
+        }
+        dragon.setTurnOrder(this, dragons.size());
         dragons.add(dragon);
+        // Keep the stunned mask in step with a Dragon that was stunned before being added.
+        setStunned(dragons.size() - 1, dragon.isStunned());
+    }
+
+    /**
+     * Updates the stunned mask when a Dragon is stunned or recovers. Called by the Dragon itself.
+     * @param position: The position of the Dragon in the turn order.
+     * @param stunned: Whether the Dragon is stunned.
+     */
+    void setStunned(int position, boolean stunned) {
+        if (stunned) {
+            stunnedMask |= 1L << position;
+        }
+        else {
+            stunnedMask &= ~(1L << position);
+        }
+    }
+
+    /**
+     * A method to return the stunnedMask data attribute.
+     * @return a mask with the bit of each stunned Dragon set, by their position in the turn order.
+     */
+    public long getStunnedMask() {
+        return stunnedMask;
     }
 
     /**
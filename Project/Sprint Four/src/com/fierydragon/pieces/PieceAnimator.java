@@ -0,0 +1,285 @@
+package com.fierydragon.pieces;
+
+import com.fierydragon.utils.Constants;
+import com.fierydragon.utils.TurnScheduler;
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.scene.layout.GridPane;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A PieceAnimator Singleton Design Pattern that slides the pieces along their path from grid cell to grid cell.
+ * A single shared AnimationTimer drives every piece, and each piece reuses the same Animation between moves, so no
+ * Transition objects are created per step.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Dragon
+ * @see TurnScheduler
+ */
+
+public class PieceAnimator {
+    /**
+     * An instance of itself so that only one PieceAnimator instance is created. Default set to null.
+     */
+    private static PieceAnimator pieceAnimator = null;
+    /**
+     * The number of seconds a piece takes to move one Square at the human pace.
+     */
+    public static final double STEP_SECONDS = 0.15;
+    /**
+     * The fraction of the pause between turns that a whole move may take, so moves finish before the turn changes.
+     */
+    public static final double MAX_TURN_FRACTION = 0.8;
+    /**
+     * The timer that advances every running animation on each pulse. Created lazily as it needs the JavaFX toolkit.
+     */
+    private AnimationTimer timer;
+    /**
+     * The animation of each piece, reused between moves.
+     */
+    private final Map<Node, Animation> animations;
+    /**
+     * The number of animations currently running.
+     */
+    private int numRunning;
+    /**
+     * The time of the previous pulse in nanoseconds, or zero if the timer has just started.
+     */
+    private long lastPulse;
+
+    /**
+     * PieceAnimator Constructor.
+     */
+    public PieceAnimator() {
+        this.animations = new IdentityHashMap<>();
+    }
+
+    /**
+     * Slides a piece through the given grid cells. The piece must already be in the GridPane at the first cell.
+     * If the pacing leaves no time to animate, the piece is placed at the last cell straight away.
+     * @param node: The Node of the piece to move.
+     * @param xs: The x-coordinates of the grid cells to move through, starting from the current one.
+     * @param ys: The y-coordinates of the grid cells to move through, starting from the current one.
+     * @param baseTranslateX: The x translation of the piece when it is resting in a cell.
+     * @param baseTranslateY: The y translation of the piece when it is resting in a cell.
+     */
+    public void animate(Node node, int[] xs, int[] ys, double baseTranslateX, double baseTranslateY) {
+        // Finish any move the piece is still doing.
+        cancel(node);
+
+        int numSteps = xs.length - 1;
+        double secondsPerStep = getSecondsPerStep(numSteps);
+
+        // Get the reusable animation of the piece, creating it on its first move.
+        Animation animation = animations.computeIfAbsent(node, Animation::new);
+        animation.start(xs, ys, baseTranslateX, baseTranslateY, secondsPerStep);
+
+        // Without any time to animate, place the piece at the end straight away.
+        if (numSteps <= 0 || secondsPerStep <= 0) {
+            animation.finish();
+            return;
+        }
+
+        // Draw the moving piece above the Squares and start the shared timer if it is idle.
+        node.toFront();
+        numRunning++;
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    pulse(now);
+                }
+            };
+        }
+        if (numRunning == 1) {
+            lastPulse = 0;
+            timer.start();
+        }
+    }
+
+    /**
+     * Cancels the move of a piece, placing it at the end of its path.
+     * @param node: The Node of the piece.
+     */
+    public void cancel(Node node) {
+        Animation animation = animations.get(node);
+        if (animation != null && animation.isRunning()) {
+            animation.finish();
+            stopped();
+        }
+    }
+
+    /**
+     * Cancels every running move, placing each piece at the end of its path.
+     */
+    public void finishAll() {
+        for (Animation animation : animations.values()) {
+            if (animation.isRunning()) {
+                animation.finish();
+                stopped();
+            }
+        }
+    }
+
+    /**
+     * Forget every piece, finishing their moves first. Used when the pieces are thrown away.
+     */
+    public void clear() {
+        finishAll();
+        animations.clear();
+    }
+
+    /**
+     * Gets the number of seconds each step takes. Long moves are compressed so the whole move fits in the pause
+     * between turns, and the instant pace does not animate at all.
+     * @param numSteps: The number of steps in the move.
+     * @return the number of seconds for each step, zero if the move should not be animated.
+     */
+    public double getSecondsPerStep(int numSteps) {
+        double delay = TurnScheduler.getInstance().getDelaySeconds();
+        if (delay <= 0 || numSteps <= 0) {
+            return 0;
+        }
+        return Math.min(STEP_SECONDS * delay, MAX_TURN_FRACTION * delay / numSteps);
+    }
+
+    /**
+     * Advances every running animation. Called by the shared timer once per pulse.
+     * @param now: The time of the pulse in nanoseconds.
+     */
+    private void pulse(long now) {
+        // The first pulse only records the time.
+        double elapsed = (lastPulse == 0) ? 0 : (now - lastPulse) / 1e9;
+        lastPulse = now;
+
+        for (Animation animation : animations.values()) {
+            if (animation.isRunning() && animation.advance(elapsed)) {
+                stopped();
+            }
+        }
+    }
+
+    /**
+     * Records that an animation stopped, stopping the shared timer when none are left.
+     */
+    private void stopped() {
+        numRunning--;
+        if (numRunning == 0 && timer != null) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Class holding the state of one piece's move. One is kept per piece and reused for each of its moves.
+     */
+    static class Animation {
+        /**
+         * The Node of the piece.
+         */
+        private final Node node;
+        /**
+         * The grid cells to move through, starting from the one the piece is anchored to.
+         */
+        private int[] xs, ys;
+        /**
+         * The translation of the piece when it is resting in a cell.
+         */
+        private double baseTranslateX, baseTranslateY;
+        /**
+         * The number of seconds each step takes.
+         */
+        private double secondsPerStep;
+        /**
+         * How far along the path the piece is, in steps.
+         */
+        private double progress;
+        /**
+         * A boolean denoting if the piece is moving.
+         */
+        private boolean running;
+
+        /**
+         * Animation Constructor.
+         * @param node: The Node of the piece.
+         */
+        Animation(Node node) {
+            this.node = node;
+        }
+
+        /**
+         * Starts a new move, anchoring the piece to the first cell of the path.
+         * @param xs: The x-coordinates of the grid cells to move through.
+         * @param ys: The y-coordinates of the grid cells to move through.
+         * @param baseTranslateX: The x translation of the piece when it is resting in a cell.
+         * @param baseTranslateY: The y translation of the piece when it is resting in a cell.
+         * @param secondsPerStep: The number of seconds each step takes.
+         */
+        void start(int[] xs, int[] ys, double baseTranslateX, double baseTranslateY, double secondsPerStep) {
+            this.xs = xs;
+            this.ys = ys;
+            this.baseTranslateX = baseTranslateX;
+            this.baseTranslateY = baseTranslateY;
+            this.secondsPerStep = secondsPerStep;
+            this.progress = 0;
+            this.running = true;
+            GridPane.setConstraints(node, xs[0], ys[0]);
+        }
+
+        /**
+         * Moves the piece further along the path.
+         * @param elapsed: The number of seconds since the previous pulse.
+         * @return True if the piece reached the end of the path, false otherwise.
+         */
+        boolean advance(double elapsed) {
+            progress += elapsed / secondsPerStep;
+            int lastStep = xs.length - 1;
+            if (progress >= lastStep) {
+                finish();
+                return true;
+            }
+
+            // Interpolate between the two cells the piece is between.
+            int step = (int) progress;
+            double fraction = progress - step;
+            double x = xs[step] + (xs[step + 1] - xs[step]) * fraction;
+            double y = ys[step] + (ys[step + 1] - ys[step]) * fraction;
+            node.setTranslateX(baseTranslateX + (x - xs[0]) * Constants.SQUARE_WIDTH);
+            node.setTranslateY(baseTranslateY + (y - ys[0]) * Constants.SQUARE_HEIGHT);
+            return false;
+        }
+
+        /**
+         * Places the piece at the last cell of the path and stops the move.
+         */
+        void finish() {
+            running = false;
+            GridPane.setConstraints(node, xs[xs.length - 1], ys[ys.length - 1]);
+            node.setTranslateX(baseTranslateX);
+            node.setTranslateY(baseTranslateY);
+        }
+
+        /**
+         * A method to check the running data attribute.
+         * @return True if the piece is moving, false otherwise.
+         */
+        boolean isRunning() {
+            return running;
+        }
+    }
+
+    /**
+     * Returns the instance of the pieceAnimator stored as a data attribute.
+     * If one has not been created yet, create a new instance of pieceAnimator.
+     * @return the pieceAnimator instance.
+     */
+    public static PieceAnimator getInstance() {
+        if (pieceAnimator == null) {
+            pieceAnimator = new PieceAnimator();
+        }
+        return pieceAnimator;
+    }
+}
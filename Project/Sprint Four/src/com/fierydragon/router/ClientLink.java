@@ -0,0 +1,491 @@
+package com.fierydragon.router;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class representing one client connected to the SessionRouter, passing its lines on to the worker hosting its game
+ * and the worker's lines back, so the client sees one server whichever worker its game is on.
+ * The link connects upstream to the worker it needs: the least busy worker for CREATE, the worker hosting the game for
+ * JOIN and WATCH, and the same worker for every QUEUE of the same kind of table. When its game is handed over to
+ * another worker, the link is moved across and takes its seat again there without the client seeing anything.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see SessionRouter
+ */
+
+public class ClientLink implements Runnable {
+    /**
+     * The seconds to wait for a worker to answer PING.
+     */
+    private static final long PING_SECONDS = 10;
+    /**
+     * The router the client is connected to.
+     */
+    private final SessionRouter router;
+    /**
+     * The socket of the client.
+     */
+    private final Socket socket;
+    /**
+     * The writer of lines to the client. Guarded by itself.
+     */
+    private Writer writer;
+    /**
+     * The connection to the worker the client is using, or null.
+     */
+    private volatile Upstream upstream;
+    /**
+     * The game the client is seated in or watching, or null.
+     */
+    private volatile SessionRouter.GameRoute route;
+    /**
+     * The seat of the client in its game, or -1 if it is watching.
+     */
+    private volatile int seat;
+    /**
+     * The QUEUE line the client is waiting in the Lobby with, or null.
+     */
+    private volatile String queued;
+
+    /**
+     * A class representing a connection from the link to one worker, with its own thread passing the worker's lines
+     * back to the client.
+     */
+    private final class Upstream implements Runnable {
+        /**
+         * The worker connected to.
+         */
+        private final WorkerProcess worker;
+        /**
+         * The socket of the connection.
+         */
+        private final Socket socket;
+        /**
+         * The reader of lines from the worker.
+         */
+        private final BufferedReader reader;
+        /**
+         * The writer of lines to the worker. Guarded by this upstream.
+         */
+        private final Writer out;
+        /**
+         * The answers to PING, taken by the thread waiting for them rather than passed on.
+         */
+        private final BlockingQueue<String> pongs;
+        /**
+         * The answers to the commands the router sends for the client, taken by the thread waiting for them rather
+         * than passed on.
+         */
+        private final BlockingQueue<String> answers;
+        /**
+         * The first word of the answer to a command the router sent for the client, such as the JOINED of a seat
+         * taken again, or null.
+         */
+        private volatile String awaited;
+        /**
+         * A boolean denoting if the worker has closed the connection.
+         */
+        private volatile boolean closed;
+        /**
+         * A boolean denoting if the link has moved on to another connection, so nothing more is passed on.
+         */
+        private volatile boolean retired;
+
+        /**
+         * Upstream Constructor. Connects to the worker.
+         * @param worker: The worker.
+         * @throws IOException if the worker cannot be reached.
+         */
+        Upstream(WorkerProcess worker) throws IOException {
+            this.worker = worker;
+            this.socket = new Socket("127.0.0.1", worker.getPort());
+            socket.setTcpNoDelay(true);
+            this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            this.pongs = new LinkedBlockingQueue<>();
+            this.answers = new LinkedBlockingQueue<>();
+        }
+
+        /**
+         * Passes the worker's lines back to the client until the connection closes.
+         */
+        @Override
+        public void run() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.equals("PONG")) {
+                        pongs.add(line);
+                        continue;
+                    }
+                    if (retired) {
+                        continue;
+                    }
+                    String word = awaited;
+                    if (word != null && (line.equals(word) || line.startsWith(word + " ") || line.startsWith("ERROR"))) {
+                        awaited = null;
+                        answers.add(line);
+                        continue;
+                    }
+                    observe(this, line);
+                    sendToClient(line);
+                }
+            } catch (IOException e) {
+                // The connection closed.
+            }
+            // Wake any thread waiting for an answer that will not come.
+            closed = true;
+            pongs.add("CLOSED");
+            answers.add("ERROR Lost the connection to the game");
+            if (!retired) {
+                router.upstreamLost(ClientLink.this, worker);
+            }
+        }
+
+        /**
+         * Sends a line to the worker.
+         * @param line: The line.
+         * @throws IOException if the worker cannot be reached.
+         */
+        synchronized void send(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+        }
+
+        /**
+         * Sends PING and waits for PONG, so every line sent before has been taken by the worker and every line the
+         * worker sent before answering has been passed on.
+         * @throws IOException if the worker does not answer in time.
+         */
+        void ping() throws IOException {
+            if (retired || closed) {
+                // Nothing more will be passed on.
+                return;
+            }
+            send("PING");
+            try {
+                if (pongs.poll(PING_SECONDS, TimeUnit.SECONDS) == null) {
+                    throw new IOException("Worker " + worker.getIndex() + " did not answer PING");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for PONG", e);
+            }
+        }
+
+        /**
+         * Sends a command for the client and waits for its answer, which is not passed on.
+         * @param line: The command line.
+         * @param replyWord: The first word of the answer.
+         * @return the answer, or an ERROR line if the command was refused.
+         * @throws IOException if the worker does not answer in time.
+         */
+        String call(String line, String replyWord) throws IOException {
+            awaited = replyWord;
+            send(line);
+            try {
+                String answer = answers.poll(PING_SECONDS, TimeUnit.SECONDS);
+                if (answer == null) {
+                    throw new IOException("Worker " + worker.getIndex() + " did not answer " + line);
+                }
+                return answer;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for " + replyWord, e);
+            }
+        }
+
+        /**
+         * Stops passing lines on and closes the connection, leaving the worker's seat behind.
+         */
+        void retire() {
+            retired = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // The connection is already closed.
+            }
+        }
+    }
+
+    /**
+     * ClientLink Constructor.
+     * @param router: The router the client is connected to.
+     * @param socket: The socket of the client.
+     */
+    ClientLink(SessionRouter router, Socket socket) {
+        this.router = router;
+        this.socket = socket;
+        this.seat = -1;
+    }
+
+    /**
+     * Reads the client's commands and passes them on until the client quits or disconnects.
+     */
+    @Override
+    public void run() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!handle(line.trim())) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // The client disconnected.
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // The socket is already closed.
+            }
+            router.disconnected(this);
+            SessionRouter.GameRoute current = route;
+            if (current != null) {
+                current.removeLink(this);
+            }
+            Upstream connection = upstream;
+            if (connection != null) {
+                // Closing the connection leaves the seat on the worker, as the client would have.
+                connection.retire();
+            }
+        }
+    }
+
+    /**
+     * Passes one command on to the worker it is for.
+     * @param line: The command line.
+     * @return False if the client quit.
+     * @throws IOException if the client has gone.
+     */
+    private boolean handle(String line) throws IOException {
+        String[] words = line.split("\\s+");
+        try {
+            switch (words[0].toUpperCase()) {
+                case "CREATE" -> {
+                    useWorker(router.chooseForCreate());
+                    upstream.send(line);
+                }
+                case "JOIN", "WATCH" -> {
+                    SessionRouter.GameRoute joining = router.getRoute(Long.parseLong(words[1]));
+                    if (joining == null) {
+                        sendToClient("ERROR No game " + words[1]);
+                        return true;
+                    }
+                    useWorker(joining.getOwner());
+                    if (words[0].equalsIgnoreCase("WATCH") && route == null) {
+                        route = joining;
+                        seat = -1;
+                        joining.addLink(this);
+                    }
+                    joining.forward(this, line);
+                }
+                case "QUEUE" -> {
+                    useWorker(router.chooseForQueue(words[1] + "/" + words[2]));
+                    queued = line;
+                    upstream.send(line);
+                }
+                case "FLIP", "STATE", "UNQUEUE" -> {
+                    if (upstream == null) {
+                        sendToClient("ERROR Join a game first");
+                    }
+                    else if (route != null) {
+                        route.forward(this, line);
+                    }
+                    else {
+                        upstream.send(line);
+                    }
+                }
+                case "QUIT" -> {
+                    return false;
+                }
+                default -> sendToClient("ERROR Unknown command " + words[0]);
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            sendToClient("ERROR Missing arguments for " + words[0]);
+        } catch (NumberFormatException e) {
+            sendToClient("ERROR " + e.getMessage());
+        } catch (IOException e) {
+            sendToClient("ERROR Server unavailable: " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Makes sure the link is connected to a worker, moving to it if the client is not yet in a game elsewhere.
+     * @param worker: The worker.
+     * @throws IOException if the worker cannot be reached.
+     */
+    private synchronized void useWorker(WorkerProcess worker) throws IOException {
+        Upstream current = upstream;
+        if (current != null && (current.worker == worker || route != null || queued != null)) {
+            return;
+        }
+        Upstream fresh = new Upstream(worker);
+        upstream = fresh;
+        router.execute(fresh);
+        if (current != null) {
+            current.retire();
+        }
+    }
+
+    /**
+     * Watches the lines from a worker for the games the client creates and joins, so the router knows where they are.
+     * @param from: The connection the line came from.
+     * @param line: The line.
+     */
+    private void observe(Upstream from, String line) {
+        if (line.startsWith("CREATED ")) {
+            router.created(Long.parseLong(line.substring(8).trim()), from.worker);
+        }
+        else if (line.startsWith("JOINED ")) {
+            String[] words = line.split(" ");
+            SessionRouter.GameRoute joined = router.created(Long.parseLong(words[1]), from.worker);
+            seat = Integer.parseInt(words[2]);
+            queued = null;
+            if (route != joined) {
+                route = joined;
+                joined.addLink(this);
+            }
+        }
+        else if (line.equals("UNQUEUED")) {
+            queued = null;
+        }
+    }
+
+    /**
+     * Sends a line to the client.
+     * @param line: The line.
+     */
+    void sendToClient(String line) {
+        Writer out = writer;
+        if (out == null) {
+            return;
+        }
+        synchronized (out) {
+            try {
+                out.write(line);
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                // The client disconnected.
+            }
+        }
+    }
+
+    /**
+     * Sends a line to the worker the link is connected to. Called by the route of the game, which holds back lines
+     * while the game is handed over.
+     * @param line: The line.
+     * @throws IOException if the worker cannot be reached.
+     */
+    void sendUpstream(String line) throws IOException {
+        Upstream current = upstream;
+        if (current == null) {
+            throw new IOException("Not connected");
+        }
+        current.send(line);
+    }
+
+    /**
+     * Waits until every command the client sent has been taken by the worker, and every line the worker sent has been
+     * passed on. Called while the game is held back.
+     * @throws IOException if the worker does not answer in time.
+     */
+    void barrier() throws IOException {
+        Upstream current = upstream;
+        if (current != null) {
+            current.ping();
+        }
+    }
+
+    /**
+     * Moves the link to the worker now hosting its game and takes its seat again there, waiting until it is seated so
+     * its next command is played, or watches the game again from a new snapshot. The old connection is closed without
+     * being passed on, so a player sees nothing.
+     * @param worker: The worker now hosting the game.
+     * @param id: The number of the game.
+     * @throws IOException if the worker cannot be reached.
+     */
+    synchronized void reattach(WorkerProcess worker, long id) throws IOException {
+        Upstream old = upstream;
+        if (old != null) {
+            old.retire();
+        }
+        Upstream fresh = new Upstream(worker);
+        router.execute(fresh);
+        upstream = fresh;
+        if (seat >= 0) {
+            String answer = fresh.call("REJOIN " + id + " " + seat, "JOINED");
+            if (answer.startsWith("ERROR")) {
+                sendToClient(answer);
+            }
+        }
+        else {
+            fresh.send("WATCH " + id);
+        }
+    }
+
+    /**
+     * Moves a link waiting in the Lobby of a worker that is going away to the Lobby of another worker, queueing again
+     * with the same command. A player matched before leaving the old Lobby stays at their table instead.
+     * @param worker: The worker to queue on.
+     * @throws IOException if a worker cannot be reached.
+     */
+    synchronized void requeue(WorkerProcess worker) throws IOException {
+        String line = queued;
+        Upstream old = upstream;
+        if (line == null || old == null) {
+            return;
+        }
+        if (!old.closed && !old.call("UNQUEUE", "UNQUEUED").equals("UNQUEUED")) {
+            // The player was matched first, and the router moves their game with the others.
+            return;
+        }
+        old.retire();
+        Upstream fresh = new Upstream(worker);
+        router.execute(fresh);
+        upstream = fresh;
+        queued = line;
+        fresh.call(line, "QUEUED");
+    }
+
+    /**
+     * A method to return the worker the link is connected to.
+     * @return the worker, or null if it is not connected.
+     */
+    WorkerProcess getWorker() {
+        Upstream current = upstream;
+        return (current == null) ? null : current.worker;
+    }
+
+    /**
+     * A method to return the queued data attribute.
+     * @return the QUEUE line the client is waiting in the Lobby with, or null.
+     */
+    String getQueued() {
+        return queued;
+    }
+
+    /**
+     * A method to return the route data attribute.
+     * @return the game the client is seated in or watching, or null.
+     */
+    SessionRouter.GameRoute getRoute() {
+        return route;
+    }
+}
@@ -0,0 +1,135 @@
+package com.fierydragon.router;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The entry point of the router mode, which starts several GameServer workers on this host and spreads the games of
+ * its clients over them. Run from the repository root so the board definitions are found, for example:
+ * <pre>
+ * java com.fierydragon.router.RouterMain --port 7077 --workers 4 --journal-dir journals --worker-heap-mb 512
+ * </pre>
+ * The router is run by typing commands: "workers" lists the workers and their games, "drain i" hands the games of
+ * worker i to the others and stops it, "rebalance" evens out the games, "kill i" kills worker i as a crash would, and
+ * "quit" stops the router and every worker.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see SessionRouter
+ */
+
+public class RouterMain {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The folder the journals of the workers are kept in when none is given.
+     */
+    private static final String DEFAULT_JOURNAL_DIRECTORY = "journals";
+
+    /**
+     * Reads the options, starts the router and its workers, and runs the commands typed.
+     * @param args: The options, each a name followed by its value: --port, --address, --workers, --journal-dir and
+     *              --worker-heap-mb.
+     * @throws IOException if the port cannot be opened or a worker cannot be started.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = SessionRouter.DEFAULT_PORT;
+        InetAddress address = InetAddress.getLoopbackAddress();
+        int numWorkers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        Path journalDirectory = Path.of(DEFAULT_JOURNAL_DIRECTORY);
+        long workerHeapMb = 0;
+
+        // Read each option and its value.
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--address" -> address = InetAddress.getByName(args[i + 1]);
+                case "--workers" -> numWorkers = Integer.parseInt(args[i + 1]);
+                case "--journal-dir" -> journalDirectory = Path.of(args[i + 1]);
+                case "--worker-heap-mb" -> workerHeapMb = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // The workers are given the heap asked for and the game's own system properties.
+        List<String> jvmOptions = new ArrayList<>();
+        if (workerHeapMb > 0) {
+            jvmOptions.add("-Xmx" + workerHeapMb + "m");
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("fierydragon.")) {
+                jvmOptions.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        Files.createDirectories(journalDirectory);
+
+        SessionRouter router = new SessionRouter(port, address, numWorkers, journalDirectory, jvmOptions);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                router.close();
+            } catch (IOException e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Could not close the router: {0}", e);
+            }
+        }));
+        router.start();
+        System.out.println("Fiery Dragons router listening on " + address.getHostAddress() + ":" + router.getPort()
+                + " with " + numWorkers + " workers, " + router.getRoutes().size() + " games recovered");
+
+        // Run the commands typed until quit.
+        BufferedReader input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = input.readLine()) != null) {
+            String[] words = line.trim().split("\\s+");
+            try {
+                switch (words[0]) {
+                    case "workers" -> {
+                        for (WorkerProcess worker : router.getWorkers()) {
+                            System.out.println("worker " + worker.getIndex() + " port " + worker.getPort() + " games "
+                                    + worker.getNumGames() + (worker.isStopped() ? " stopped"
+                                    : worker.isDraining() ? " draining" : ""));
+                        }
+                    }
+                    case "drain" -> {
+                        WorkerProcess worker = router.getWorkers().get(Integer.parseInt(words[1]));
+                        long start = System.nanoTime();
+                        int numMoved = router.drain(worker);
+                        System.out.println("Drained worker " + worker.getIndex() + ": " + numMoved + " games moved in "
+                                + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    }
+                    case "rebalance" -> {
+                        long start = System.nanoTime();
+                        int numMoved = router.rebalance();
+                        System.out.println("Rebalanced: " + numMoved + " games moved in "
+                                + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    }
+                    case "kill" -> router.getWorkers().get(Integer.parseInt(words[1])).kill();
+                    case "quit" -> {
+                        System.exit(0);
+                    }
+                    case "" -> {
+                        // Nothing was typed.
+                    }
+                    default -> System.out.println("Unknown command " + words[0]);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Failed: " + e.getMessage());
+            }
+        }
+        // Keep serving when there is nothing more to read, as when run in the background.
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,716 @@
+package com.fierydragon.router;
+
+import com.fierydragon.server.GameServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class representing a router that spreads games over several engine workers on one host, each a GameServer in a
+ * process of its own, while clients connect to the router as if it were one server.
+ * Every game stays on the worker that created it (session affinity), and each client's lines are passed to that
+ * worker by its ClientLink. New games go to the worker with the fewest, and the players waiting for the same kind of
+ * table all wait in the Lobby of the same worker.
+ * A game is handed over to another worker while it is played, with no lost turns:
+ * <ol>
+ * <li>the game is exported as its compact progress, and goes on being played;</li>
+ * <li>its clients' lines are held back, and each client's connection is pinged so every command already sent has
+ * been queued by the game;</li>
+ * <li>the game is frozen, which runs those commands and answers with the Chit Cards flipped since the export, the tail
+ * of its journal, and each connection is pinged again so every reply has reached its client;</li>
+ * <li>the other worker adopts the game from the progress and the tail, the clients take their seats again there and
+ * their lines are let through.</li>
+ * </ol>
+ * Draining a worker hands over all its games and moves the players waiting in its Lobby, and rebalancing hands games
+ * from the busiest worker to the least busy. A worker that dies is started again on its journal and its clients take
+ * their seats again; turns in its last few milliseconds that were not yet on disk are lost.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see ClientLink
+ * @see WorkerProcess
+ */
+
+public class SessionRouter implements Closeable {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The port the router listens on when none is given, the same as a single server.
+     */
+    public static final int DEFAULT_PORT = GameServer.DEFAULT_PORT;
+    /**
+     * The milliseconds between counts of the games of every worker.
+     */
+    private static final long RECONCILE_MILLIS = 1000;
+    /**
+     * The milliseconds to wait for a worker whose connection closed to be seen to have exited.
+     */
+    private static final long EXIT_MILLIS = 500;
+    /**
+     * The socket accepting new clients.
+     */
+    private final ServerSocket serverSocket;
+    /**
+     * The threads serving the clients and their connections to the workers.
+     */
+    private final ExecutorService threads;
+    /**
+     * The workers.
+     */
+    private final List<WorkerProcess> workers;
+    /**
+     * The games being played, by number.
+     */
+    private final Map<Long, GameRoute> routes;
+    /**
+     * The clients connected to the router.
+     */
+    private final Set<ClientLink> links;
+    /**
+     * The thread counting the games of every worker and watching for workers that die.
+     */
+    private final ScheduledExecutorService reconciler;
+    /**
+     * A boolean denoting if the router is accepting clients.
+     */
+    private volatile boolean running;
+
+    /**
+     * A class representing one game as the router sees it: the worker hosting it and the clients in it. Lines for the
+     * game go through its route, which holds them back while the game is handed over.
+     */
+    public static final class GameRoute {
+        /**
+         * The number of the game.
+         */
+        private final long id;
+        /**
+         * The clients seated in or watching the game. Guarded by this route.
+         */
+        private final Set<ClientLink> links;
+        /**
+         * The worker hosting the game. Guarded by this route.
+         */
+        private WorkerProcess owner;
+        /**
+         * A boolean denoting if the game is being handed over, so its lines are held back. Guarded by this route.
+         */
+        private boolean moving;
+        /**
+         * The time the game last arrived on its worker, in nanoseconds. Guarded by this route.
+         */
+        private long since;
+
+        /**
+         * GameRoute Constructor.
+         * @param id: The number of the game.
+         * @param owner: The worker hosting the game.
+         */
+        GameRoute(long id, WorkerProcess owner) {
+            this.id = id;
+            this.owner = owner;
+            this.links = new HashSet<>();
+            this.since = System.nanoTime();
+        }
+
+        /**
+         * Sends a client's line to the worker hosting the game, waiting while the game is handed over.
+         * @param link: The client.
+         * @param line: The line.
+         * @throws IOException if the worker cannot be reached.
+         */
+        synchronized void forward(ClientLink link, String line) throws IOException {
+            while (moving) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for game " + id + " to move", e);
+                }
+            }
+            link.sendUpstream(line);
+        }
+
+        /**
+         * Holds back the game's lines, unless it is already held back.
+         * @return the clients in the game, or null if the game is already being handed over.
+         */
+        synchronized List<ClientLink> hold() {
+            if (moving) {
+                return null;
+            }
+            moving = true;
+            return new ArrayList<>(links);
+        }
+
+        /**
+         * Lets the game's lines through again, to the worker now hosting it.
+         * @param worker: The worker now hosting the game.
+         */
+        synchronized void release(WorkerProcess worker) {
+            if (owner != worker) {
+                owner = worker;
+                since = System.nanoTime();
+            }
+            moving = false;
+            notifyAll();
+        }
+
+        /**
+         * Adds a client to the game.
+         * @param link: The client.
+         */
+        synchronized void addLink(ClientLink link) {
+            links.add(link);
+        }
+
+        /**
+         * Takes a client out of the game.
+         * @param link: The client.
+         */
+        synchronized void removeLink(ClientLink link) {
+            links.remove(link);
+        }
+
+        /**
+         * A method to return the id data attribute.
+         * @return the number of the game.
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * A method to return the owner data attribute.
+         * @return the worker hosting the game.
+         */
+        public synchronized WorkerProcess getOwner() {
+            return owner;
+        }
+
+        /**
+         * A method to check whether the game is being handed over.
+         * @return True while its lines are held back.
+         */
+        synchronized boolean isMoving() {
+            return moving;
+        }
+
+        /**
+         * A method to check whether the game has been on a worker since before a time, so a list of the worker's games
+         * taken after that time would hold it.
+         * @param worker: The worker.
+         * @param time: The time, in nanoseconds.
+         * @return True if the game was already on the worker at the time and is not being handed over.
+         */
+        synchronized boolean isSettledOn(WorkerProcess worker, long time) {
+            return owner == worker && !moving && since - time < 0;
+        }
+    }
+
+    /**
+     * SessionRouter Constructor. Starts the workers, each on its own journal in a folder.
+     * @param port: The port to listen on, or 0 for any free port.
+     * @param address: The address to listen on, or null for every address.
+     * @param numWorkers: The number of workers.
+     * @param journalDirectory: The folder the journals of the workers are kept in.
+     * @param jvmOptions: The options given to the JVM of each worker.
+     * @throws IOException if the port cannot be opened or a worker cannot be started.
+     */
+    public SessionRouter(int port, InetAddress address, int numWorkers, Path journalDirectory, List<String> jvmOptions)
+            throws IOException {
+        this.serverSocket = new ServerSocket(port, 1024, address);
+        this.threads = GameServer.newConnectionExecutor();
+        this.workers = new CopyOnWriteArrayList<>();
+        this.routes = new ConcurrentHashMap<>();
+        this.links = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < numWorkers; i++) {
+            WorkerProcess worker = new WorkerProcess(i, journalDirectory.resolve("worker-" + i + ".journal"), jvmOptions);
+            worker.start();
+            workers.add(worker);
+        }
+        // Bring back the games the workers recovered from their journals.
+        reconcile();
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "router-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly, RECONCILE_MILLIS, RECONCILE_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts accepting clients on a thread of its own.
+     */
+    public void start() {
+        running = true;
+        threads.execute(this::serve);
+    }
+
+    /**
+     * Accepts clients until the router is closed, serving each on its own thread.
+     */
+    public void serve() {
+        running = true;
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                ClientLink link = new ClientLink(this, socket);
+                links.add(link);
+                threads.execute(link);
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.log(System.Logger.Level.WARNING, "Could not accept a client: {0}", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Chooses the worker a new game is created on: the one hosting the fewest games that is not being drained.
+     * @return the worker.
+     * @throws IOException if no worker can take new games.
+     */
+    WorkerProcess chooseForCreate() throws IOException {
+        WorkerProcess chosen = chooseLeastBusy();
+        // Count the game now, so a burst of new games is spread before the next count.
+        chosen.setNumGames(chosen.getNumGames() + 1);
+        return chosen;
+    }
+
+    /**
+     * Chooses the worker hosting the fewest games that is not being drained.
+     * @return the worker.
+     * @throws IOException if no worker can take new games.
+     */
+    private WorkerProcess chooseLeastBusy() throws IOException {
+        WorkerProcess chosen = null;
+        for (WorkerProcess worker : workers) {
+            if (isAvailable(worker) && (chosen == null || worker.getNumGames() < chosen.getNumGames())) {
+                chosen = worker;
+            }
+        }
+        if (chosen == null) {
+            throw new IOException("No worker is taking new games");
+        }
+        return chosen;
+    }
+
+    /**
+     * Chooses the worker whose Lobby the players waiting for a kind of table wait in, so they can be matched.
+     * @param kind: The kind of table, as board and number of Dragons.
+     * @return the worker.
+     * @throws IOException if no worker can take new games.
+     */
+    WorkerProcess chooseForQueue(String kind) throws IOException {
+        List<WorkerProcess> available = new ArrayList<>();
+        for (WorkerProcess worker : workers) {
+            if (isAvailable(worker)) {
+                available.add(worker);
+            }
+        }
+        if (available.isEmpty()) {
+            throw new IOException("No worker is taking new games");
+        }
+        return available.get(Math.floorMod(kind.hashCode(), available.size()));
+    }
+
+    /**
+     * A method to check whether a worker can take new games.
+     * @param worker: The worker.
+     * @return True if the worker is running and not being drained.
+     */
+    private static boolean isAvailable(WorkerProcess worker) {
+        return !worker.isDraining() && !worker.isStopped() && worker.getProcess() != null
+                && worker.getProcess().isAlive();
+    }
+
+    /**
+     * Remembers the worker hosting a game a client has created or joined.
+     * @param id: The number of the game.
+     * @param worker: The worker hosting it.
+     * @return the route of the game.
+     */
+    GameRoute created(long id, WorkerProcess worker) {
+        worker.noteId(id);
+        return routes.computeIfAbsent(id, key -> new GameRoute(key, worker));
+    }
+
+    /**
+     * A method to return the route of a game.
+     * @param id: The number of the game.
+     * @return the route, or null if no worker is known to host the game.
+     */
+    GameRoute getRoute(long id) {
+        return routes.get(id);
+    }
+
+    /**
+     * Hands a game over to another worker while it is played, with no lost turns.
+     * @param route: The route of the game.
+     * @param target: The worker to hand the game to.
+     * @return False if the game was already being handed over.
+     * @throws IOException if a worker cannot be reached. A game frozen on the source is adopted back there.
+     */
+    public boolean move(GameRoute route, WorkerProcess target) throws IOException {
+        WorkerProcess source = route.getOwner();
+        if (source == target) {
+            return true;
+        }
+        // Take the progress while the game goes on being played.
+        String[] exported;
+        try {
+            exported = source.request("EXPORT " + route.getId(), "EXPORTED");
+        } catch (IOException e) {
+            return forgetIfEnded(route, e);
+        }
+        List<ClientLink> links = route.hold();
+        if (links == null) {
+            return false;
+        }
+        WorkerProcess owner = source;
+        try {
+            // Every command already sent is queued in the game before it is frozen.
+            for (ClientLink link : links) {
+                link.barrier();
+            }
+            String[] frozen;
+            try {
+                frozen = source.request("FREEZE " + route.getId(), "FROZEN");
+            } catch (IOException e) {
+                return forgetIfEnded(route, e);
+            }
+            // Every reply to those commands has reached its client.
+            for (ClientLink link : links) {
+                link.barrier();
+            }
+
+            StringBuilder adopt = new StringBuilder("ADOPT");
+            for (int i = 1; i < exported.length; i++) {
+                adopt.append(' ').append(exported[i]);
+            }
+            for (int i = 2; i < frozen.length; i++) {
+                adopt.append(' ').append(frozen[i]);
+            }
+            try {
+                target.request(adopt.toString(), "ADOPTED");
+                owner = target;
+            } catch (IOException e) {
+                // Keep the game rather than lose it.
+                source.request(adopt.toString(), "ADOPTED");
+                throw e;
+            }
+            for (ClientLink link : links) {
+                link.reattach(owner, route.getId());
+            }
+            source.setNumGames(source.getNumGames() - 1);
+            target.setNumGames(target.getNumGames() + 1);
+            return true;
+        } finally {
+            route.release(owner);
+        }
+    }
+
+    /**
+     * Forgets a game that ended before it could be handed over, as every player left.
+     * @param route: The route of the game.
+     * @param e: The error the worker answered with.
+     * @return False, as the game was not handed over.
+     * @throws IOException if the game has not ended, but the worker could not be reached.
+     */
+    private boolean forgetIfEnded(GameRoute route, IOException e) throws IOException {
+        if (e.getMessage() == null || !e.getMessage().startsWith("No game")) {
+            throw e;
+        }
+        routes.remove(route.getId(), route);
+        return false;
+    }
+
+    /**
+     * Drains a worker: hands every game it hosts to the least busy of the others, moves the players waiting in its
+     * Lobby, and stops it.
+     * @param worker: The worker.
+     * @return the number of games handed over.
+     * @throws IOException if a worker cannot be reached.
+     */
+    public int drain(WorkerProcess worker) throws IOException {
+        worker.setDraining(true);
+        int numMoved = 0;
+        long[] hosted;
+        do {
+            // Players still waiting in the worker's Lobby queue again on another worker, unless matched first.
+            for (ClientLink link : getLinksOn(worker)) {
+                if (link.getQueued() != null && link.getRoute() == null) {
+                    String[] words = link.getQueued().split("\\s+");
+                    link.requeue(chooseForQueue(words[1] + "/" + words[2]));
+                }
+            }
+            // List again until empty, as games created just before the worker was marked still arrive on it.
+            hosted = worker.listSessions();
+            for (long id : hosted) {
+                GameRoute route = created(id, worker);
+                if (move(route, chooseLeastBusy())) {
+                    numMoved++;
+                }
+            }
+        } while (hosted.length > 0);
+        worker.stop();
+        return numMoved;
+    }
+
+    /**
+     * Hands games from the busiest workers to the least busy until no two differ by more than one game.
+     * @return the number of games handed over.
+     * @throws IOException if a worker cannot be reached.
+     */
+    public int rebalance() throws IOException {
+        reconcile();
+        int numMoved = 0;
+        while (true) {
+            WorkerProcess busiest = null, quietest = null;
+            for (WorkerProcess worker : workers) {
+                if (!isAvailable(worker)) {
+                    continue;
+                }
+                if (busiest == null || worker.getNumGames() > busiest.getNumGames()) {
+                    busiest = worker;
+                }
+                if (quietest == null || worker.getNumGames() < quietest.getNumGames()) {
+                    quietest = worker;
+                }
+            }
+            if (busiest == null || busiest.getNumGames() - quietest.getNumGames() <= 1) {
+                return numMoved;
+            }
+            GameRoute route = null;
+            for (GameRoute candidate : routes.values()) {
+                if (candidate.getOwner() == busiest && !candidate.isMoving()) {
+                    route = candidate;
+                    break;
+                }
+            }
+            if (route == null || !move(route, quietest)) {
+                return numMoved;
+            }
+            numMoved++;
+        }
+    }
+
+    /**
+     * Called when a client's connection to a worker closes without the client moving on. If the worker died, it is
+     * started again on its journal and the clients of its games take their seats again; otherwise the client is told.
+     * @param link: The client.
+     * @param worker: The worker.
+     */
+    void upstreamLost(ClientLink link, WorkerProcess worker) {
+        Process process = worker.getProcess();
+        if (process != null && !worker.isStopped() && hasExited(process)) {
+            threads.execute(() -> failover(worker));
+        }
+        else if (link.getRoute() != null || link.getQueued() != null) {
+            link.sendToClient("ERROR Lost the connection to the game");
+        }
+    }
+
+    /**
+     * Waits briefly for a process to exit, as its connections can close before it is seen to have exited.
+     * @param process: The process.
+     * @return True if the process has exited.
+     */
+    private static boolean hasExited(Process process) {
+        try {
+            return process.waitFor(EXIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return !process.isAlive();
+        }
+    }
+
+    /**
+     * Starts a worker that died again on its journal, and has the clients of its games take their seats again. The
+     * games are brought back from the journal with every seat free.
+     * @param worker: The worker.
+     */
+    private synchronized void failover(WorkerProcess worker) {
+        Process process = worker.getProcess();
+        if (process == null || process.isAlive() || worker.isStopped()) {
+            // Another client already started it again.
+            return;
+        }
+        List<GameRoute> held = new ArrayList<>();
+        Map<GameRoute, List<ClientLink>> linksOf = new ConcurrentHashMap<>();
+        for (GameRoute route : routes.values()) {
+            if (route.getOwner() == worker) {
+                List<ClientLink> links = route.hold();
+                if (links != null) {
+                    held.add(route);
+                    linksOf.put(route, links);
+                }
+            }
+        }
+        try {
+            worker.forgetControl();
+            worker.start();
+            Set<Long> recovered = new HashSet<>();
+            for (long id : worker.listSessions()) {
+                recovered.add(id);
+            }
+            for (GameRoute route : held) {
+                if (!recovered.contains(route.getId())) {
+                    // The game ended before it reached the journal.
+                    routes.remove(route.getId(), route);
+                    continue;
+                }
+                for (ClientLink link : linksOf.get(route)) {
+                    link.reattach(worker, route.getId());
+                }
+            }
+            // Players who were waiting in its Lobby queue again.
+            for (ClientLink link : getLinksOn(worker)) {
+                if (link.getQueued() != null && link.getRoute() == null) {
+                    link.requeue(worker);
+                }
+            }
+        } catch (IOException e) {
+            // The clients of its games are told, as they would be if the worker could not be started again at all.
+            LOGGER.log(System.Logger.Level.ERROR, "Could not start worker {0} again: {1}", worker.getIndex(), e);
+            for (List<ClientLink> links : linksOf.values()) {
+                for (ClientLink link : links) {
+                    link.sendToClient("ERROR Lost the connection to the game");
+                }
+            }
+        } finally {
+            for (GameRoute route : held) {
+                route.release(worker);
+            }
+        }
+    }
+
+    /**
+     * Counts the games of every worker and forgets the routes of games that have ended, starting any worker that died
+     * and has no clients to notice.
+     */
+    private void reconcileQuietly() {
+        try {
+            for (WorkerProcess worker : workers) {
+                Process process = worker.getProcess();
+                if (process != null && !process.isAlive() && !worker.isStopped()) {
+                    failover(worker);
+                }
+            }
+            reconcile();
+        } catch (IOException e) {
+            // A worker is being started again; count next time.
+        }
+    }
+
+    /**
+     * Counts the games of every running worker, remembering the games the router has not seen and forgetting those
+     * that have ended.
+     * @throws IOException if a worker cannot be reached.
+     */
+    private void reconcile() throws IOException {
+        for (WorkerProcess worker : workers) {
+            if (worker.isStopped()) {
+                continue;
+            }
+            long listed = System.nanoTime();
+            Set<Long> hosted = new HashSet<>();
+            for (long id : worker.listSessions()) {
+                hosted.add(id);
+                created(id, worker);
+            }
+            // Games that arrived while the list was taken may be missing from it.
+            for (GameRoute route : routes.values()) {
+                if (route.isSettledOn(worker, listed) && !hosted.contains(route.getId())) {
+                    routes.remove(route.getId(), route);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the clients connected to a worker, through a game or its Lobby.
+     * @param worker: The worker.
+     * @return the clients.
+     */
+    private List<ClientLink> getLinksOn(WorkerProcess worker) {
+        return links.stream().filter(link -> link.getWorker() == worker).toList();
+    }
+
+    /**
+     * Forgets a client that has quit or disconnected.
+     * @param link: The client.
+     */
+    void disconnected(ClientLink link) {
+        links.remove(link);
+    }
+
+    /**
+     * Runs a task on a thread of its own, such as passing a worker's lines back to a client.
+     * @param task: The task.
+     */
+    void execute(Runnable task) {
+        threads.execute(task);
+    }
+
+    /**
+     * A method to return the workers data attribute.
+     * @return the workers.
+     */
+    public List<WorkerProcess> getWorkers() {
+        return workers;
+    }
+
+    /**
+     * A method to return the games being played.
+     * @return a live view of the routes of the games.
+     */
+    public Collection<GameRoute> getRoutes() {
+        return routes.values();
+    }
+
+    /**
+     * A method to return the port the router is listening on.
+     * @return the port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting clients and stops every worker.
+     * @throws IOException if the socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        reconciler.shutdownNow();
+        for (WorkerProcess worker : workers) {
+            worker.stop();
+        }
+        threads.shutdownNow();
+    }
+}
@@ -0,0 +1,320 @@
+package com.fierydragon.router;
+
+import com.fierydragon.server.GameClient;
+import com.fierydragon.server.ServerMain;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A class representing one engine worker behind the SessionRouter: a GameServer run by ServerMain in a process of its
+ * own on this host, with its own journal, and the connection the router sends it admin commands on.
+ * A worker that dies is started again on the same journal, so the games it was hosting are brought back.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see SessionRouter
+ * @see ServerMain
+ */
+
+public class WorkerProcess {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The numbers given to the games of each worker, so workers never give two games the same number.
+     */
+    static final long ID_BLOCK = 1L << 40;
+    /**
+     * Finds the port in the line ServerMain prints once it is listening.
+     */
+    private static final Pattern LISTENING = Pattern.compile("listening on [^ ]*:(\\d+)");
+    /**
+     * The number of the worker.
+     */
+    private final int index;
+    /**
+     * The file the worker's games are recorded in.
+     */
+    private final Path journal;
+    /**
+     * The options given to every worker, such as the JVM heap.
+     */
+    private final List<String> jvmOptions;
+    /**
+     * The highest number of a game the worker is known to have given.
+     */
+    private final AtomicLong highestId;
+    /**
+     * The running process, or null before it is started.
+     */
+    private volatile Process process;
+    /**
+     * The port the worker is listening on.
+     */
+    private volatile int port;
+    /**
+     * The connection admin commands are sent on. Guarded by this worker.
+     */
+    private GameClient control;
+    /**
+     * The number of games the worker is hosting, as last counted.
+     */
+    private volatile int numGames;
+    /**
+     * A boolean denoting if the worker is being drained, so it is given no new games.
+     */
+    private volatile boolean draining;
+    /**
+     * A boolean denoting if the worker has been stopped on purpose, so it is not started again.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * WorkerProcess Constructor.
+     * @param index: The number of the worker.
+     * @param journal: The file the worker's games are recorded in.
+     * @param jvmOptions: The options given to the JVM of the worker.
+     */
+    public WorkerProcess(int index, Path journal, List<String> jvmOptions) {
+        this.index = index;
+        this.journal = journal;
+        this.jvmOptions = jvmOptions;
+        this.highestId = new AtomicLong((index + 1) * ID_BLOCK - 1);
+    }
+
+    /**
+     * Starts the worker, or starts it again after it died, and waits until it is listening. Its games are numbered
+     * after every number it is known to have given, so a game brought back never shares a number with a new one.
+     * @throws IOException if the process cannot be started or exits before it is listening.
+     */
+    public synchronized void start() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(classPath());
+        command.add(ServerMain.class.getName());
+        command.add("--port");
+        command.add("0");
+        command.add("--http-port");
+        command.add("0");
+        command.add("--journal");
+        command.add(journal.toString());
+        command.add("--admin");
+        command.add("true");
+        command.add("--first-id");
+        command.add(Long.toString(highestId.get() + 1));
+        Process started = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        // Read the port from the first line, then pass the worker's output on.
+        BufferedReader output = new BufferedReader(new InputStreamReader(started.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        int listening = -1;
+        while (listening < 0 && (line = output.readLine()) != null) {
+            LOGGER.log(System.Logger.Level.INFO, "[worker {0}] {1}", index, line);
+            Matcher matcher = LISTENING.matcher(line);
+            if (matcher.find()) {
+                listening = Integer.parseInt(matcher.group(1));
+            }
+        }
+        if (listening < 0) {
+            throw new IOException("Worker " + index + " exited before listening");
+        }
+        Thread echo = new Thread(() -> echo(output), "worker-" + index + "-output");
+        echo.setDaemon(true);
+        echo.start();
+
+        this.port = listening;
+        this.control = new GameClient("127.0.0.1", listening);
+        this.process = started;
+    }
+
+    /**
+     * Makes the class path of a worker from the router's own, which holds the game's classes on the module path
+     * rather than the class path when the router was started as a module.
+     * @return the class path.
+     */
+    private static String classPath() {
+        List<String> entries = new ArrayList<>();
+        for (String property : new String[] {"jdk.module.path", "java.class.path"}) {
+            String value = System.getProperty(property);
+            if (value != null && !value.isEmpty()) {
+                entries.add(value);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * Passes on the output of the worker until it exits.
+     * @param output: The output of the worker.
+     */
+    private void echo(BufferedReader output) {
+        try {
+            String line;
+            while ((line = output.readLine()) != null) {
+                LOGGER.log(System.Logger.Level.INFO, "[worker {0}] {1}", index, line);
+            }
+        } catch (IOException e) {
+            // The worker exited.
+        }
+    }
+
+    /**
+     * Sends an admin command to the worker and waits for its reply.
+     * @param command: The command line.
+     * @param replyWord: The first word of the reply.
+     * @return the words of the reply.
+     * @throws IOException if the worker cannot be reached or answers with ERROR.
+     */
+    public synchronized String[] request(String command, String replyWord) throws IOException {
+        if (control == null) {
+            throw new IOException("Worker " + index + " is not running");
+        }
+        return control.request(command, replyWord);
+    }
+
+    /**
+     * Lists the games the worker is hosting, and counts them.
+     * @return the number of every game.
+     * @throws IOException if the worker cannot be reached.
+     */
+    public long[] listSessions() throws IOException {
+        String[] reply = request("SESSIONS", "SESSIONS");
+        long[] ids = new long[reply.length - 1];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Long.parseLong(reply[i + 1]);
+            noteId(ids[i]);
+        }
+        numGames = ids.length;
+        return ids;
+    }
+
+    /**
+     * Remembers that the worker has given a game a number, so it is never given again.
+     * @param id: The number of the game.
+     */
+    void noteId(long id) {
+        // Only numbers from the worker's own block are its to give.
+        if (id / ID_BLOCK == index + 1) {
+            highestId.accumulateAndGet(id, Math::max);
+        }
+    }
+
+    /**
+     * Stops the worker on purpose, so it is not started again.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (control != null) {
+            try {
+                control.close();
+            } catch (IOException e) {
+                // The worker is already gone.
+            }
+        }
+        if (process != null) {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Kills the worker without warning, as a crash would, to test failover.
+     */
+    public void kill() {
+        Process running = process;
+        if (running != null) {
+            running.destroyForcibly();
+        }
+    }
+
+    /**
+     * Closes the admin connection of a worker that has died, before it is started again.
+     */
+    synchronized void forgetControl() {
+        if (control != null) {
+            try {
+                control.close();
+            } catch (IOException e) {
+                // The worker is already gone.
+            }
+            control = null;
+        }
+    }
+
+    /**
+     * A method to return the index data attribute.
+     * @return the number of the worker.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * A method to return the process data attribute.
+     * @return the running process, or null before it is started.
+     */
+    public Process getProcess() {
+        return process;
+    }
+
+    /**
+     * A method to return the port data attribute.
+     * @return the port the worker is listening on.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * A method to return the numGames data attribute.
+     * @return the number of games the worker is hosting, as last counted.
+     */
+    public int getNumGames() {
+        return numGames;
+    }
+
+    /**
+     * A method to set the numGames data attribute.
+     * @param numGames: The number of games the worker is hosting.
+     */
+    void setNumGames(int numGames) {
+        this.numGames = numGames;
+    }
+
+    /**
+     * A method to check whether the worker is being drained.
+     * @return True if the worker is given no new games.
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * A method to set whether the worker is being drained.
+     * @param draining: True to give the worker no new games.
+     */
+    void setDraining(boolean draining) {
+        this.draining = draining;
+    }
+
+    /**
+     * A method to check whether the worker has been stopped on purpose.
+     * @return True if the worker is not to be started again.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+}
@@ -0,0 +1,264 @@
+package com.fierydragon.server;
+
+import com.fierydragon.wire.FrameCodec;
+import com.fierydragon.wire.FrameReader;
+import com.fierydragon.wire.TableSnapshot;
+import com.fierydragon.wire.TurnDelta;
+import com.fierydragon.wire.Varint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A class representing a client of the GameServer's BinaryEndpoint, for bots and load tests that play many turns a
+ * second. Commands are written as frames, and the frames read back are decoded in place into a TurnDelta, a
+ * TableSnapshot or a line, which are used again for the next frame of their type, so following a game allocates
+ * nothing but the lines of TEXT frames.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BinaryConnection
+ * @see GameClient
+ */
+
+public class BinaryClient implements Closeable {
+    /**
+     * The bytes in each buffer of the client, as in the server's BufferPool.
+     */
+    private static final int BUFFER_BYTES = 4096;
+    /**
+     * The channel of the connection.
+     */
+    private final SocketChannel channel;
+    /**
+     * The reader cutting the frames from the server out of the bytes read.
+     */
+    private final FrameReader reader;
+    /**
+     * The buffer the frames to the server are written in.
+     */
+    private final ByteBuffer out;
+    /**
+     * The delta of the last DELTA frame read.
+     */
+    private final TurnDelta delta;
+    /**
+     * The snapshot of the last SNAPSHOT frame read.
+     */
+    private final TableSnapshot snapshot;
+    /**
+     * The line of the last TEXT frame read, or null.
+     */
+    private String text;
+    /**
+     * The nanoseconds the last HEARTBEAT frame read took to come back.
+     */
+    private long roundTripNanos;
+
+    /**
+     * BinaryClient Constructor. Connects to the server.
+     * @param host: The host name of the server.
+     * @param port: The binary port of the server.
+     * @throws IOException if the server cannot be reached.
+     */
+    public BinaryClient(String host, int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        this.reader = new FrameReader(ByteBuffer.allocateDirect(BUFFER_BYTES));
+        this.out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        this.delta = new TurnDelta();
+        this.snapshot = new TableSnapshot();
+    }
+
+    /**
+     * Creates a game on the server.
+     * @param boardName: The name of the board definition file.
+     * @param numPlayers: The number of Dragons.
+     * @param seed: The seed to deal the game from.
+     * @return the number of the game.
+     * @throws IOException if the server cannot be reached or refuses.
+     */
+    public long create(String boardName, int numPlayers, long seed) throws IOException {
+        String[] reply = request("CREATE " + boardName + " " + numPlayers + " " + seed, "CREATED");
+        return Long.parseLong(reply[1]);
+    }
+
+    /**
+     * Joins a game on the server.
+     * @param id: The number of the game.
+     * @return the reply words: JOINED, the game, the seat, the number of Dragons and of Chit Cards, the board and seed.
+     * @throws IOException if the server cannot be reached or refuses.
+     */
+    public String[] join(long id) throws IOException {
+        out.clear();
+        FrameCodec.putJoin(out, id);
+        write();
+        return awaitText("JOINED");
+    }
+
+    /**
+     * Asks to flip a Chit Card. The result arrives as a DELTA frame, or a TEXT frame with ERROR if it was refused.
+     * @param chit: The number of the Chit Card.
+     * @throws IOException if the server cannot be reached.
+     */
+    public void flip(int chit) throws IOException {
+        out.clear();
+        FrameCodec.putFlip(out, chit);
+        write();
+    }
+
+    /**
+     * Asks for the whole game, which arrives as a SNAPSHOT frame.
+     * @throws IOException if the server cannot be reached.
+     */
+    public void requestSnapshot() throws IOException {
+        out.clear();
+        int start = FrameCodec.begin(out, FrameCodec.SNAPSHOT);
+        FrameCodec.end(out, start);
+        write();
+    }
+
+    /**
+     * Sends a heartbeat, which comes back as a HEARTBEAT frame giving the round trip.
+     * @throws IOException if the server cannot be reached.
+     */
+    public void heartbeat() throws IOException {
+        out.clear();
+        FrameCodec.putHeartbeat(out, System.nanoTime());
+        write();
+    }
+
+    /**
+     * Sends a command of the line protocol as a TEXT frame and waits for its reply, skipping any other frame.
+     * @param command: The command line.
+     * @param replyWord: The first word of the reply.
+     * @return the words of the reply.
+     * @throws IOException if the server cannot be reached or answers with ERROR.
+     */
+    public String[] request(String command, String replyWord) throws IOException {
+        send(command);
+        return awaitText(replyWord);
+    }
+
+    /**
+     * Sends a command of the line protocol as a TEXT frame.
+     * @param command: The command line.
+     * @throws IOException if the server cannot be reached.
+     */
+    public void send(String command) throws IOException {
+        byte[] line = command.getBytes(StandardCharsets.UTF_8);
+        out.clear();
+        FrameCodec.putText(out, line, 0, line.length);
+        write();
+    }
+
+    /**
+     * Reads frames until a TEXT frame holding a reply arrives.
+     * @param replyWord: The first word of the reply.
+     * @return the words of the reply.
+     * @throws IOException if the server closes the connection or answers with ERROR.
+     */
+    private String[] awaitText(String replyWord) throws IOException {
+        while (true) {
+            int type = next();
+            if (type == FrameReader.NONE) {
+                throw new IOException("The server closed the connection");
+            }
+            if (type == FrameCodec.TEXT) {
+                if (text.equals(replyWord) || text.startsWith(replyWord + " ")) {
+                    return text.split(" ");
+                }
+                if (text.startsWith("ERROR")) {
+                    throw new IOException(text.substring(Math.min(text.length(), 6)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the next frame from the server, waiting for one if none has arrived, and decodes it into the delta, the
+     * snapshot, the text or the round trip, according to its type.
+     * @return the type of the frame, or FrameReader.NONE if the server closed the connection.
+     * @throws IOException if the server cannot be reached or sends a frame that cannot be read.
+     */
+    public int next() throws IOException {
+        int type;
+        while ((type = reader.next()) == FrameReader.NONE) {
+            if (!reader.fill(channel)) {
+                return FrameReader.NONE;
+            }
+        }
+        ByteBuffer body = reader.getBuffer();
+        switch (type) {
+            case FrameCodec.DELTA -> delta.decode(body);
+            case FrameCodec.SNAPSHOT -> snapshot.decode(body);
+            case FrameCodec.HEARTBEAT -> roundTripNanos = System.nanoTime() - Varint.getLong(body);
+            case FrameCodec.TEXT -> text = StandardCharsets.UTF_8.decode(body).toString();
+            default -> {
+                // A frame of a type this client does not know is skipped.
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Writes the frame in the output buffer to the server.
+     * @throws IOException if the server cannot be reached.
+     */
+    private void write() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    /**
+     * A method to return the delta data attribute.
+     * @return the delta of the last DELTA frame read.
+     */
+    public TurnDelta getDelta() {
+        return delta;
+    }
+
+    /**
+     * A method to return the snapshot data attribute.
+     * @return the snapshot of the last SNAPSHOT frame read.
+     */
+    public TableSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * A method to return the text data attribute.
+     * @return the line of the last TEXT frame read, or null.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * A method to return the roundTripNanos data attribute.
+     * @return the nanoseconds the last HEARTBEAT frame read took to come back.
+     */
+    public long getRoundTripNanos() {
+        return roundTripNanos;
+    }
+
+    /**
+     * Leaves the game and closes the connection.
+     * @throws IOException if the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            send("QUIT");
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.fierydragon.server;
+
+import com.fierydragon.wire.BufferPool;
+import com.fierydragon.wire.FrameCodec;
+import com.fierydragon.wire.FrameReader;
+import com.fierydragon.wire.Varint;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A class representing one client speaking the binary protocol of FrameCodec, served by its own thread like any
+ * ClientConnection, whose seats, Lobby tickets and spectators it shares.
+ * The frames are read straight into a direct buffer from the server's BufferPool and decoded where they landed. FLIP,
+ * JOIN, SNAPSHOT and HEARTBEAT frames are carried out without going through text at all; any other command can be sent
+ * as a TEXT frame holding its line. The seats of a game are sent the DELTA frame of each flip in place of the FLIPPED
+ * line, encoded once for all of them, and every other reply and event is sent as a TEXT frame holding its line. Like
+ * lines, frames are put in the connection's outbox and written by its own thread.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BinaryEndpoint
+ * @see FrameCodec
+ */
+
+public class BinaryConnection extends ClientConnection {
+    /**
+     * The channel of the connection.
+     */
+    private final SocketChannel channel;
+    /**
+     * The pool the buffers of the connection are taken from.
+     */
+    private final BufferPool bufferPool;
+
+    /**
+     * BinaryConnection Constructor.
+     * @param server: The server the client is connected to.
+     * @param channel: The channel of the connection, in blocking mode.
+     */
+    BinaryConnection(GameServer server, SocketChannel channel) {
+        super(server, channel.socket());
+        this.channel = channel;
+        this.bufferPool = server.getBufferPool();
+    }
+
+    /**
+     * Reads and carries out frames until the client quits or disconnects.
+     */
+    @Override
+    public void run() {
+        ByteBuffer in = bufferPool.acquire();
+        startWriting();
+        try {
+            FrameReader reader = new FrameReader(in);
+            while (reader.fill(channel)) {
+                int type;
+                while ((type = reader.next()) != FrameReader.NONE) {
+                    if (!handleFrame((byte) type, reader.getBuffer())) {
+                        return;
+                    }
+                }
+            }
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            // The client disconnected, or sent a frame that cannot be read and is dropped.
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The channel is already closed.
+            }
+            disconnected();
+            stopWriting();
+            bufferPool.release(in);
+        }
+    }
+
+    /**
+     * Carries out one frame.
+     * @param type: The type of the frame.
+     * @param body: The buffer holding the frame, positioned at its body and limited to its end.
+     * @return False if the client quit.
+     */
+    private boolean handleFrame(byte type, ByteBuffer body) {
+        switch (type) {
+            case FrameCodec.FLIP -> flip(Varint.getInt(body));
+            case FrameCodec.JOIN -> {
+                return handle(new String[] {"JOIN", Long.toString(Varint.getLong(body))});
+            }
+            case FrameCodec.SNAPSHOT -> {
+                GameSession current = getSession();
+                if (current == null) {
+                    send("ERROR Join a game first");
+                }
+                else {
+                    current.sendSnapshot(this);
+                }
+            }
+            case FrameCodec.HEARTBEAT -> {
+                ByteBuffer frame = ByteBuffer.allocate(Varint.MAX_LONG_BYTES + 2);
+                FrameCodec.putHeartbeat(frame, Varint.getLong(body));
+                enqueue(frame.flip());
+            }
+            case FrameCodec.TEXT -> {
+                String line = StandardCharsets.UTF_8.decode(body).toString().trim();
+                return line.isEmpty() || handle(line.split("\\s+"));
+            }
+            default -> send("ERROR Unknown frame " + type);
+        }
+        return true;
+    }
+
+    /**
+     * Sends a line to the client as a TEXT frame, through its outbox.
+     * @param line: The line to send.
+     */
+    @Override
+    public void send(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        enqueue(encodeText(bytes, bytes.length));
+    }
+
+    /**
+     * Sends a line that is already encoded as a TEXT frame, such as the line of a spectator, at once on the calling
+     * spectator's thread.
+     * @param line: The encoded line, ending with a new line.
+     * @return False if the client has gone away.
+     */
+    @Override
+    boolean sendEncoded(byte[] line) {
+        return writeNow(encodeText(line, line.length - 1));
+    }
+
+    /**
+     * Sends a frame that is already encoded, through the outbox. The frame is copied, as it is shared with other
+     * clients and given back to the pool once sent to them all; a DELTA frame is a few dozen bytes.
+     * @param frame: The frame, from its start to its limit.
+     * @return True, as the client speaks the binary protocol.
+     */
+    @Override
+    boolean sendFrame(ByteBuffer frame) {
+        ByteBuffer copy = ByteBuffer.allocate(frame.limit());
+        copy.put(frame.duplicate().rewind()).flip();
+        enqueue(copy);
+        return true;
+    }
+
+    /**
+     * Encodes a line as a TEXT frame.
+     * @param line: The line, in UTF-8.
+     * @param length: The number of bytes of the line to send.
+     * @return the frame, from its start to its limit.
+     */
+    private static ByteBuffer encodeText(byte[] line, int length) {
+        ByteBuffer frame = ByteBuffer.allocate(length + Varint.MAX_INT_BYTES + 1);
+        FrameCodec.putText(frame, line, 0, length);
+        return frame.flip();
+    }
+
+    /**
+     * Writes a frame to the channel. Called under the write lock.
+     * @param frame: The frame, from its position to its limit.
+     * @throws IOException if the client has gone away.
+     */
+    @Override
+    void write(ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Does nothing, as frames are written straight to the channel.
+     */
+    @Override
+    void flush() {
+    }
+
+    /**
+     * Closes the channel, so the reading thread sees the client leave.
+     */
+    @Override
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // The channel is already closed.
+        }
+    }
+}
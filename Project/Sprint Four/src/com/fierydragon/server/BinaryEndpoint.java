@@ -0,0 +1,102 @@
+package com.fierydragon.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A class representing the port of a GameServer that speaks the binary protocol of FrameCodec rather than lines, for
+ * clients such as bots and load tests that send and receive many turns a second.
+ * Each client is a BinaryConnection served by a thread of the server, like the clients of the line protocol, and plays
+ * the same games: a game can have seats speaking both protocols at once.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BinaryConnection
+ * @see BinaryClient
+ */
+
+public class BinaryEndpoint implements Closeable {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The port the endpoint listens on when none is given.
+     */
+    public static final int DEFAULT_PORT = 7080;
+    /**
+     * The server whose games are played.
+     */
+    private final GameServer server;
+    /**
+     * The channel accepting new connections.
+     */
+    private final ServerSocketChannel serverChannel;
+    /**
+     * A boolean denoting if the endpoint is accepting connections.
+     */
+    private volatile boolean running;
+
+    /**
+     * BinaryEndpoint Constructor.
+     * @param server: The server whose games are played.
+     * @param port: The port to listen on, or 0 for any free port.
+     * @param address: The address to listen on, or null for every address.
+     * @throws IOException if the port cannot be opened.
+     */
+    public BinaryEndpoint(GameServer server, int port, InetAddress address) throws IOException {
+        this.server = server;
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(address, port), 1024);
+    }
+
+    /**
+     * Starts accepting connections on a thread of its own.
+     */
+    public void start() {
+        running = true;
+        Thread acceptor = new Thread(this::serve, "binary-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Accepts connections until the endpoint is closed, serving each on a thread of the server.
+     */
+    private void serve() {
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.socket().setTcpNoDelay(true);
+                server.execute(new BinaryConnection(server, channel));
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.log(System.Logger.Level.WARNING, "Could not accept a binary client: {0}", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to return the port the endpoint listens on.
+     * @return the port.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections. Connections already accepted are left to finish.
+     * @throws IOException if the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverChannel.close();
+    }
+}
@@ -0,0 +1,508 @@
+package com.fierydragon.server;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A class representing one client connected to the GameServer, served by its own thread.
+ * The client sends one command per line:
+ * <pre>
+ * CREATE board players [seed]   creates a game, answered with CREATED id
+ * JOIN id                       takes the next seat, answered with JOINED id seat players chits board seed
+ * FLIP chit                     flips a Chit Card on your turn, answered to every seat with
+ *                               FLIPPED seat chit kind value outcome current winner
+ * STATE                         answered with STATE current winner turns positions... | flipped chits...
+ * WATCH id                      watches a game without a seat, starting with a SNAPSHOT and then a DELTA per flip
+ * QUEUE board players [rating]  waits in the Lobby, answered with QUEUED and then JOINED once a table is formed
+ * UNQUEUE                       leaves the Lobby, answered with UNQUEUED
+ * PING                          answered with PONG once every command before it has been queued
+ * QUIT                          leaves the game and closes the connection
+ * </pre>
+ * A server run behind a SessionRouter also takes the admin commands that hand games over between servers:
+ * <pre>
+ * SESSIONS                      answered with SESSIONS and the number of every game
+ * EXPORT id                     answered with EXPORTED id board players seed joined progress
+ * FREEZE id                     answered with FROZEN id and the Chit Cards flipped since the export
+ * ADOPT id board players seed joined progress [chit]...   answered with ADOPTED id
+ * REJOIN id seat                takes a given free seat, answered with JOINED as for JOIN
+ * </pre>
+ * A command that cannot be carried out is answered with ERROR and a reason. Each seat is also told SEATED seat and
+ * LEFT seat as players come and go.
+ * A spectator is sent lines of the form below, where positions are path entries as in GameState. A spectator that
+ * falls behind is sent a new SNAPSHOT in place of the deltas it missed.
+ * <pre>
+ * SNAPSHOT version turns current winner numPlayers (position stunned)... F (chit kind value)...
+ * DELTA version turns current winner chit kind value outcome [M seat from to]... [S seat stunned]...
+ * </pre>
+ * A client connected to the BinaryEndpoint is a BinaryConnection, which takes the same commands in the frames of the
+ * binary protocol instead of lines.
+ * Games never write to the socket themselves: what they send is put in a bounded outbox, written out by a thread of the
+ * connection's own, so a client that stops reading only holds up itself. A client that lets its outbox fill is
+ * disconnected.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameServer
+ * @see GameSession
+ */
+
+public class ClientConnection implements Runnable, Recipient {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The most lines or frames waiting to be written to a client before it is disconnected for not reading them.
+     */
+    public static final int OUTBOX_CAPACITY = 256;
+    /**
+     * The bytes that tell the writing thread to stop.
+     */
+    private static final ByteBuffer STOP = ByteBuffer.allocate(0);
+    /**
+     * The server the client is connected to.
+     */
+    private final GameServer server;
+    /**
+     * The socket of the connection.
+     */
+    private final Socket socket;
+    /**
+     * The lines or frames waiting to be written, each already encoded.
+     */
+    private final BlockingQueue<ByteBuffer> outbox;
+    /**
+     * The lock held while bytes are written, by the writing thread or by a spectator's thread.
+     */
+    private final Object writeLock;
+    /**
+     * The stream of bytes to the client, written under the write lock.
+     */
+    private OutputStream out;
+    /**
+     * The game the client is watching without a seat, or null.
+     */
+    private volatile GameSession watching;
+    /**
+     * The game the client is seated in, or null. Only changed by that game's single writer.
+     */
+    private volatile GameSession session;
+    /**
+     * The seat of the client in its game.
+     */
+    private volatile int seat;
+    /**
+     * The ticket of the client while it waits in the Lobby, or null.
+     */
+    private volatile Lobby.Ticket ticket;
+    /**
+     * A boolean denoting if the client has disconnected, so a seat given to it by the Lobby afterwards is freed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * ClientConnection Constructor.
+     * @param server: The server the client is connected to.
+     * @param socket: The socket of the connection.
+     */
+    ClientConnection(GameServer server, Socket socket) {
+        this.server = server;
+        this.socket = socket;
+        this.outbox = new LinkedBlockingQueue<>(OUTBOX_CAPACITY);
+        this.writeLock = new Object();
+    }
+
+    /**
+     * Reads and carries out commands until the client quits or disconnects.
+     */
+    @Override
+    public void run() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out = new BufferedOutputStream(socket.getOutputStream());
+            startWriting();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!handle(line.trim().split("\\s+"))) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // The client disconnected.
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // The socket is already closed.
+            }
+            disconnected();
+            stopWriting();
+        }
+    }
+
+    /**
+     * Starts the thread writing out the outbox.
+     */
+    void startWriting() {
+        server.execute(this::writeOut);
+    }
+
+    /**
+     * Tells the writing thread to stop once it has written what is queued, or straight away if the outbox is full.
+     */
+    void stopWriting() {
+        if (!outbox.offer(STOP)) {
+            outbox.clear();
+            outbox.offer(STOP);
+        }
+    }
+
+    /**
+     * Writes the outbox to the client until stopped or the client is lost, sending whatever is queued together.
+     */
+    private void writeOut() {
+        try {
+            while (true) {
+                ByteBuffer bytes = outbox.take();
+                synchronized (writeLock) {
+                    while (bytes != null && bytes != STOP) {
+                        write(bytes);
+                        bytes = outbox.poll();
+                    }
+                    // Flush once the outbox is empty, so a burst of events costs few packets.
+                    flush();
+                }
+                if (bytes == STOP) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // The client disconnected, and its reading thread will see it leave.
+            close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues encoded bytes for the writing thread, without waiting. A client whose outbox is full has stopped reading,
+     * and is disconnected rather than holding up the game writing to it.
+     * @param bytes: The encoded line or frame, from its position to its limit, not to be changed afterwards.
+     * @return False if the client has gone away or was disconnected.
+     */
+    boolean enqueue(ByteBuffer bytes) {
+        if (closed) {
+            return false;
+        }
+        if (!outbox.offer(bytes)) {
+            LOGGER.log(System.Logger.Level.WARNING, "Disconnected a client that stopped reading: {0}",
+                    socket.getRemoteSocketAddress());
+            closed = true;
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes encoded bytes to the client. Called under the write lock.
+     * @param bytes: The bytes, from their position to their limit.
+     * @throws IOException if the client has gone away.
+     */
+    void write(ByteBuffer bytes) throws IOException {
+        out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+    }
+
+    /**
+     * Sends the bytes written so far to the client. Called under the write lock.
+     * @throws IOException if the client has gone away.
+     */
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Closes the connection, so its reading thread sees the client leave.
+     */
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // The socket is already closed.
+        }
+    }
+
+    /**
+     * Frees whatever the client held once it has disconnected: its place in the Lobby, its seat and its spectator.
+     */
+    void disconnected() {
+        closed = true;
+        Lobby.Ticket waiting = ticket;
+        if (waiting != null) {
+            server.getLobby().cancel(waiting);
+        }
+        GameSession current = session;
+        if (current != null) {
+            current.leave(this, seat);
+        }
+        GameSession watched = watching;
+        if (watched != null) {
+            watched.unspectate(this);
+        }
+    }
+
+    /**
+     * Carries out one command.
+     * @param words: The words of the command line.
+     * @return False if the client quit.
+     */
+    boolean handle(String[] words) {
+        try {
+            switch (words[0].toUpperCase()) {
+                case "CREATE" -> {
+                    Long seed = (words.length > 3) ? Long.valueOf(words[3]) : null;
+                    GameSession created = server.createSession(words[1], Integer.parseInt(words[2]), seed);
+                    send("CREATED " + created.getId());
+                }
+                case "JOIN" -> {
+                    GameSession joining = server.getSession(Long.parseLong(words[1]));
+                    if (session != null || watching != null || ticket != null) {
+                        send("ERROR Already in a game");
+                    }
+                    else if (joining == null) {
+                        send("ERROR No game " + words[1]);
+                    }
+                    else {
+                        joining.join(this);
+                    }
+                }
+                case "FLIP" -> {
+                    // Only a number can be the number of a Chit Card.
+                    if (!words[1].matches("\\d{1,9}")) {
+                        send("ERROR Chit Card " + words[1] + " cannot be flipped");
+                    }
+                    else {
+                        flip(Integer.parseInt(words[1]));
+                    }
+                }
+                case "STATE" -> {
+                    if (session == null) {
+                        send("ERROR Join a game first");
+                    }
+                    else {
+                        session.sendState(this);
+                    }
+                }
+                case "WATCH" -> {
+                    GameSession watched = server.getSession(Long.parseLong(words[1]));
+                    if (session != null || watching != null || ticket != null) {
+                        send("ERROR Already in a game");
+                    }
+                    else if (watched == null) {
+                        send("ERROR No game " + words[1]);
+                    }
+                    else {
+                        watching = watched;
+                        watched.spectate(this);
+                    }
+                }
+                case "QUEUE" -> {
+                    int rating = (words.length > 3) ? Integer.parseInt(words[3]) : Lobby.DEFAULT_RATING;
+                    if (session != null || watching != null || ticket != null) {
+                        send("ERROR Already in a game");
+                    }
+                    else {
+                        // Answer before queueing, as the table may be formed at once.
+                        server.getLobby().check(words[1], Integer.parseInt(words[2]), rating);
+                        send("QUEUED " + words[1] + " " + words[2] + " " + rating);
+                        server.getLobby().enqueue(this, words[1], Integer.parseInt(words[2]), rating);
+                    }
+                }
+                case "UNQUEUE" -> {
+                    Lobby.Ticket waiting = ticket;
+                    if (waiting == null || !server.getLobby().cancel(waiting)) {
+                        send("ERROR Not waiting in the Lobby");
+                    }
+                    else {
+                        ticket = null;
+                        send("UNQUEUED");
+                    }
+                }
+                case "PING" -> send("PONG");
+                case "SESSIONS", "EXPORT", "FREEZE", "ADOPT", "REJOIN" -> handleAdmin(words);
+                case "QUIT" -> {
+                    return false;
+                }
+                default -> send("ERROR Unknown command " + words[0]);
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            send("ERROR Missing arguments for " + words[0]);
+        } catch (IllegalArgumentException e) {
+            send("ERROR " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Flips a Chit Card in the client's game, for its seat.
+     * @param chit: The number of the Chit Card.
+     */
+    void flip(int chit) {
+        GameSession current = session;
+        if (current == null) {
+            send("ERROR Join a game first");
+        }
+        else {
+            current.flip(this, seat, chit);
+        }
+    }
+
+    /**
+     * Carries out one of the admin commands that hand games over between servers, if the server allows them.
+     * @param words: The words of the command line.
+     */
+    private void handleAdmin(String[] words) {
+        if (!server.isAdminEnabled()) {
+            send("ERROR Unknown command " + words[0]);
+            return;
+        }
+        switch (words[0].toUpperCase()) {
+            case "SESSIONS" -> {
+                StringBuilder line = new StringBuilder("SESSIONS");
+                for (GameSession hosted : server.getSessions()) {
+                    line.append(' ').append(hosted.getId());
+                }
+                send(line.toString());
+            }
+            case "EXPORT", "FREEZE" -> {
+                GameSession handed = server.getSession(Long.parseLong(words[1]));
+                if (handed == null) {
+                    send("ERROR No game " + words[1]);
+                }
+                else if (words[0].equalsIgnoreCase("EXPORT")) {
+                    handed.export(this);
+                }
+                else {
+                    handed.freeze(this);
+                }
+            }
+            case "ADOPT" -> {
+                int[] tail = new int[words.length - 7];
+                for (int i = 0; i < tail.length; i++) {
+                    tail[i] = Integer.parseInt(words[7 + i]);
+                }
+                GameSession adopted = server.adopt(Long.parseLong(words[1]), words[2], Integer.parseInt(words[3]),
+                        Long.parseLong(words[4]), Integer.parseInt(words[5]), Base64.getDecoder().decode(words[6]),
+                        tail);
+                send("ADOPTED " + adopted.getId());
+            }
+            default -> {
+                GameSession joining = server.getSession(Long.parseLong(words[1]));
+                if (session != null || watching != null || ticket != null) {
+                    send("ERROR Already in a game");
+                }
+                else if (joining == null) {
+                    send("ERROR No game " + words[1]);
+                }
+                else {
+                    joining.rejoin(this, Integer.parseInt(words[2]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends a line to the client, through its outbox. A client that has gone away is ignored, as its thread will see
+     * it leave.
+     * @param line: The line to send.
+     */
+    @Override
+    public void send(String line) {
+        enqueue(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Sends a line that is already encoded, shared with other clients, without copying it. Written at once by the
+     * calling thread, which is a spectator's own thread, so a spectator that stops reading only holds up that thread
+     * and falls behind rather than being disconnected.
+     * @param line: The encoded line, ending with a new line.
+     * @return False if the client has gone away.
+     */
+    boolean sendEncoded(byte[] line) {
+        return writeNow(ByteBuffer.wrap(line));
+    }
+
+    /**
+     * Writes encoded bytes to the client at once, on the calling thread, between whatever the writing thread writes.
+     * @param bytes: The bytes, from their position to their limit.
+     * @return False if the client has gone away.
+     */
+    boolean writeNow(ByteBuffer bytes) {
+        if (closed) {
+            return false;
+        }
+        synchronized (writeLock) {
+            try {
+                write(bytes);
+                flush();
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Sends a frame of the binary protocol that is already encoded, shared with other clients. A client speaking the
+     * line protocol cannot be sent frames, and is sent the line instead.
+     * @param frame: The frame, from its start to its limit.
+     * @return False if the client speaks the line protocol.
+     */
+    boolean sendFrame(ByteBuffer frame) {
+        return false;
+    }
+
+    /**
+     * A method to set the game and seat of the client.
+     * @param session: The game the client is seated in.
+     * @param seat: The seat of the client.
+     */
+    void setSession(GameSession session, int seat) {
+        this.seat = seat;
+        this.session = session;
+        this.ticket = null;
+    }
+
+    /**
+     * A method to set the ticket of the client while it waits in the Lobby.
+     * @param ticket: The ticket.
+     */
+    void setTicket(Lobby.Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    /**
+     * A method to return the session data attribute.
+     * @return the game the client is seated in, or null.
+     */
+    GameSession getSession() {
+        return session;
+    }
+
+    /**
+     * A method to check whether the client has disconnected.
+     * @return True once the connection is closed.
+     */
+    boolean isClosed() {
+        return closed;
+    }
+}
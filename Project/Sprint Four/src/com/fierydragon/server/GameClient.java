@@ -0,0 +1,170 @@
+package com.fierydragon.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+/**
+ * A class representing a client of the GameServer, for the JavaFX game, bots and tests to play on a server.
+ * Commands are written as lines and replies are read back; lines that are not the reply being waited for, such as
+ * another seat's FLIPPED, are kept in the order they arrived and returned by readLine.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see ClientConnection
+ */
+
+public class GameClient implements Closeable {
+    /**
+     * The socket of the connection.
+     */
+    private final Socket socket;
+    /**
+     * The reader of lines from the server.
+     */
+    private final BufferedReader reader;
+    /**
+     * The writer of lines to the server.
+     */
+    private final Writer writer;
+    /**
+     * The lines read while waiting for a reply, not yet returned by readLine.
+     */
+    private final ArrayDeque<String> pending;
+
+    /**
+     * GameClient Constructor. Connects to the server.
+     * @param host: The host name of the server.
+     * @param port: The port of the server.
+     * @throws IOException if the server cannot be reached.
+     */
+    public GameClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        this.pending = new ArrayDeque<>();
+    }
+
+    /**
+     * Creates a game on the server.
+     * @param boardName: The name of the board definition file.
+     * @param numPlayers: The number of Dragons.
+     * @param seed: The seed to deal the game from.
+     * @return the number of the game.
+     * @throws IOException if the server cannot be reached or refuses.
+     */
+    public long create(String boardName, int numPlayers, long seed) throws IOException {
+        String[] reply = request("CREATE " + boardName + " " + numPlayers + " " + seed, "CREATED");
+        return Long.parseLong(reply[1]);
+    }
+
+    /**
+     * Joins a game on the server.
+     * @param id: The number of the game.
+     * @return the reply words: JOINED, the game, the seat, the number of Dragons and of Chit Cards, the board and seed.
+     * @throws IOException if the server cannot be reached or refuses.
+     */
+    public String[] join(long id) throws IOException {
+        return request("JOIN " + id, "JOINED");
+    }
+
+    /**
+     * Waits in the Lobby of the server until a table is formed, and takes the seat it is given.
+     * @param boardName: The name of the board definition file.
+     * @param numPlayers: The number of Dragons.
+     * @param rating: The rating of the player.
+     * @return the reply words: JOINED, the game, the seat, the number of Dragons and of Chit Cards, the board and seed.
+     * @throws IOException if the server cannot be reached or refuses.
+     */
+    public String[] queue(String boardName, int numPlayers, int rating) throws IOException {
+        request("QUEUE " + boardName + " " + numPlayers + " " + rating, "QUEUED");
+        while (true) {
+            String line = readLine();
+            if (line == null) {
+                throw new IOException("The server closed the connection");
+            }
+            if (line.startsWith("JOINED ")) {
+                return line.split(" ");
+            }
+            if (line.startsWith("ERROR")) {
+                throw new IOException(line.substring(Math.min(line.length(), 6)));
+            }
+        }
+    }
+
+    /**
+     * Asks to flip a Chit Card. The result arrives as a FLIPPED line, or an ERROR line if the flip was refused.
+     * @param chit: The number of the Chit Card.
+     * @throws IOException if the server cannot be reached.
+     */
+    public void flip(int chit) throws IOException {
+        send("FLIP " + chit);
+    }
+
+    /**
+     * Sends a command and waits for its reply, keeping the other lines read on the way for readLine.
+     * @param command: The command line.
+     * @param replyWord: The first word of the reply.
+     * @return the words of the reply.
+     * @throws IOException if the server cannot be reached or answers with ERROR.
+     */
+    public String[] request(String command, String replyWord) throws IOException {
+        send(command);
+        while (true) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("The server closed the connection");
+            }
+            if (line.equals(replyWord) || line.startsWith(replyWord + " ")) {
+                return line.split(" ");
+            }
+            if (line.startsWith("ERROR")) {
+                throw new IOException(line.substring(Math.min(line.length(), 6)));
+            }
+            pending.add(line);
+        }
+    }
+
+    /**
+     * Sends a line to the server.
+     * @param line: The line to send.
+     * @throws IOException if the server cannot be reached.
+     */
+    public void send(String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+        writer.flush();
+    }
+
+    /**
+     * Reads the next line from the server, waiting for one if none has arrived.
+     * @return the line, or null if the server closed the connection.
+     * @throws IOException if the server cannot be reached.
+     */
+    public String readLine() throws IOException {
+        String line = pending.poll();
+        return (line != null) ? line : reader.readLine();
+    }
+
+    /**
+     * Leaves the game and closes the connection.
+     * @throws IOException if the socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            send("QUIT");
+        } finally {
+            socket.close();
+        }
+    }
+}
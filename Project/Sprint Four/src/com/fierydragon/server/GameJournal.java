@@ -0,0 +1,739 @@
+package com.fierydragon.server;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * A class representing a write-ahead log shared by every game of a GameServer, so the games in progress survive the
+ * server dying. A game is dealt from its board and seed, so the log only needs the games created, each Chit Card
+ * flipped and the games ended. A game handed over from another server starts from the progress it had made there.
+ * Records are added to an in-memory buffer and a single thread writes and syncs the buffer to disk every few
+ * milliseconds, so thousands of games share one disk flush (group commit). A game is never held up waiting for the
+ * disk; a crash loses at most the flips of the last few milliseconds.
+ * Each record is framed with its length and a CRC32C, so a record torn by a crash is found and dropped on replay.
+ * When opened, the log is read back and rewritten with only the games still being played.
+ * Given a ReplicationServer, each batch is also shipped to the followers of the server as it is committed, so they keep
+ * warm replicas of the games; a follower that connects is first sent a snapshot of every game through the same log.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameServer
+ * @see GameSession
+ */
+
+public final class GameJournal implements Closeable {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The milliseconds between disk flushes when none are given.
+     */
+    public static final long DEFAULT_COMMIT_MILLIS = 2;
+    /**
+     * The type of a record of a game being created.
+     */
+    static final byte CREATED = 'C';
+    /**
+     * The type of a record of a Chit Card being flipped.
+     */
+    static final byte FLIPPED = 'F';
+    /**
+     * The type of a record of a game being ended.
+     */
+    static final byte ENDED = 'E';
+    /**
+     * The type of a record of the progress a game made before it was handed over, which the flips after it follow.
+     */
+    static final byte PROGRESS = 'P';
+    /**
+     * The type of a record of a game as it stands, taken for a new follower, which the flips after it follow.
+     */
+    static final byte SNAPSHOT = 'S';
+    /**
+     * The type of a record telling a follower the leader is alive, only ever sent to followers.
+     */
+    static final byte HEARTBEAT = 'H';
+    /**
+     * The bytes framing each record: its length and its CRC32C.
+     */
+    private static final int FRAME_SIZE = 2 * Integer.BYTES;
+    /**
+     * The size of a new buffer.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    /**
+     * The file the log is kept in.
+     */
+    private final Path file;
+    /**
+     * The channel the log is written through.
+     */
+    private final FileChannel channel;
+    /**
+     * The nanoseconds between disk flushes.
+     */
+    private final long commitNanos;
+    /**
+     * The games still being played when the log was opened, by number.
+     */
+    private final Map<Long, RecoveredGame> recovered;
+    /**
+     * The thread writing and syncing the log.
+     */
+    private final Thread committer;
+    /**
+     * The checksum of each record. Guarded by this journal.
+     */
+    private final CRC32C checksum;
+    /**
+     * The buffer records are added to. Guarded by this journal.
+     */
+    private ByteBuffer active;
+    /**
+     * The buffer being written by the committer, which only it touches.
+     */
+    private ByteBuffer standby;
+    /**
+     * The place in the buffer where the record being added starts. Guarded by this journal.
+     */
+    private int recordStart;
+    /**
+     * The number of records added.
+     */
+    private long numRecords;
+    /**
+     * The number of disk flushes made.
+     */
+    private volatile long numCommits;
+    /**
+     * The number of bytes written.
+     */
+    private volatile long numBytes;
+    /**
+     * The server the batches are shipped to followers by, or null.
+     */
+    private volatile ReplicationServer replication;
+    /**
+     * A boolean denoting if the journal is taking records.
+     */
+    private volatile boolean open;
+
+    /**
+     * A class holding a game read back from the log: how it was dealt and the Chit Cards flipped since, in order.
+     */
+    public static final class RecoveredGame {
+        /**
+         * The number of the game.
+         */
+        private final long id;
+        /**
+         * The name of the board definition the game was dealt from.
+         */
+        private final String boardName;
+        /**
+         * The number of Dragons.
+         */
+        private final int numPlayers;
+        /**
+         * The seed the game was dealt from.
+         */
+        private final long seed;
+        /**
+         * The progress the game had made when it was handed over or snapshotted, or null if it starts from its deal.
+         */
+        private byte[] progress;
+        /**
+         * A boolean denoting if the game was handed over from another server, which numbered it.
+         */
+        private boolean adopted;
+        /**
+         * The Chit Cards flipped, in order.
+         */
+        private int[] flips;
+        /**
+         * The number of Chit Cards flipped.
+         */
+        private int numFlips;
+
+        /**
+         * RecoveredGame Constructor.
+         * @param id: The number of the game.
+         * @param boardName: The name of the board definition the game was dealt from.
+         * @param numPlayers: The number of Dragons.
+         * @param seed: The seed the game was dealt from.
+         */
+        private RecoveredGame(long id, String boardName, int numPlayers, long seed) {
+            this.id = id;
+            this.boardName = boardName;
+            this.numPlayers = numPlayers;
+            this.seed = seed;
+            this.flips = new int[16];
+        }
+
+        /**
+         * Adds a Chit Card flipped.
+         * @param chit: The number of the Chit Card.
+         */
+        private void addFlip(int chit) {
+            if (numFlips == flips.length) {
+                flips = Arrays.copyOf(flips, numFlips * 2);
+            }
+            flips[numFlips++] = chit;
+        }
+
+        /**
+         * Starts the game again from the progress it had made, forgetting the flips before.
+         * @param progress: The progress of the game.
+         */
+        private void setProgress(byte[] progress) {
+            this.progress = progress;
+            this.numFlips = 0;
+        }
+
+        /**
+         * A method to return the id data attribute.
+         * @return the number of the game.
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * A method to return the boardName data attribute.
+         * @return the name of the board definition the game was dealt from.
+         */
+        public String getBoardName() {
+            return boardName;
+        }
+
+        /**
+         * A method to return the numPlayers data attribute.
+         * @return the number of Dragons.
+         */
+        public int getNumPlayers() {
+            return numPlayers;
+        }
+
+        /**
+         * A method to return the seed data attribute.
+         * @return the seed the game was dealt from.
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * A method to return the progress data attribute.
+         * @return the progress the game had made when it was handed over or snapshotted, which the flips follow, or
+         * null.
+         */
+        public byte[] getProgress() {
+            return progress;
+        }
+
+        /**
+         * A method to check whether the game was handed over from another server.
+         * @return True if another server numbered the game.
+         */
+        public boolean isAdopted() {
+            return adopted;
+        }
+
+        /**
+         * A method to return the flips data attribute.
+         * @return a copy of the Chit Cards flipped, in order.
+         */
+        public int[] getFlips() {
+            return Arrays.copyOf(flips, numFlips);
+        }
+    }
+
+    /**
+     * GameJournal Constructor. Reads back the games still being played, rewrites the log with only those games and
+     * starts the thread committing new records.
+     * @param file: The file the log is kept in, created if it does not exist.
+     * @param commitMillis: The milliseconds between disk flushes.
+     * @throws IOException if the log cannot be read or written.
+     */
+    public GameJournal(Path file, long commitMillis) throws IOException {
+        this.file = file;
+        this.commitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, commitMillis));
+        this.recovered = read(file);
+        this.checksum = new CRC32C();
+        this.active = ByteBuffer.allocate(INITIAL_CAPACITY);
+        this.standby = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+        // Rewrite the log with only the games still being played, so it does not grow forever.
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (RecoveredGame game : recovered.values()) {
+                appendCreated(game.getId(), game.getBoardName(), game.getNumPlayers(), game.getSeed());
+                if (game.adopted) {
+                    appendProgress(game.getId(), game.progress);
+                }
+                else if (game.progress != null) {
+                    appendSnapshot(game.getId(), game.getBoardName(), game.getNumPlayers(), game.getSeed(),
+                            game.progress);
+                }
+                for (int i = 0; i < game.numFlips; i++) {
+                    appendFlipped(game.getId(), game.flips[i]);
+                }
+                // Write as the buffer fills, so a large log is never held in memory twice.
+                if (active.position() > INITIAL_CAPACITY / 2) {
+                    writeFully(out, active);
+                }
+            }
+            writeFully(out, active);
+            out.force(true);
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.numRecords = 0;
+
+        this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.open = true;
+        this.committer = new Thread(this::commitLoop, "game-journal");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Records a game being created.
+     * @param id: The number of the game.
+     * @param boardName: The name of the board definition the game was dealt from.
+     * @param numPlayers: The number of Dragons.
+     * @param seed: The seed the game was dealt from.
+     */
+    public synchronized void created(long id, String boardName, int numPlayers, long seed) {
+        if (open) {
+            appendCreated(id, boardName, numPlayers, seed);
+        }
+    }
+
+    /**
+     * Records a Chit Card being flipped. Called by the game's single writer, so the flips of a game are in order.
+     * @param id: The number of the game.
+     * @param chit: The number of the Chit Card.
+     */
+    public synchronized void flipped(long id, int chit) {
+        if (open) {
+            appendFlipped(id, chit);
+        }
+    }
+
+    /**
+     * Records the progress of a game handed over from another server, after the record of its creation.
+     * @param id: The number of the game.
+     * @param progress: The progress of the game, as written down by GameState.saveProgress.
+     */
+    public synchronized void progress(long id, byte[] progress) {
+        if (open) {
+            appendProgress(id, progress);
+        }
+    }
+
+    /**
+     * Records a game as it stands, for a follower that has just connected. Called by the game's single writer, so the
+     * flips recorded after it follow it.
+     * @param id: The number of the game.
+     * @param boardName: The name of the board definition the game was dealt from.
+     * @param numPlayers: The number of Dragons.
+     * @param seed: The seed the game was dealt from.
+     * @param progress: The progress of the game, as written down by GameState.saveProgress.
+     */
+    public synchronized void snapshot(long id, String boardName, int numPlayers, long seed, byte[] progress) {
+        if (open) {
+            appendSnapshot(id, boardName, numPlayers, seed, progress);
+        }
+    }
+
+    /**
+     * Records a game being ended, so it is not brought back.
+     * @param id: The number of the game.
+     */
+    public synchronized void ended(long id) {
+        if (open) {
+            beginRecord(ENDED, id, 0);
+            endRecord();
+        }
+    }
+
+    /**
+     * Adds a record of a game being created to the buffer.
+     * @param id: The number of the game.
+     * @param boardName: The name of the board definition the game was dealt from.
+     * @param numPlayers: The number of Dragons.
+     * @param seed: The seed the game was dealt from.
+     */
+    private void appendCreated(long id, String boardName, int numPlayers, long seed) {
+        byte[] name = boardName.getBytes(StandardCharsets.UTF_8);
+        beginRecord(CREATED, id, Short.BYTES + Long.BYTES + Short.BYTES + name.length);
+        active.putShort((short) numPlayers).putLong(seed).putShort((short) name.length).put(name);
+        endRecord();
+    }
+
+    /**
+     * Adds a record of a Chit Card being flipped to the buffer.
+     * @param id: The number of the game.
+     * @param chit: The number of the Chit Card.
+     */
+    private void appendFlipped(long id, int chit) {
+        beginRecord(FLIPPED, id, Short.BYTES);
+        active.putShort((short) chit);
+        endRecord();
+    }
+
+    /**
+     * Adds a record of the progress of a game to the buffer.
+     * @param id: The number of the game.
+     * @param progress: The progress of the game.
+     */
+    private void appendProgress(long id, byte[] progress) {
+        beginRecord(PROGRESS, id, Short.BYTES + progress.length);
+        active.putShort((short) progress.length).put(progress);
+        endRecord();
+    }
+
+    /**
+     * Adds a record of a game as it stands to the buffer.
+     * @param id: The number of the game.
+     * @param boardName: The name of the board definition the game was dealt from.
+     * @param numPlayers: The number of Dragons.
+     * @param seed: The seed the game was dealt from.
+     * @param progress: The progress of the game.
+     */
+    private void appendSnapshot(long id, String boardName, int numPlayers, long seed, byte[] progress) {
+        byte[] name = boardName.getBytes(StandardCharsets.UTF_8);
+        beginRecord(SNAPSHOT, id, Short.BYTES + Long.BYTES + Short.BYTES + name.length + Short.BYTES
+                + progress.length);
+        active.putShort((short) numPlayers).putLong(seed).putShort((short) name.length).put(name)
+                .putShort((short) progress.length).put(progress);
+        endRecord();
+    }
+
+    /**
+     * Encodes a record telling a follower the leader is alive, framed like every other record.
+     * @return the framed record.
+     */
+    static byte[] heartbeat() {
+        ByteBuffer record = ByteBuffer.allocate(FRAME_SIZE + 1 + Long.BYTES);
+        record.position(FRAME_SIZE);
+        record.put(HEARTBEAT).putLong(0);
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), FRAME_SIZE, 1 + Long.BYTES);
+        record.putInt(0, 1 + Long.BYTES).putInt(Integer.BYTES, (int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Starts a record in the buffer, leaving room for its frame.
+     * @param type: The type of the record.
+     * @param id: The number of the game.
+     * @param extra: The number of bytes the record holds after the number of the game.
+     */
+    private void beginRecord(byte type, long id, int extra) {
+        int size = FRAME_SIZE + 1 + Long.BYTES + extra;
+        if (active.remaining() < size) {
+            // Grow rather than wait for the committer, so a game is never held up by the disk.
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(active.capacity() * 2, active.position() + size));
+            active.flip();
+            active = grown.put(active);
+        }
+        recordStart = active.position();
+        active.position(recordStart + FRAME_SIZE);
+        active.put(type).putLong(id);
+    }
+
+    /**
+     * Finishes the record started last by filling in its length and checksum.
+     */
+    private void endRecord() {
+        int length = active.position() - recordStart - FRAME_SIZE;
+        checksum.reset();
+        checksum.update(active.array(), recordStart + FRAME_SIZE, length);
+        active.putInt(recordStart, length).putInt(recordStart + Integer.BYTES, (int) checksum.getValue());
+        numRecords++;
+    }
+
+    /**
+     * Writes and syncs the buffer every few milliseconds until the journal is closed.
+     */
+    private void commitLoop() {
+        boolean failing = false;
+        while (open) {
+            LockSupport.parkNanos(commitNanos);
+            try {
+                commit();
+                failing = false;
+            } catch (IOException e) {
+                // Report a disk that stops taking writes once, not on every flush.
+                if (!failing) {
+                    LOGGER.log(System.Logger.Level.ERROR, "Could not write the journal {0}: {1}", file, e);
+                }
+                failing = true;
+            }
+        }
+    }
+
+    /**
+     * Swaps the buffers, then writes and syncs the records added since the last commit.
+     * @throws IOException if the log cannot be written.
+     */
+    private void commit() throws IOException {
+        ByteBuffer records;
+        synchronized (this) {
+            if (active.position() == 0) {
+                return;
+            }
+            records = active;
+            active = standby;
+        }
+        // Ship the batch to the followers before the disk flush, so replication overlaps it.
+        ReplicationServer followers = replication;
+        if (followers != null) {
+            followers.ship(records.array(), records.position());
+        }
+        // Write outside the lock, so games go on adding records to the other buffer meanwhile.
+        numBytes += records.position();
+        writeFully(channel, records);
+        channel.force(false);
+        numCommits++;
+        standby = records;
+    }
+
+    /**
+     * Writes everything in a buffer to a channel and empties the buffer.
+     * @param out: The channel.
+     * @param buffer: The buffer, filled up to its position.
+     * @throws IOException if the channel cannot be written.
+     */
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads back the games still being played from a log, stopping at the first torn or damaged record.
+     * @param file: The file the log is kept in.
+     * @return the games still being played, by number, in the order they were created.
+     * @throws IOException if the log cannot be read.
+     */
+    private static Map<Long, RecoveredGame> read(Path file) throws IOException {
+        Map<Long, RecoveredGame> games = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return games;
+        }
+        try (InputStream stream = Files.newInputStream(file)) {
+            RecordReader reader = new RecordReader(stream);
+            ByteBuffer record;
+            while ((record = reader.next()) != null) {
+                apply(games, record);
+            }
+        }
+        return games;
+    }
+
+    /**
+     * A class reading the records of a log, or of the batches shipped to a follower, one at a time.
+     */
+    static final class RecordReader {
+        /**
+         * The stream the records are read from.
+         */
+        private final DataInputStream in;
+        /**
+         * The checksum of each record.
+         */
+        private final CRC32C crc;
+        /**
+         * The bytes of the last record read, grown as needed.
+         */
+        private byte[] payload;
+
+        /**
+         * RecordReader Constructor.
+         * @param stream: The stream the records are read from.
+         */
+        RecordReader(InputStream stream) {
+            this.in = new DataInputStream(new BufferedInputStream(stream, INITIAL_CAPACITY));
+            this.crc = new CRC32C();
+            this.payload = new byte[64];
+        }
+
+        /**
+         * Reads the next record.
+         * @return the record without its frame, valid until the next is read, or null at the end of the stream or at
+         * the first torn or damaged record.
+         * @throws IOException if the stream cannot be read.
+         */
+        ByteBuffer next() throws IOException {
+            int length, expected;
+            try {
+                length = in.readInt();
+                expected = in.readInt();
+                if (length < 1 + Long.BYTES || length > Short.MAX_VALUE) {
+                    return null;
+                }
+                if (payload.length < length) {
+                    payload = new byte[length];
+                }
+                in.readFully(payload, 0, length);
+            } catch (EOFException e) {
+                // The last record was torn by a crash.
+                return null;
+            }
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != expected) {
+                return null;
+            }
+            return ByteBuffer.wrap(payload, 0, length);
+        }
+    }
+
+    /**
+     * Applies one record read back from the log.
+     * @param games: The games still being played, by number.
+     * @param record: The record, without its frame.
+     */
+    private static void apply(Map<Long, RecoveredGame> games, ByteBuffer record) {
+        byte type = record.get();
+        long id = record.getLong();
+        switch (type) {
+            case CREATED -> {
+                int numPlayers = record.getShort();
+                long seed = record.getLong();
+                byte[] name = new byte[record.getShort()];
+                record.get(name);
+                games.put(id, new RecoveredGame(id, new String(name, StandardCharsets.UTF_8), numPlayers, seed));
+            }
+            case FLIPPED -> {
+                RecoveredGame game = games.get(id);
+                if (game != null) {
+                    game.addFlip(record.getShort());
+                }
+            }
+            case PROGRESS -> {
+                RecoveredGame game = games.get(id);
+                if (game != null) {
+                    byte[] progress = new byte[record.getShort()];
+                    record.get(progress);
+                    game.setProgress(progress);
+                    game.adopted = true;
+                }
+            }
+            case SNAPSHOT -> {
+                RecoveredGame game = games.get(id);
+                int numPlayers = record.getShort();
+                long seed = record.getLong();
+                byte[] name = new byte[record.getShort()];
+                record.get(name);
+                byte[] progress = new byte[record.getShort()];
+                record.get(progress);
+                if (game == null) {
+                    game = new RecoveredGame(id, new String(name, StandardCharsets.UTF_8), numPlayers, seed);
+                    games.put(id, game);
+                }
+                game.setProgress(progress);
+            }
+            case ENDED -> games.remove(id);
+            default -> {
+                // A record of an unknown type is skipped.
+            }
+        }
+    }
+
+    /**
+     * Ships every batch committed from now on to the followers of a server.
+     * @param replication: The server, or null to stop shipping.
+     */
+    void setReplication(ReplicationServer replication) {
+        this.replication = replication;
+    }
+
+    /**
+     * A method to return the games still being played when the log was opened.
+     * @return the games, in the order they were created.
+     */
+    public Collection<RecoveredGame> getRecovered() {
+        return new ArrayList<>(recovered.values());
+    }
+
+    /**
+     * A method to return the file data attribute.
+     * @return the file the log is kept in.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * A method to return the numRecords data attribute.
+     * @return the number of records added since the log was opened.
+     */
+    public synchronized long getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * A method to return the numCommits data attribute.
+     * @return the number of disk flushes made.
+     */
+    public long getNumCommits() {
+        return numCommits;
+    }
+
+    /**
+     * A method to return the numBytes data attribute.
+     * @return the number of bytes written since the log was opened.
+     */
+    public long getNumBytes() {
+        return numBytes;
+    }
+
+    /**
+     * Stops taking records, writes and syncs those waiting and closes the log.
+     * @throws IOException if the log cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+        }
+        LockSupport.unpark(committer);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+        channel.close();
+    }
+}
@@ -0,0 +1,554 @@
+package com.fierydragon.server;
+
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.engine.LayoutCache;
+import com.fierydragon.wire.BufferPool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class representing a server that hosts many games of Fiery Dragons at once for clients connecting over TCP.
+ * Each game is a GameSession with its own GameState, so games never share the TurnManager or MovementManager.
+ * Every connection is served by its own thread, a virtual thread when the Java runtime has them, so ten thousand
+ * idle tables cost little more than their sockets.
+ * Given a GameJournal, the server records every game in it and brings the games back after a crash.
+ * Given a memory budget, the server passivates the least recently used idle games whenever the games go over it, so a
+ * game where everyone is thinking costs only its seats, its queue and its last snapshot.
+ * Players who do not mind who they play can wait in the Lobby to be matched into a game instead of creating one.
+ * A server run behind a SessionRouter takes admin commands, so its games can be handed over to another server while
+ * they are being played: a game is exported as its compact progress, frozen once the flips made since are known, and
+ * adopted by the other server under the same number.
+ * A server can also be a hot standby: a HotStandby keeps its games as replicas of those of a leader, fed by the
+ * leader's ReplicationServer, and the standby takes over the leader's port once the leader is lost.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameSession
+ * @see ClientConnection
+ */
+
+public class GameServer implements Closeable {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The port the server listens on when none is given.
+     */
+    public static final int DEFAULT_PORT = 7077;
+    /**
+     * The milliseconds between checks of the memory budget.
+     */
+    private static final long SWEEP_MILLIS = 1000;
+    /**
+     * The nanoseconds a game must have been left alone before it can be passivated, so busy games never thrash.
+     */
+    private static final long MIN_IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * The bytes in each buffer of the binary protocol, enough for the largest snapshot of a game.
+     */
+    private static final int FRAME_BUFFER_BYTES = 4096;
+    /**
+     * The most buffers of the binary protocol kept to be used again.
+     */
+    private static final int FRAME_BUFFER_POOL_SIZE = 256;
+    /**
+     * The socket accepting new connections.
+     */
+    private volatile ServerSocket serverSocket;
+    /**
+     * The threads serving the connections.
+     */
+    private final ExecutorService connectionThreads;
+    /**
+     * The games being played, by number.
+     */
+    private final Map<Long, GameSession> sessions;
+    /**
+     * The number of the next game.
+     */
+    private final AtomicLong nextSessionId;
+    /**
+     * The random numbers used for the seeds of games created without one.
+     */
+    private final Random seeds;
+    /**
+     * The lobby where players wait to be matched into games.
+     */
+    private final Lobby lobby;
+    /**
+     * The write-ahead log the games are recorded in, or null if the server keeps none.
+     */
+    private volatile GameJournal journal;
+    /**
+     * The most estimated bytes the games may take up, their shells as well as the states of those resident.
+     */
+    private volatile long residentBudget;
+    /**
+     * The thread checking the memory budget, or null if there is no budget.
+     */
+    private ScheduledExecutorService sweeper;
+    /**
+     * The number of games passivated.
+     */
+    private final AtomicLong numPassivations;
+    /**
+     * The number of games brought back after being passivated.
+     */
+    private final AtomicLong numRehydrations;
+    /**
+     * The direct buffers the frames of the binary protocol are read into and encoded in.
+     */
+    private final BufferPool bufferPool;
+    /**
+     * A boolean denoting if connections may use the admin commands that hand games over between servers.
+     */
+    private volatile boolean adminEnabled;
+    /**
+     * A boolean denoting if the server is accepting connections.
+     */
+    private volatile boolean running;
+
+    /**
+     * GameServer Constructor.
+     * @param port: The port to listen on, or 0 for any free port.
+     * @param address: The address to listen on, or null for every address.
+     * @throws IOException if the port cannot be opened.
+     */
+    public GameServer(int port, InetAddress address) throws IOException {
+        this.serverSocket = new ServerSocket(port, 1024, address);
+        this.connectionThreads = newConnectionExecutor();
+        this.sessions = new ConcurrentHashMap<>();
+        this.nextSessionId = new AtomicLong(1);
+        this.seeds = new Random();
+        this.lobby = new Lobby(this);
+        this.residentBudget = Long.MAX_VALUE;
+        this.numPassivations = new AtomicLong();
+        this.numRehydrations = new AtomicLong();
+        this.bufferPool = new BufferPool(FRAME_BUFFER_BYTES, FRAME_BUFFER_POOL_SIZE);
+    }
+
+    /**
+     * Starts accepting connections on a thread of its own.
+     */
+    public void start() {
+        running = true;
+        connectionThreads.execute(this::serve);
+    }
+
+    /**
+     * Accepts connections until the server is closed, serving each on its own thread.
+     */
+    public void serve() {
+        running = true;
+        ServerSocket listening = serverSocket;
+        while (running) {
+            try {
+                Socket socket = listening.accept();
+                // Send each line as soon as it is written rather than waiting to fill a packet.
+                socket.setTcpNoDelay(true);
+                connectionThreads.execute(new ClientConnection(this, socket));
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.log(System.Logger.Level.WARNING, "Could not accept a client: {0}", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new game dealt from a board definition.
+     * @param boardName: The name of the board definition file.
+     * @param numPlayers: The number of Dragons.
+     * @param seed: The seed to deal the game from, or null to choose one.
+     * @return the new game.
+     * @throws IllegalArgumentException if the board cannot be loaded or does not have a Cave for every Dragon.
+     */
+    public GameSession createSession(String boardName, int numPlayers, Long seed) {
+        CompiledLayout layout = LayoutCache.getInstance().load(boardName);
+        if (numPlayers < 2 || numPlayers > layout.getTopology().getNumCaves()) {
+            throw new IllegalArgumentException("The " + boardName + " board cannot seat " + numPlayers + " Dragons");
+        }
+        long gameSeed;
+        synchronized (seeds) {
+            gameSeed = (seed != null) ? seed : seeds.nextLong();
+        }
+        GameState state = GameState.deal(layout, numPlayers, new Random(gameSeed));
+        GameSession session = new GameSession(this, nextSessionId.getAndIncrement(), boardName, gameSeed, layout, state,
+                journal);
+        sessions.put(session.getId(), session);
+        if (journal != null) {
+            journal.created(session.getId(), boardName, numPlayers, gameSeed);
+        }
+        return session;
+    }
+
+    /**
+     * Brings back the games still being played from a write-ahead log, and records every game from then on in it.
+     * Each game is dealt again from its board and seed and its flips are played again, with every seat free so its
+     * players can join again. Call before the server starts.
+     * @param journal: The write-ahead log.
+     * @return the number of games brought back.
+     */
+    public int recover(GameJournal journal) {
+        int numRecovered = 0;
+        for (GameJournal.RecoveredGame game : journal.getRecovered()) {
+            CompiledLayout layout = LayoutCache.getInstance().load(game.getBoardName());
+            GameState state = GameState.deal(layout, game.getNumPlayers(), new Random(game.getSeed()));
+            // A game handed over or snapshotted starts from the progress it had made.
+            if (game.getProgress() != null) {
+                state.loadProgress(game.getProgress());
+            }
+            GameSession session = new GameSession(this, game.getId(), game.getBoardName(), game.getSeed(), layout,
+                    state, journal);
+            session.replay(game.getFlips());
+            // Never hand out the number of a game brought back, unless it was numbered by another server.
+            if (!game.isAdopted()) {
+                nextSessionId.accumulateAndGet(game.getId() + 1, Math::max);
+            }
+            if (session.isOver()) {
+                journal.ended(game.getId());
+            }
+            else {
+                sessions.put(session.getId(), session);
+                numRecovered++;
+            }
+        }
+        this.journal = journal;
+        return numRecovered;
+    }
+
+    /**
+     * Adopts a game handed over from another server, under the same number: deals it again from its board and seed,
+     * brings back the progress it made there and flips the Chit Cards flipped since. Every seat is free, so its players
+     * can take them again with REJOIN.
+     * @param id: The number of the game.
+     * @param boardName: The name of the board definition the game was dealt from.
+     * @param numPlayers: The number of Dragons.
+     * @param seed: The seed the game was dealt from.
+     * @param numJoined: The number of seats that had been taken.
+     * @param progress: The progress of the game when it was exported, as written down by GameState.saveProgress.
+     * @param tail: The Chit Cards flipped after it was exported, in order.
+     * @return the adopted game.
+     * @throws IllegalArgumentException if the board cannot be loaded or the server already has a game with the number.
+     */
+    public GameSession adopt(long id, String boardName, int numPlayers, long seed, int numJoined, byte[] progress,
+                             int[] tail) {
+        CompiledLayout layout = LayoutCache.getInstance().load(boardName);
+        GameState state = GameState.deal(layout, numPlayers, new Random(seed));
+        state.loadProgress(progress);
+        GameSession session = new GameSession(this, id, boardName, seed, layout, state, journal);
+        session.replay(tail);
+        session.setNumJoined(numJoined);
+        if (sessions.putIfAbsent(id, session) != null) {
+            throw new IllegalArgumentException("Game " + id + " is already here");
+        }
+        if (journal != null) {
+            journal.created(id, boardName, numPlayers, seed);
+            journal.progress(id, progress);
+            for (int chit : tail) {
+                journal.flipped(id, chit);
+            }
+        }
+        return session;
+    }
+
+    /**
+     * Keeps a replica of a game of the leader this server is a standby for, in place of any replica kept before:
+     * deals it from its board and seed and brings back the progress it had made, if any.
+     * @param id: The number of the game.
+     * @param boardName: The name of the board definition the game was dealt from.
+     * @param numPlayers: The number of Dragons.
+     * @param seed: The seed the game was dealt from.
+     * @param progress: The progress of the game, as written down by GameState.saveProgress, or null if it was just
+     *                  dealt.
+     * @return the replica.
+     */
+    GameSession replicate(long id, String boardName, int numPlayers, long seed, byte[] progress) {
+        CompiledLayout layout = LayoutCache.getInstance().load(boardName);
+        GameState state = GameState.deal(layout, numPlayers, new Random(seed));
+        if (progress != null) {
+            state.loadProgress(progress);
+        }
+        GameSession session = new GameSession(this, id, boardName, seed, layout, state, journal);
+        sessions.put(id, session);
+        if (journal != null) {
+            journal.created(id, boardName, numPlayers, seed);
+            if (progress != null) {
+                journal.snapshot(id, boardName, numPlayers, seed, progress);
+            }
+        }
+        // Number new games after the leader's once this server takes over.
+        nextSessionId.accumulateAndGet(id + 1, Math::max);
+        return session;
+    }
+
+    /**
+     * Forgets every game, as a standby does before a leader sends it a snapshot of the games again.
+     */
+    void clearReplicas() {
+        for (GameSession session : getSessions()) {
+            removeSession(session);
+        }
+    }
+
+    /**
+     * Records every game as it stands, so a follower that has just connected gets a snapshot of each through the
+     * journal, followed by every flip after it.
+     */
+    void snapshotAll() {
+        for (GameSession session : sessions.values()) {
+            session.snapshot();
+        }
+    }
+
+    /**
+     * Moves the server to another port, as a standby does when it takes over the port of its leader. The port it was
+     * listening on is closed.
+     * @param port: The port to listen on.
+     * @param address: The address to listen on, or null for every address.
+     * @throws IOException if the port cannot be opened, as when the leader still has it.
+     */
+    public void listen(int port, InetAddress address) throws IOException {
+        ServerSocket previous = serverSocket;
+        serverSocket = new ServerSocket(port, 1024, address);
+        previous.close();
+    }
+
+    /**
+     * Sets the number the next game created is given, so servers behind the same SessionRouter never give two games
+     * the same number. A number already given is never given again.
+     * @param id: The number of the next game.
+     */
+    public void setFirstSessionId(long id) {
+        nextSessionId.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Sets the memory budget of the games and starts checking it every second.
+     * @param bytes: The most estimated bytes the games may take up, their shells as well as their resident states.
+     */
+    public synchronized void setResidentBudget(long bytes) {
+        residentBudget = bytes;
+        if (sweeper == null) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "session-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_MILLIS, SWEEP_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Passivates the least recently used idle games until the games are within the memory budget. Every game hosted
+     * counts, passivated or not, with its shell as well as its state, but only the state is freed by passivating.
+     * @return the number of games asked to passivate.
+     */
+    public int sweep() {
+        List<GameSession> resident = new ArrayList<>();
+        long used = 0;
+        for (GameSession session : sessions.values()) {
+            used += session.getFootprint();
+            if (session.isResident()) {
+                resident.add(session);
+            }
+        }
+        if (used <= residentBudget) {
+            return 0;
+        }
+
+        // Passivate the games left alone longest first.
+        resident.sort(Comparator.comparingLong(GameSession::getLastUsed));
+        long idleSince = System.nanoTime() - MIN_IDLE_NANOS;
+        int numPassivated = 0;
+        for (GameSession session : resident) {
+            if (used <= residentBudget || session.getLastUsed() - idleSince > 0) {
+                break;
+            }
+            if (session.passivate()) {
+                used -= session.getStateFootprint();
+                numPassivated++;
+            }
+        }
+        return numPassivated;
+    }
+
+    /**
+     * Counts a game passivated.
+     */
+    void recordPassivation() {
+        numPassivations.incrementAndGet();
+    }
+
+    /**
+     * Counts a game brought back after being passivated.
+     */
+    void recordRehydration() {
+        numRehydrations.incrementAndGet();
+    }
+
+    /**
+     * Runs a task on a thread of its own, such as the writing thread of a spectator.
+     * @param task: The task.
+     */
+    void execute(Runnable task) {
+        connectionThreads.execute(task);
+    }
+
+    /**
+     * A method to return the bufferPool data attribute.
+     * @return the direct buffers the frames of the binary protocol are read into and encoded in.
+     */
+    BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * A method to return a game being played.
+     * @param id: The number of the game.
+     * @return the game, or null if there is no game with that number.
+     */
+    public GameSession getSession(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * A method to return the games being played.
+     * @return a live view of the games.
+     */
+    public Collection<GameSession> getSessions() {
+        return sessions.values();
+    }
+
+    /**
+     * Forgets a game once it is over and every player has left.
+     * @param session: The game.
+     */
+    void removeSession(GameSession session) {
+        if (sessions.remove(session.getId(), session)) {
+            session.closeSpectators();
+            if (journal != null) {
+                journal.ended(session.getId());
+            }
+        }
+    }
+
+    /**
+     * A method to set whether connections may use the admin commands.
+     * @param adminEnabled: True to allow the commands that hand games over between servers.
+     */
+    public void setAdminEnabled(boolean adminEnabled) {
+        this.adminEnabled = adminEnabled;
+    }
+
+    /**
+     * A method to check whether connections may use the admin commands.
+     * @return True if the commands that hand games over between servers are allowed.
+     */
+    boolean isAdminEnabled() {
+        return adminEnabled;
+    }
+
+    /**
+     * A method to return the lobby data attribute.
+     * @return the lobby where players wait to be matched into games.
+     */
+    public Lobby getLobby() {
+        return lobby;
+    }
+
+    /**
+     * A method to return the number of games being played.
+     * @return the number of games.
+     */
+    public int getNumSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * A method to return the number of games whose state is in memory.
+     * @return the number of resident games.
+     */
+    public int getNumResident() {
+        int numResident = 0;
+        for (GameSession session : sessions.values()) {
+            numResident += session.isResident() ? 1 : 0;
+        }
+        return numResident;
+    }
+
+    /**
+     * A method to return the numPassivations data attribute.
+     * @return the number of games passivated.
+     */
+    public long getNumPassivations() {
+        return numPassivations.get();
+    }
+
+    /**
+     * A method to return the numRehydrations data attribute.
+     * @return the number of games brought back after being passivated.
+     */
+    public long getNumRehydrations() {
+        return numRehydrations.get();
+    }
+
+    /**
+     * A method to return the port the server is listening on.
+     * @return the port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections and stops the threads serving them.
+     * @throws IOException if the socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        connectionThreads.shutdownNow();
+        synchronized (this) {
+            if (sweeper != null) {
+                sweeper.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Creates the executor that gives each connection its own thread. Virtual threads are used when the Java runtime
+     * has them (Java 21 and later); on older runtimes, and on Java 19 and 20 where they are a preview that was not
+     * enabled, a cached pool of platform threads is used instead.
+     * @return the executor.
+     */
+    public static ExecutorService newConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -0,0 +1,1120 @@
+package com.fierydragon.server;
+
+import com.fierydragon.engine.BoardTopology;
+import com.fierydragon.engine.CommandQueue;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.FlipOutcome;
+import com.fierydragon.engine.GameSnapshot;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.wire.FrameCodec;
+import com.fierydragon.wire.TableSnapshot;
+import com.fierydragon.wire.TurnDelta;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A class representing one game hosted by the GameServer, with its own GameState and a seat for each Dragon.
+ * Commands from the connections are put in a bounded CommandQueue and run one at a time by a single writer: whichever
+ * thread finds the queue idle runs the waiting commands in batches, so the GameState is never touched by two threads at
+ * once and a game needs no thread of its own while nobody is playing. A game flooded with commands refuses new ones.
+ * After each change the writer publishes an immutable GameSnapshot, which readers such as the HTTP API and STATE take
+ * without queueing behind the moves.
+ * A game left idle can be passivated by the server: its GameState is written down as a few dozen bytes of progress and
+ * dropped, and dealt again from its board and seed by the next command that needs it, without the players noticing.
+ * A game can be handed over to another server while it is played: it is exported as its progress, the Chit Cards
+ * flipped after that are kept, and once it is frozen those flips are handed over too and every later command is turned
+ * away, so no turn is lost.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameServer
+ * @see GameState
+ */
+
+public class GameSession {
+    /**
+     * The most commands that can wait to be run. A game has a handful of players, so a small queue is plenty and keeps
+     * idle games small.
+     */
+    private static final int QUEUE_CAPACITY = 32;
+    /**
+     * The most commands run in one batch.
+     */
+    private static final int BATCH_SIZE = 32;
+    /**
+     * The most milliseconds a command that is never refused waits for room before checking again, in case the thread
+     * running the queue let go without waking it.
+     */
+    private static final long ROOM_WAIT_MILLIS = 1;
+    /**
+     * The recipient of replies to the server's own commands, which nobody reads.
+     */
+    private static final Recipient NOBODY_LISTENING = line -> { };
+    /**
+     * The ending of the error sent when a command is refused because the queue is full, which a client can retry.
+     */
+    static final String BUSY = " is busy";
+    /**
+     * The estimated bytes of heap every game takes up beyond its state and the parts made only when needed: the game
+     * itself with its fields, its draining flag and the three commands it keeps.
+     */
+    private static final long SHELL_BYTES = 160 + 16 + 3 * 16;
+    /**
+     * The estimated bytes of heap of a list of watchers or a hub of spectators, without their entries.
+     */
+    private static final long LIST_BYTES = 48;
+    /**
+     * The server hosting the game.
+     */
+    private final GameServer server;
+    /**
+     * The number of the game.
+     */
+    private final long id;
+    /**
+     * The name of the board definition the game was dealt from.
+     */
+    private final String boardName;
+    /**
+     * The seed the game was dealt from.
+     */
+    private final long seed;
+    /**
+     * The compiled layout of the board the game was dealt from, shared with every game on that board.
+     */
+    private final CompiledLayout layout;
+    /**
+     * The state of the game, or null while the game is passivated. Only touched by the game's single writer.
+     */
+    private GameState state;
+    /**
+     * The progress of the game while it is passivated, or null while it is resident.
+     */
+    private byte[] progress;
+    /**
+     * The estimated bytes of heap the state takes up while resident.
+     */
+    private final long stateFootprint;
+    /**
+     * A boolean denoting if the state is in memory.
+     */
+    private volatile boolean resident;
+    /**
+     * The time the game was last sent a command, in nanoseconds, so the server can passivate the least recently used.
+     */
+    private volatile long lastUsed;
+    /**
+     * The command that passivates the game.
+     */
+    private final Runnable passivation;
+    /**
+     * The command that records the game as it stands for a new follower, without bringing back a passivated state.
+     */
+    private final Runnable snapshotting;
+    /**
+     * The command that publishes a replica once it is served, without bringing back a passivated state.
+     */
+    private final Runnable publication;
+    /**
+     * A boolean denoting if a replica has been flipped since its snapshot was last published. Only touched by the
+     * game's single writer.
+     */
+    private boolean unpublished;
+    /**
+     * The write-ahead log each flip is recorded in, or null if the server keeps none.
+     */
+    private final GameJournal journal;
+    /**
+     * The connection sitting in each seat, or null if the seat is free.
+     */
+    private final ClientConnection[] seats;
+    /**
+     * The recipients watching every event of the game without a seat, or null until the game is first watched.
+     */
+    private volatile List<Recipient> watchers;
+    /**
+     * The spectators sent a delta of each change, or null until the game is first spectated. Only made by the game's
+     * single writer.
+     */
+    private volatile SpectatorHub spectatorHub;
+    /**
+     * The position of each Dragon before the last flip, kept to work out the delta, or null while nobody is sent
+     * deltas. Only touched by the game's single writer.
+     */
+    private int[] previousPositions;
+    /**
+     * For each Dragon, True if it was stunned before the last flip, or null while nobody is sent deltas. Only touched
+     * by the game's single writer.
+     */
+    private boolean[] previousStunned;
+    /**
+     * The delta of the last flip for seats speaking the binary protocol, or null until the game has such a seat. Only
+     * touched by the game's single writer.
+     */
+    private TurnDelta binaryDelta;
+    /**
+     * The snapshot last encoded for spectators, or null.
+     */
+    private byte[] encodedSnapshot;
+    /**
+     * The version the snapshot was encoded for.
+     */
+    private long encodedSnapshotVersion;
+    /**
+     * The commands waiting to be run.
+     */
+    private final CommandQueue<Runnable> commands;
+    /**
+     * A boolean denoting if a thread is running the commands.
+     */
+    private final AtomicBoolean draining;
+    /**
+     * A boolean denoting if a command that is never refused is waiting for room in the queue. Set and cleared under
+     * the lock of the queue.
+     */
+    private volatile boolean roomWanted;
+    /**
+     * The number of seats that have been taken, including those whose player has left.
+     */
+    private int numJoined;
+    /**
+     * The Chit Cards flipped since the game was exported, or null if it is not being handed over.
+     */
+    private int[] handoff;
+    /**
+     * The number of Chit Cards flipped since the game was exported.
+     */
+    private int numHandoff;
+    /**
+     * A boolean denoting if the game has been handed over to another server and turns every command away.
+     */
+    private volatile boolean moved;
+    /**
+     * The number of times the game has changed. Only changed by the game's single writer.
+     */
+    private long version;
+    /**
+     * The snapshot of the game last published, read by any thread without locking.
+     */
+    private volatile GameSnapshot snapshot;
+    /**
+     * The state of the game last encoded as JSON, or null.
+     */
+    private volatile EncodedState encodedState;
+
+    /**
+     * A class holding the state of the game encoded as JSON together with the version it was encoded for, so both are
+     * read with one volatile read.
+     */
+    static final class EncodedState {
+        /**
+         * The version of the game that was encoded.
+         */
+        private final long version;
+        /**
+         * The state as UTF-8 JSON.
+         */
+        private final byte[] json;
+
+        /**
+         * EncodedState Constructor.
+         * @param version: The version of the game that was encoded.
+         * @param json: The state as UTF-8 JSON.
+         */
+        EncodedState(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+
+        /**
+         * A method to return the version data attribute.
+         * @return the version of the game that was encoded.
+         */
+        long getVersion() {
+            return version;
+        }
+
+        /**
+         * A method to return the json data attribute.
+         * @return the state as UTF-8 JSON.
+         */
+        byte[] getJson() {
+            return json;
+        }
+    }
+
+    /**
+     * GameSession Constructor.
+     * @param server: The server hosting the game.
+     * @param id: The number of the game.
+     * @param boardName: The name of the board definition the game was dealt from.
+     * @param seed: The seed the game was dealt from.
+     * @param layout: The compiled layout of the board the game was dealt from.
+     * @param state: The state of the game, dealt from the layout and seed.
+     * @param journal: The write-ahead log each flip is recorded in, or null if the server keeps none.
+     */
+    GameSession(GameServer server, long id, String boardName, long seed, CompiledLayout layout, GameState state,
+                GameJournal journal) {
+        this.server = server;
+        this.id = id;
+        this.boardName = boardName;
+        this.seed = seed;
+        this.layout = layout;
+        this.state = state;
+        this.stateFootprint = state.getFootprint();
+        this.resident = true;
+        this.lastUsed = System.nanoTime();
+        this.passivation = this::passivateNow;
+        this.snapshotting = this::snapshotNow;
+        this.publication = this::publishIfFollowed;
+        this.journal = journal;
+        this.seats = new ClientConnection[state.getNumPlayers()];
+        this.commands = new CommandQueue<>(QUEUE_CAPACITY);
+        this.draining = new AtomicBoolean();
+        this.snapshot = GameSnapshot.of(state, version);
+    }
+
+    /**
+     * Queues a command and runs the queue if no other thread is running it.
+     * @param caller: The recipient the command came from, told if the command is refused.
+     * @param command: The command.
+     * @return False if the queue was full and the command was refused.
+     */
+    private boolean submit(Recipient caller, Runnable command) {
+        if (moved) {
+            caller.send("ERROR Game " + id + " has moved");
+            return true;
+        }
+        lastUsed = System.nanoTime();
+        if (!commands.offer(command)) {
+            caller.send("ERROR Game " + id + BUSY);
+            return false;
+        }
+        drain();
+        return true;
+    }
+
+    /**
+     * Queues a command that is never refused, such as a player leaving, waiting for room if the queue is full, and
+     * runs the queue if no other thread is running it. A full queue is always being run by another thread, which wakes
+     * the waiting thread as it makes room.
+     * @param caller: The recipient the command came from, told if the game has moved.
+     * @param command: The command.
+     */
+    private void submitWaiting(Recipient caller, Runnable command) {
+        if (moved) {
+            caller.send("ERROR Game " + id + " has moved");
+            return;
+        }
+        lastUsed = System.nanoTime();
+        boolean interrupted = false;
+        synchronized (commands) {
+            while (!commands.offer(command)) {
+                roomWanted = true;
+                try {
+                    commands.wait(ROOM_WAIT_MILLIS);
+                } catch (InterruptedException e) {
+                    // The command must still be queued, so keep waiting and pass the interrupt on afterwards.
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    /**
+     * Runs the queued commands in batches if no other thread is running them, waking any thread waiting for room after
+     * each batch.
+     */
+    private void drain() {
+        // Check again after letting go, in case a command was queued just before.
+        while (!commands.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                while (commands.drain(this::run, BATCH_SIZE) > 0) {
+                    // Keep running batches until the queue is empty.
+                    if (roomWanted) {
+                        synchronized (commands) {
+                            roomWanted = false;
+                            commands.notifyAll();
+                        }
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Runs one command on the game's single writer, bringing the state back first if the game was passivated.
+     * @param command: The command.
+     */
+    private void run(Runnable command) {
+        // Commands queued after the game was frozen are dropped, as the game is played on another server now.
+        if (moved) {
+            return;
+        }
+        if (state == null && command != passivation && command != snapshotting && command != publication) {
+            state = GameState.deal(layout, seats.length, new Random(seed));
+            state.loadProgress(progress);
+            progress = null;
+            resident = true;
+            server.recordRehydration();
+        }
+        command.run();
+    }
+
+    /**
+     * Asks the game to write down its progress and drop its state until the next command needs it.
+     * @return False if the game was too busy to be passivated.
+     */
+    boolean passivate() {
+        return submit(NOBODY_LISTENING, passivation);
+    }
+
+    /**
+     * Writes down the progress of the game and drops its state and the encodings kept of it. The published snapshot is
+     * kept, so readers are still answered without bringing the state back.
+     */
+    private void passivateNow() {
+        if (state == null) {
+            return;
+        }
+        // A replica is published before its state is dropped, as its snapshot is all that is kept.
+        if (unpublished) {
+            publish();
+        }
+        progress = state.saveProgress();
+        state = null;
+        encodedSnapshot = null;
+        encodedState = null;
+        previousPositions = null;
+        previousStunned = null;
+        binaryDelta = null;
+        resident = false;
+        server.recordPassivation();
+    }
+
+    /**
+     * Asks the game to record itself as it stands in the journal, for a follower that has just connected.
+     */
+    void snapshot() {
+        // Never refused, or the follower would miss the game; wait for room.
+        submitWaiting(NOBODY_LISTENING, snapshotting);
+    }
+
+    /**
+     * Records the game as it stands in the journal, from the progress kept while it is passivated.
+     */
+    private void snapshotNow() {
+        if (journal != null) {
+            journal.snapshot(id, boardName, seats.length, seed, (state != null) ? state.saveProgress() : progress);
+        }
+    }
+
+    /**
+     * Flips a Chit Card on a replica kept by a standby, as the leader flipped it. Nobody is told, and no snapshot is
+     * published, as nobody reads a replica until the standby takes over and publishes it.
+     * @param chit: The number of the Chit Card.
+     */
+    void follow(int chit) {
+        Runnable command = () -> {
+            state.flip(chit);
+            if (journal != null) {
+                journal.flipped(id, chit);
+            }
+            unpublished = true;
+        };
+        // The leader has already flipped it, so it is never refused; wait for room.
+        submitWaiting(NOBODY_LISTENING, command);
+    }
+
+    /**
+     * Publishes a snapshot of a replica as it stands, once the standby keeping it takes over.
+     */
+    void publishReplica() {
+        submitWaiting(NOBODY_LISTENING, publication);
+    }
+
+    /**
+     * Publishes a snapshot of the game if it was flipped as a replica since the last.
+     */
+    private void publishIfFollowed() {
+        if (unpublished) {
+            publish();
+        }
+    }
+
+    /**
+     * Sits a connection in the next free seat, in the order the Dragons move.
+     * @param connection: The connection joining.
+     */
+    void join(ClientConnection connection) {
+        submit(connection, () -> sit(connection));
+    }
+
+    /**
+     * Sits the players of a table formed by the Lobby in seats in the given order, all in one command, so no seat can
+     * flip before every player has been told they are seated.
+     * @param connections: The connections of the players, in the order of their seats.
+     */
+    void seatAll(ClientConnection[] connections) {
+        Runnable command = () -> {
+            for (ClientConnection connection : connections) {
+                sit(connection);
+            }
+        };
+        // Seating a table is never refused, or its players would wait forever; wait for room.
+        submitWaiting(NOBODY_LISTENING, command);
+    }
+
+    /**
+     * Sits a connection in the next free seat. Run on the game's single writer.
+     * @param connection: The connection joining.
+     */
+    private void sit(ClientConnection connection) {
+        if (numJoined == seats.length) {
+            connection.send("ERROR Game " + id + " is full");
+            return;
+        }
+        int seat = numJoined++;
+        seats[seat] = connection;
+        connection.setSession(this, seat);
+        connection.send("JOINED " + id + " " + seat + " " + seats.length + " " + state.getNumChits() + " "
+                + boardName + " " + seed);
+        publish();
+        broadcast("SEATED " + seat);
+        // A player seated by the Lobby may have gone before the seat was given, and will not leave it.
+        if (connection.isClosed()) {
+            seats[seat] = null;
+            publish();
+            broadcast("LEFT " + seat);
+        }
+    }
+
+    /**
+     * Flips a Chit Card for the Dragon in a seat, if it is that Dragon's turn, and tells every seat and watcher what
+     * happened. A seat taken by a connection can only be played by that connection; a free seat can be played by any
+     * caller without a seat, such as the HTTP API, which is then told the result as well.
+     * @param caller: The recipient flipping.
+     * @param seat: The seat to flip for.
+     * @param chit: The number of the Chit Card.
+     */
+    void flip(Recipient caller, int seat, int chit) {
+        submit(caller, () -> {
+            if (state.isOver()) {
+                caller.send("ERROR The game is over");
+            }
+            else if (seat < 0 || seat >= seats.length || (seats[seat] != null && seats[seat] != caller)) {
+                caller.send("ERROR Seat " + seat + " is not yours");
+            }
+            else if (seat != state.getCurrent()) {
+                caller.send("ERROR It is not your turn");
+            }
+            else if (chit < 0 || chit >= state.getNumChits() || state.isFlipped(chit)) {
+                caller.send("ERROR Chit Card " + chit + " cannot be flipped");
+            }
+            else {
+                // Remember where the Dragons were, to send spectators and binary seats only what changed.
+                boolean deltas = hasSpectators() || hasBinarySeats();
+                if (deltas) {
+                    rememberPlayers();
+                }
+                FlipOutcome outcome = state.flip(chit);
+                if (journal != null) {
+                    journal.flipped(id, chit);
+                }
+                if (handoff != null) {
+                    addHandoff(chit);
+                }
+                publish();
+                if (hasSpectators()) {
+                    spectatorHub.publish(encodeDelta(chit, outcome), this::encodeSnapshot);
+                }
+                String line = "FLIPPED " + seat + " " + chit + " " + state.getRevealedKind(chit) + " "
+                        + state.getRevealedValue(chit) + " " + outcome + " " + state.getCurrent() + " "
+                        + state.getWinner();
+                // Seats speaking the binary protocol share one DELTA frame in place of the line.
+                ByteBuffer frame = (deltas && hasBinarySeats()) ? encodeDeltaFrame(seat, chit, outcome) : null;
+                broadcast(line, frame);
+                if (frame != null) {
+                    server.getBufferPool().release(frame);
+                }
+                if (seats[seat] != caller) {
+                    caller.send(line);
+                }
+                // A game played without seats is forgotten once it is over.
+                if (state.isOver() && isEmpty()) {
+                    server.removeSession(this);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sits a connection in a given free seat, such as a player whose game was handed over from another server. The
+     * other seats are not told, as to them the player never left.
+     * @param connection: The connection joining.
+     * @param seat: The seat to take.
+     */
+    void rejoin(ClientConnection connection, int seat) {
+        submit(connection, () -> {
+            if (seat < 0 || seat >= seats.length || seats[seat] != null) {
+                connection.send("ERROR Seat " + seat + " is not free");
+                return;
+            }
+            seats[seat] = connection;
+            numJoined = Math.max(numJoined, seat + 1);
+            connection.setSession(this, seat);
+            connection.send("JOINED " + id + " " + seat + " " + seats.length + " " + state.getNumChits() + " "
+                    + boardName + " " + seed);
+            publish();
+            if (connection.isClosed()) {
+                seats[seat] = null;
+                publish();
+                broadcast("LEFT " + seat);
+            }
+        });
+    }
+
+    /**
+     * Starts handing the game over by sending its progress, and keeps every Chit Card flipped from now on until it is
+     * frozen. The game goes on being played meanwhile. Answered with
+     * EXPORTED id board players seed joined progress, the progress in Base64.
+     * @param caller: The recipient to send the progress to.
+     */
+    void export(Recipient caller) {
+        Runnable command = () -> {
+            handoff = new int[16];
+            numHandoff = 0;
+            caller.send("EXPORTED " + id + " " + boardName + " " + seats.length + " " + seed + " " + numJoined + " "
+                    + Base64.getEncoder().encodeToString(state.saveProgress()));
+        };
+        // An admin command is never refused; wait for room.
+        submitWaiting(NOBODY_LISTENING, command);
+    }
+
+    /**
+     * Finishes handing the game over: runs every command queued before, then sends the Chit Cards flipped since it was
+     * exported and turns every later command away. Answered with FROZEN id and the Chit Cards, in order.
+     * @param caller: The recipient to send the Chit Cards to.
+     */
+    void freeze(Recipient caller) {
+        Runnable command = () -> {
+            if (handoff == null) {
+                caller.send("ERROR Game " + id + " has not been exported");
+                return;
+            }
+            StringBuilder line = new StringBuilder("FROZEN ").append(id);
+            for (int i = 0; i < numHandoff; i++) {
+                line.append(' ').append(handoff[i]);
+            }
+            moved = true;
+            handoff = null;
+            server.removeSession(this);
+            caller.send(line.toString());
+        };
+        submitWaiting(NOBODY_LISTENING, command);
+    }
+
+    /**
+     * Keeps a Chit Card flipped while the game is being handed over.
+     * @param chit: The number of the Chit Card.
+     */
+    private void addHandoff(int chit) {
+        if (numHandoff == handoff.length) {
+            handoff = Arrays.copyOf(handoff, numHandoff * 2);
+        }
+        handoff[numHandoff++] = chit;
+    }
+
+    /**
+     * Flips the Chit Cards of a game read back from a write-ahead log, before anyone can see the game.
+     * @param flips: The Chit Cards flipped, in order.
+     */
+    void replay(int[] flips) {
+        for (int chit : flips) {
+            state.flip(chit);
+        }
+        publish();
+    }
+
+    /**
+     * Counts a change of the game and publishes a new snapshot of it. Only called by the game's single writer.
+     */
+    private void publish() {
+        unpublished = false;
+        version++;
+        snapshot = GameSnapshot.of(state, version);
+    }
+
+    /**
+     * Starts sending a connection a snapshot of the game and then a delta of each change.
+     * @param connection: The connection watching.
+     */
+    void spectate(ClientConnection connection) {
+        submit(connection, () -> {
+            Spectator spectator = new Spectator(connection);
+            if (spectatorHub == null) {
+                spectatorHub = new SpectatorHub();
+            }
+            spectatorHub.subscribe(spectator, encodeSnapshot());
+            server.execute(spectator);
+        });
+    }
+
+    /**
+     * Stops sending the changes of the game to a connection.
+     * @param connection: The connection that was watching.
+     */
+    void unspectate(ClientConnection connection) {
+        // Like leaving, this is never refused, or the spectator would be fed forever.
+        submitWaiting(connection, () -> {
+            if (spectatorHub != null) {
+                spectatorHub.unsubscribe(connection);
+            }
+        });
+    }
+
+    /**
+     * A method to check whether the game has any spectators. Only called by the game's single writer.
+     * @return True if a spectator is sent the changes of the game.
+     */
+    private boolean hasSpectators() {
+        return spectatorHub != null && spectatorHub.hasSpectators();
+    }
+
+    /**
+     * Remembers the position and stun of each Dragon before a flip, making the arrays kept for it the first time.
+     * Only called by the game's single writer.
+     */
+    private void rememberPlayers() {
+        if (previousPositions == null) {
+            previousPositions = new int[seats.length];
+            previousStunned = new boolean[seats.length];
+        }
+        for (int player = 0; player < seats.length; player++) {
+            previousPositions[player] = state.getPosition(player);
+            previousStunned[player] = state.isStunned(player);
+        }
+    }
+
+    /**
+     * Encodes what the last flip changed, for spectators:
+     * DELTA version turns current winner chit kind value outcome, then M seat from to for each Dragon that moved and
+     * S seat stunned for each Dragon whose stun changed.
+     * @param chit: The number of the Chit Card flipped.
+     * @param outcome: What happened.
+     * @return the encoded line.
+     */
+    private byte[] encodeDelta(int chit, FlipOutcome outcome) {
+        StringBuilder line = new StringBuilder(64).append("DELTA ").append(version).append(' ')
+                .append(state.getTurns()).append(' ').append(state.getCurrent()).append(' ').append(state.getWinner())
+                .append(' ').append(chit).append(' ').append(state.getRevealedKind(chit)).append(' ')
+                .append(state.getRevealedValue(chit)).append(' ').append(outcome);
+        for (int player = 0; player < seats.length; player++) {
+            if (state.getPosition(player) != previousPositions[player]) {
+                line.append(" M ").append(player).append(' ').append(previousPositions[player]).append(' ')
+                        .append(state.getPosition(player));
+            }
+        }
+        for (int player = 0; player < seats.length; player++) {
+            if (state.isStunned(player) != previousStunned[player]) {
+                line.append(" S ").append(player).append(' ').append(state.isStunned(player) ? 1 : 0);
+            }
+        }
+        return line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes what the last flip changed as a DELTA frame of the binary protocol, in a buffer from the server's pool.
+     * @param seat: The seat that flipped.
+     * @param chit: The number of the Chit Card flipped.
+     * @param outcome: What happened.
+     * @return the frame, from its start to its limit, to be given back to the pool once it is sent.
+     */
+    private ByteBuffer encodeDeltaFrame(int seat, int chit, FlipOutcome outcome) {
+        if (binaryDelta == null) {
+            binaryDelta = new TurnDelta();
+        }
+        binaryDelta.set(version, state.getTurns(), seat, state.getCurrent(), state.getWinner(), chit,
+                state.getRevealedKind(chit), state.getRevealedValue(chit), outcome.ordinal());
+        for (int player = 0; player < seats.length; player++) {
+            if (state.getPosition(player) != previousPositions[player]) {
+                binaryDelta.addMove(player, previousPositions[player], state.getPosition(player));
+            }
+            if (state.isStunned(player) != previousStunned[player]) {
+                binaryDelta.addStun(player, state.isStunned(player));
+            }
+        }
+        ByteBuffer frame = server.getBufferPool().acquire();
+        int start = FrameCodec.begin(frame, FrameCodec.DELTA);
+        binaryDelta.encode(frame);
+        FrameCodec.end(frame, start);
+        return frame.flip();
+    }
+
+    /**
+     * Sends the whole game to a connection speaking the binary protocol as a SNAPSHOT frame. Read from the last
+     * snapshot, so it never waits for the moves.
+     * @param connection: The connection asking.
+     */
+    void sendSnapshot(ClientConnection connection) {
+        GameSnapshot current = snapshot;
+        TableSnapshot table = new TableSnapshot();
+        table.set(current.getVersion(), current.getTurns(), current.getCurrent(), current.getWinner());
+        for (int player = 0; player < current.getNumPlayers(); player++) {
+            table.addPlayer(getPosition(current, player), current.isStunned(player));
+        }
+        for (int chit = 0; chit < current.getNumChits(); chit++) {
+            if (current.isFlipped(chit)) {
+                table.addFaceUp(chit, current.getFlippedKind(chit), current.getFlippedValue(chit));
+            }
+        }
+        ByteBuffer frame = server.getBufferPool().acquire();
+        try {
+            int start = FrameCodec.begin(frame, FrameCodec.SNAPSHOT);
+            table.encode(frame);
+            FrameCodec.end(frame, start);
+            connection.sendFrame(frame.flip());
+        } finally {
+            server.getBufferPool().release(frame);
+        }
+    }
+
+    /**
+     * Encodes the whole game for a spectator joining or catching up, at most once per version:
+     * SNAPSHOT version turns current winner numPlayers, the position and stun of each Dragon, then F and the number,
+     * kind and value of each face-up Chit Card.
+     * @return the encoded line.
+     */
+    private byte[] encodeSnapshot() {
+        if (encodedSnapshot != null && encodedSnapshotVersion == version) {
+            return encodedSnapshot;
+        }
+        StringBuilder line = new StringBuilder(128).append("SNAPSHOT ").append(version).append(' ')
+                .append(state.getTurns()).append(' ').append(state.getCurrent()).append(' ').append(state.getWinner())
+                .append(' ').append(seats.length);
+        for (int player = 0; player < seats.length; player++) {
+            line.append(' ').append(state.getPosition(player)).append(' ').append(state.isStunned(player) ? 1 : 0);
+        }
+        line.append(" F");
+        for (int chit = 0; chit < state.getNumChits(); chit++) {
+            if (state.isFlipped(chit)) {
+                line.append(' ').append(chit).append(' ').append(state.getRevealedKind(chit)).append(' ')
+                        .append(state.getRevealedValue(chit));
+            }
+        }
+        encodedSnapshot = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        encodedSnapshotVersion = version;
+        return encodedSnapshot;
+    }
+
+    /**
+     * Starts sending every event of the game to a watcher.
+     * @param watcher: The watcher.
+     */
+    void watch(Recipient watcher) {
+        List<Recipient> current = watchers;
+        if (current == null) {
+            synchronized (this) {
+                if (watchers == null) {
+                    watchers = new CopyOnWriteArrayList<>();
+                }
+                current = watchers;
+            }
+        }
+        current.add(watcher);
+    }
+
+    /**
+     * Stops sending the events of the game to a watcher.
+     * @param watcher: The watcher.
+     */
+    void unwatch(Recipient watcher) {
+        List<Recipient> current = watchers;
+        if (current != null) {
+            current.remove(watcher);
+        }
+    }
+
+    /**
+     * Sends the state of the game to a connection: whose turn it is, the winner, the number of turns, the position of
+     * each Dragon and which Chit Cards are face up. Read from the last snapshot, so it never waits for the moves.
+     * @param connection: The connection asking.
+     */
+    void sendState(Recipient connection) {
+        GameSnapshot current = snapshot;
+        StringBuilder line = new StringBuilder("STATE ").append(current.getCurrent()).append(' ')
+                .append(current.getWinner()).append(' ').append(current.getTurns());
+        for (int player = 0; player < current.getNumPlayers(); player++) {
+            line.append(' ').append(getPosition(current, player));
+        }
+        line.append(" |");
+        for (int chit = 0; chit < current.getNumChits(); chit++) {
+            if (current.isFlipped(chit)) {
+                line.append(' ').append(chit);
+            }
+        }
+        connection.send(line.toString());
+    }
+
+    /**
+     * Works out the path entry of a Dragon in a snapshot from its ring index.
+     * @param snapshot: The snapshot.
+     * @param player: The Dragon.
+     * @return the path entry it was at: a Square, or the number of Squares plus a Cave.
+     */
+    int getPosition(GameSnapshot snapshot, int player) {
+        return layout.getTopology().getPathEntry(snapshot.getRingIndex(player));
+    }
+
+    /**
+     * Frees the seat of a connection that has left. The game is forgotten once it is over, or once every seat has been
+     * taken and left.
+     * @param connection: The connection leaving.
+     * @param seat: The seat of the connection.
+     */
+    void leave(ClientConnection connection, int seat) {
+        Runnable command = () -> {
+            if (seats[seat] != connection) {
+                return;
+            }
+            seats[seat] = null;
+            publish();
+            broadcast("LEFT " + seat);
+            if (isEmpty() && (state.isOver() || numJoined == seats.length)) {
+                server.removeSession(this);
+            }
+        };
+        // Leaving is never refused, or the seat would stay taken; wait for room.
+        submitWaiting(connection, command);
+    }
+
+    /**
+     * Sends a line to every seated connection and every watcher.
+     * @param line: The line to send.
+     */
+    private void broadcast(String line) {
+        broadcast(line, null);
+    }
+
+    /**
+     * Sends an event to every seated connection and every watcher, as a frame to those speaking the binary protocol
+     * and as a line to the rest.
+     * @param line: The line to send.
+     * @param frame: The frame to send in place of the line, or null to send the line to everyone.
+     */
+    private void broadcast(String line, ByteBuffer frame) {
+        for (ClientConnection seated : seats) {
+            if (seated != null && (frame == null || !seated.sendFrame(frame))) {
+                seated.send(line);
+            }
+        }
+        List<Recipient> current = watchers;
+        if (current == null) {
+            return;
+        }
+        for (Recipient watcher : current) {
+            watcher.send(line);
+        }
+    }
+
+    /**
+     * A method to check whether any seat is taken by a connection speaking the binary protocol.
+     * @return True if a seat is sent frames.
+     */
+    private boolean hasBinarySeats() {
+        for (ClientConnection seated : seats) {
+            if (seated instanceof BinaryConnection) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A method to check whether every seat is free.
+     * @return True if nobody is seated.
+     */
+    private boolean isEmpty() {
+        for (ClientConnection seated : seats) {
+            if (seated != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method to set the number of seats that have been taken, for a game handed over before anyone can see it.
+     * @param numJoined: The number of seats that had been taken.
+     */
+    void setNumJoined(int numJoined) {
+        this.numJoined = numJoined;
+    }
+
+    /**
+     * A method to return the id data attribute.
+     * @return the number of the game.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * A method to return the boardName data attribute.
+     * @return the name of the board definition the game was dealt from.
+     */
+    public String getBoardName() {
+        return boardName;
+    }
+
+    /**
+     * A method to return the number of Dragons in the game.
+     * @return the number of seats.
+     */
+    public int getNumPlayers() {
+        return seats.length;
+    }
+
+    /**
+     * Stops feeding the spectators of the game, if it ever had any.
+     */
+    void closeSpectators() {
+        SpectatorHub hub = spectatorHub;
+        if (hub != null) {
+            hub.close();
+        }
+    }
+
+    /**
+     * A method to return the version of the snapshot data attribute.
+     * @return the number of times the game has changed.
+     */
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * A method to return the snapshot data attribute. Safe to call from any thread.
+     * @return the snapshot of the game last published.
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * A method to return the topology of the layout, whose Volcano path is the same as the game's own.
+     * @return the shape of the Volcano.
+     */
+    public BoardTopology getTopology() {
+        return layout.getTopology();
+    }
+
+    /**
+     * A method to check whether the state of the game is in memory.
+     * @return False while the game is passivated.
+     */
+    public boolean isResident() {
+        return resident;
+    }
+
+    /**
+     * A method to return the lastUsed data attribute.
+     * @return the time the game was last sent a command, in nanoseconds.
+     */
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * A method to return the stateFootprint data attribute.
+     * @return the estimated bytes of heap the state takes up while resident.
+     */
+    long getStateFootprint() {
+        return stateFootprint;
+    }
+
+    /**
+     * Estimates the bytes of heap the whole game takes up: the shell kept for as long as the game is hosted, with its
+     * seats, queue, snapshot and whatever parts it has made, and the state while resident or its progress while
+     * passivated. Read without locking, so only an estimate while the game is changing.
+     * @return the estimated bytes.
+     */
+    long getFootprint() {
+        long bytes = SHELL_BYTES + GameState.arrayBytes(seats.length, Integer.BYTES) + commands.getFootprint()
+                + snapshot.getFootprint();
+        List<Recipient> watching = watchers;
+        if (watching != null) {
+            bytes += LIST_BYTES + GameState.arrayBytes(watching.size(), Integer.BYTES);
+        }
+        if (spectatorHub != null) {
+            bytes += LIST_BYTES;
+        }
+        int[] positions = previousPositions;
+        if (positions != null) {
+            bytes += GameState.arrayBytes(positions.length, Integer.BYTES) + GameState.arrayBytes(positions.length, 1);
+        }
+        byte[] encoded = encodedSnapshot;
+        if (encoded != null) {
+            bytes += GameState.arrayBytes(encoded.length, 1);
+        }
+        EncodedState json = encodedState;
+        if (json != null) {
+            bytes += GameState.arrayBytes(json.getJson().length, 1);
+        }
+        byte[] kept = progress;
+        return bytes + (resident ? stateFootprint : (kept != null) ? GameState.arrayBytes(kept.length, 1) : 0);
+    }
+
+    /**
+     * A method to return the state of the game as JSON, if it has been encoded for a version.
+     * @param version: The version wanted.
+     * @return the encoded state, or null if that version has not been encoded.
+     */
+    EncodedState getEncodedState(long version) {
+        EncodedState encoded = encodedState;
+        return (encoded != null && encoded.getVersion() == version) ? encoded : null;
+    }
+
+    /**
+     * A method to keep the state of the game as JSON. Readers encoding at the same time may race, in which case the
+     * last one kept wins; an older version only costs the next reader one more encoding.
+     * @param version: The version that was encoded.
+     * @param json: The encoded state.
+     * @return the encoded state.
+     */
+    EncodedState setEncodedState(long version, byte[] json) {
+        EncodedState encoded = new EncodedState(version, json);
+        encodedState = encoded;
+        return encoded;
+    }
+
+    /**
+     * A method to check whether the game is over.
+     * @return True if a Dragon has won.
+     */
+    boolean isOver() {
+        return snapshot.isOver();
+    }
+
+    /**
+     * A method to return the seed data attribute.
+     * @return the seed the game was dealt from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
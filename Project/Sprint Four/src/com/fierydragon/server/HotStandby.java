@@ -0,0 +1,171 @@
+package com.fierydragon.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A class representing the follower's end of hot-standby replication: it keeps a replica of every game of a leader in
+ * a GameServer that is not yet serving, from the batches of journal records the leader's ReplicationServer ships, and
+ * promotes the server once the leader is lost.
+ * The replicas are fed through the same single writer as any game, and recorded in the standby's own journal, so they
+ * are warm: when the leader is lost, the standby only has to take over the leader's port to serve every game where it
+ * stood, with every seat free so its players can join again, as after a restart. The leader is lost when its stream
+ * ends or sends nothing, not even a heartbeat, for half a second.
+ * Only one process can listen on a port, so the standby can never serve alongside a leader that is still alive: if it
+ * cannot take the port, it follows the leader again from a new snapshot.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see ReplicationServer
+ * @see GameJournal
+ */
+
+public class HotStandby {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The milliseconds without a record from the leader after which it is lost.
+     */
+    private static final int LOSS_MILLIS = 500;
+    /**
+     * The milliseconds between attempts to connect to the leader.
+     */
+    private static final long RETRY_MILLIS = 50;
+    /**
+     * The server keeping the replicas.
+     */
+    private final GameServer server;
+    /**
+     * The host of the leader.
+     */
+    private final String leaderHost;
+    /**
+     * The port the leader ships its batches on.
+     */
+    private final int leaderPort;
+    /**
+     * The number of records applied.
+     */
+    private volatile long numRecords;
+
+    /**
+     * HotStandby Constructor.
+     * @param server: The server keeping the replicas, with its journal already recovered.
+     * @param leaderHost: The host of the leader.
+     * @param leaderPort: The port the leader ships its batches on.
+     */
+    public HotStandby(GameServer server, String leaderHost, int leaderPort) {
+        this.server = server;
+        this.leaderHost = leaderHost;
+        this.leaderPort = leaderPort;
+    }
+
+    /**
+     * Follows the leader until it is lost, then takes over the port it served its clients on.
+     * @param port: The port the leader served its clients on.
+     * @param address: The address the leader served its clients on, or null for every address.
+     * @return the milliseconds from the last record of the leader to taking over its port.
+     */
+    public long follow(int port, InetAddress address) {
+        boolean followed = false;
+        long lastHeard = 0;
+        while (true) {
+            try (Socket socket = new Socket(leaderHost, leaderPort)) {
+                socket.setSoTimeout(LOSS_MILLIS);
+                // Forget the replicas kept before, as the leader sends a snapshot of every game.
+                server.clearReplicas();
+                followed = true;
+                LOGGER.log(System.Logger.Level.INFO, "Following the leader at {0}:{1}", leaderHost, Integer.toString(leaderPort));
+                GameJournal.RecordReader reader = new GameJournal.RecordReader(socket.getInputStream());
+                ByteBuffer record;
+                while ((record = reader.next()) != null) {
+                    lastHeard = System.nanoTime();
+                    apply(record);
+                }
+            } catch (IOException e) {
+                // The leader could not be reached, or was lost.
+            }
+
+            // Take over the leader's port, unless the leader was never reached or still has it.
+            if (followed) {
+                try {
+                    server.listen(port, address);
+                    // Replicas are published once they are served rather than on every flip.
+                    for (GameSession session : server.getSessions()) {
+                        session.publishReplica();
+                    }
+                    return (System.nanoTime() - lastHeard) / 1_000_000;
+                } catch (IOException e) {
+                    // The leader is still alive; follow it again.
+                }
+            }
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Applies one record shipped by the leader to the replicas.
+     * @param record: The record, without its frame.
+     */
+    private void apply(ByteBuffer record) {
+        byte type = record.get();
+        long id = record.getLong();
+        GameSession session = server.getSession(id);
+        switch (type) {
+            case GameJournal.CREATED, GameJournal.SNAPSHOT -> {
+                int numPlayers = record.getShort();
+                long seed = record.getLong();
+                byte[] name = new byte[record.getShort()];
+                record.get(name);
+                byte[] progress = null;
+                if (type == GameJournal.SNAPSHOT) {
+                    progress = new byte[record.getShort()];
+                    record.get(progress);
+                }
+                server.replicate(id, new String(name, StandardCharsets.UTF_8), numPlayers, seed, progress);
+            }
+            case GameJournal.PROGRESS -> {
+                // A game the leader adopted starts again from the progress it had made.
+                if (session != null) {
+                    byte[] progress = new byte[record.getShort()];
+                    record.get(progress);
+                    server.replicate(id, session.getBoardName(), session.getNumPlayers(), session.getSeed(), progress);
+                }
+            }
+            case GameJournal.FLIPPED -> {
+                // Flips of a game whose snapshot has not arrived are already part of it.
+                if (session != null) {
+                    session.follow(record.getShort());
+                }
+            }
+            case GameJournal.ENDED -> {
+                if (session != null) {
+                    server.removeSession(session);
+                }
+            }
+            default -> {
+                // A heartbeat, or a record of an unknown type, changes nothing.
+            }
+        }
+        numRecords++;
+    }
+
+    /**
+     * A method to return the numRecords data attribute.
+     * @return the number of records applied.
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+}
@@ -0,0 +1,605 @@
+package com.fierydragon.server;
+
+import com.fierydragon.engine.ChitDeck;
+import com.fierydragon.engine.GameSnapshot;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.utils.SaveFolder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * A class representing a local HTTP/JSON API to drive and inspect the games of a GameServer without the JavaFX window,
+ * built on the JDK's own HTTP server with a virtual thread per request where the runtime has them:
+ * <pre>
+ * POST /games?board=standard&amp;players=2&amp;seed=1   creates a game
+ * GET  /games                                     lists the games
+ * GET  /games/{id}                                the state of a game, with an ETag
+ * POST /games/{id}/flips?seat=0&amp;chit=5            flips a Chit Card for a free seat
+ * GET  /games/{id}/events                         streams the events of a game as server-sent events
+ * GET  /saves                                     lists the games saved by the Save Game button
+ * GET  /saves/{name}                              the Saveable fields of a saved game, with an ETag
+ * </pre>
+ * The state of a game is read from its last published GameSnapshot and encoded once per change and kept, so clients
+ * polling with If-None-Match are answered with 304 Not Modified, and clients polling without it get the kept bytes,
+ * without ever waiting behind the moves of the game.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameServer
+ * @see JsonWriter
+ */
+
+public class HttpApi implements Closeable {
+    /**
+     * The port the API listens on when none is given.
+     */
+    public static final int DEFAULT_PORT = 7078;
+    /**
+     * The most seconds a request waits for a busy game.
+     */
+    private static final long TIMEOUT_SECONDS = 5;
+    /**
+     * The seconds between keep-alive comments on an idle event stream, which also notice clients that have gone away.
+     */
+    private static final long HEARTBEAT_SECONDS = 15;
+    /**
+     * The most events waiting for a slow event stream before it is closed, so the client reconnects and catches up
+     * from the state instead of the game buffering without end.
+     */
+    private static final int EVENT_BUFFER = 256;
+    /**
+     * The names a saved game may have, so a request cannot reach outside the save folder.
+     */
+    private static final Pattern SAVE_NAME = Pattern.compile("[A-Za-z0-9_.-]+");
+    /**
+     * The server holding the games.
+     */
+    private final GameServer games;
+    /**
+     * The JDK HTTP server.
+     */
+    private final HttpServer httpServer;
+    /**
+     * The threads serving the requests.
+     */
+    private final ExecutorService requestThreads;
+
+    /**
+     * HttpApi Constructor.
+     * @param games: The server holding the games, shared with its TCP clients.
+     * @param port: The port to listen on, or 0 for any free port.
+     * @param address: The address to listen on.
+     * @throws IOException if the port cannot be opened.
+     */
+    public HttpApi(GameServer games, int port, InetAddress address) throws IOException {
+        this.games = games;
+        this.httpServer = HttpServer.create(new InetSocketAddress(address, port), 1024);
+        this.requestThreads = GameServer.newConnectionExecutor();
+        httpServer.setExecutor(requestThreads);
+        httpServer.createContext("/games", this::handleGames);
+        httpServer.createContext("/saves", this::handleSaves);
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Answers a request under /games.
+     * @param exchange: The request and its response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void handleGames(HttpExchange exchange) throws IOException {
+        // The exchange is only closed once the error has been sent.
+        try (exchange) {
+            try {
+                routeGames(exchange);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                sendError(exchange, 400, "Bad request: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Carries out a request under /games.
+     * @param exchange: The request and its response.
+     * @throws IOException if the response cannot be sent.
+     * @throws IllegalArgumentException if a number in the request cannot be read or the game cannot be created.
+     */
+    private void routeGames(HttpExchange exchange) throws IOException {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = query(exchange);
+        if (path.length == 2 && method.equals("GET")) {
+            listGames(exchange);
+        }
+        else if (path.length == 2 && method.equals("POST")) {
+            String seed = query.get("seed");
+            GameSession session = games.createSession(query.getOrDefault("board", "standard"),
+                    Integer.parseInt(query.getOrDefault("players", "2")), (seed != null) ? Long.valueOf(seed) : null);
+            JsonWriter json = JsonWriter.acquire();
+            try {
+                writeSummary(json, session);
+                sendJson(exchange, 201, json, null);
+            } finally {
+                JsonWriter.release(json);
+            }
+        }
+        else if (path.length >= 3) {
+            GameSession session = games.getSession(Long.parseLong(path[2]));
+            if (session == null) {
+                sendError(exchange, 404, "No game " + path[2]);
+            }
+            else if (path.length == 3 && method.equals("GET")) {
+                sendState(exchange, session);
+            }
+            else if (path.length == 4 && path[3].equals("flips") && method.equals("POST")) {
+                flip(exchange, session, Integer.parseInt(query.get("seat")), Integer.parseInt(query.get("chit")));
+            }
+            else if (path.length == 4 && path[3].equals("events") && method.equals("GET")) {
+                streamEvents(exchange, session);
+            }
+            else {
+                sendError(exchange, 404, "No such request");
+            }
+        }
+        else {
+            sendError(exchange, 404, "No such request");
+        }
+    }
+
+    /**
+     * Sends the list of games being played.
+     * @param exchange: The request and its response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void listGames(HttpExchange exchange) throws IOException {
+        JsonWriter json = JsonWriter.acquire();
+        try {
+            json.beginObject().name("games").beginArray();
+            for (GameSession session : games.getSessions()) {
+                writeSummary(json, session);
+            }
+            json.endArray().endObject();
+            sendJson(exchange, 200, json, null);
+        } finally {
+            JsonWriter.release(json);
+        }
+    }
+
+    /**
+     * Sends the state of a game. The state is read from the game's last published snapshot without waiting for the
+     * game, encoded the first time it is asked for after a change, and the kept bytes are sent until the next change.
+     * @param exchange: The request and its response.
+     * @param session: The game.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void sendState(HttpExchange exchange, GameSession session) throws IOException {
+        GameSnapshot snapshot = session.getSnapshot();
+        // Answer a client that already has the current version without encoding anything.
+        if (notModified(exchange, etag(session, snapshot))) {
+            return;
+        }
+
+        GameSession.EncodedState encoded = session.getEncodedState(snapshot.getVersion());
+        if (encoded == null) {
+            JsonWriter json = JsonWriter.acquire();
+            try {
+                writeState(json, session, snapshot);
+                encoded = session.setEncodedState(snapshot.getVersion(), json.toBytes());
+            } finally {
+                JsonWriter.release(json);
+            }
+        }
+        send(exchange, 200, encoded.getJson(), encoded.getJson().length);
+    }
+
+    /**
+     * Flips a Chit Card for a free seat and sends what happened. A flip the game turns away is answered with 409, and
+     * a flip the game was too busy to queue with 503, so a client knows to try it again later.
+     * @param exchange: The request and its response.
+     * @param session: The game.
+     * @param seat: The seat to flip for.
+     * @param chit: The number of the Chit Card.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void flip(HttpExchange exchange, GameSession session, int seat, int chit) throws IOException {
+        CompletableFuture<String> reply = new CompletableFuture<>();
+        session.flip(reply::complete, seat, chit);
+        String line = await(reply);
+        // A full queue is worth retrying later, unlike a flip the game turned away.
+        if (line == null || line.equals("ERROR Game " + session.getId() + GameSession.BUSY)) {
+            sendError(exchange, 503, "Game " + session.getId() + GameSession.BUSY);
+            return;
+        }
+        if (line.startsWith("ERROR ")) {
+            sendError(exchange, 409, line.substring(6));
+            return;
+        }
+
+        // FLIPPED seat chit kind value outcome current winner
+        String[] words = line.split(" ");
+        JsonWriter json = JsonWriter.acquire();
+        try {
+            json.beginObject()
+                    .field("seat", Long.parseLong(words[1]))
+                    .field("chit", Long.parseLong(words[2]))
+                    .field("display", ChitDeck.displayOf(Integer.parseInt(words[3])))
+                    .field("value", Long.parseLong(words[4]))
+                    .field("outcome", words[5])
+                    .field("current", Long.parseLong(words[6]))
+                    .field("winner", Long.parseLong(words[7]))
+                    .endObject();
+            sendJson(exchange, 200, json, null);
+        } finally {
+            JsonWriter.release(json);
+        }
+    }
+
+    /**
+     * Streams the events of a game as server-sent events, one event per line the seats are sent, until the game ends,
+     * the client goes away or the client falls too far behind.
+     * @param exchange: The request and its response.
+     * @param session: The game.
+     * @throws IOException if the stream cannot be written.
+     */
+    private void streamEvents(HttpExchange exchange, GameSession session) throws IOException {
+        BlockingQueue<String> events = new ArrayBlockingQueue<>(EVENT_BUFFER);
+        AtomicBoolean overflowed = new AtomicBoolean();
+        Recipient watcher = line -> {
+            if (!events.offer(line)) {
+                overflowed.set(true);
+            }
+        };
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        session.watch(watcher);
+        try {
+            OutputStream out = exchange.getResponseBody();
+            while (!overflowed.get()) {
+                String line = events.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                if (line == null) {
+                    // Stop once the game has been forgotten, otherwise keep the idle stream alive.
+                    if (games.getSession(session.getId()) != session) {
+                        break;
+                    }
+                    out.write(": keep-alive\n\n".getBytes(StandardCharsets.UTF_8));
+                }
+                else {
+                    out.write(("data: " + line + "\n\n").getBytes(StandardCharsets.UTF_8));
+                }
+                out.flush();
+                // A winning flip ends the stream.
+                if (line != null && line.startsWith("FLIPPED ") && !line.endsWith(" " + GameState.NOBODY)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            session.unwatch(watcher);
+        }
+    }
+
+    /**
+     * Answers a request under /saves.
+     * @param exchange: The request and its response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void handleSaves(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Saved games can only be read");
+                return;
+            }
+            // The error is sent before the exchange is closed.
+            File saveFolder;
+            try {
+                saveFolder = SaveFolder.locate();
+            } catch (URISyntaxException e) {
+                sendError(exchange, 500, "The save folder cannot be found");
+                return;
+            }
+            if (path.length == 2) {
+                listSaves(exchange, saveFolder);
+            }
+            else if (path.length == 3 && SAVE_NAME.matcher(path[2]).matches()) {
+                sendSave(exchange, new File(saveFolder, path[2]));
+            }
+            else {
+                sendError(exchange, 404, "No such request");
+            }
+        }
+    }
+
+    /**
+     * Sends the list of saved games, with an ETag made from their names, sizes and times.
+     * @param exchange: The request and its response.
+     * @param saveFolder: The folder the games are saved in.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void listSaves(HttpExchange exchange, File saveFolder) throws IOException {
+        File[] files = saveFolder.listFiles(File::isFile);
+        if (files == null) {
+            files = new File[0];
+        }
+        Arrays.sort(files);
+
+        long hash = 17;
+        for (File file : files) {
+            hash = hash * 31 + file.getName().hashCode();
+            hash = hash * 31 + file.length();
+            hash = hash * 31 + file.lastModified();
+        }
+        String etag = "\"saves-" + Long.toHexString(hash) + "\"";
+        if (notModified(exchange, etag)) {
+            return;
+        }
+
+        JsonWriter json = JsonWriter.acquire();
+        try {
+            json.beginObject().name("saves").beginArray();
+            for (File file : files) {
+                json.beginObject()
+                        .field("name", file.getName())
+                        .field("size", file.length())
+                        .field("modified", file.lastModified())
+                        .endObject();
+            }
+            json.endArray().endObject();
+            sendJson(exchange, 200, json, etag);
+        } finally {
+            JsonWriter.release(json);
+        }
+    }
+
+    /**
+     * Sends the fields of a saved game. Each line of the text written by GameBoard.save is a key and a value, sent as
+     * a JSON member of the same name.
+     * @param exchange: The request and its response.
+     * @param file: The save file.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void sendSave(HttpExchange exchange, File file) throws IOException {
+        if (!file.isFile()) {
+            sendError(exchange, 404, "No saved game " + file.getName());
+            return;
+        }
+        String etag = "\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+        if (notModified(exchange, etag)) {
+            return;
+        }
+
+        JsonWriter json = JsonWriter.acquire();
+        try {
+            json.beginObject().field("name", file.getName());
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                String[] keyValue = line.split(":\\s*", 2);
+                if (keyValue.length == 2) {
+                    json.field(keyValue[0].trim(), keyValue[1]);
+                }
+            }
+            json.endObject();
+            sendJson(exchange, 200, json, etag);
+        } finally {
+            JsonWriter.release(json);
+        }
+    }
+
+    /**
+     * Writes the summary of a game: its number, board, seed and version.
+     * @param json: The writer.
+     * @param session: The game.
+     */
+    private static void writeSummary(JsonWriter json, GameSession session) {
+        json.beginObject()
+                .field("id", session.getId())
+                .field("board", session.getBoardName())
+                .field("seed", session.getSeed())
+                .field("version", session.getVersion())
+                .endObject();
+    }
+
+    /**
+     * Writes the state of a game: whose turn it is, the winner, each Dragon and the face-up Chit Cards.
+     * @param json: The writer.
+     * @param session: The game.
+     * @param snapshot: The snapshot of the game to write.
+     */
+    private static void writeState(JsonWriter json, GameSession session, GameSnapshot snapshot) {
+        json.beginObject()
+                .field("id", session.getId())
+                .field("board", session.getBoardName())
+                .field("version", snapshot.getVersion())
+                .field("current", snapshot.getCurrent())
+                .field("winner", snapshot.getWinner())
+                .field("turns", snapshot.getTurns())
+                .field("over", snapshot.isOver());
+
+        // Each Dragon, in turn order.
+        json.name("dragons").beginArray();
+        for (int player = 0; player < snapshot.getNumPlayers(); player++) {
+            json.beginObject()
+                    .field("seat", player)
+                    .field("homeCave", snapshot.getHomeCave(player))
+                    .field("position", session.getPosition(snapshot, player))
+                    .field("ringIndex", snapshot.getRingIndex(player))
+                    .field("inCave", snapshot.isInCave(player))
+                    .field("passedCave", snapshot.hasPassedCave(player))
+                    .field("stunned", snapshot.isStunned(player))
+                    .endObject();
+        }
+        json.endArray();
+
+        // The face-up Chit Cards. Face-down ones keep their faces hidden.
+        json.field("numChits", snapshot.getNumChits()).name("flipped").beginArray();
+        for (int chit = 0; chit < snapshot.getNumChits(); chit++) {
+            if (snapshot.isFlipped(chit)) {
+                json.beginObject()
+                        .field("chit", chit)
+                        .field("display", ChitDeck.displayOf(snapshot.getFlippedKind(chit)))
+                        .field("value", snapshot.getFlippedValue(chit))
+                        .endObject();
+            }
+        }
+        json.endArray().endObject();
+    }
+
+    /**
+     * Answers 304 Not Modified if the client already has the given version.
+     * @param exchange: The request and its response.
+     * @param etag: The ETag of the current version.
+     * @return True if the response has been sent.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Makes the ETag of a version of a game. The version alone is not enough, as a game recovered from its journal,
+     * adopted by another process or taken over by a standby counts its versions from the start again, so the ETag also
+     * holds a hash of the game.
+     * @param session: The game.
+     * @param snapshot: The snapshot of the version.
+     * @return the ETag.
+     */
+    private static String etag(GameSession session, GameSnapshot snapshot) {
+        return "\"" + session.getId() + "-" + snapshot.getVersion() + "-" + Long.toHexString(snapshot.getContentHash()) + "\"";
+    }
+
+    /**
+     * Waits for a game to answer.
+     * @param result: The answer to come.
+     * @return the answer, or null if the game did not answer in time.
+     */
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sends the JSON written so far.
+     * @param exchange: The request and its response.
+     * @param status: The HTTP status.
+     * @param json: The writer holding the JSON.
+     * @param etag: The ETag to send, or null.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void sendJson(HttpExchange exchange, int status, JsonWriter json, String etag) throws IOException {
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, json.size());
+        json.writeTo(exchange.getResponseBody());
+    }
+
+    /**
+     * Sends an error as JSON.
+     * @param exchange: The request and its response.
+     * @param status: The HTTP status.
+     * @param message: The reason.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonWriter json = JsonWriter.acquire();
+        try {
+            json.beginObject().field("error", message).endObject();
+            sendJson(exchange, status, json, null);
+        } finally {
+            JsonWriter.release(json);
+        }
+    }
+
+    /**
+     * Sends bytes that are already JSON.
+     * @param exchange: The request and its response.
+     * @param status: The HTTP status.
+     * @param body: The JSON.
+     * @param length: The number of bytes of the JSON.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void send(HttpExchange exchange, int status, byte[] body, int length) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, length);
+        exchange.getResponseBody().write(body, 0, length);
+    }
+
+    /**
+     * Reads the query parameters of a request.
+     * @param exchange: The request.
+     * @return the parameters by name.
+     */
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            String[] nameValue = pair.split("=", 2);
+            parameters.put(URLDecoder.decode(nameValue[0], StandardCharsets.UTF_8),
+                    (nameValue.length > 1) ? URLDecoder.decode(nameValue[1], StandardCharsets.UTF_8) : "");
+        }
+        return parameters;
+    }
+
+    /**
+     * A method to return the port the API is listening on.
+     * @return the port.
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stops answering requests.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        requestThreads.shutdownNow();
+    }
+}
@@ -0,0 +1,394 @@
+package com.fierydragon.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A class that writes JSON straight into a reusable byte buffer, one name or value at a time, without building strings
+ * or a tree of objects first. Commas are placed automatically from a stack of open objects and arrays.
+ * Writers are kept in a small pool and handed out with acquire, so a busy server reuses the same few buffers instead
+ * of allocating one per request.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see HttpApi
+ */
+
+public final class JsonWriter {
+    /**
+     * The most writers kept in the pool.
+     */
+    private static final int POOL_SIZE = 64;
+    /**
+     * The size of a new buffer.
+     */
+    private static final int INITIAL_CAPACITY = 512;
+    /**
+     * The largest buffer returned to the pool, so one huge response does not pin its buffer forever.
+     */
+    private static final int MAX_POOLED_CAPACITY = 1 << 16;
+    /**
+     * The hexadecimal digits, for escaping control characters.
+     */
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    /**
+     * The writers waiting to be reused.
+     */
+    private static final Queue<JsonWriter> POOL = new ConcurrentLinkedQueue<>();
+    /**
+     * The number of writers in the pool.
+     */
+    private static final AtomicInteger POOLED = new AtomicInteger();
+    /**
+     * The bytes written so far.
+     */
+    private byte[] buffer;
+    /**
+     * The number of bytes written.
+     */
+    private int size;
+    /**
+     * For each open object or array, True until its first member has been written.
+     */
+    private boolean[] first;
+    /**
+     * The number of open objects and arrays.
+     */
+    private int depth;
+    /**
+     * A boolean denoting if a name has just been written, so the next value needs no comma.
+     */
+    private boolean afterName;
+
+    /**
+     * JsonWriter Constructor.
+     */
+    public JsonWriter() {
+        this.buffer = new byte[INITIAL_CAPACITY];
+        this.first = new boolean[16];
+    }
+
+    /**
+     * Hands out a writer from the pool, or a new one if the pool is empty.
+     * @return an empty writer.
+     */
+    public static JsonWriter acquire() {
+        JsonWriter writer = POOL.poll();
+        if (writer == null) {
+            return new JsonWriter();
+        }
+        POOLED.decrementAndGet();
+        return writer;
+    }
+
+    /**
+     * Returns a writer to the pool once its bytes have been used.
+     * @param writer: The writer.
+     */
+    public static void release(JsonWriter writer) {
+        if (writer.buffer.length > MAX_POOLED_CAPACITY) {
+            return;
+        }
+        // Let the writer go if the pool is already full.
+        if (POOLED.incrementAndGet() > POOL_SIZE) {
+            POOLED.decrementAndGet();
+            return;
+        }
+        writer.reset();
+        POOL.add(writer);
+    }
+
+    /**
+     * Empties the writer so it can be used again, keeping its buffer.
+     * @return this writer.
+     */
+    public JsonWriter reset() {
+        size = 0;
+        depth = 0;
+        afterName = false;
+        return this;
+    }
+
+    /**
+     * Opens an object.
+     * @return this writer.
+     */
+    public JsonWriter beginObject() {
+        return open('{');
+    }
+
+    /**
+     * Closes the open object.
+     * @return this writer.
+     */
+    public JsonWriter endObject() {
+        return close('}');
+    }
+
+    /**
+     * Opens an array.
+     * @return this writer.
+     */
+    public JsonWriter beginArray() {
+        return open('[');
+    }
+
+    /**
+     * Closes the open array.
+     * @return this writer.
+     */
+    public JsonWriter endArray() {
+        return close(']');
+    }
+
+    /**
+     * Writes the name of the next member of the open object.
+     * @param name: The name.
+     * @return this writer.
+     */
+    public JsonWriter name(String name) {
+        separate();
+        writeString(name);
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a number.
+     * @param value: The number.
+     * @return this writer.
+     */
+    public JsonWriter value(long value) {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return this;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        // Write the digits backwards into place.
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = size + digits - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+        return this;
+    }
+
+    /**
+     * Writes True or False.
+     * @param value: The boolean.
+     * @return this writer.
+     */
+    public JsonWriter value(boolean value) {
+        separate();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Writes a string, or null.
+     * @param value: The string.
+     * @return this writer.
+     */
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            writeAscii("null");
+        }
+        else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a member with a number value.
+     * @param name: The name.
+     * @param value: The number.
+     * @return this writer.
+     */
+    public JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a member with a boolean value.
+     * @param name: The name.
+     * @param value: The boolean.
+     * @return this writer.
+     */
+    public JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a member with a string value.
+     * @param name: The name.
+     * @param value: The string.
+     * @return this writer.
+     */
+    public JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes the bytes written so far to a stream.
+     * @param out: The stream.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    /**
+     * Copies the bytes written so far.
+     * @return the JSON as UTF-8 bytes.
+     */
+    public byte[] toBytes() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * A method to return the number of bytes written.
+     * @return the number of bytes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Opens an object or array.
+     * @param bracket: The opening bracket.
+     * @return this writer.
+     */
+    private JsonWriter open(char bracket) {
+        separate();
+        write(bracket);
+        if (depth == first.length) {
+            first = Arrays.copyOf(first, depth * 2);
+        }
+        first[depth++] = true;
+        return this;
+    }
+
+    /**
+     * Closes an object or array.
+     * @param bracket: The closing bracket.
+     * @return this writer.
+     */
+    private JsonWriter close(char bracket) {
+        if (depth == 0) {
+            throw new IllegalStateException("Nothing is open to close with " + bracket);
+        }
+        depth--;
+        write(bracket);
+        return this;
+    }
+
+    /**
+     * Writes a comma before a member or element unless it is the first one, or a value that follows its name.
+     */
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (first[depth - 1]) {
+                first[depth - 1] = false;
+            }
+            else {
+                write(',');
+            }
+        }
+    }
+
+    /**
+     * Writes a quoted, escaped string as UTF-8.
+     * @param value: The string.
+     */
+    private void writeString(String value) {
+        ensureCapacity(value.length() + 2);
+        write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                write('\\');
+                write(c);
+            }
+            else if (c < 0x20) {
+                write('\\');
+                write('u');
+                write('0');
+                write('0');
+                write(HEX[c >> 4]);
+                write(HEX[c & 0xF]);
+            }
+            else if (c < 0x80) {
+                write(c);
+            }
+            else if (c < 0x800) {
+                write(0xC0 | (c >> 6));
+                write(0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write(0xF0 | (codePoint >> 18));
+                write(0x80 | ((codePoint >> 12) & 0x3F));
+                write(0x80 | ((codePoint >> 6) & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            }
+            else {
+                write(0xE0 | (c >> 12));
+                write(0x80 | ((c >> 6) & 0x3F));
+                write(0x80 | (c & 0x3F));
+            }
+        }
+        write('"');
+    }
+
+    /**
+     * Writes a string of ASCII characters as they are.
+     * @param text: The text.
+     */
+    private void writeAscii(String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer[size++] = (byte) text.charAt(i);
+        }
+    }
+
+    /**
+     * Writes one byte.
+     * @param b: The byte.
+     */
+    private void write(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+
+    /**
+     * Grows the buffer so that a number of bytes fit after those written.
+     * @param extra: The number of bytes.
+     */
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.fierydragon.server;
+
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.LayoutCache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class representing the lobby of a GameServer, where players wait to be matched into a game by board, number of
+ * Dragons and rating.
+ * Each kind of table has its own queue, and the queues are spread over stripes, each with its own lock, so players
+ * waiting for different tables never wait for each other and there is no lock over the whole lobby. Whenever a queue
+ * holds enough players, every table it can fill is formed at once under its stripe's lock, and the games are created
+ * after letting go of it.
+ * Each table is dealt from a seed of its own, and its players take their seats in an order drawn from that seed, so
+ * the Seating spreads them around the Caves in the same way as the DragonFactory and the game can be dealt again.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameServer
+ * @see com.fierydragon.engine.Seating
+ */
+
+public class Lobby {
+    /**
+     * The number of stripes the queues are spread over, a power of two.
+     */
+    public static final int NUM_STRIPES = 64;
+    /**
+     * The width of the rating band of each queue, so players are only matched with players of a similar rating.
+     */
+    public static final int RATING_BAND = 200;
+    /**
+     * The rating of a player who does not give one.
+     */
+    public static final int DEFAULT_RATING = 1500;
+    /**
+     * The highest rating, so the number of queues stays bounded.
+     */
+    public static final int MAX_RATING = 4000;
+    /**
+     * The server the tables are created on.
+     */
+    private final GameServer server;
+    /**
+     * The stripes holding the queues.
+     */
+    private final Stripe[] stripes;
+    /**
+     * The kinds of table that have been checked, as board and number of Dragons.
+     */
+    private final Set<String> checked;
+    /**
+     * The random numbers the seeds of the tables are split from. Guarded by itself.
+     */
+    private final SplittableRandom seeds;
+    /**
+     * The number of players who have queued.
+     */
+    private final LongAdder numQueued;
+    /**
+     * The number of players who left the queue before being matched.
+     */
+    private final LongAdder numCancelled;
+    /**
+     * The number of tables formed.
+     */
+    private final LongAdder numTables;
+
+    /**
+     * A class representing a player waiting in the lobby.
+     */
+    static final class Ticket {
+        /**
+         * The connection of the player.
+         */
+        private final ClientConnection player;
+        /**
+         * The queue the player waits in.
+         */
+        private final String key;
+        /**
+         * A boolean denoting if the player has left the queue or been matched. Guarded by the lock of the stripe.
+         */
+        private boolean taken;
+
+        /**
+         * Ticket Constructor.
+         * @param player: The connection of the player.
+         * @param key: The queue the player waits in.
+         */
+        Ticket(ClientConnection player, String key) {
+            this.player = player;
+            this.key = key;
+        }
+    }
+
+    /**
+     * A class representing the players waiting for one kind of table.
+     */
+    private static final class Queue {
+        /**
+         * The name of the board definition file.
+         */
+        private final String boardName;
+        /**
+         * The number of Dragons at each table.
+         */
+        private final int numPlayers;
+        /**
+         * The players in the order they arrived, including those who have since left.
+         */
+        private final ArrayDeque<Ticket> tickets;
+        /**
+         * The number of players still waiting.
+         */
+        private int numWaiting;
+
+        /**
+         * Queue Constructor.
+         * @param boardName: The name of the board definition file.
+         * @param numPlayers: The number of Dragons at each table.
+         */
+        Queue(String boardName, int numPlayers) {
+            this.boardName = boardName;
+            this.numPlayers = numPlayers;
+            this.tickets = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * A class representing one stripe of the lobby: some of the queues and the lock guarding them.
+     */
+    private static final class Stripe {
+        /**
+         * The queues of the stripe, by key.
+         */
+        private final Map<String, Queue> queues = new HashMap<>();
+    }
+
+    /**
+     * A class representing a table formed from a queue, waiting for its game to be created.
+     */
+    private static final class Table {
+        /**
+         * The name of the board definition file.
+         */
+        private final String boardName;
+        /**
+         * The players, in the order they arrived.
+         */
+        private final Ticket[] players;
+
+        /**
+         * Table Constructor.
+         * @param boardName: The name of the board definition file.
+         * @param players: The players, in the order they arrived.
+         */
+        Table(String boardName, Ticket[] players) {
+            this.boardName = boardName;
+            this.players = players;
+        }
+    }
+
+    /**
+     * Lobby Constructor.
+     * @param server: The server the tables are created on.
+     */
+    Lobby(GameServer server) {
+        this.server = server;
+        this.stripes = new Stripe[NUM_STRIPES];
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.checked = ConcurrentHashMap.newKeySet();
+        this.seeds = new SplittableRandom();
+        this.numQueued = new LongAdder();
+        this.numCancelled = new LongAdder();
+        this.numTables = new LongAdder();
+    }
+
+    /**
+     * Checks that a player can wait for a kind of table, before they are told they are waiting.
+     * @param boardName: The name of the board definition file.
+     * @param numPlayers: The number of Dragons at the table.
+     * @param rating: The rating of the player.
+     * @throws IllegalArgumentException if the board cannot be loaded or does not have a Cave for every Dragon, or the
+     *                                  rating is out of range.
+     */
+    void check(String boardName, int numPlayers, int rating) {
+        if (rating < 0 || rating > MAX_RATING) {
+            throw new IllegalArgumentException("A rating must be from 0 to " + MAX_RATING);
+        }
+        String kind = boardName + "/" + numPlayers;
+        if (checked.contains(kind)) {
+            return;
+        }
+        // Load the board the first time, so later players are checked without reading it again.
+        CompiledLayout layout = LayoutCache.getInstance().load(boardName);
+        if (numPlayers < 2 || numPlayers > layout.getTopology().getNumCaves()) {
+            throw new IllegalArgumentException("The " + boardName + " board cannot seat " + numPlayers + " Dragons");
+        }
+        checked.add(kind);
+    }
+
+    /**
+     * Puts a player in the queue for a kind of table, and creates the games of any tables that can now be filled.
+     * The player is given its ticket before it can be matched.
+     * @param player: The connection of the player.
+     * @param boardName: The name of the board definition file.
+     * @param numPlayers: The number of Dragons at the table.
+     * @param rating: The rating of the player.
+     * @throws IllegalArgumentException if the kind of table or the rating does not pass the check.
+     */
+    void enqueue(ClientConnection player, String boardName, int numPlayers, int rating) {
+        check(boardName, numPlayers, rating);
+        String key = boardName + "/" + numPlayers + "/" + rating / RATING_BAND;
+        Ticket ticket = new Ticket(player, key);
+        player.setTicket(ticket);
+        Stripe stripe = stripeOf(key);
+        List<Table> tables = null;
+
+        synchronized (stripe) {
+            Queue queue = stripe.queues.computeIfAbsent(key, ignored -> new Queue(boardName, numPlayers));
+            queue.tickets.add(ticket);
+            queue.numWaiting++;
+
+            // Form every table the queue can fill.
+            while (queue.numWaiting >= queue.numPlayers) {
+                if (tables == null) {
+                    tables = new ArrayList<>();
+                }
+                tables.add(formTable(queue));
+            }
+        }
+        numQueued.increment();
+
+        if (tables != null) {
+            for (Table table : tables) {
+                seat(table);
+            }
+        }
+    }
+
+    /**
+     * Takes a player out of the queue, unless they have already been matched.
+     * @param ticket: The ticket of the player.
+     * @return True if the player was still waiting.
+     */
+    boolean cancel(Ticket ticket) {
+        Stripe stripe = stripeOf(ticket.key);
+        synchronized (stripe) {
+            if (ticket.taken) {
+                return false;
+            }
+            ticket.taken = true;
+            Queue queue = stripe.queues.get(ticket.key);
+            queue.numWaiting--;
+            // Let go of the players who have left at the front, so the queue does not fill with them.
+            while (!queue.tickets.isEmpty() && queue.tickets.peekFirst().taken) {
+                queue.tickets.pollFirst();
+            }
+        }
+        numCancelled.increment();
+        return true;
+    }
+
+    /**
+     * Takes the players who have waited longest out of a queue to form a table. Called under the lock of the stripe.
+     * @param queue: The queue, holding enough players.
+     * @return the table.
+     */
+    private Table formTable(Queue queue) {
+        Ticket[] players = new Ticket[queue.numPlayers];
+        int numTaken = 0;
+        while (numTaken < players.length) {
+            Ticket ticket = queue.tickets.pollFirst();
+            // Skip the players who have left.
+            if (!ticket.taken) {
+                ticket.taken = true;
+                players[numTaken++] = ticket;
+            }
+        }
+        queue.numWaiting -= players.length;
+        return new Table(queue.boardName, players);
+    }
+
+    /**
+     * Creates the game of a table and seats its players in an order drawn from the seed of the game.
+     * @param table: The table.
+     */
+    private void seat(Table table) {
+        long seed;
+        synchronized (seeds) {
+            seed = seeds.nextLong();
+        }
+        GameSession session = server.createSession(table.boardName, table.players.length, seed);
+
+        // Shuffle the seats with the seed of the game, so nobody always moves first.
+        Ticket[] players = table.players;
+        Random random = new Random(seed);
+        for (int i = players.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Ticket swap = players[i];
+            players[i] = players[j];
+            players[j] = swap;
+        }
+        ClientConnection[] connections = new ClientConnection[players.length];
+        for (int seat = 0; seat < players.length; seat++) {
+            connections[seat] = players[seat].player;
+        }
+        session.seatAll(connections);
+        numTables.increment();
+    }
+
+    /**
+     * Finds the stripe holding a queue.
+     * @param key: The key of the queue.
+     * @return the stripe.
+     */
+    private Stripe stripeOf(String key) {
+        int hash = key.hashCode();
+        // Spread the high bits of the hash into the low bits, as the HashMap does.
+        return stripes[(hash ^ (hash >>> 16)) & (NUM_STRIPES - 1)];
+    }
+
+    /**
+     * A method to return the number of players waiting in every queue.
+     * @return the number of players waiting.
+     */
+    public int getNumWaiting() {
+        int numWaiting = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Queue queue : stripe.queues.values()) {
+                    numWaiting += queue.numWaiting;
+                }
+            }
+        }
+        return numWaiting;
+    }
+
+    /**
+     * A method to return the numQueued data attribute.
+     * @return the number of players who have queued.
+     */
+    public long getNumQueued() {
+        return numQueued.sum();
+    }
+
+    /**
+     * A method to return the numCancelled data attribute.
+     * @return the number of players who left the queue before being matched.
+     */
+    public long getNumCancelled() {
+        return numCancelled.sum();
+    }
+
+    /**
+     * A method to return the numTables data attribute.
+     * @return the number of tables formed.
+     */
+    public long getNumTables() {
+        return numTables.sum();
+    }
+}
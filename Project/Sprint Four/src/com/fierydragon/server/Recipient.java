@@ -0,0 +1,19 @@
+package com.fierydragon.server;
+
+/**
+ * An interface for anything a GameSession sends lines to: a seated connection, a watcher of the game's events or the
+ * caller of a single command.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameSession
+ */
+
+public interface Recipient {
+    /**
+     * Sends a line. Must not block the game for long, as it is called by the game's single writer.
+     * @param line: The line to send.
+     */
+    void send(String line);
+}
@@ -0,0 +1,310 @@
+package com.fierydragon.server;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class representing the leader's end of hot-standby replication: it ships every batch the GameJournal commits to
+ * each follower connected over a local socket, where a HotStandby keeps warm replicas of the games.
+ * Replication is asynchronous and pipelined. A game only ever adds its records to the journal's buffer, as it already
+ * did; the committer copies each batch to the queue of every follower before flushing it to disk, and each follower has
+ * a thread of its own writing its queue to the socket, many batches in one write when it falls behind. Nothing waits
+ * for a follower to answer, so replication adds nothing to a turn but the copy of a batch shared by every game.
+ * A follower that connects is sent a snapshot record of every game through the journal, after which the flips of each
+ * game follow its snapshot in order. When there is nothing to send, a heartbeat is sent instead, so a follower notices
+ * a leader that has died or hung within a fraction of a second. A follower that falls too far behind is dropped, and
+ * starts again from a new snapshot when it connects again.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameJournal
+ * @see HotStandby
+ */
+
+public class ReplicationServer implements Closeable {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The port followers connect to when none is given.
+     */
+    public static final int DEFAULT_PORT = 7079;
+    /**
+     * The milliseconds between heartbeats when there is nothing to send.
+     */
+    static final long HEARTBEAT_MILLIS = 100;
+    /**
+     * The most bytes waiting to be sent to a follower before it is dropped.
+     */
+    private static final long MAX_LAG_BYTES = 64L * 1024 * 1024;
+    /**
+     * The bytes written to a follower's socket at once.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The server whose games are replicated.
+     */
+    private final GameServer server;
+    /**
+     * The journal whose batches are shipped.
+     */
+    private final GameJournal journal;
+    /**
+     * The socket accepting followers.
+     */
+    private final ServerSocket serverSocket;
+    /**
+     * The followers connected.
+     */
+    private final List<Follower> followers;
+    /**
+     * The number of batches shipped, counted once for every follower.
+     */
+    private final AtomicLong numBatches;
+    /**
+     * The number of bytes shipped, counted once for every follower.
+     */
+    private final AtomicLong numBytes;
+    /**
+     * A boolean denoting if followers are accepted.
+     */
+    private volatile boolean running;
+
+    /**
+     * A class representing one follower connected, with the batches waiting to be sent to it.
+     */
+    private final class Follower implements Runnable {
+        /**
+         * The socket of the follower.
+         */
+        private final Socket socket;
+        /**
+         * The stream to the follower.
+         */
+        private final OutputStream out;
+        /**
+         * The batches waiting to be sent, in order.
+         */
+        private final BlockingQueue<byte[]> batches;
+        /**
+         * The number of bytes waiting to be sent.
+         */
+        private final AtomicLong lag;
+        /**
+         * A boolean denoting if the follower has been dropped.
+         */
+        private volatile boolean dropped;
+
+        /**
+         * Follower Constructor.
+         * @param socket: The socket of the follower.
+         * @throws IOException if the socket cannot be written.
+         */
+        Follower(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+            this.batches = new LinkedBlockingQueue<>();
+            this.lag = new AtomicLong();
+        }
+
+        /**
+         * Queues a batch to be sent, dropping the follower if it has fallen too far behind.
+         * @param batch: The batch.
+         */
+        void offer(byte[] batch) {
+            if (lag.addAndGet(batch.length) > MAX_LAG_BYTES) {
+                drop();
+                return;
+            }
+            batches.add(batch);
+        }
+
+        /**
+         * Sends the batches as they are queued, and a heartbeat whenever there is nothing to send, until the follower
+         * is dropped or disconnects.
+         */
+        @Override
+        public void run() {
+            byte[] heartbeat = GameJournal.heartbeat();
+            try {
+                while (!dropped) {
+                    byte[] batch = batches.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (batch == null) {
+                        out.write(heartbeat);
+                    }
+                    // Send every batch already waiting in the same write.
+                    while (batch != null) {
+                        out.write(batch);
+                        lag.addAndGet(-batch.length);
+                        numBatches.incrementAndGet();
+                        numBytes.addAndGet(batch.length);
+                        batch = batches.poll();
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // The follower disconnected.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            drop();
+        }
+
+        /**
+         * Stops sending to the follower and closes its socket.
+         */
+        void drop() {
+            dropped = true;
+            followers.remove(this);
+            batches.clear();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // The socket is already closed.
+            }
+        }
+    }
+
+    /**
+     * ReplicationServer Constructor. Ships the journal's batches from now on.
+     * @param server: The server whose games are replicated.
+     * @param journal: The journal the server records its games in.
+     * @param port: The port followers connect to, or 0 for any free port.
+     * @param address: The address to listen on, or null for every address.
+     * @throws IOException if the port cannot be opened.
+     */
+    public ReplicationServer(GameServer server, GameJournal journal, int port, InetAddress address)
+            throws IOException {
+        this.server = server;
+        this.journal = journal;
+        this.serverSocket = new ServerSocket(port, 16, address);
+        this.followers = new CopyOnWriteArrayList<>();
+        this.numBatches = new AtomicLong();
+        this.numBytes = new AtomicLong();
+        journal.setReplication(this);
+    }
+
+    /**
+     * Starts accepting followers on a thread of its own.
+     */
+    public void start() {
+        running = true;
+        Thread acceptor = new Thread(this::serve, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Accepts followers until the server is closed. Each is sent every batch from the moment it connects, then a
+     * snapshot of every game is recorded for it.
+     */
+    private void serve() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Follower follower = new Follower(socket);
+                followers.add(follower);
+                Thread sender = new Thread(follower, "replication-" + socket.getPort());
+                sender.setDaemon(true);
+                sender.start();
+                // The snapshots are recorded after the follower is added, so every flip after them reaches it.
+                server.snapshotAll();
+                LOGGER.log(System.Logger.Level.INFO, "Follower {0} connected, {1} games snapshotted",
+                        socket.getRemoteSocketAddress(), server.getNumSessions());
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.log(System.Logger.Level.WARNING, "Could not accept a follower: {0}", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ships a batch committed by the journal to every follower. Called by the journal's committer, which reuses the
+     * buffer afterwards, so the batch is copied once and shared.
+     * @param records: The buffer holding the batch.
+     * @param length: The number of bytes in the batch.
+     */
+    void ship(byte[] records, int length) {
+        if (followers.isEmpty()) {
+            return;
+        }
+        byte[] batch = Arrays.copyOf(records, length);
+        for (Follower follower : followers) {
+            follower.offer(batch);
+        }
+    }
+
+    /**
+     * A method to return the number of followers connected.
+     * @return the number of followers.
+     */
+    public int getNumFollowers() {
+        return followers.size();
+    }
+
+    /**
+     * A method to return the number of bytes waiting to be sent to the follower furthest behind.
+     * @return the bytes waiting.
+     */
+    public long getMaxLag() {
+        long maxLag = 0;
+        for (Follower follower : followers) {
+            maxLag = Math.max(maxLag, follower.lag.get());
+        }
+        return maxLag;
+    }
+
+    /**
+     * A method to return the numBatches data attribute.
+     * @return the number of batches shipped, counted once for every follower.
+     */
+    public long getNumBatches() {
+        return numBatches.get();
+    }
+
+    /**
+     * A method to return the numBytes data attribute.
+     * @return the number of bytes shipped, counted once for every follower.
+     */
+    public long getNumBytes() {
+        return numBytes.get();
+    }
+
+    /**
+     * A method to return the port followers connect to.
+     * @return the port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting followers and drops those connected.
+     * @throws IOException if the socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        journal.setReplication(null);
+        serverSocket.close();
+        for (Follower follower : followers) {
+            follower.drop();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.fierydragon.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+
+/**
+ * The entry point of the server mode, which hosts games for clients over TCP, and for tools over the HTTP API, until it
+ * is stopped. Run from the repository root so the board definitions are found, for example:
+ * <pre>
+ * java com.fierydragon.server.ServerMain --port 7077 --http-port 7078 --address 127.0.0.1 --journal games.journal
+ * </pre>
+ * The games are recorded in the journal, flushed to disk every --commit-millis milliseconds, and brought back from it
+ * when the server is started again. Idle games are passivated whenever the games take up more than
+ * --resident-budget-mb megabytes. A server started by a SessionRouter is given --admin true, so its games can be handed
+ * over, and --first-id, so its games are numbered apart from those of the other servers.
+ * With --replication-port, the server ships its journal to hot standbys as it is committed. A hot standby is started
+ * with the same options and --follow naming the leader's replication port, for example:
+ * <pre>
+ * java com.fierydragon.server.ServerMain --port 7077 --replication-port 7079 --journal standby.journal
+ *      --follow 127.0.0.1:7079
+ * </pre>
+ * It keeps a replica of every game of the leader, and once the leader is lost takes over its port and serves them.
+ * With --binary-port, the server also serves its games to clients speaking the binary protocol of FrameCodec.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameServer
+ * @see HttpApi
+ */
+
+public class ServerMain {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * The file the games are recorded in when none is given.
+     */
+    private static final String DEFAULT_JOURNAL = "games.journal";
+    /**
+     * The megabytes of heap the states of the resident games may take up when none are given.
+     */
+    private static final long DEFAULT_RESIDENT_BUDGET_MB = 256;
+
+    /**
+     * Reads the options and starts the server.
+     * @param args: The options, each a name followed by its value: --port, --http-port, --address, --journal,
+     *              --commit-millis, --resident-budget-mb, --admin, --first-id, --replication-port, --follow and
+     *              --binary-port.
+     * @throws IOException if a port cannot be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = GameServer.DEFAULT_PORT;
+        int httpPort = HttpApi.DEFAULT_PORT;
+        InetAddress address = InetAddress.getLoopbackAddress();
+        Path journalFile = Path.of(DEFAULT_JOURNAL);
+        long commitMillis = GameJournal.DEFAULT_COMMIT_MILLIS;
+        long residentBudgetMb = DEFAULT_RESIDENT_BUDGET_MB;
+        boolean admin = false;
+        long firstId = 1;
+        int replicationPort = -1;
+        String follow = null;
+        int binaryPort = -1;
+
+        // Read each option and its value.
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--http-port" -> httpPort = Integer.parseInt(args[i + 1]);
+                case "--address" -> address = InetAddress.getByName(args[i + 1]);
+                case "--journal" -> journalFile = Path.of(args[i + 1]);
+                case "--commit-millis" -> commitMillis = Long.parseLong(args[i + 1]);
+                case "--resident-budget-mb" -> residentBudgetMb = Long.parseLong(args[i + 1]);
+                case "--admin" -> admin = Boolean.parseBoolean(args[i + 1]);
+                case "--first-id" -> firstId = Long.parseLong(args[i + 1]);
+                case "--replication-port" -> replicationPort = Integer.parseInt(args[i + 1]);
+                case "--follow" -> follow = args[i + 1];
+                case "--binary-port" -> binaryPort = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // A standby listens on a port of its own until it takes over the leader's.
+        GameServer server = new GameServer((follow != null) ? 0 : port, address);
+        server.setResidentBudget(residentBudgetMb * 1024 * 1024);
+        server.setAdminEnabled(admin);
+        server.setFirstSessionId(firstId);
+        // Bring back the games that were being played when the server last stopped.
+        GameJournal journal = new GameJournal(journalFile, commitMillis);
+        int numRecovered = server.recover(journal);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Could not close the journal: {0}", e);
+            }
+        }));
+        if (follow != null) {
+            int colon = follow.lastIndexOf(':');
+            HotStandby standby = new HotStandby(server, follow.substring(0, colon),
+                    Integer.parseInt(follow.substring(colon + 1)));
+            System.out.println("Fiery Dragons standby for " + follow + ", " + numRecovered + " games recovered from "
+                    + journalFile);
+            long takeoverMillis = standby.follow(port, address);
+            numRecovered = server.getNumSessions();
+            System.out.println("Took over from the leader in " + takeoverMillis + " ms with " + numRecovered
+                    + " games after " + standby.getNumRecords() + " records");
+        }
+        // Ship the journal to standbys, including once a standby has taken over, so the old leader can follow it.
+        if (replicationPort >= 0) {
+            new ReplicationServer(server, journal, replicationPort, address).start();
+        }
+        HttpApi httpApi = new HttpApi(server, httpPort, address);
+        httpApi.start();
+        if (binaryPort >= 0) {
+            BinaryEndpoint binaryEndpoint = new BinaryEndpoint(server, binaryPort, address);
+            binaryEndpoint.start();
+            System.out.println("Binary protocol on port " + binaryEndpoint.getPort());
+        }
+        System.out.println("Fiery Dragons server listening on " + address.getHostAddress() + ":" + server.getPort()
+                + ", HTTP API on port " + httpApi.getPort() + ", " + numRecovered + " games recovered from "
+                + journalFile);
+        // Serve on this thread, as virtual threads alone do not keep the program running.
+        server.serve();
+    }
+}
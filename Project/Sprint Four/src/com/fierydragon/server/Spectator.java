@@ -0,0 +1,110 @@
+package com.fierydragon.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A class representing one spectator of a game, fed by the game's SpectatorHub.
+ * Each spectator has a small queue of encoded lines, shared with every other spectator, and a thread of its own that
+ * writes them out, so a slow spectator never holds up the game or the others. A spectator that falls a whole queue
+ * behind has its queue replaced by a single snapshot of the game, so it catches up without the game buffering for it.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see SpectatorHub
+ */
+
+public class Spectator implements Runnable {
+    /**
+     * The most encoded lines waiting for a spectator before it is resynced from a snapshot.
+     */
+    public static final int QUEUE_CAPACITY = 64;
+    /**
+     * The line that tells the writing thread to stop.
+     */
+    private static final byte[] STOP = new byte[0];
+    /**
+     * The connection the spectator watches from.
+     */
+    private final ClientConnection connection;
+    /**
+     * The encoded lines waiting to be written.
+     */
+    private final BlockingQueue<byte[]> lines;
+    /**
+     * The number of times the spectator fell behind and was resynced.
+     */
+    private volatile int numResyncs;
+
+    /**
+     * Spectator Constructor.
+     * @param connection: The connection the spectator watches from.
+     */
+    Spectator(ClientConnection connection) {
+        this.connection = connection;
+        this.lines = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    }
+
+    /**
+     * Queues an encoded line without waiting.
+     * @param line: The encoded line, shared with the other spectators.
+     * @return False if the queue is full.
+     */
+    boolean offer(byte[] line) {
+        return lines.offer(line);
+    }
+
+    /**
+     * Drops the lines waiting and queues a snapshot in their place, for a spectator that has fallen behind.
+     * @param snapshot: The encoded snapshot of the game as it is now.
+     */
+    void resync(byte[] snapshot) {
+        lines.clear();
+        lines.offer(snapshot);
+        numResyncs++;
+    }
+
+    /**
+     * Tells the writing thread to stop once it has written what is queued, or straight away if the queue is full.
+     */
+    void stop() {
+        if (!lines.offer(STOP)) {
+            lines.clear();
+            lines.offer(STOP);
+        }
+    }
+
+    /**
+     * Writes the queued lines to the connection until stopped or the connection is lost.
+     */
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                byte[] line = lines.take();
+                if (line == STOP || !connection.sendEncoded(line)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A method to return the connection data attribute.
+     * @return the connection the spectator watches from.
+     */
+    ClientConnection getConnection() {
+        return connection;
+    }
+
+    /**
+     * A method to return the numResyncs data attribute.
+     * @return the number of times the spectator fell behind and was resynced.
+     */
+    public int getNumResyncs() {
+        return numResyncs;
+    }
+}
@@ -0,0 +1,116 @@
+package com.fierydragon.server;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * A class that fans the changes of one game out to all of its spectators.
+ * Every change is encoded once, as a delta of what moved, and the same bytes are queued for every spectator. A
+ * spectator whose queue is full is given a snapshot instead, encoded at most once per change however many spectators
+ * need it, so hundreds of spectators cost one encoding and a queue slot each per turn.
+ * Only called by the game's single writer, apart from the list of spectators, which may be read by any thread.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Spectator
+ * @see GameSession
+ */
+
+public class SpectatorHub {
+    /**
+     * The spectators of the game.
+     */
+    private final List<Spectator> spectators;
+    /**
+     * The number of deltas published.
+     */
+    private long numDeltas;
+
+    /**
+     * SpectatorHub Constructor.
+     */
+    public SpectatorHub() {
+        this.spectators = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Adds a spectator, starting it from a snapshot of the game.
+     * @param spectator: The spectator.
+     * @param snapshot: The encoded snapshot of the game as it is now.
+     */
+    void subscribe(Spectator spectator, byte[] snapshot) {
+        spectator.offer(snapshot);
+        spectators.add(spectator);
+    }
+
+    /**
+     * Removes the spectator watching from a connection and stops its writing thread.
+     * @param connection: The connection.
+     * @return True if the connection was watching.
+     */
+    boolean unsubscribe(ClientConnection connection) {
+        for (Spectator spectator : spectators) {
+            if (spectator.getConnection() == connection) {
+                spectators.remove(spectator);
+                spectator.stop();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queues an encoded delta for every spectator. Spectators that have fallen behind are resynced from a snapshot,
+     * which is only encoded if some spectator needs it.
+     * @param delta: The encoded delta, shared by every spectator.
+     * @param snapshot: Encodes the snapshot of the game after the delta.
+     */
+    void publish(byte[] delta, Supplier<byte[]> snapshot) {
+        numDeltas++;
+        byte[] encodedSnapshot = null;
+        for (Spectator spectator : spectators) {
+            if (!spectator.offer(delta)) {
+                if (encodedSnapshot == null) {
+                    encodedSnapshot = snapshot.get();
+                }
+                spectator.resync(encodedSnapshot);
+            }
+        }
+    }
+
+    /**
+     * Stops every spectator, when the game is forgotten.
+     */
+    void close() {
+        for (Spectator spectator : spectators) {
+            spectator.stop();
+        }
+        spectators.clear();
+    }
+
+    /**
+     * A method to check whether the game has spectators.
+     * @return True if anyone is watching.
+     */
+    boolean hasSpectators() {
+        return !spectators.isEmpty();
+    }
+
+    /**
+     * A method to return the number of spectators.
+     * @return the number of spectators.
+     */
+    public int getNumSpectators() {
+        return spectators.size();
+    }
+
+    /**
+     * A method to return the numDeltas data attribute.
+     * @return the number of deltas published.
+     */
+    public long getNumDeltas() {
+        return numDeltas;
+    }
+}
@@ -0,0 +1,90 @@
+package com.fierydragon.tournament;
+
+/**
+ * A class representing the rating of one bot after a tournament.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Ratings
+ * @see TournamentResult
+ */
+
+public class Rating {
+    /**
+     * The name of the bot.
+     */
+    private final String name;
+    /**
+     * The number of games the bot played.
+     */
+    private final int games;
+    /**
+     * The share of points the bot scored, from 0 to 1, counting a draw as half a point.
+     */
+    private final double score;
+    /**
+     * The Elo rating of the bot.
+     */
+    private final double elo;
+    /**
+     * Half the width of the 95% confidence interval of the Elo rating.
+     */
+    private final double eloError;
+
+    /**
+     * Rating Constructor.
+     * @param name: The name of the bot.
+     * @param games: The number of games the bot played.
+     * @param score: The share of points the bot scored.
+     * @param elo: The Elo rating of the bot.
+     * @param eloError: Half the width of the 95% confidence interval of the Elo rating.
+     */
+    public Rating(String name, int games, double score, double elo, double eloError) {
+        this.name = name;
+        this.games = games;
+        this.score = score;
+        this.elo = elo;
+        this.eloError = eloError;
+    }
+
+    /**
+     * A method to return the name data attribute.
+     * @return the name of the bot.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * A method to return the games data attribute.
+     * @return the number of games the bot played.
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * A method to return the score data attribute.
+     * @return the share of points the bot scored, from 0 to 1.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * A method to return the elo data attribute.
+     * @return the Elo rating of the bot.
+     */
+    public double getElo() {
+        return elo;
+    }
+
+    /**
+     * A method to return the eloError data attribute.
+     * @return half the width of the 95% confidence interval of the Elo rating.
+     */
+    public double getEloError() {
+        return eloError;
+    }
+}
@@ -0,0 +1,130 @@
+package com.fierydragon.tournament;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A class that fits Elo ratings to the results of a round-robin tournament with the Bradley-Terry model.
+ * Every result of every pairing is used at once, so the ratings do not depend on the order the games were played in
+ * as they would with Elo updates game by game. The confidence interval of each rating comes from the curvature of the
+ * likelihood at the fitted ratings.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Rating
+ * @see Tournament
+ */
+
+public final class Ratings {
+    /**
+     * The Elo rating of an average bot.
+     */
+    public static final double BASE_ELO = 1500;
+    /**
+     * The number of Elo points per unit of natural log strength.
+     */
+    private static final double ELO_PER_LOG = 400 / Math.log(10);
+    /**
+     * The z value of a 95% confidence interval.
+     */
+    private static final double Z_95 = 1.959964;
+    /**
+     * The largest number of fitting rounds.
+     */
+    private static final int MAX_ROUNDS = 10000;
+    /**
+     * The change in strength small enough to stop fitting.
+     */
+    private static final double TOLERANCE = 1e-10;
+
+    /**
+     * Ratings Constructor. Never called, as the class only has static methods.
+     */
+    private Ratings() {
+    }
+
+    /**
+     * Fits the Bradley-Terry strengths of the bots with the minorise-maximise method and turns them into Elo ratings.
+     * One drawn game against every opponent is added as a weak prior, so a bot that never won still gets a rating.
+     * @param names: The name of each bot.
+     * @param points: The points each bot scored against each other bot, counting a draw as half a point.
+     * @param games: The number of games each pair of bots played.
+     * @return the ratings, best first.
+     */
+    public static List<Rating> fit(List<String> names, double[][] points, int[][] games) {
+        int numBots = names.size();
+        double[][] wins = new double[numBots][numBots];
+        double[][] played = new double[numBots][numBots];
+        double[] totalWins = new double[numBots];
+        for (int i = 0; i < numBots; i++) {
+            for (int j = 0; j < numBots; j++) {
+                if (i != j) {
+                    wins[i][j] = points[i][j] + 0.5;
+                    played[i][j] = games[i][j] + 1;
+                    totalWins[i] += wins[i][j];
+                }
+            }
+        }
+
+        // Fit the strengths until they stop changing.
+        double[] strength = new double[numBots];
+        Arrays.fill(strength, 1);
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            double largestChange = 0;
+            for (int i = 0; i < numBots; i++) {
+                double sum = 0;
+                for (int j = 0; j < numBots; j++) {
+                    if (i != j) {
+                        sum += played[i][j] / (strength[i] + strength[j]);
+                    }
+                }
+                double updated = totalWins[i] / sum;
+                largestChange = Math.max(largestChange, Math.abs(Math.log(updated / strength[i])));
+                strength[i] = updated;
+            }
+            normalise(strength);
+            if (largestChange < TOLERANCE) {
+                break;
+            }
+        }
+
+        // Turn the strengths into Elo ratings, with the interval from the information of each rating.
+        List<Rating> ratings = new ArrayList<>();
+        for (int i = 0; i < numBots; i++) {
+            double information = 0;
+            int botGames = 0;
+            double botPoints = 0;
+            for (int j = 0; j < numBots; j++) {
+                if (i != j) {
+                    double p = strength[i] / (strength[i] + strength[j]);
+                    information += played[i][j] * p * (1 - p);
+                    botGames += games[i][j];
+                    botPoints += points[i][j];
+                }
+            }
+            double elo = BASE_ELO + ELO_PER_LOG * Math.log(strength[i]);
+            double error = Z_95 * ELO_PER_LOG / Math.sqrt(information);
+            ratings.add(new Rating(names.get(i), botGames, botGames == 0 ? 0 : botPoints / botGames, elo, error));
+        }
+        ratings.sort(Comparator.comparingDouble(Rating::getElo).reversed());
+        return ratings;
+    }
+
+    /**
+     * Scales the strengths so their geometric mean is 1, which puts the average Elo rating at BASE_ELO.
+     * @param strength: The strength of each bot.
+     */
+    private static void normalise(double[] strength) {
+        double logSum = 0;
+        for (double s : strength) {
+            logSum += Math.log(s);
+        }
+        double scale = Math.exp(-logSum / strength.length);
+        for (int i = 0; i < strength.length; i++) {
+            strength[i] *= scale;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.fierydragon.tournament;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.GameState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A class that runs a round-robin tournament between bots without the UI. Every pair of bots plays every board in
+ * both seat rotations, so each bot moves first and sits in each home Cave equally often.
+ * Boards are dealt from a seed that only depends on the board number, and each seat draws its random choices from a
+ * stream that only depends on the board and the seat. Every pairing therefore plays the same boards with the same
+ * luck (common random numbers), so differences in results come from the bots and not from the draw.
+ * Games are played in parallel on a pool of threads, in batches of boards for one pairing.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see ChitPolicy
+ * @see GameState
+ * @see Ratings
+ */
+
+public class Tournament {
+    /**
+     * The number of Dragons in each game.
+     */
+    public static final int NUM_PLAYERS = 2;
+    /**
+     * The number of boards played by one pairing in each batch handed to a thread.
+     */
+    private static final int BATCH_SIZE = 64;
+    /**
+     * The largest number of Chit Cards flipped in one game before it is called a draw.
+     */
+    public static final int MAX_FLIPS = 20000;
+    /**
+     * The bots playing.
+     */
+    private final List<ChitPolicy> bots;
+    /**
+     * The compiled layout the boards are dealt from.
+     */
+    private final CompiledLayout layout;
+    /**
+     * The number of boards each pairing plays.
+     */
+    private final int numBoards;
+    /**
+     * The seed of the tournament.
+     */
+    private final long seed;
+    /**
+     * The number of threads playing games.
+     */
+    private final int numThreads;
+
+    /**
+     * Tournament Constructor.
+     * @param bots: The bots playing.
+     * @param layout: The compiled layout the boards are dealt from.
+     * @param numBoards: The number of boards each pairing plays, each in both seat rotations.
+     * @param seed: The seed of the tournament. The same seed plays the same games.
+     * @param numThreads: The number of threads playing games.
+     */
+    public Tournament(List<ChitPolicy> bots, CompiledLayout layout, int numBoards, long seed, int numThreads) {
+        if (bots.size() < NUM_PLAYERS || numBoards < 1 || numThreads < 1) {
+            throw new IllegalArgumentException("A tournament needs 2 bots, a board and a thread");
+        }
+        this.bots = new ArrayList<>(bots);
+        this.layout = layout;
+        this.numBoards = numBoards;
+        this.seed = seed;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Plays every game of the tournament and rates the bots.
+     * @return the results.
+     * @throws InterruptedException if the thread is interrupted while waiting for the games.
+     */
+    public TournamentResult run() throws InterruptedException {
+        int numBots = bots.size();
+        double[][] points = new double[numBots][numBots];
+        int[][] games = new int[numBots][numBots];
+        long start = System.nanoTime();
+
+        // Hand each batch of boards of each pairing to the pool.
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        List<Future<double[]>> batches = new ArrayList<>();
+        List<int[]> pairs = new ArrayList<>();
+        try {
+            for (int a = 0; a < numBots; a++) {
+                for (int b = a + 1; b < numBots; b++) {
+                    for (int first = 0; first < numBoards; first += BATCH_SIZE) {
+                        int botA = a, botB = b, from = first, to = Math.min(numBoards, first + BATCH_SIZE);
+                        batches.add(pool.submit(() -> playBatch(bots.get(botA), bots.get(botB), from, to)));
+                        pairs.add(new int[] {a, b});
+                    }
+                }
+            }
+
+            // Add up the points of each batch.
+            for (int i = 0; i < batches.size(); i++) {
+                double[] result = batches.get(i).get();
+                int a = pairs.get(i)[0], b = pairs.get(i)[1];
+                points[a][b] += result[0];
+                points[b][a] += result[1];
+                games[a][b] += (int) result[2];
+                games[b][a] += (int) result[2];
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game of the tournament failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<String> names = new ArrayList<>();
+        for (ChitPolicy bot : bots) {
+            names.add(bot.getName());
+        }
+        long totalGames = (long) numBots * (numBots - 1) / 2 * numBoards * NUM_PLAYERS;
+        return new TournamentResult(Ratings.fit(names, points, games), totalGames, System.nanoTime() - start);
+    }
+
+    /**
+     * Plays a batch of boards between two bots, each board in both seat rotations.
+     * @param botA: The first bot.
+     * @param botB: The second bot.
+     * @param from: The first board of the batch.
+     * @param to: The board after the last one of the batch.
+     * @return the points of the first bot, the points of the second bot and the number of games played.
+     */
+    private double[] playBatch(ChitPolicy botA, ChitPolicy botB, int from, int to) {
+        double pointsA = 0, pointsB = 0;
+        int played = 0;
+        for (int board = from; board < to; board++) {
+            for (int rotation = 0; rotation < NUM_PLAYERS; rotation++) {
+                ChitPolicy[] seats = (rotation == 0) ? new ChitPolicy[] {botA, botB} : new ChitPolicy[] {botB, botA};
+                // Swapping the bots swaps both their home Caves and who moves first.
+                int winner = playGame(layout, seats, boardSeed(seed, board));
+                // The first bot sits in seat 0 in the first rotation and in seat 1 in the second.
+                int seatA = rotation;
+                if (winner == GameState.NOBODY) {
+                    pointsA += 0.5;
+                    pointsB += 0.5;
+                }
+                else if (winner == seatA) {
+                    pointsA += 1;
+                }
+                else {
+                    pointsB += 1;
+                }
+                played++;
+            }
+        }
+        return new double[] {pointsA, pointsB, played};
+    }
+
+    /**
+     * Plays one game. The board is dealt from the board seed alone and each seat draws its choices from a stream of
+     * the board seed and the seat, so every pairing plays the board with the same luck.
+     * @param layout: The compiled layout the board is dealt from.
+     * @param seats: The bot in each seat, the first one moving first.
+     * @param boardSeed: The seed of the board.
+     * @return the seat that won, or NOBODY if the game was a draw.
+     */
+    public static int playGame(CompiledLayout layout, ChitPolicy[] seats, long boardSeed) {
+        // Deal the board, the deck and the seats.
+        GameState state = GameState.deal(layout, seats.length, new Random(boardSeed));
+
+        // Give each seat its own stream of random choices.
+        Random[] streams = new Random[seats.length];
+        for (int seat = 0; seat < seats.length; seat++) {
+            streams[seat] = new Random(boardSeed * 31 + seat + 1);
+        }
+
+        // Flip Chit Cards until a Dragon wins or the game runs too long.
+        for (int flips = 0; flips < MAX_FLIPS && !state.isOver(); flips++) {
+            int seat = state.getCurrent();
+            state.flip(seats[seat].choose(state, streams[seat]));
+        }
+        return state.getWinner();
+    }
+
+    /**
+     * Mixes the seed of the tournament with a board number into the seed of the board.
+     * @param seed: The seed of the tournament.
+     * @param board: The board number.
+     * @return the seed of the board.
+     */
+    public static long boardSeed(long seed, int board) {
+        long z = seed + 0x9E3779B97F4A7C15L * (board + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,69 @@
+package com.fierydragon.tournament;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.bots.MemoryPolicy;
+import com.fierydragon.bots.RandomPolicy;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.LayoutCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The entry point of the tournament mode, which plays a round-robin tournament between bots without the UI and prints
+ * their ratings. Run from the repository root so the board definitions are found, for example:
+ * <pre>
+ * java com.fierydragon.tournament.TournamentMain --bots 20 --boards 1000 --board standard --seed 1 --threads 8
+ * </pre>
+ * The field is the random bot followed by memory bots of evenly spread recall.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Tournament
+ */
+
+public class TournamentMain {
+    /**
+     * Reads the options, plays the tournament and prints the ratings.
+     * @param args: The options, each a name followed by its value: --bots, --boards, --board, --seed and --threads.
+     * @throws InterruptedException if the tournament is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int numBots = 10;
+        int numBoards = 200;
+        String board = "standard";
+        long seed = 1;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+
+        // Read each option and its value.
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--bots" -> numBots = Integer.parseInt(args[i + 1]);
+                case "--boards" -> numBoards = Integer.parseInt(args[i + 1]);
+                case "--board" -> board = args[i + 1];
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--threads" -> numThreads = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        CompiledLayout layout = LayoutCache.getInstance().load(board);
+        Tournament tournament = new Tournament(createBots(numBots), layout, numBoards, seed, numThreads);
+        System.out.print(tournament.run().toTable());
+    }
+
+    /**
+     * Creates a field of bots: the random bot and memory bots whose recall is spread evenly up to perfect recall.
+     * @param numBots: The number of bots.
+     * @return the bots.
+     */
+    public static List<ChitPolicy> createBots(int numBots) {
+        List<ChitPolicy> bots = new ArrayList<>();
+        bots.add(new RandomPolicy());
+        for (int i = 1; i < numBots; i++) {
+            bots.add(new MemoryPolicy((double) i / (numBots - 1)));
+        }
+        return bots;
+    }
+}
@@ -0,0 +1,81 @@
+package com.fierydragon.tournament;
+
+import java.util.List;
+
+/**
+ * A class representing the results of a tournament: the rating of each bot and how long it took.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Rating
+ * @see Tournament
+ */
+
+public class TournamentResult {
+    /**
+     * The ratings of the bots, best first.
+     */
+    private final List<Rating> ratings;
+    /**
+     * The number of games played.
+     */
+    private final long numGames;
+    /**
+     * How long the tournament took, in nanoseconds.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * TournamentResult Constructor.
+     * @param ratings: The ratings of the bots, best first.
+     * @param numGames: The number of games played.
+     * @param elapsedNanos: How long the tournament took, in nanoseconds.
+     */
+    public TournamentResult(List<Rating> ratings, long numGames, long elapsedNanos) {
+        this.ratings = List.copyOf(ratings);
+        this.numGames = numGames;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Creates a table of the ratings, one bot per line, followed by the number of games and how fast they were played.
+     * @return the table.
+     */
+    public String toTable() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-4s %-16s %8s %7s %7s %7s%n", "Rank", "Bot", "Games", "Score", "Elo", "+/-"));
+        for (int i = 0; i < ratings.size(); i++) {
+            Rating rating = ratings.get(i);
+            builder.append(String.format("%-4d %-16s %8d %6.1f%% %7.0f %7.0f%n", i + 1, rating.getName(),
+                    rating.getGames(), rating.getScore() * 100, rating.getElo(), rating.getEloError()));
+        }
+        double seconds = elapsedNanos / 1e9;
+        builder.append(String.format("%d games in %.1f s (%.0f games/s)%n", numGames, seconds, numGames / Math.max(seconds, 1e-9)));
+        return builder.toString();
+    }
+
+    /**
+     * A method to return the ratings data attribute.
+     * @return the ratings of the bots, best first.
+     */
+    public List<Rating> getRatings() {
+        return ratings;
+    }
+
+    /**
+     * A method to return the numGames data attribute.
+     * @return the number of games played.
+     */
+    public long getNumGames() {
+        return numGames;
+    }
+
+    /**
+     * A method to return the elapsedNanos data attribute.
+     * @return how long the tournament took, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
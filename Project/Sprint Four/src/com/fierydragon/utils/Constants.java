@@ -30,15 +30,8 @@ public class Constants {
      */
     public static final int NUM_ANIMAL_TYPES = 4;
     /**
-     * The starting x coordinates of each card
-     */
-    public static final int[] startingXCoords = {2, 4, 8, 8, 8, 6, 2, 2};
-    /**
-     * The starting y coordinates of each card
-     */
-    public static final int[] startingYCoords = {2, 2, 2, 4, 8, 8, 8, 6};
-    /**
-     * The maximum number of Animals each type can have on the Game Board.
+     * The maximum number of Animals each type can have on the standard Game Board. Generated Game Boards share the
+     * Animals out in the same way, allowing one more of an Animal when they do not divide evenly.
      */
     public static final int MAX_NUM_ANIMALS = (NUM_CARDS * NUM_SQUARES) / NUM_ANIMAL_TYPES;
     /**
@@ -0,0 +1,38 @@
+package com.fierydragon.utils;
+
+import java.io.File;
+import java.net.URISyntaxException;
+
+/**
+ * A class that finds the folder the Save Game button writes games to. It has nothing to do with JavaFX, so a server
+ * running without the UI can read the saved games too.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Saveable
+ */
+
+public final class SaveFolder {
+    /**
+     * The name of the save folder.
+     */
+    private static final String NAME = "save";
+
+    /**
+     * SaveFolder Constructor. Not used, as the class only holds static methods.
+     */
+    private SaveFolder() {
+    }
+
+    /**
+     * Get the folder the games are saved in, next to the running JAR file.
+     * @return the save folder, which may not exist yet.
+     * @throws URISyntaxException if the location of the JAR file cannot be read.
+     */
+    public static File locate() throws URISyntaxException {
+        // Determine the directory of the running JAR file
+        File jarFile = new File(SaveFolder.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        return new File(jarFile.getParentFile(), NAME);
+    }
+}
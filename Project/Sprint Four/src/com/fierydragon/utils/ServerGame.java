@@ -0,0 +1,219 @@
+package com.fierydragon.utils;
+
+import com.fierydragon.notifications.NotificationManager;
+import com.fierydragon.notifications.NotificationType;
+import com.fierydragon.server.GameClient;
+import javafx.application.Platform;
+
+import java.io.IOException;
+
+/**
+ * A ServerGame Singleton Design Pattern that plays the JavaFX game on a GameServer rather than on its own.
+ * The board is dealt from the seed of the server's game, so it is the same board the server plays. A click on a Chit
+ * Card is sent to the server as a FLIP, and nothing is flipped on the board until the server answers every seat with
+ * FLIPPED; each FLIPPED, this player's own included, is then played on the board by the TurnManager, so every player's
+ * board goes through the same flips in the same order.
+ * Lines from the server are read on a thread of their own and handed to the JavaFX thread.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameClient
+ * @see TurnManager
+ */
+
+public class ServerGame {
+    /**
+     * An instance of itself so that only one ServerGame instance is created. Default set to null.
+     */
+    private static ServerGame serverGame = null;
+    /**
+     * The client connected to the server, or null while the game is played on its own.
+     */
+    private GameClient client;
+    /**
+     * The number of the game on the server.
+     */
+    private long id;
+    /**
+     * The seat of this player in the game.
+     */
+    private int seat;
+    /**
+     * The number of Dragons in the game.
+     */
+    private int numPlayers;
+    /**
+     * The name of the board definition the game was dealt from.
+     */
+    private String boardName;
+    /**
+     * The seed the game was dealt from.
+     */
+    private long seed;
+
+    /**
+     * Connects to a server and takes a seat in a game, creating the game first if no game is given. Blocks until
+     * seated.
+     * @param host: The host name of the server.
+     * @param port: The port of the server.
+     * @param gameId: The number of the game to join, or null to create one.
+     * @param boardName: The name of the board definition to create the game from.
+     * @param numPlayers: The number of Dragons in a game created.
+     * @param seed: The seed to deal a game created from.
+     * @throws IOException if the server cannot be reached or refuses.
+     */
+    public void connect(String host, int port, Long gameId, String boardName, int numPlayers, long seed)
+            throws IOException {
+        GameClient connecting = new GameClient(host, port);
+        try {
+            long joining = (gameId != null) ? gameId : connecting.create(boardName, numPlayers, seed);
+            // JOINED id seat players chits board seed
+            String[] joined = connecting.join(joining);
+            this.id = Long.parseLong(joined[1]);
+            this.seat = Integer.parseInt(joined[2]);
+            this.numPlayers = Integer.parseInt(joined[3]);
+            this.boardName = joined[5];
+            this.seed = Long.parseLong(joined[6]);
+        } catch (IOException | RuntimeException e) {
+            connecting.close();
+            throw e;
+        }
+        this.client = connecting;
+    }
+
+    /**
+     * Starts reading the lines of the server on a thread of its own, once the board is set up.
+     */
+    public void start() {
+        Thread reader = new Thread(this::readLines, "server-game");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Reads lines from the server until it closes the connection, handing each to the JavaFX thread.
+     */
+    private void readLines() {
+        GameClient reading = client;
+        try {
+            String line;
+            while ((line = reading.readLine()) != null) {
+                String received = line;
+                Platform.runLater(() -> handle(received.split(" ")));
+            }
+        } catch (IOException e) {
+            // The connection was lost, as told below.
+        }
+        Platform.runLater(() -> NotificationManager.getInstance().publish(NotificationType.WARNING, "Disconnected",
+                "The connection to the server was lost."));
+    }
+
+    /**
+     * Carries out a line from the server on the JavaFX thread.
+     * @param words: The words of the line.
+     */
+    private void handle(String[] words) {
+        switch (words[0]) {
+            // FLIPPED seat chit kind value outcome current winner
+            case "FLIPPED" -> TurnManager.getInstance().receiveFlip(Integer.parseInt(words[2]));
+            case "SEATED" -> NotificationManager.getInstance().publish(NotificationType.INFO, "Player Joined",
+                    "Seat " + words[1] + " has been taken.");
+            case "LEFT" -> NotificationManager.getInstance().publish(NotificationType.INFO, "Player Left",
+                    "The player in seat " + words[1] + " has left.");
+            case "ERROR" -> NotificationManager.getInstance().publish(NotificationType.WARNING, "Server",
+                    String.join(" ", words).substring(6));
+            default -> {
+                // Other lines, such as PONG, need nothing doing.
+            }
+        }
+    }
+
+    /**
+     * Asks the server to flip a Chit Card for this player. The board is only changed once the server answers.
+     * @param chit: The number of the Chit Card.
+     */
+    public void flip(int chit) {
+        try {
+            client.flip(chit);
+        } catch (IOException e) {
+            NotificationManager.getInstance().publish(NotificationType.WARNING, "Disconnected",
+                    "The flip could not be sent to the server.");
+        }
+    }
+
+    /**
+     * Leaves the game and closes the connection, if connected.
+     */
+    public void close() {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException e) {
+            // The connection is already closed.
+        }
+        client = null;
+    }
+
+    /**
+     * A method to check whether the game is played on a server.
+     * @return True if connected to a server.
+     */
+    public boolean isConnected() {
+        return client != null;
+    }
+
+    /**
+     * A method to return the id data attribute.
+     * @return the number of the game on the server.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * A method to return the seat data attribute.
+     * @return the seat of this player in the game.
+     */
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * A method to return the numPlayers data attribute.
+     * @return the number of Dragons in the game.
+     */
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * A method to return the boardName data attribute.
+     * @return the name of the board definition the game was dealt from.
+     */
+    public String getBoardName() {
+        return boardName;
+    }
+
+    /**
+     * A method to return the seed data attribute.
+     * @return the seed the game was dealt from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the instance of the serverGame stored as a data attribute.
+     * If one has not been created yet, create a new instance of serverGame.
+     * @return the serverGame instance.
+     */
+    public static ServerGame getInstance() {
+        if (serverGame == null) {
+            serverGame = new ServerGame();
+        }
+        return serverGame;
+    }
+}
@@ -1,17 +1,24 @@
 package com.fierydragon.utils;
 
 
+import com.fierydragon.components.ChitCard;
+import com.fierydragon.engine.ChitDeck;
+import com.fierydragon.engine.GameLoop;
+import com.fierydragon.engine.GameSnapshot;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.engine.TurnPhase;
+import com.fierydragon.movement.DragonSquareIterator;
+import com.fierydragon.movement.MovementManager;
+import com.fierydragon.notifications.Notification;
+import com.fierydragon.notifications.NotificationManager;
+import com.fierydragon.notifications.NotificationType;
 import com.fierydragon.pieces.Dragon;
 import com.fierydragon.pieces.DragonIterator;
 import com.fierydragon.volcano.GameBoard;
 import com.fierydragon.volcano.GameManager;
+import com.fierydragon.volcano.Square;
 import javafx.application.Platform;
-import javafx.scene.control.Alert;
-import javafx.scene.control.Alert.AlertType;
-import javafx.animation.PauseTransition;
 import javafx.geometry.Pos;
-import javafx.scene.control.ButtonBar;
-import javafx.scene.control.ButtonType;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
@@ -19,13 +26,19 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
-import javafx.stage.Stage;
-import javafx.util.Duration;
 
-import java.util.Optional;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A TurnManager Singleton Design Pattern to manage whose turn is it.
+ * Flips from clicks, bots and other threads go through a GameLoop, which runs them one at a time on the JavaFX thread
+ * and turns away those made while the turn is changing or the game is over.
+ * After each resolved flip and each change of turn a GameSnapshot is published, so other threads can read the game
+ * without touching the JavaFX scene.
+ * When the game is played on a server, clicks are sent to the server through the ServerGame instead, and the flips the
+ * server answers with are played in the order they arrive, each waiting until the turn before it has been handed on.
  * Created by:
  * @author Bryan Wong
  * Modified by: Vincent Tanuwidjaja, Po Han Tay
@@ -56,9 +69,26 @@ public class TurnManager {
      */
     private boolean winCondition;
     /**
-     * A boolean object denoting if the game is paused (when changing turns)
+     * The GameLoop that carries out the flips one at a time and tracks the phase of the turn.
      */
-    private boolean isPaused;
+    private final GameLoop gameLoop;
+    /**
+     * A boolean denoting if a tick of the GameLoop has already been posted to the JavaFX thread.
+     */
+    private final AtomicBoolean tickPosted;
+    /**
+     * The snapshot of the game last published, or null before the first one.
+     */
+    private volatile GameSnapshot snapshot;
+    /**
+     * The number of snapshots published. Only changed on the JavaFX thread.
+     */
+    private long version;
+    /**
+     * The flips the server has made that are still waiting for the turn to be handed on. Only used on the JavaFX
+     * thread.
+     */
+    private final ArrayDeque<Integer> receivedFlips;
 
     /**
      * TurnManager Constructor.
@@ -68,6 +98,144 @@ public class TurnManager {
         // Create a new DragonIterator instance based on the input List of dragons.
        setDragonIterator(new DragonIterator());
        setWinCondition(false);  // Set false to default as its not implemented.
+       gameLoop = new GameLoop(new GameLoop.FlipHandler() {
+           @Override
+           public boolean isFlipped(int chit) {
+               return gameBoard.getChitDeck().isFlipped(chit);
+           }
+
+           @Override
+           public void flip(int chit) {
+               resolveFlip(chit);
+           }
+       });
+       tickPosted = new AtomicBoolean();
+       receivedFlips = new ArrayDeque<>();
+    }
+
+    /**
+     * Asks to flip a Chit Card that has been clicked. When the game is played on a server, the flip is sent there if
+     * it is this player's turn, and played once the server answers; otherwise it is submitted straight away.
+     * @param chit: The number of the Chit Card in the Chit Card deck.
+     */
+    public void requestFlip(int chit) {
+        ServerGame serverGame = ServerGame.getInstance();
+        if (!serverGame.isConnected()) {
+            submitFlip(chit);
+        }
+        // Only the player whose turn it is may flip, once the board has caught up with the server.
+        else if (dragonIterator.getCurrentPosition() == serverGame.getSeat() && receivedFlips.isEmpty()
+                && gameLoop.getPhase() == TurnPhase.AWAITING_FLIP) {
+            serverGame.flip(chit);
+        }
+    }
+
+    /**
+     * Plays a flip the server has made, after any still waiting. Called on the JavaFX thread.
+     * @param chit: The number of the Chit Card in the Chit Card deck.
+     */
+    public void receiveFlip(int chit) {
+        receivedFlips.add(chit);
+        playReceivedFlips();
+    }
+
+    /**
+     * Plays the flips the server has made while the game awaits a flip. A flip that ends the turn leaves the rest
+     * waiting until the turn has been handed on.
+     */
+    private void playReceivedFlips() {
+        while (!receivedFlips.isEmpty() && gameLoop.getPhase() == TurnPhase.AWAITING_FLIP) {
+            gameLoop.submit(receivedFlips.poll());
+            gameLoop.tick();
+        }
+    }
+
+    /**
+     * Asks to flip a Chit Card for the Dragon whose turn it is. Safe to call from any thread: the flip is carried out
+     * on the next tick of the JavaFX thread, unless the turn has changed or the Chit Card was flipped in the meantime.
+     * @param chit: The number of the Chit Card in the Chit Card deck.
+     * @return False if too many flips are already waiting and this one was refused.
+     */
+    public boolean submitFlip(int chit) {
+        if (!gameLoop.submit(chit)) {
+            return false;
+        }
+        // Post one tick for all the flips waiting, rather than one per flip.
+        if (tickPosted.compareAndSet(false, true)) {
+            Platform.runLater(this::tick);
+        }
+        return true;
+    }
+
+    /**
+     * Carries out the waiting flips in batches on the JavaFX thread.
+     */
+    private void tick() {
+        tickPosted.set(false);
+        // A TurnManager replaced by a restart no longer owns the board.
+        if (turnManager != this) {
+            return;
+        }
+        gameLoop.tick();
+        // Leave the rest of a large batch for the next pulse.
+        if (gameLoop.hasCommands() && tickPosted.compareAndSet(false, true)) {
+            Platform.runLater(this::tick);
+        }
+    }
+
+    /**
+     * Flips a Chit Card and moves the Dragon whose turn it is. Called by the GameLoop once it accepts the flip.
+     * If every Chit Card is face up after the flip and the turn has not ended, the turn passes so the game cannot stall,
+     * in the same way as GameState.flip.
+     * @param chit: The number of the Chit Card in the Chit Card deck.
+     */
+    private void resolveFlip(int chit) {
+        ChitCard chitCard = (ChitCard) gameBoard.getChitCards().get(chit);
+        chitCard.reveal();
+        getCurrentDragon().move(chitCard);
+        // The move ended neither the turn nor the game, but there is nothing left to flip.
+        ChitDeck deck = gameBoard.getChitDeck();
+        if (gameLoop.getPhase() == TurnPhase.RESOLVING && deck.getNumFlipped() == deck.size()) {
+            nextTurn();
+        }
+        publishSnapshot();
+    }
+
+    /**
+     * Publishes a snapshot of the game as it is now. Called on the JavaFX thread after each change, so readers on other
+     * threads only ever see whole moves.
+     */
+    private void publishSnapshot() {
+        // Nothing to publish before the board is set up.
+        if (gameBoard == null || gameBoard.getChitDeck() == null) {
+            return;
+        }
+        DragonSquareIterator squares = MovementManager.getInstance().getDragonSquareIterator();
+        List<Dragon> dragons = dragonIterator.getDragons();
+        int[] homeCaves = new int[dragons.size()];
+        int[] ringIndices = new int[dragons.size()];
+        long inCaveMask = 0, passedMask = 0;
+        for (int player = 0; player < dragons.size(); player++) {
+            Dragon dragon = dragons.get(player);
+            Square square = squares.locationOf(dragon);
+            homeCaves[player] = gameBoard.getCaves().indexOf(dragon.getHomeCave());
+            // The first place the Square appears on the path, as in the GameState.
+            ringIndices[player] = (square == null) ? -1 : squares.locateSquare(square);
+            inCaveMask |= (square != null && square.isCave()) ? 1L << player : 0;
+            passedMask |= dragon.hasPassedCave() ? 1L << player : 0;
+        }
+
+        // Only the faces of the face-up Chit Cards are shown.
+        ChitDeck deck = gameBoard.getChitDeck();
+        byte[] flippedFaces = new byte[deck.size()];
+        for (int chit = 0; chit < flippedFaces.length; chit++) {
+            flippedFaces[chit] = deck.isFlipped(chit) ? deck.getFace(chit) : 0;
+        }
+
+        // The Dragon that wins is the one whose turn it is.
+        int current = dragonIterator.getCurrentPosition();
+        snapshot = new GameSnapshot(++version, gameLoop.getTurn(), current, winCondition ? current : GameState.NOBODY,
+                homeCaves, ringIndices, inCaveMask, dragonIterator.getStunnedMask(), passedMask, flippedFaces);
     }
 
     /**
@@ -126,52 +294,64 @@ public class TurnManager {
      * @return the Dragon who is the next.
      */
     public void nextTurn() {
-        // Create a pause to give player time to see what Displayable
-        // is on the ChitCard before changing turns
-        PauseTransition pause = new PauseTransition(Duration.seconds(1));
-        setPaused(true);
-        pause.setOnFinished(event -> {
-            // After the pause, reset chit cards
-            gameBoard.resetChitCards();
-            Dragon nextDragon = dragonIterator.next();
-            updateTurnIndicator(this.boardGrid);
-            setPaused(false);
-            // If a turn has pass, the Dragon recovers.
-            if (nextDragon.isStunned()) {
-                nextDragon.setStunned(false);
-                nextTurn();
-            }
-        });
-        // Start the pause transition
-        pause.play();
+        // Pause to give player time to see what Displayable is on the ChitCard before changing turns.
+        // The TurnScheduler decides how long the pause is based on the pacing of the game.
+        gameLoop.endTurn();
+        TurnScheduler.getInstance().schedule(this::changeTurn);
+    }
+
+    /**
+     * Hands the turn to the next Dragon that is not stunned.
+     * Stunned Dragons are skipped in a constant number of steps however many Dragons are playing, recovering as their
+     * turn passes.
+     */
+    private void changeTurn() {
+        // After the pause, reset chit cards
+        gameBoard.resetChitCards();
+        // Stunned Dragons are passed over with their stunned mask, recovering as their turn passes.
+        dragonIterator.nextAwake();
+        // Only the latest turn needs to be drawn.
+        TurnScheduler.getInstance().requestRender(() -> updateTurnIndicator(this.boardGrid));
+        // Flips made before the turn changed are now stale.
+        gameLoop.startTurn();
+        publishSnapshot();
+        // Flips the server made during the pause can now be played.
+        playReceivedFlips();
     }
 
     /**
-     * Displays a winning alert message to the users playing. Allows the users to restart or close the application
+     * Notifies the users playing that a Dragon has won. Allows the users to restart or close the application.
+     * The game stops taking turns straight away, without waiting for the users to choose.
      * @param dragon: The Dragon that won the game.
      */
     public void win(Dragon dragon) {
-        // Create alert message to display that win condition has been met
-        Alert alert = new Alert(AlertType.INFORMATION);
-        alert.setTitle("Game Over");
-        alert.setHeaderText(String.format("%s Dragon wins!", dragon.getHomeCave().getColourString()));
-
-        // Create buttons for restart and close the application
-        ButtonType restartButton = new ButtonType("Restart");
-        ButtonType closeButton = new ButtonType("Exit", ButtonBar.ButtonData.CANCEL_CLOSE);
-        alert.getButtonTypes().setAll(restartButton, closeButton);
-
-        // Display the alert message
-        Optional<ButtonType> result = alert.showAndWait();
-
-        // Checks if the user clicks the Restart or Exit button
-        if (result.isPresent() && result.get() == restartButton) {
-            Stage stage = GameManager.getInstance().getFieryDragonDriver().getPrimaryStage();
-            GameManager.getInstance().getFieryDragonDriver().cleanup();
-            GameManager.getInstance().getFieryDragonDriver().restart(stage);
-        } else {
-            Platform.exit();
+        // Stop the game so no more Chit Cards can be flipped.
+        setWinCondition(true);
+        gameLoop.endGame();
+
+        // Create the notification to display that win condition has been met, with buttons to restart or close the application
+        Notification notification = new Notification(NotificationType.GAME_OVER, "Game Over",
+                String.format("%s Dragon wins!", dragon.getHomeCave().getColourString()));
+        // Restarting reuses the whole scene, reshuffling the board unless the same board is replayed. A game played on
+        // a server ends there, as the server does not deal it again.
+        if (!ServerGame.getInstance().isConnected()) {
+            notification.addAction("Restart", () -> GameManager.getInstance().getFieryDragonDriver().warmRestart(true));
+            notification.addAction("Replay Board", () -> GameManager.getInstance().getFieryDragonDriver().warmRestart(false));
         }
+        notification.addAction("Exit", Platform::exit);
+
+        // Display the notification.
+        NotificationManager.getInstance().publish(notification);
+    }
+
+    /**
+     * Starts a new game with the same Dragons, handing the turn back to the first Dragon.
+     */
+    public void restart() {
+        dragonIterator.setCurrentPosition(0);
+        setWinCondition(false);
+        gameLoop.startTurn();
+        publishSnapshot();
     }
 
     /**
@@ -215,26 +395,35 @@ public class TurnManager {
     }
 
     /**
-     * A method to get the isPaused data attribute.
+     * A method to return the phase of the turn from the gameLoop data attribute.
+     * @return the part of the turn the game is in.
      */
-    public boolean isPaused() {
-        return isPaused;
+    public TurnPhase getPhase() {
+        return gameLoop.getPhase();
     }
 
     /**
-     * A method to set the boardGrid data attribute.
-     * @param boardGrid: The boardGrid object to be set.
+     * A method to return the snapshot data attribute. Safe to call from any thread.
+     * @return the snapshot of the game last published, or null if none has been published yet.
      */
-    public void addBoardGrid(GridPane boardGrid) {
-        this.boardGrid = boardGrid;
+    public GameSnapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
-     * A method to set the isPaused data attribute.
-     * @param paused: The paused boolean object to be set.
+     * A method to return the gameLoop data attribute.
+     * @return the GameLoop carrying out the flips.
      */
-    public void setPaused(boolean paused) {
-        isPaused = paused;
+    public GameLoop getGameLoop() {
+        return gameLoop;
+    }
+
+    /**
+     * A method to set the boardGrid data attribute.
+     * @param boardGrid: The boardGrid object to be set.
+     */
+    public void addBoardGrid(GridPane boardGrid) {
+        this.boardGrid = boardGrid;
     }
 
     /**
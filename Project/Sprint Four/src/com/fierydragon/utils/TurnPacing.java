@@ -0,0 +1,50 @@
+package com.fierydragon.utils;
+
+/**
+ * Enum class that depicts how long the game waits before handing the turn to the next Dragon.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see TurnScheduler
+ */
+
+public enum TurnPacing {
+    /**
+     * Gives human players a full second to see the flipped Chit Card.
+     */
+    HUMAN(1.0),
+    /**
+     * A short pause for tables that are mostly watched rather than played.
+     */
+    FAST(0.25),
+    /**
+     * No pause at all, used by bot-only tables.
+     */
+    INSTANT(0.0),
+    /**
+     * Replays at the human pace divided by the replay speed of the TurnScheduler.
+     */
+    REPLAY(1.0);
+
+    /**
+     * The number of seconds to wait before changing turns.
+     */
+    private final double delaySeconds;
+
+    /**
+     * TurnPacing Constructor.
+     * @param delaySeconds: The number of seconds to wait before changing turns.
+     */
+    TurnPacing(double delaySeconds) {
+        this.delaySeconds = delaySeconds;
+    }
+
+    /**
+     * A method to return the delaySeconds data attribute.
+     * @return the number of seconds to wait before changing turns.
+     */
+    public double getDelaySeconds() {
+        return delaySeconds;
+    }
+}
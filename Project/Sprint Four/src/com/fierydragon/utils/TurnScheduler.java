@@ -0,0 +1,174 @@
+package com.fierydragon.utils;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+/**
+ * A TurnScheduler Singleton Design Pattern that paces the turn changes based on the chosen TurnPacing.
+ * Only one pause is ever pending, so turn changes never stack transitions on top of each other.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see TurnManager
+ * @see TurnPacing
+ */
+
+public class TurnScheduler {
+    /**
+     * An instance of itself so that only one TurnScheduler instance is created. Default set to null.
+     */
+    private static TurnScheduler turnScheduler = null;
+    /**
+     * The pacing profile of the game.
+     */
+    private TurnPacing pacing;
+    /**
+     * The multiplier applied to the human pace when replaying.
+     */
+    private double replaySpeed;
+    /**
+     * The single pause reused for every turn change. Created lazily as it needs the JavaFX toolkit.
+     */
+    private PauseTransition pause;
+    /**
+     * The latest render requested while a coalesced render is pending.
+     */
+    private Runnable pendingRender;
+    /**
+     * A boolean denoting if a coalesced render has already been posted to the JavaFX thread.
+     */
+    private boolean renderPosted;
+
+    /**
+     * TurnScheduler Constructor.
+     * Defaults to the human pacing.
+     */
+    public TurnScheduler() {
+        setPacing(TurnPacing.HUMAN);
+        setReplaySpeed(1.0);
+    }
+
+    /**
+     * Schedules the turn change after the delay of the current pacing.
+     * A pending turn change is replaced rather than queued behind.
+     * @param turnChange: The action that hands the turn to the next Dragon.
+     */
+    public void schedule(Runnable turnChange) {
+        double delay = getDelaySeconds();
+
+        // Without a delay, change the turn straight away.
+        if (delay <= 0) {
+            if (pause != null) {
+                pause.stop();
+            }
+            turnChange.run();
+            return;
+        }
+
+        // Otherwise reuse the single pause so that transitions never stack.
+        if (pause == null) {
+            pause = new PauseTransition();
+        }
+        pause.stop();
+        pause.setDuration(Duration.seconds(delay));
+        pause.setOnFinished(event -> turnChange.run());
+        pause.playFromStart();
+    }
+
+    /**
+     * Renders the latest state of the game.
+     * When the game is paced, the render happens straight away. At instant speed the renders are coalesced so that only
+     * the latest one is drawn on the next pulse of the JavaFX thread.
+     * @param render: The action that updates the UI.
+     */
+    public void requestRender(Runnable render) {
+        // Paced games have time to draw every turn.
+        if (getDelaySeconds() > 0) {
+            render.run();
+            return;
+        }
+
+        // Keep only the latest render and post it once per pulse.
+        pendingRender = render;
+        if (!renderPosted) {
+            renderPosted = true;
+            Platform.runLater(() -> {
+                renderPosted = false;
+                Runnable latestRender = pendingRender;
+                pendingRender = null;
+                if (latestRender != null) {
+                    latestRender.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Cancels the pending turn change, if there is one.
+     */
+    public void cancel() {
+        if (pause != null) {
+            pause.stop();
+        }
+    }
+
+    /**
+     * Gets the number of seconds to wait before changing turns, based on the pacing and replay speed.
+     * @return the number of seconds to wait.
+     */
+    public double getDelaySeconds() {
+        if (pacing == TurnPacing.REPLAY) {
+            return pacing.getDelaySeconds() / replaySpeed;
+        }
+        return pacing.getDelaySeconds();
+    }
+
+    /**
+     * A method to return the pacing data attribute.
+     * @return the pacing profile of the game.
+     */
+    public TurnPacing getPacing() {
+        return pacing;
+    }
+
+    /**
+     * A method to return the replaySpeed data attribute.
+     * @return the multiplier applied to the human pace when replaying.
+     */
+    public double getReplaySpeed() {
+        return replaySpeed;
+    }
+
+    /**
+     * A method to set the pacing data attribute.
+     * @param pacing: The pacing profile of the game.
+     */
+    public void setPacing(TurnPacing pacing) {
+        this.pacing = pacing;
+    }
+
+    /**
+     * A method to set the replaySpeed data attribute.
+     * @param replaySpeed: The multiplier applied to the human pace when replaying. Must be positive.
+     */
+    public void setReplaySpeed(double replaySpeed) {
+        if (replaySpeed <= 0) {
+            throw new IllegalArgumentException("Replay speed should be positive");
+        }
+        this.replaySpeed = replaySpeed;
+    }
+
+    /**
+     * Returns the instance of the turnScheduler stored as a data attribute.
+     * If one has not been created yet, create a new instance of turnScheduler.
+     * @return the turnScheduler instance.
+     */
+    public static TurnScheduler getInstance() {
+        if (turnScheduler == null) {
+            turnScheduler = new TurnScheduler();
+        }
+        return turnScheduler;
+    }
+}
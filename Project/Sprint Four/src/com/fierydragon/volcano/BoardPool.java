@@ -0,0 +1,187 @@
+package com.fierydragon.volcano;
+
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.LayoutCache;
+
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A BoardPool Singleton Design Pattern that keeps a few ready-to-play boards prepared in advance by a background
+ * thread. Taking a board does not build anything, and the pool is refilled off the JavaFX thread. Boards are dealt
+ * from a compiled layout, so nothing is laid out again however many boards are prepared.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see PreparedBoard
+ * @see CompiledLayout
+ * @see GameBoard
+ */
+
+public class BoardPool {
+    /**
+     * The logger of the game, which reports problems that do not stop the game.
+     */
+    private static final System.Logger LOGGER = System.getLogger("com.fierydragon");
+    /**
+     * An instance of itself so that only one BoardPool instance is created. Default set to null.
+     */
+    private static BoardPool boardPool = null;
+    /**
+     * The number of boards kept ready.
+     */
+    public static final int POOL_SIZE = 3;
+    /**
+     * The name of the board prepared until another one is chosen.
+     */
+    public static final String DEFAULT_BOARD = "standard";
+    /**
+     * The time waited after a board fails to be prepared before trying another, so a layout that always fails does
+     * not keep the thread busy, in milliseconds.
+     */
+    private static final long RETRY_MILLIS = 100;
+    /**
+     * The boards that are ready to be played.
+     */
+    private final BlockingQueue<PreparedBoard> boards;
+    /**
+     * The Random used to prepare the boards. Only used by the background thread.
+     */
+    private final Random random;
+    /**
+     * The background thread preparing the boards, or null if it has not been started.
+     */
+    private Thread refillThread;
+    /**
+     * The compiled layout the boards are dealt from.
+     */
+    private volatile CompiledLayout layout;
+
+    /**
+     * BoardPool Constructor.
+     */
+    public BoardPool() {
+        this.boards = new ArrayBlockingQueue<>(POOL_SIZE);
+        this.random = new Random();
+        this.layout = LayoutCache.getInstance().load(DEFAULT_BOARD);
+    }
+
+    /**
+     * Starts the background thread that keeps the pool full, if it is not already running.
+     * The thread is a daemon so it never keeps the game open.
+     */
+    public synchronized void start() {
+        if (refillThread != null) {
+            return;
+        }
+        refillThread = new Thread(this::refill, "board-pool");
+        refillThread.setDaemon(true);
+        refillThread.start();
+    }
+
+    /**
+     * Prepares boards until the pool is full, then waits for one to be taken. Runs on the background thread.
+     * A board that fails to be prepared is reported and the thread keeps refilling, so one bad deal does not leave the
+     * pool empty for the rest of the game.
+     */
+    private void refill() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                PreparedBoard preparedBoard;
+                try {
+                    preparedBoard = prepare(random);
+                } catch (RuntimeException e) {
+                    // A board that cannot be prepared is skipped, and take() prepares its own if the pool runs dry.
+                    LOGGER.log(System.Logger.Level.WARNING, "Could not prepare a board: {0}", e);
+                    Thread.sleep(RETRY_MILLIS);
+                    continue;
+                }
+                // Wait here while the pool is full.
+                boards.put(preparedBoard);
+            }
+        } catch (InterruptedException e) {
+            // The pool was shut down.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes a ready-to-play board from the pool. If the pool is empty, for example straight after it is started,
+     * a board is prepared on the calling thread instead.
+     * @return a prepared and validated board.
+     */
+    public PreparedBoard take() {
+        PreparedBoard preparedBoard = boards.poll();
+        // Skip any board prepared just before the layout was changed.
+        while (preparedBoard != null && preparedBoard.getLayout() != layout) {
+            preparedBoard = boards.poll();
+        }
+        if (preparedBoard == null) {
+            preparedBoard = prepare(new Random());
+        }
+        return preparedBoard;
+    }
+
+    /**
+     * Prepares and validates a board dealt from the current layout.
+     * @param random: The Random used to prepare the board.
+     * @return the prepared board.
+     */
+    private PreparedBoard prepare(Random random) {
+        PreparedBoard preparedBoard = PreparedBoard.fromLayout(layout, random);
+        preparedBoard.validate();
+        return preparedBoard;
+    }
+
+    /**
+     * A method to return the layout data attribute.
+     * @return the compiled layout the boards are dealt from.
+     */
+    public CompiledLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * A method to set the layout data attribute. Boards already in the pool from another layout are thrown away.
+     * @param layout: The compiled layout the boards are dealt from.
+     */
+    public void setLayout(CompiledLayout layout) {
+        if (this.layout != layout) {
+            this.layout = layout;
+            boards.clear();
+        }
+    }
+
+    /**
+     * A method to return the number of boards that are ready.
+     * @return the number of boards in the pool.
+     */
+    public int getNumReady() {
+        return boards.size();
+    }
+
+    /**
+     * Stops the background thread and empties the pool.
+     */
+    public synchronized void shutdown() {
+        if (refillThread != null) {
+            refillThread.interrupt();
+            refillThread = null;
+        }
+        boards.clear();
+    }
+
+    /**
+     * Returns the instance of the boardPool stored as a data attribute.
+     * If one has not been created yet, create a new instance of boardPool.
+     * @return the boardPool instance.
+     */
+    public static synchronized BoardPool getInstance() {
+        if (boardPool == null) {
+            boardPool = new BoardPool();
+        }
+        return boardPool;
+    }
+}
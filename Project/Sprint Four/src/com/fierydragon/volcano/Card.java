@@ -2,9 +2,11 @@ package com.fierydragon.volcano;
 
 import com.fierydragon.components.UIComponent;
 import com.fierydragon.display.creations.BabyDragonCreationStrategy;
+import com.fierydragon.engine.BoardTopology;
 import com.fierydragon.movement.DragonSquareIterator;
 import com.fierydragon.movement.MovementManager;
-import javafx.scene.control.Alert;
+import com.fierydragon.notifications.NotificationManager;
+import com.fierydragon.notifications.NotificationType;
 import javafx.scene.layout.GridPane;
 import javafx.scene.paint.Color;
 
@@ -20,6 +22,7 @@ import java.util.List;
  * @version 1.0
  * @see UIComponent
  * @see VolcanoSquare
+ * @see BoardTopology
  */
 
 public class Card extends UIComponent {
@@ -53,73 +56,33 @@ public class Card extends UIComponent {
     }
 
     /**
-     * This method creates placement of the Squares in the Game Board.
-     * @param cardPlacement: The enumeration depicting the placement of the card.
+     * This method places the Card and its Squares in the Game Board where the Volcano has them. The Card itself is
+     * placed on its corner Square if it has one, otherwise on its first Square.
+     * @param topology: The shape of the Volcano.
+     * @param card: The number of the Card, clockwise from 0.
      */
-    public void placeSquares(CardPlacement cardPlacement) {
-        // If in top left corner.
-        if (cardPlacement == CardPlacement.NORTHWEST) {
-            getSquares().get(0).setCoordinates(this.getX(), this.getY() + 1);
-            getSquares().get(1).setCoordinates(this.getX(), this.getY());
-            getSquares().get(2).setCoordinates(this.getX() + 1, this.getY());
-        }
-        // If in top right corner.
-        else if (cardPlacement == CardPlacement.NORTHEAST) {
-            getSquares().get(0).setCoordinates(this.getX() - 1, this.getY());
-            getSquares().get(1).setCoordinates(this.getX(), this.getY());
-            getSquares().get(2).setCoordinates(this.getX(), this.getY() + 1);
-        }
-        // If in bottom right corner.
-        else if (cardPlacement == CardPlacement.SOUTHEAST) {
-            getSquares().get(0).setCoordinates(this.getX(), this.getY() - 1);
-            getSquares().get(1).setCoordinates(this.getX(), this.getY());
-            getSquares().get(2).setCoordinates(this.getX() - 1, this.getY());
-        }
-        // If in bottom left corner.
-        else if (cardPlacement == CardPlacement.SOUTHWEST) {
-            getSquares().get(0).setCoordinates(this.getX() + 1, this.getY());
-            getSquares().get(1).setCoordinates(this.getX(), this.getY());
-            getSquares().get(2).setCoordinates(this.getX(), this.getY() - 1);
-        }
-        // If top
-        else if (cardPlacement == CardPlacement.NORTH) {
-            // Loop through the numberOfSquares and create a Square for each one.
-            for (int i = 0; i < 3; i++) {
-                getSquares().get(i).setCoordinates(this.getX() + i, this.getY());
-            }
-            // Set the cave coordinates.
-            getSquares().get(1).getCave().setCoordinates(this.getX() + 1, this.getY() - 1);
-        }
-        // If bottom
-        else if (cardPlacement == CardPlacement.SOUTH) {
-            // Loop through the numberOfSquares and create a Square for each one.
-            for (int i = 0; i < 3; i++) {
-                getSquares().get(i).setCoordinates(this.getX() - i, this.getY());
+    public void placeSquares(BoardTopology topology, int card) {
+        int first = card * topology.getSquaresPerCard();
+        int anchor = first;
+        // Loop through the Squares and place each one, along with its Cave if it has one.
+        for (int i = 0; i < getSquares().size(); i++) {
+            int square = first + i;
+            VolcanoSquare volcanoSquare = getSquares().get(i);
+            volcanoSquare.setCoordinates(topology.getSquareX(square), topology.getSquareY(square));
+            if (volcanoSquare.getCave() != null && topology.getCaveAt(square) != -1) {
+                int cave = topology.getCaveAt(square);
+                volcanoSquare.getCave().setCoordinates(topology.getCaveX(cave), topology.getCaveY(cave));
             }
-            // Set the cave coordinates.
-            getSquares().get(1).getCave().setCoordinates(this.getX() - 1, this.getY() + 1);
-        }
-        // If right
-        else if (cardPlacement == CardPlacement.EAST) {
-            // Loop through the numberOfSquares and create a Square for each one.
-            for (int i = 0; i < getNumOfSquares(); i++) {
-                getSquares().get(i).setCoordinates(this.getX(), this.getY() + i);
+            // Anchor the Card to a corner of the ring.
+            boolean cornerX = topology.getSquareX(square) == topology.getMinX() || topology.getSquareX(square) == topology.getMaxX();
+            boolean cornerY = topology.getSquareY(square) == topology.getMinY() || topology.getSquareY(square) == topology.getMaxY();
+            if (cornerX && cornerY) {
+                anchor = square;
             }
-            // Set the cave coordinates.
-            getSquares().get(1).getCave().setCoordinates(this.getX() + 1, this.getY() + 1);
-        }
-        // If left
-        else if (cardPlacement == CardPlacement.WEST) {
-            // Loop through the numberOfSquares and create a Square for each one.
-            for (int i = 0; i < getNumOfSquares(); i++) {
-                getSquares().get(i).setCoordinates(this.getX(), this.getY() - i);
-            }
-            // Set the cave coordinates.
-            getSquares().get(1).getCave().setCoordinates(this.getX() - 1, this.getY() - 1);
         }
+        this.setCoordinates(topology.getSquareX(anchor), topology.getSquareY(anchor));
     }
 
-
     /**
      * The overridden render method that will render the Volcano Card in the UI.
      * @param boardGrid: The GameBoard GridPane object
@@ -217,12 +180,10 @@ public class Card extends UIComponent {
         // Split the squares by a closing round bracket followed by a comma and an optional space
         String[] squareStrings = cardStrings[1].split("},\\s*");
 
-        // Check if the number of squares are matching. If no, return an alert
+        // Check if the number of squares are matching. If no, return a warning
         if (getNumOfSquares() != squareStrings.length) {
-            Alert alert = new Alert(Alert.AlertType.WARNING);
-            alert.setTitle("Incorrect Card Settings");
-            alert.setContentText("One of the Cards doesn't have the matching number of Volcano Squares.");
-            alert.showAndWait();
+            NotificationManager.getInstance().publish(NotificationType.WARNING, "Incorrect Card Settings",
+                    "One of the Cards doesn't have the matching number of Volcano Squares.");
             return;
         }
 
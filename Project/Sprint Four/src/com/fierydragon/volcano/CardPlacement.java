@@ -1,5 +1,7 @@
 package com.fierydragon.volcano;
 
+import com.fierydragon.engine.BoardTopology;
+
 /**
  * Enum class that depicts the placement of the cards, whether its horizontal, vertical or corner.
  * Created by:
@@ -16,5 +18,48 @@ public enum CardPlacement {
     SOUTHEAST,
     SOUTH,
     SOUTHWEST,
-    WEST
+    WEST;
+
+    /**
+     * Works out the placement of a Volcano Card from where its Squares are on the ring. A Card holding a corner of
+     * the ring is placed in that corner, otherwise it is placed on the side of its middle Square.
+     * @param topology: The shape of the Volcano.
+     * @param card: The number of the Volcano Card, clockwise from 0.
+     * @return the placement of the Card.
+     */
+    public static CardPlacement of(BoardTopology topology, int card) {
+        int first = card * topology.getSquaresPerCard();
+        // Look for a corner of the ring on the Card.
+        for (int square = first; square < first + topology.getSquaresPerCard(); square++) {
+            boolean west = topology.getSquareX(square) == topology.getMinX();
+            boolean east = topology.getSquareX(square) == topology.getMaxX();
+            boolean north = topology.getSquareY(square) == topology.getMinY();
+            boolean south = topology.getSquareY(square) == topology.getMaxY();
+            if (north && west) {
+                return NORTHWEST;
+            }
+            if (north && east) {
+                return NORTHEAST;
+            }
+            if (south && east) {
+                return SOUTHEAST;
+            }
+            if (south && west) {
+                return SOUTHWEST;
+            }
+        }
+
+        // Otherwise use the side of the middle Square.
+        int middle = first + topology.getSquaresPerCard() / 2;
+        if (topology.getSquareY(middle) == topology.getMinY()) {
+            return NORTH;
+        }
+        if (topology.getSquareX(middle) == topology.getMaxX()) {
+            return EAST;
+        }
+        if (topology.getSquareY(middle) == topology.getMaxY()) {
+            return SOUTH;
+        }
+        return WEST;
+    }
 }
@@ -6,20 +6,23 @@ import com.fierydragon.components.ChitCardFactory;
 import com.fierydragon.components.UIComponent;
 import com.fierydragon.display.animals.Knight;
 import com.fierydragon.display.animals.PirateDragon;
+import com.fierydragon.display.creations.AnimalCreationStrategy;
 import com.fierydragon.display.creations.CreationStrategy;
+import com.fierydragon.engine.BoardTopology;
+import com.fierydragon.engine.ChitDeck;
 import com.fierydragon.movement.DragonSquareIterator;
 import com.fierydragon.movement.MovementManager;
+import com.fierydragon.notifications.NotificationManager;
+import com.fierydragon.notifications.NotificationType;
 import com.fierydragon.pieces.Dragon;
 import com.fierydragon.pieces.DragonFactory;
 import com.fierydragon.utils.Constants;
 import com.fierydragon.utils.TurnManager;
-import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.layout.GridPane;
 import javafx.scene.paint.Color;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -56,6 +59,10 @@ public class GameBoard extends UIComponent {
      * The list of ChitCards.
      */
     private List<UIComponent> chitCards;
+    /**
+     * The ChitDeck holding the faces and flipped state of the Chit Cards, or null before they are set up.
+     */
+    private ChitDeck chitDeck;
     /**
      * The list of Caves.
      */
@@ -89,51 +96,77 @@ public class GameBoard extends UIComponent {
     }
 
     /**
-     * Setups the Volcano Path by placing all the Volcano Cards around the Volcano. For now, it will be a square for simplicity’s sake.
-     * @param cutCardDisplayCreationStrategies: A nested list of all display creation strategies for the cut Volcano Card Game Board setup.
-     * @param cardDisplayCreationStrategies: A nested list of all display creation strategies for the uncut Volcano Card Game Board setup.
-     * @param caves: A list of all caves to create.
+     * Builds all the Volcano Cards placed around the Volcano without adding them to any Game Board.
+     * Does not touch any shared state, so it can be called off the JavaFX thread.
+     * @param topology: The shape of the Volcano and the Animal on each Square.
+     * @param caves: A list of all caves, in the clockwise order of the Volcano.
+     * @return the list of Cards in clockwise order.
      */
-    public void cardSetup(List<List<CreationStrategy>> cutCardDisplayCreationStrategies, List<List<CreationStrategy>> cardDisplayCreationStrategies, List<Cave> caves) {
-        // Loop through the nested Animal Creation list and build each card, adding it ot the Game Board.
-        int i = 0, j = 0, k = 0;
-        for (CardPlacement cardPlacement : CardPlacement.values()) {
+    public static List<Card> buildCards(BoardTopology topology, List<Cave> caves) {
+        List<Card> builtCards = new ArrayList<>();
+        // Loop through the Volcano Cards clockwise and build each one.
+        int k = 0;
+        for (int i = 0; i < topology.getNumCards(); i++) {
+            // Get the Creation Strategy of the Animal on each Square of the Card.
+            List<CreationStrategy> displayCreationStrategies = new ArrayList<>();
+            for (int square = i * topology.getSquaresPerCard(); square < (i + 1) * topology.getSquaresPerCard(); square++) {
+                displayCreationStrategies.add(AnimalCreationStrategy.forType(topology.getSquareAnimal(square)));
+            }
+
+            CardPlacement cardPlacement = CardPlacement.of(topology, i);
             CardBuilder cardBuilder;
-            // Alternates the addition of the cut and uncut cards. Add uncut Cards every even number.
-            if (i % 2 == 0) {
-                cardBuilder = new CardBuilder(Color.BEIGE, "Beige", Constants.NUM_SQUARES, cardDisplayCreationStrategies.get(j), cardPlacement);
-                j++;
+            // Add cut Cards with their Cave.
+            if (topology.isCutCard(i)) {
+                cardBuilder = new CardBuilder(Color.BEIGE, "Beige", topology.getSquaresPerCard(), displayCreationStrategies, cardPlacement, caves.get(k));
+                k++;
             }
-            // Add cut Cards every odd number.
+            // Add uncut Cards otherwise.
             else {
-                cardBuilder = new CardBuilder(Color.BEIGE, "Beige", Constants.NUM_SQUARES, cutCardDisplayCreationStrategies.get(k), cardPlacement, caves.get(k));
-                k++;
+                cardBuilder = new CardBuilder(Color.BEIGE, "Beige", topology.getSquaresPerCard(), displayCreationStrategies, cardPlacement);
             }
-            // Build the Card using the CardBuilder and add it into the Game Board.
+            // Build the Card using the CardBuilder.
             Card card = cardBuilder.build();
-            // Set the starting coordinates for the GameBoard.
-            card.setCoordinates(Constants.startingXCoords[i], Constants.startingYCoords[i]);
-            // Determine the placement of Squares.
-            card.placeSquares(card.getCardPlacement());
-            // Add the card to have the Squares become a moveable location.
-            MovementManager.getInstance().getDragonSquareIterator().addSquare(card);
-            // Add it to the card array list.
-            this.addCard(card);
-            i++;
+            // Place the Card and its Squares.
+            card.placeSquares(topology, i);
+            builtCards.add(card);
         }
+        return builtCards;
     }
 
     /**
-     * Setups all the Chit/Dragon Cards by using the displayCreationStrategies list and the ChitCardFactory singleton.
+     * Builds all the Chit/Dragon Cards of a deck given by a board definition in a chosen order, such as the order
+     * CompiledLayout.shuffleChits chooses, so the Chit Cards are in the same places as in a game dealt without the UI.
+     * @param displayCreationStrategies: A list of all the display Animal Creation Strategies, in AnimalType order.
+     * @param maxNumChitCards: The maximum number of Chit Cards available.
+     * @param numOfPirates: The maximum number of Pirate Chit Cards available.
+     * @param numOfKnights: The maximum number of Knight Chit Cards available.
+     * @param maxAnimalChitCards: The largest number of Animals on one Animal Chit Card.
+     * @param order: For each place in the deck, the index of the Chit Card put there from the unshuffled deck.
+     * @return the list of Chit Cards in that order.
+     */
+    public static List<UIComponent> buildChitCards(List<CreationStrategy> displayCreationStrategies, int maxNumChitCards, int numOfPirates, int numOfKnights, int maxAnimalChitCards, int[] order) {
+        List<UIComponent> builtChitCards = createChitCards(displayCreationStrategies, maxNumChitCards, numOfPirates, numOfKnights, maxAnimalChitCards);
+        List<UIComponent> orderedChitCards = new ArrayList<>(builtChitCards.size());
+        for (int index : order) {
+            orderedChitCards.add(builtChitCards.get(index));
+        }
+        return orderedChitCards;
+    }
+
+    /**
+     * Builds all the Chit/Dragon Cards of a deck given by a board definition, unshuffled: the Animal Chit Cards, then
+     * the Pirate Dragon Chit Cards and then the Knight Chit Cards, as in CompiledLayout.dealChitDeck.
      * @param displayCreationStrategies: A list of all the display Animal Creation Strategies to create and display.
      * @param maxNumChitCards: The maximum number of Chit Cards available.
      * @param numOfPirates: The maximum number of Pirate Chit Cards available.
      * @param numOfKnights: The maximum number of Knight Chit Cards available.
+     * @param maxAnimalChitCards: The largest number of Animals on one Animal Chit Card.
+     * @return the list of Chit Cards.
      */
-    public void chitCardSetup(List<CreationStrategy> displayCreationStrategies, int maxNumChitCards, int numOfPirates, int numOfKnights) {
-        // Use the ChitCardFactory to construct all the Animal Chit Cards.
-        ChitCardFactory chitCardFactory = ChitCardFactory.getInstance(maxNumChitCards, numOfPirates, numOfKnights);
-        chitCards.addAll(chitCardFactory.createComponents(displayCreationStrategies));
+    private static List<UIComponent> createChitCards(List<CreationStrategy> displayCreationStrategies, int maxNumChitCards, int numOfPirates, int numOfKnights, int maxAnimalChitCards) {
+        // Use a ChitCardFactory to construct all the Animal Chit Cards.
+        ChitCardFactory chitCardFactory = new ChitCardFactory(maxNumChitCards, numOfPirates, numOfKnights, maxAnimalChitCards);
+        List<UIComponent> builtChitCards = new ArrayList<>(chitCardFactory.createComponents(displayCreationStrategies));
 
         // Add all the Dragon Pirate Chit Cards.
         int j = 1;
@@ -142,42 +175,113 @@ public class GameBoard extends UIComponent {
             if (i == numOfPirates / Constants.MAX_PIRATE) {
                 j++;
             }
-            chitCards.add(new ChitCard(Color.GREY, "Grey", new PirateDragon(), j));
+            builtChitCards.add(new ChitCard(Color.GREY, "Grey", new PirateDragon(), j));
         }
 
         // Add all the Knight Chit Cards.
         int k = 1;
         for (int i = 0; i < numOfKnights; i++) {
-            chitCards.add(new ChitCard(Color.GREY, "Grey", new Knight(), k));
+            builtChitCards.add(new ChitCard(Color.GREY, "Grey", new Knight(), k));
         }
 
-        // Shuffle the chitCards multiple time to make it random.
-        for (int i = 0; i < 5; i++) {
-            Collections.shuffle(chitCards);
-        }
+        return builtChitCards;
+    }
 
-        // Set the coordinates of each Chit Card to display in a 4x4 Grid.
-        int i = 0, index = 0;
-        // Loop through each Chit Card
-        while (index < chitCards.size()) {
-            UIComponent chitCard = chitCards.get(index);  // Get the Chit Card.
-            j = index % Constants.COLUMNS;  // Calculate the column
-            chitCard.setCoordinates(j, i);  // Set its coordinates
-            index++;
-            if (j == Constants.COLUMNS - 1) {
-                i++;  // Move to the next row after every pre-defined column value
-            }
+    /**
+     * Puts the Chit Cards into a new ChitDeck in the order of the list, which holds their faces and flipped state
+     * from then on, and sets the coordinates of each one to display in a Grid of COLUMNS columns.
+     * @param chitCards: The list of Chit Cards.
+     * @return the ChitDeck of the Chit Cards.
+     */
+    public static ChitDeck buildChitDeck(List<UIComponent> chitCards) {
+        ChitDeck chitDeck = new ChitDeck(chitCards.size(), Constants.COLUMNS);
+        for (int i = 0; i < chitCards.size(); i++) {
+            ChitCard chitCard = (ChitCard) chitCards.get(i);
+            chitCard.attach(chitDeck, i);
+            // Set its coordinates from its place in the deck.
+            chitCard.setCoordinates(chitDeck.getColumn(i), chitDeck.getRow(i));
         }
+        return chitDeck;
     }
 
     /**
-     * Setup the all the Dragons.
+     * Setups the Game Board from a board prepared in advance, adding its Volcano Cards, Chit Cards and Caves.
+     * The Volcano path was already compiled when the board was prepared, so it is only handed to the iterator.
+     * @param preparedBoard: The board prepared in advance.
+     */
+    public void setup(PreparedBoard preparedBoard) {
+        cards.addAll(preparedBoard.getCards());
+        MovementManager.getInstance().getDragonSquareIterator().getSquares().addAll(preparedBoard.getPath());
+        chitCards.addAll(preparedBoard.getChitCards());
+        setChitDeck(preparedBoard.getChitDeck());
+        setCaves(new ArrayList<>(preparedBoard.getCaves()));
+    }
+
+    /**
+     * Setup the all the Dragons in the seats chosen in advance.
      * @param numOfDragons: The number of Dragons in the Game.
      * @param caves: A list of all caves.
+     * @param seatOffset: The number of Caves the seats are turned by clockwise.
      */
-    public void dragonSetup(int numOfDragons, List<Cave> caves) {
+    public void dragonSetup(int numOfDragons, List<Cave> caves, int seatOffset) {
         // Create the Dragons based on the number of Players in the Game and set the list for that.
-        this.setDragons(DragonFactory.getInstance(numOfDragons).createDragons(caves));
+        this.setDragons(DragonFactory.getInstance(numOfDragons).createDragons(caves, seatOffset));
+    }
+
+    /**
+     * Resets the dynamic state of the Game Board for a new game, reusing every Card, Chit Card, Dragon and their
+     * rendered Nodes. Dragons go back to their home Caves, recovered, and every Chit Card is turned face down.
+     * @param preparedBoard: A board prepared in advance whose Animals and Chit Cards are taken, or null to replay the
+     *                     same board.
+     */
+    public void resetState(PreparedBoard preparedBoard) {
+        // Send every Dragon back to its home Cave.
+        DragonSquareIterator dragonSquareIterator = MovementManager.getInstance().getDragonSquareIterator();
+        dragonSquareIterator.clearDragons();
+        for (Dragon dragon : dragons) {
+            dragon.setCoordinates(dragon.getHomeCave().getX(), dragon.getHomeCave().getY());
+            dragon.setHasPassedCave(false);
+            dragon.setStunned(false);
+            dragonSquareIterator.add(dragon, dragonSquareIterator.getSquareByCoords(dragon.getX(), dragon.getY()));
+        }
+
+        // Turn every Chit Card face down.
+        resetChitCards();
+
+        if (preparedBoard != null) {
+            applyArrangement(preparedBoard);
+        }
+    }
+
+    /**
+     * Takes the Animals on the Volcano Cards and the faces of the Chit Cards from a prepared board, updating the
+     * rendered Squares and Chit Cards in place. The Caves, and so the Dragons' seats, are kept.
+     * @param preparedBoard: The board prepared in advance.
+     */
+    private void applyArrangement(PreparedBoard preparedBoard) {
+        // Hand the Animals of each prepared Card to the matching Card, if they have the same Squares.
+        List<Card> preparedCards = preparedBoard.getCards();
+        for (int i = 0; i < Math.min(cards.size(), preparedCards.size()); i++) {
+            List<VolcanoSquare> squares = ((Card) cards.get(i)).getSquares();
+            List<VolcanoSquare> preparedSquares = preparedCards.get(i).getSquares();
+            if (squares.size() != preparedSquares.size()) {
+                continue;
+            }
+            for (int j = 0; j < squares.size(); j++) {
+                squares.get(j).setDisplay(preparedSquares.get(j).getDisplay());
+                squares.get(j).refreshDisplay();
+            }
+        }
+
+        // Give each Chit Card the face of the prepared Chit Card in the same place.
+        List<UIComponent> preparedChitCards = preparedBoard.getChitCards();
+        for (int i = 0; i < Math.min(chitCards.size(), preparedChitCards.size()); i++) {
+            ChitCard chitCard = (ChitCard) chitCards.get(i);
+            ChitCard preparedChitCard = (ChitCard) preparedChitCards.get(i);
+            chitCard.setDisplay(preparedChitCard.getDisplay());
+            chitCard.setNumOfDisplayables(preparedChitCard.getNumOfDisplayables());
+            chitCard.setText(String.format("%d %s", chitCard.getNumOfDisplayables(), chitCard.getDisplay().getDisplay()));
+        }
     }
 
     /**
@@ -287,12 +391,10 @@ public class GameBoard extends UIComponent {
                     // Split the cards by a closing square bracket followed by a comma and an optional space
                     String[] cardStrings = value.split("],\\s*");
 
-                    // Check if the number of Cards are matching. If no, return an alert
+                    // Check if the number of Cards are matching. If no, return a warning
                     if (this.getMaxNumberOfCards() != cardStrings.length) {
-                        Alert alert = new Alert(Alert.AlertType.WARNING);
-                        alert.setTitle("Incorrect Card Settings");
-                        alert.setContentText("The number of Volcano Cards doesn't match. Please update it.");
-                        alert.showAndWait();
+                        NotificationManager.getInstance().publish(NotificationType.WARNING, "Incorrect Card Settings",
+                                "The number of Volcano Cards doesn't match. Please update it.");
                         return;
                     }
 
@@ -571,9 +673,31 @@ public class GameBoard extends UIComponent {
         getDragons().add(dragon);
     }
 
+    /**
+     * Turns every Chit Card face down. Only the Chit Cards that were flipped are visited, and then the flipped bitset
+     * of the ChitDeck is cleared.
+     */
     public void resetChitCards() {
-        for (UIComponent chitCard : chitCards) {
-            ((ChitCard) chitCard).reset();
+        if (chitDeck == null) {
+            return;
         }
+        chitDeck.forEachFlipped(i -> ((ChitCard) chitCards.get(i)).reset());
+        chitDeck.reset();
+    }
+
+    /**
+     * A method to return the chitDeck data attribute.
+     * @return the ChitDeck holding the faces and flipped state of the Chit Cards.
+     */
+    public ChitDeck getChitDeck() {
+        return chitDeck;
+    }
+
+    /**
+     * A method to set the chitDeck data attribute.
+     * @param chitDeck: The ChitDeck holding the faces and flipped state of the Chit Cards.
+     */
+    public void setChitDeck(ChitDeck chitDeck) {
+        this.chitDeck = chitDeck;
     }
 }
@@ -2,7 +2,10 @@ package com.fierydragon.volcano;
 
 import javafx.stage.FileChooser;
 import com.fierydragon.FieryDragonDriver;
-import javafx.scene.control.Alert;
+import com.fierydragon.notifications.NotificationManager;
+import com.fierydragon.notifications.NotificationType;
+import com.fierydragon.utils.SaveFolder;
+import com.fierydragon.utils.ServerGame;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
 
@@ -35,11 +38,8 @@ public class GameManager {
      * */
     public void saveGame(GameBoard gameBoard, String saveFileName) {
         try {
-            // Get the path of the JAR file
-            String jarPath = new File(GameManager.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getParent();
-
-            // Create the save folder path relative to the JAR file
-            File saveFolder = new File(jarPath, "save");
+            // Get the save folder next to the JAR file
+            File saveFolder = SaveFolder.locate();
 
             // Create the save folder if it does not exist
             if (!saveFolder.exists()) {
@@ -66,13 +66,15 @@ public class GameManager {
      * @param gameBoard: The GameBoard instance to load.
      * */
     public void loadGame(GameBoard gameBoard) {
+        // A game played on a server can only go where the server takes it.
+        if (ServerGame.getInstance().isConnected()) {
+            NotificationManager.getInstance().publish(NotificationType.WARNING, "Cannot Load",
+                    "A saved game cannot be loaded into a game played on a server.");
+            return;
+        }
         try {
-            // Determine the directory of the running JAR file
-            File jarFile = new File(GameManager.class.getProtectionDomain().getCodeSource().getLocation().toURI());
-            File jarDir = jarFile.getParentFile();
-
             // Set the initial directory to the "save" folder within the JAR directory
-            File saveFolder = new File(jarDir, "save");
+            File saveFolder = SaveFolder.locate();
 
             // Create a FileChooser for selecting files
             FileChooser fileChooser = new FileChooser();
@@ -89,10 +91,8 @@ public class GameManager {
                 String filePath = selectedFile.getAbsolutePath();
                 fieryDragonDriver.loadGame(gameBoard, filePath);
             } else {
-                Alert alert = new Alert(Alert.AlertType.WARNING);
-                alert.setTitle("No Files Selected");
-                alert.setContentText("Please add only one file in the 'save' folder.");
-                alert.showAndWait();
+                NotificationManager.getInstance().publish(NotificationType.WARNING, "No Files Selected",
+                        "Please add only one file in the 'save' folder.");
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
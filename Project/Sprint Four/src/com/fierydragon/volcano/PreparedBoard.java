@@ -0,0 +1,233 @@
+package com.fierydragon.volcano;
+
+import com.fierydragon.components.Cave;
+import com.fierydragon.components.ChitCard;
+import com.fierydragon.components.UIComponent;
+import com.fierydragon.display.Displayable;
+import com.fierydragon.display.creations.AnimalCreationStrategy;
+import com.fierydragon.display.creations.CreationStrategy;
+import com.fierydragon.engine.AnimalType;
+import com.fierydragon.engine.BoardTopology;
+import com.fierydragon.engine.ChitDeck;
+import com.fierydragon.engine.CompiledLayout;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A class representing a fully constructed and validated Game Board that is ready to be played. The Volcano Cards are
+ * built and placed, the Volcano path is compiled, the Chit Cards are shuffled and placed and the seats are chosen,
+ * so a Game Board only has to take it over. Nothing in it is rendered, so it can be prepared off the JavaFX thread.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see BoardPool
+ * @see BoardTopology
+ * @see CompiledLayout
+ * @see GameBoard
+ */
+
+public class PreparedBoard {
+    /**
+     * The compiled layout the board was dealt from.
+     */
+    private final CompiledLayout layout;
+    /**
+     * The shape of the Volcano and the Animal on each Square and Cave.
+     */
+    private final BoardTopology topology;
+    /**
+     * The Volcano Cards in clockwise order.
+     */
+    private final List<Card> cards;
+    /**
+     * The Squares of the Volcano path in the order the Dragons move along them, as used by the DragonSquareIterator.
+     */
+    private final List<Square> path;
+    /**
+     * The shuffled Chit Cards.
+     */
+    private final List<UIComponent> chitCards;
+    /**
+     * The ChitDeck holding the faces and flipped state of the Chit Cards.
+     */
+    private final ChitDeck chitDeck;
+    /**
+     * The Caves in clockwise order.
+     */
+    private final List<Cave> caves;
+    /**
+     * The number of Caves the seats are turned by clockwise.
+     */
+    private final int seatOffset;
+
+    /**
+     * PreparedBoard Constructor.
+     * @param layout: The compiled layout the board was dealt from.
+     * @param topology: The shape of the Volcano and the Animal on each Square and Cave.
+     * @param cards: The Volcano Cards in clockwise order.
+     * @param chitCards: The shuffled Chit Cards.
+     * @param chitDeck: The ChitDeck holding the faces and flipped state of the Chit Cards.
+     * @param caves: The Caves in clockwise order.
+     * @param seatOffset: The number of Caves the seats are turned by clockwise.
+     */
+    public PreparedBoard(CompiledLayout layout, BoardTopology topology, List<Card> cards, List<UIComponent> chitCards, ChitDeck chitDeck, List<Cave> caves, int seatOffset) {
+        this.layout = layout;
+        this.topology = topology;
+        this.cards = Collections.unmodifiableList(new ArrayList<>(cards));
+        this.chitCards = Collections.unmodifiableList(new ArrayList<>(chitCards));
+        this.chitDeck = chitDeck;
+        this.caves = Collections.unmodifiableList(new ArrayList<>(caves));
+        this.seatOffset = seatOffset;
+        this.path = Collections.unmodifiableList(compilePath(topology, cards, caves));
+    }
+
+    /**
+     * Creates a new board from a compiled layout, shuffling its Volcano Cards, Caves and Chit Cards as the board
+     * definition says. The Volcano is already laid out, so only the Animals are dealt onto it.
+     * The random numbers are drawn in the same order as GameState.deal draws them, so a board prepared from a seed is
+     * the same game as one dealt without the UI from that seed.
+     * @param layout: The compiled layout of the board.
+     * @param random: The Random used to shuffle the board and choose the seats.
+     * @return the prepared board.
+     */
+    public static PreparedBoard fromLayout(CompiledLayout layout, Random random) {
+        // Choose the order of the Caves and deal the Animals onto the Volcano.
+        int[] caveOrder = layout.shuffleCaves(random);
+        BoardTopology topology = layout.deal(caveOrder, random);
+
+        // Create a list of all the Caves with the colour given to them by the board definition.
+        List<Cave> caves = new ArrayList<>();
+        for (int cave = 0; cave < topology.getNumCaves(); cave++) {
+            Displayable display = AnimalCreationStrategy.forType(topology.getCaveAnimal(cave)).createDisplayComponent();
+            caves.add(new Cave(Color.web(layout.getCaveColour(caveOrder[cave])), layout.getCaveColourName(caveOrder[cave]), display));
+        }
+
+        // List of all the Display Animal Creation Strategies.
+        List<CreationStrategy> allDisplayCreationStrategies = new ArrayList<>();
+        for (AnimalType animalType : AnimalType.values()) {
+            allDisplayCreationStrategies.add(AnimalCreationStrategy.forType(animalType));
+        }
+
+        // Build the Volcano Cards and the Chit Cards with their ChitDeck, and choose the seats.
+        List<Card> cards = GameBoard.buildCards(topology, caves);
+        List<UIComponent> chitCards = GameBoard.buildChitCards(allDisplayCreationStrategies, layout.getNumChitCards(),
+                layout.getNumPirates(), layout.getNumKnights(), layout.getMaxAnimalChitCards(),
+                layout.shuffleChits(random));
+        ChitDeck chitDeck = GameBoard.buildChitDeck(chitCards);
+        return new PreparedBoard(layout, topology, cards, chitCards, chitDeck, caves, random.nextInt(caves.size()));
+    }
+
+    /**
+     * Compiles the Volcano path from the order the Dragons move along the Volcano, in the same way as the
+     * DragonSquareIterator. Each Square with a Cave is followed by its Cave and then by itself again, so that the
+     * other Dragons can move past the Cave.
+     * @param topology: The shape of the Volcano.
+     * @param cards: The Volcano Cards in clockwise order.
+     * @param caves: The Caves in clockwise order.
+     * @return the Squares of the Volcano path.
+     */
+    private static List<Square> compilePath(BoardTopology topology, List<Card> cards, List<Cave> caves) {
+        List<Square> squares = new ArrayList<>(topology.getPathLength());
+        int numSquares = topology.getNumSquares();
+        for (int i = 0; i < topology.getPathLength(); i++) {
+            int entry = topology.getPathEntry(i);
+            // Squares are looked up on their Card, and Caves by their number.
+            if (entry < numSquares) {
+                squares.add(cards.get(entry / topology.getSquaresPerCard()).getSquares().get(entry % topology.getSquaresPerCard()));
+            }
+            else {
+                squares.add(caves.get(entry - numSquares));
+            }
+        }
+        return squares;
+    }
+
+    /**
+     * Checks that the board can be played: the Volcano must be valid and every Chit Card must have its own place in
+     * the Chit Card grid.
+     * @throws IllegalStateException if the board cannot be played.
+     */
+    public void validate() {
+        // Check the shape and the Animals of the Volcano.
+        topology.validate();
+
+        // Every Chit Card must have its own place in the Chit Card grid.
+        Map<String, UIComponent> chitPlaces = new HashMap<>();
+        for (UIComponent chitCard : chitCards) {
+            if (!(chitCard instanceof ChitCard) || chitPlaces.putIfAbsent(chitCard.getX() + "," + chitCard.getY(), chitCard) != null) {
+                throw new IllegalStateException("Two Chit Cards are placed at (" + chitCard.getX() + ", " + chitCard.getY() + ")");
+            }
+        }
+    }
+
+    /**
+     * A method to return the layout data attribute.
+     * @return the compiled layout the board was dealt from.
+     */
+    public CompiledLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * A method to return the topology data attribute.
+     * @return the shape of the Volcano and the Animal on each Square and Cave.
+     */
+    public BoardTopology getTopology() {
+        return topology;
+    }
+
+    /**
+     * A method to return the cards data attribute.
+     * @return the Volcano Cards in clockwise order.
+     */
+    public List<Card> getCards() {
+        return cards;
+    }
+
+    /**
+     * A method to return the path data attribute.
+     * @return the Squares of the Volcano path, as used by the DragonSquareIterator.
+     */
+    public List<Square> getPath() {
+        return path;
+    }
+
+    /**
+     * A method to return the chitCards data attribute.
+     * @return the shuffled Chit Cards.
+     */
+    public List<UIComponent> getChitCards() {
+        return chitCards;
+    }
+
+    /**
+     * A method to return the chitDeck data attribute.
+     * @return the ChitDeck holding the faces and flipped state of the Chit Cards.
+     */
+    public ChitDeck getChitDeck() {
+        return chitDeck;
+    }
+
+    /**
+     * A method to return the caves data attribute.
+     * @return the Caves in clockwise order.
+     */
+    public List<Cave> getCaves() {
+        return caves;
+    }
+
+    /**
+     * A method to return the seatOffset data attribute.
+     * @return the number of Caves the seats are turned by clockwise.
+     */
+    public int getSeatOffset() {
+        return seatOffset;
+    }
+}
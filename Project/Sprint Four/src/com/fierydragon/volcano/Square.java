@@ -33,6 +33,10 @@ public abstract class Square extends UIComponent {
      * A boolean to determine if the Square is a Cave or not.
      */
     private boolean isCave;
+    /**
+     * The Text showing the Display, kept so that it can be refreshed without rendering the Square again.
+     */
+    private Text displayText;
 
     /**
      * VolcanoSquare Constructor.
@@ -74,6 +78,7 @@ public abstract class Square extends UIComponent {
 
         // Add the text on top of the rectangle in the StackPane
         stack.getChildren().add(text);
+        setDisplayText(text);
 
         // Position the text at the bottom of the StackPane
         StackPane.setAlignment(text, Pos.BOTTOM_CENTER);
@@ -82,6 +87,15 @@ public abstract class Square extends UIComponent {
         boardGrid.add(stack, this.getX(), this.getY());
     }
 
+    /**
+     * Updates the rendered Text to show the current Display, if the Square has been rendered.
+     */
+    public void refreshDisplay() {
+        if (displayText != null) {
+            displayText.setText(this.getDisplay().getName() + " (" + this.getDisplay().getDisplay() + ")");
+        }
+    }
+
     /**
      * A method to return the display data attribute.
      * @return the Displayable that the Square is displaying.
@@ -113,4 +127,12 @@ public abstract class Square extends UIComponent {
     public void setIsCave(boolean isCave) {
         this.isCave = isCave;
     }
+
+    /**
+     * A method to set the displayText data attribute.
+     * @param displayText: The Text showing the Display.
+     */
+    public void setDisplayText(Text displayText) {
+        this.displayText = displayText;
+    }
 }
@@ -94,6 +94,7 @@ public class VolcanoSquare extends Square {
 
         // Add the text on top of the rectangle in the StackPane
         stack.getChildren().add(text);
+        setDisplayText(text);
 
         // Position the text at the bottom of the StackPane
         StackPane.setAlignment(text, Pos.BOTTOM_CENTER);
@@ -0,0 +1,91 @@
+package com.fierydragon.wire;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class that keeps direct ByteBuffers of one size to be used again, for the frames of the binary protocol.
+ * A direct buffer is written to a socket without being copied first, but is slow to allocate and is freed only by the
+ * garbage collector, so buffers are taken from the pool and given back rather than allocated for every frame. When the
+ * pool is empty a new buffer is allocated, and a buffer given back to a full pool is left to the garbage collector, so
+ * the pool never blocks.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see FrameReader
+ */
+
+public class BufferPool {
+    /**
+     * The buffers ready to be taken.
+     */
+    private final BlockingQueue<ByteBuffer> buffers;
+    /**
+     * The bytes in each buffer.
+     */
+    private final int bufferSize;
+    /**
+     * The number of buffers allocated because the pool was empty.
+     */
+    private final AtomicLong numAllocated;
+
+    /**
+     * BufferPool Constructor.
+     * @param bufferSize: The bytes in each buffer.
+     * @param capacity: The most buffers kept.
+     */
+    public BufferPool(int bufferSize, int capacity) {
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+        this.bufferSize = bufferSize;
+        this.numAllocated = new AtomicLong();
+    }
+
+    /**
+     * Takes a buffer from the pool, or allocates one if the pool is empty.
+     * @return an empty buffer, ready to be written to.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            numAllocated.incrementAndGet();
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back to the pool. The buffer must not be used afterwards.
+     * @param buffer: The buffer, taken from this pool.
+     */
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+
+    /**
+     * A method to return the bufferSize data attribute.
+     * @return the bytes in each buffer.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * A method to return the numAllocated data attribute.
+     * @return the number of buffers allocated because the pool was empty.
+     */
+    public long getNumAllocated() {
+        return numAllocated.get();
+    }
+
+    /**
+     * A method to return the number of buffers ready to be taken.
+     * @return the number of buffers in the pool.
+     */
+    public int getNumAvailable() {
+        return buffers.size();
+    }
+}
@@ -0,0 +1,139 @@
+package com.fierydragon.wire;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A utility class that frames the messages of the binary protocol spoken by the GameServer's BinaryEndpoint. Each
+ * frame is its length as a varint, then a byte for its type, then its body:
+ * <pre>
+ * FLIP chit                         a player flips a Chit Card on its turn
+ * DELTA ...                         what a flip changed, as a TurnDelta
+ * SNAPSHOT [...]                    asks for the whole game, answered with a TableSnapshot
+ * HEARTBEAT nanos                   echoed back unchanged, so either end can time the round trip
+ * JOIN id                           takes the next seat of a game
+ * TEXT line                         any command or reply of the line protocol, in UTF-8
+ * </pre>
+ * A frame is written in place: its length is given one byte before the body, which is moved along in the rare case
+ * that the body is 128 bytes or more, so frames are never built in a separate array.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see FrameReader
+ * @see Varint
+ */
+
+public final class FrameCodec {
+    /**
+     * The type of a frame flipping a Chit Card.
+     */
+    public static final byte FLIP = 1;
+    /**
+     * The type of a frame holding what a flip changed.
+     */
+    public static final byte DELTA = 2;
+    /**
+     * The type of a frame asking for or holding the whole game.
+     */
+    public static final byte SNAPSHOT = 3;
+    /**
+     * The type of a frame timing the round trip.
+     */
+    public static final byte HEARTBEAT = 4;
+    /**
+     * The type of a frame taking a seat.
+     */
+    public static final byte JOIN = 5;
+    /**
+     * The type of a frame holding a line of the line protocol.
+     */
+    public static final byte TEXT = 6;
+
+    /**
+     * FrameCodec Constructor. Never called, as the class only has static methods.
+     */
+    private FrameCodec() {
+    }
+
+    /**
+     * Starts a frame at the position of a buffer.
+     * @param out: The buffer to write to.
+     * @param type: The type of the frame.
+     * @return the position the frame starts at, to end it with.
+     */
+    public static int begin(ByteBuffer out, byte type) {
+        int start = out.position();
+        // Leave a byte for the length, which is enough for every frame but a large snapshot.
+        out.put((byte) 0);
+        out.put(type);
+        return start;
+    }
+
+    /**
+     * Ends the frame started at a position, writing its length before it.
+     * @param out: The buffer the frame was written to, positioned after its body.
+     * @param start: The position the frame starts at.
+     */
+    public static void end(ByteBuffer out, int start) {
+        int length = out.position() - start - 1;
+        int size = Varint.sizeOfInt(length);
+        if (size > 1) {
+            // Move the type and body along to make room for the longer length, from the end backwards.
+            int extra = size - 1;
+            out.position(out.position() + extra);
+            for (int i = start + length; i > start; i--) {
+                out.put(i + extra, out.get(i));
+            }
+        }
+        for (int i = 0; i < size - 1; i++) {
+            out.put(start + i, (byte) (((length >>> (7 * i)) & 0x7F) | 0x80));
+        }
+        out.put(start + size - 1, (byte) (length >>> (7 * (size - 1))));
+    }
+
+    /**
+     * Writes a whole FLIP frame.
+     * @param out: The buffer to write to.
+     * @param chit: The number of the Chit Card.
+     */
+    public static void putFlip(ByteBuffer out, int chit) {
+        int start = begin(out, FLIP);
+        Varint.putInt(out, chit);
+        end(out, start);
+    }
+
+    /**
+     * Writes a whole HEARTBEAT frame.
+     * @param out: The buffer to write to.
+     * @param nanos: The time it was sent, in nanoseconds.
+     */
+    public static void putHeartbeat(ByteBuffer out, long nanos) {
+        int start = begin(out, HEARTBEAT);
+        Varint.putLong(out, nanos);
+        end(out, start);
+    }
+
+    /**
+     * Writes a whole JOIN frame.
+     * @param out: The buffer to write to.
+     * @param id: The number of the game.
+     */
+    public static void putJoin(ByteBuffer out, long id) {
+        int start = begin(out, JOIN);
+        Varint.putLong(out, id);
+        end(out, start);
+    }
+
+    /**
+     * Writes a whole TEXT frame.
+     * @param out: The buffer to write to.
+     * @param line: The line, already in UTF-8, without its new line.
+     * @param offset: The index of the first byte of the line.
+     * @param length: The number of bytes in the line.
+     */
+    public static void putText(ByteBuffer out, byte[] line, int offset, int length) {
+        int start = begin(out, TEXT);
+        out.put(line, offset, length);
+        end(out, start);
+    }
+}
@@ -0,0 +1,121 @@
+package com.fierydragon.wire;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A class that cuts the frames of the binary protocol out of the bytes read from a channel, in place.
+ * The bytes are read straight into one buffer, normally a direct buffer from a BufferPool, and each frame is handed
+ * over as that same buffer with its position at the body and its limit at the end of the frame, so the body is decoded
+ * where it landed without being copied. A frame cut short by the read is kept at the front of the buffer until the
+ * rest of it arrives.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see FrameCodec
+ * @see BufferPool
+ */
+
+public class FrameReader {
+    /**
+     * Returned by next when no whole frame has been read yet.
+     */
+    public static final int NONE = -1;
+    /**
+     * The buffer the bytes are read into, ready to be read from between calls.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The limit of the bytes read, while a frame is being handed over.
+     */
+    private int limit;
+    /**
+     * The position after the frame being handed over, or -1 if none is.
+     */
+    private int frameEnd;
+
+    /**
+     * FrameReader Constructor.
+     * @param buffer: The buffer to read into, which must not be used by anything else until the reader is done with.
+     */
+    public FrameReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.frameEnd = -1;
+        // Start with nothing to read.
+        buffer.clear().flip();
+    }
+
+    /**
+     * Reads whatever bytes the channel has, after those not yet handed over. Blocks if the channel does.
+     * @param channel: The channel to read from.
+     * @return False once the channel has ended.
+     * @throws IOException if the channel cannot be read.
+     */
+    public boolean fill(ReadableByteChannel channel) throws IOException {
+        skipFrame();
+        buffer.compact();
+        int read = channel.read(buffer);
+        buffer.flip();
+        return read >= 0;
+    }
+
+    /**
+     * Hands over the next whole frame, if one has been read.
+     * @return the type of the frame, with the buffer positioned at its body and limited to its end, or NONE if the
+     * frame is not all there yet.
+     * @throws IOException if a frame is empty or longer than the buffer could ever hold.
+     */
+    public int next() throws IOException {
+        skipFrame();
+        int start = buffer.position();
+        int end = buffer.limit();
+        // Read the length without moving the position, as it may not all be there.
+        int length = 0;
+        int at = start;
+        for (int shift = 0; ; shift += 7) {
+            if (at == end) {
+                return NONE;
+            }
+            if (shift == 7 * Varint.MAX_INT_BYTES) {
+                throw new IOException("Frame length longer than an int");
+            }
+            byte next = buffer.get(at++);
+            length |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                break;
+            }
+        }
+        if (length < 1 || length > buffer.capacity() - (at - start)) {
+            throw new IOException("Frame of " + length + " bytes cannot be read");
+        }
+        if (end - at < length) {
+            return NONE;
+        }
+        limit = end;
+        frameEnd = at + length;
+        buffer.limit(frameEnd);
+        buffer.position(at + 1);
+        return buffer.get(at);
+    }
+
+    /**
+     * Moves past the frame handed over last, whatever of its body was read.
+     */
+    private void skipFrame() {
+        if (frameEnd >= 0) {
+            buffer.limit(limit);
+            buffer.position(frameEnd);
+            frameEnd = -1;
+        }
+    }
+
+    /**
+     * A method to return the buffer data attribute.
+     * @return the buffer the bytes are read into.
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+}
@@ -0,0 +1,278 @@
+package com.fierydragon.wire;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A class holding the whole of a game as sent in a SNAPSHOT frame: the version and turns, whose turn it is, the
+ * winner, where each Dragon is and whether it is stunned, and each face-up Chit Card with what is on it. A client is
+ * sent one when it asks, and keeps it up to date from then on with the TurnDelta of each flip.
+ * Like a TurnDelta, a TableSnapshot is meant to be filled or decoded over and over, growing only when a game has more
+ * face-up Chit Cards than it has held before.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see FrameCodec
+ * @see TurnDelta
+ */
+
+public class TableSnapshot {
+    /**
+     * The number of times the game has changed.
+     */
+    private long version;
+    /**
+     * The number of turns taken.
+     */
+    private long turns;
+    /**
+     * The seat whose turn it is.
+     */
+    private int current;
+    /**
+     * The winning seat, or -1 while the game is being played.
+     */
+    private int winner;
+    /**
+     * The number of Dragons.
+     */
+    private int numPlayers;
+    /**
+     * The path entry of each Dragon.
+     */
+    private final int[] positions;
+    /**
+     * For each Dragon, True if it is stunned.
+     */
+    private final boolean[] stunned;
+    /**
+     * The number of face-up Chit Cards.
+     */
+    private int numFaceUp;
+    /**
+     * The number of each face-up Chit Card.
+     */
+    private int[] chits;
+    /**
+     * The kind of each face-up Chit Card.
+     */
+    private int[] kinds;
+    /**
+     * The number of things on each face-up Chit Card.
+     */
+    private int[] values;
+
+    /**
+     * TableSnapshot Constructor.
+     */
+    public TableSnapshot() {
+        this.positions = new int[TurnDelta.MAX_PLAYERS];
+        this.stunned = new boolean[TurnDelta.MAX_PLAYERS];
+        this.chits = new int[16];
+        this.kinds = new int[16];
+        this.values = new int[16];
+    }
+
+    /**
+     * Sets the turn of the game, forgetting the Dragons and Chit Cards of the snapshot before.
+     * @param version: The number of times the game has changed.
+     * @param turns: The number of turns taken.
+     * @param current: The seat whose turn it is.
+     * @param winner: The winning seat, or -1.
+     */
+    public void set(long version, long turns, int current, int winner) {
+        this.version = version;
+        this.turns = turns;
+        this.current = current;
+        this.winner = winner;
+        this.numPlayers = 0;
+        this.numFaceUp = 0;
+    }
+
+    /**
+     * Adds the next Dragon.
+     * @param position: The path entry it is at.
+     * @param isStunned: True if it is stunned.
+     */
+    public void addPlayer(int position, boolean isStunned) {
+        positions[numPlayers] = position;
+        stunned[numPlayers] = isStunned;
+        numPlayers++;
+    }
+
+    /**
+     * Adds a face-up Chit Card.
+     * @param chit: The number of the Chit Card.
+     * @param kind: Its kind.
+     * @param value: The number of things on it.
+     */
+    public void addFaceUp(int chit, int kind, int value) {
+        if (numFaceUp == chits.length) {
+            grow(numFaceUp * 2);
+        }
+        chits[numFaceUp] = chit;
+        kinds[numFaceUp] = kind;
+        values[numFaceUp] = value;
+        numFaceUp++;
+    }
+
+    /**
+     * Writes the snapshot as the body of a SNAPSHOT frame.
+     * @param out: The buffer to write to, at its position.
+     */
+    public void encode(ByteBuffer out) {
+        Varint.putLong(out, version);
+        Varint.putLong(out, turns);
+        Varint.putInt(out, current);
+        Varint.putSignedInt(out, winner);
+        Varint.putInt(out, numPlayers);
+        for (int player = 0; player < numPlayers; player++) {
+            // The position and the stun share a varint.
+            Varint.putInt(out, (positions[player] << 1) | (stunned[player] ? 1 : 0));
+        }
+        Varint.putInt(out, numFaceUp);
+        for (int i = 0; i < numFaceUp; i++) {
+            Varint.putInt(out, chits[i]);
+            Varint.putInt(out, kinds[i]);
+            Varint.putInt(out, values[i]);
+        }
+    }
+
+    /**
+     * Reads the snapshot from the body of a SNAPSHOT frame, in place of what it held.
+     * @param in: The buffer to read from, at its position.
+     * @throws IllegalArgumentException if the body names more Dragons than a game can have.
+     */
+    public void decode(ByteBuffer in) {
+        version = Varint.getLong(in);
+        turns = Varint.getLong(in);
+        current = Varint.getInt(in);
+        winner = Varint.getSignedInt(in);
+        numPlayers = Varint.getInt(in);
+        if (numPlayers < 0 || numPlayers > TurnDelta.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Snapshot of " + numPlayers + " Dragons");
+        }
+        for (int player = 0; player < numPlayers; player++) {
+            int packed = Varint.getInt(in);
+            positions[player] = packed >>> 1;
+            stunned[player] = (packed & 1) != 0;
+        }
+        numFaceUp = Varint.getInt(in);
+        // Every face-up Chit Card takes at least three bytes, which bounds a count read from a corrupt frame.
+        if (numFaceUp < 0 || numFaceUp > in.remaining() / 3) {
+            throw new IllegalArgumentException("Snapshot of " + numFaceUp + " face-up Chit Cards");
+        }
+        if (numFaceUp > chits.length) {
+            grow(numFaceUp);
+        }
+        for (int i = 0; i < numFaceUp; i++) {
+            chits[i] = Varint.getInt(in);
+            kinds[i] = Varint.getInt(in);
+            values[i] = Varint.getInt(in);
+        }
+    }
+
+    /**
+     * Makes room for more face-up Chit Cards.
+     * @param capacity: The number of face-up Chit Cards to make room for.
+     */
+    private void grow(int capacity) {
+        chits = Arrays.copyOf(chits, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    /**
+     * A method to return the version data attribute.
+     * @return the number of times the game has changed.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * A method to return the turns data attribute.
+     * @return the number of turns taken.
+     */
+    public long getTurns() {
+        return turns;
+    }
+
+    /**
+     * A method to return the current data attribute.
+     * @return the seat whose turn it is.
+     */
+    public int getCurrent() {
+        return current;
+    }
+
+    /**
+     * A method to return the winner data attribute.
+     * @return the winning seat, or -1 while the game is being played.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * A method to return the numPlayers data attribute.
+     * @return the number of Dragons.
+     */
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * A method to return the position of a Dragon.
+     * @param player: The Dragon.
+     * @return the path entry it is at.
+     */
+    public int getPosition(int player) {
+        return positions[player];
+    }
+
+    /**
+     * A method to check whether a Dragon is stunned.
+     * @param player: The Dragon.
+     * @return True if it is stunned.
+     */
+    public boolean isStunned(int player) {
+        return stunned[player];
+    }
+
+    /**
+     * A method to return the numFaceUp data attribute.
+     * @return the number of face-up Chit Cards.
+     */
+    public int getNumFaceUp() {
+        return numFaceUp;
+    }
+
+    /**
+     * A method to return the number of a face-up Chit Card.
+     * @param i: The index of the face-up Chit Card.
+     * @return the number of the Chit Card.
+     */
+    public int getChit(int i) {
+        return chits[i];
+    }
+
+    /**
+     * A method to return the kind of a face-up Chit Card.
+     * @param i: The index of the face-up Chit Card.
+     * @return its kind.
+     */
+    public int getKind(int i) {
+        return kinds[i];
+    }
+
+    /**
+     * A method to return the number of things on a face-up Chit Card.
+     * @param i: The index of the face-up Chit Card.
+     * @return the number of things on it.
+     */
+    public int getValue(int i) {
+        return values[i];
+    }
+}
@@ -0,0 +1,352 @@
+package com.fierydragon.wire;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A class holding what one flip of a Chit Card changed, as sent in a DELTA frame: the version and turns of the game
+ * after it, the seat that flipped, whose turn it is now, the winner, the Chit Card and what was on it, the outcome, and
+ * only the Dragons that moved or whose stun changed. Every number is a varint, so a delta is a dozen bytes or so.
+ * A TurnDelta is meant to be filled and encoded, or decoded and read, over and over by one thread, so decoding a stream
+ * of deltas allocates nothing.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see FrameCodec
+ * @see TableSnapshot
+ */
+
+public class TurnDelta {
+    /**
+     * The most Dragons in a game, and so the most that can move or change stun in one flip.
+     */
+    public static final int MAX_PLAYERS = 16;
+    /**
+     * The number of times the game has changed, after the flip.
+     */
+    private long version;
+    /**
+     * The number of turns taken, after the flip.
+     */
+    private int turns;
+    /**
+     * The seat that flipped.
+     */
+    private int seat;
+    /**
+     * The seat whose turn it is after the flip.
+     */
+    private int current;
+    /**
+     * The winning seat, or -1 while the game is being played.
+     */
+    private int winner;
+    /**
+     * The number of the Chit Card flipped.
+     */
+    private int chit;
+    /**
+     * The kind of the Chit Card flipped.
+     */
+    private int kind;
+    /**
+     * The number of things on the Chit Card flipped.
+     */
+    private int value;
+    /**
+     * The ordinal of the FlipOutcome of the flip.
+     */
+    private int outcome;
+    /**
+     * The number of Dragons that moved.
+     */
+    private int numMoves;
+    /**
+     * The seat of each Dragon that moved.
+     */
+    private final int[] moveSeats;
+    /**
+     * The path entry each Dragon that moved left.
+     */
+    private final int[] moveFrom;
+    /**
+     * The path entry each Dragon that moved landed on.
+     */
+    private final int[] moveTo;
+    /**
+     * The number of Dragons whose stun changed.
+     */
+    private int numStuns;
+    /**
+     * The seat of each Dragon whose stun changed.
+     */
+    private final int[] stunSeats;
+    /**
+     * For each Dragon whose stun changed, True if it is now stunned.
+     */
+    private final boolean[] stunned;
+
+    /**
+     * TurnDelta Constructor.
+     */
+    public TurnDelta() {
+        this.moveSeats = new int[MAX_PLAYERS];
+        this.moveFrom = new int[MAX_PLAYERS];
+        this.moveTo = new int[MAX_PLAYERS];
+        this.stunSeats = new int[MAX_PLAYERS];
+        this.stunned = new boolean[MAX_PLAYERS];
+    }
+
+    /**
+     * Sets what the flip was, forgetting the Dragons of the delta before.
+     * @param version: The number of times the game has changed, after the flip.
+     * @param turns: The number of turns taken, after the flip.
+     * @param seat: The seat that flipped.
+     * @param current: The seat whose turn it is after the flip.
+     * @param winner: The winning seat, or -1.
+     * @param chit: The number of the Chit Card flipped.
+     * @param kind: The kind of the Chit Card.
+     * @param value: The number of things on the Chit Card.
+     * @param outcome: The ordinal of the FlipOutcome.
+     */
+    public void set(long version, int turns, int seat, int current, int winner, int chit, int kind, int value,
+                    int outcome) {
+        this.version = version;
+        this.turns = turns;
+        this.seat = seat;
+        this.current = current;
+        this.winner = winner;
+        this.chit = chit;
+        this.kind = kind;
+        this.value = value;
+        this.outcome = outcome;
+        this.numMoves = 0;
+        this.numStuns = 0;
+    }
+
+    /**
+     * Adds a Dragon that moved.
+     * @param player: The seat of the Dragon.
+     * @param from: The path entry it left.
+     * @param to: The path entry it landed on.
+     */
+    public void addMove(int player, int from, int to) {
+        moveSeats[numMoves] = player;
+        moveFrom[numMoves] = from;
+        moveTo[numMoves] = to;
+        numMoves++;
+    }
+
+    /**
+     * Adds a Dragon whose stun changed.
+     * @param player: The seat of the Dragon.
+     * @param isStunned: True if it is now stunned.
+     */
+    public void addStun(int player, boolean isStunned) {
+        stunSeats[numStuns] = player;
+        stunned[numStuns] = isStunned;
+        numStuns++;
+    }
+
+    /**
+     * Writes the delta as the body of a DELTA frame.
+     * @param out: The buffer to write to, at its position.
+     */
+    public void encode(ByteBuffer out) {
+        Varint.putLong(out, version);
+        Varint.putInt(out, turns);
+        Varint.putInt(out, seat);
+        Varint.putInt(out, current);
+        Varint.putSignedInt(out, winner);
+        Varint.putInt(out, chit);
+        Varint.putInt(out, kind);
+        Varint.putInt(out, value);
+        Varint.putInt(out, outcome);
+        Varint.putInt(out, numMoves);
+        for (int i = 0; i < numMoves; i++) {
+            Varint.putInt(out, moveSeats[i]);
+            Varint.putInt(out, moveFrom[i]);
+            Varint.putInt(out, moveTo[i]);
+        }
+        Varint.putInt(out, numStuns);
+        for (int i = 0; i < numStuns; i++) {
+            // The seat and the stun share a varint.
+            Varint.putInt(out, (stunSeats[i] << 1) | (stunned[i] ? 1 : 0));
+        }
+    }
+
+    /**
+     * Reads the delta from the body of a DELTA frame, in place of what it held.
+     * @param in: The buffer to read from, at its position.
+     * @throws IllegalArgumentException if the body names more Dragons than a game can have.
+     */
+    public void decode(ByteBuffer in) {
+        version = Varint.getLong(in);
+        turns = Varint.getInt(in);
+        seat = Varint.getInt(in);
+        current = Varint.getInt(in);
+        winner = Varint.getSignedInt(in);
+        chit = Varint.getInt(in);
+        kind = Varint.getInt(in);
+        value = Varint.getInt(in);
+        outcome = Varint.getInt(in);
+        numMoves = checkCount(Varint.getInt(in));
+        for (int i = 0; i < numMoves; i++) {
+            moveSeats[i] = Varint.getInt(in);
+            moveFrom[i] = Varint.getInt(in);
+            moveTo[i] = Varint.getInt(in);
+        }
+        numStuns = checkCount(Varint.getInt(in));
+        for (int i = 0; i < numStuns; i++) {
+            int packed = Varint.getInt(in);
+            stunSeats[i] = packed >>> 1;
+            stunned[i] = (packed & 1) != 0;
+        }
+    }
+
+    /**
+     * Checks a number of Dragons read from a frame.
+     * @param count: The number read.
+     * @return the number.
+     * @throws IllegalArgumentException if it is more than a game can have.
+     */
+    private static int checkCount(int count) {
+        if (count < 0 || count > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Delta of " + count + " Dragons");
+        }
+        return count;
+    }
+
+    /**
+     * A method to return the version data attribute.
+     * @return the number of times the game has changed, after the flip.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * A method to return the turns data attribute.
+     * @return the number of turns taken, after the flip.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * A method to return the seat data attribute.
+     * @return the seat that flipped.
+     */
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * A method to return the current data attribute.
+     * @return the seat whose turn it is after the flip.
+     */
+    public int getCurrent() {
+        return current;
+    }
+
+    /**
+     * A method to return the winner data attribute.
+     * @return the winning seat, or -1 while the game is being played.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * A method to return the chit data attribute.
+     * @return the number of the Chit Card flipped.
+     */
+    public int getChit() {
+        return chit;
+    }
+
+    /**
+     * A method to return the kind data attribute.
+     * @return the kind of the Chit Card flipped.
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * A method to return the value data attribute.
+     * @return the number of things on the Chit Card flipped.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * A method to return the outcome data attribute.
+     * @return the ordinal of the FlipOutcome of the flip.
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * A method to return the numMoves data attribute.
+     * @return the number of Dragons that moved.
+     */
+    public int getNumMoves() {
+        return numMoves;
+    }
+
+    /**
+     * A method to return the seat of a Dragon that moved.
+     * @param i: The index of the move.
+     * @return the seat of the Dragon.
+     */
+    public int getMoveSeat(int i) {
+        return moveSeats[i];
+    }
+
+    /**
+     * A method to return the path entry a Dragon that moved left.
+     * @param i: The index of the move.
+     * @return the path entry it left.
+     */
+    public int getMoveFrom(int i) {
+        return moveFrom[i];
+    }
+
+    /**
+     * A method to return the path entry a Dragon that moved landed on.
+     * @param i: The index of the move.
+     * @return the path entry it landed on.
+     */
+    public int getMoveTo(int i) {
+        return moveTo[i];
+    }
+
+    /**
+     * A method to return the numStuns data attribute.
+     * @return the number of Dragons whose stun changed.
+     */
+    public int getNumStuns() {
+        return numStuns;
+    }
+
+    /**
+     * A method to return the seat of a Dragon whose stun changed.
+     * @param i: The index of the change.
+     * @return the seat of the Dragon.
+     */
+    public int getStunSeat(int i) {
+        return stunSeats[i];
+    }
+
+    /**
+     * A method to check whether a Dragon whose stun changed is now stunned.
+     * @param i: The index of the change.
+     * @return True if it is stunned.
+     */
+    public boolean isStunned(int i) {
+        return stunned[i];
+    }
+}
@@ -0,0 +1,134 @@
+package com.fierydragon.wire;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A utility class that writes and reads numbers as varints: seven bits to a byte, lowest first, with the top bit of
+ * each byte set while more follow. Turns, seats, Chit Cards and positions all fit in one or two bytes, where the
+ * Saveable text form would spend a digit per byte and a separator.
+ * Numbers that can be negative, such as the winner before there is one, are zigzag encoded first, so -1 takes one byte
+ * rather than five.
+ * Every method works on a ByteBuffer at its position, heap or direct, so nothing is copied into an array on the way.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see FrameCodec
+ */
+
+public final class Varint {
+    /**
+     * The most bytes an int takes up as a varint.
+     */
+    public static final int MAX_INT_BYTES = 5;
+    /**
+     * The most bytes a long takes up as a varint.
+     */
+    public static final int MAX_LONG_BYTES = 10;
+
+    /**
+     * Varint Constructor. Never called, as the class only has static methods.
+     */
+    private Varint() {
+    }
+
+    /**
+     * Writes an int as an unsigned varint.
+     * @param out: The buffer to write to, at its position.
+     * @param value: The number, read as unsigned.
+     */
+    public static void putInt(ByteBuffer out, int value) {
+        // Seven bits at a time, until what is left fits in the last byte.
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Writes a long as an unsigned varint.
+     * @param out: The buffer to write to, at its position.
+     * @param value: The number, read as unsigned.
+     */
+    public static void putLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Writes an int that may be negative as a zigzag varint.
+     * @param out: The buffer to write to, at its position.
+     * @param value: The number.
+     */
+    public static void putSignedInt(ByteBuffer out, int value) {
+        putInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads an unsigned varint as an int.
+     * @param in: The buffer to read from, at its position.
+     * @return the number.
+     * @throws IllegalArgumentException if the varint is longer than an int.
+     */
+    public static int getInt(ByteBuffer in) {
+        byte next = in.get();
+        if (next >= 0) {
+            return next;
+        }
+        int value = next & 0x7F;
+        for (int shift = 7; shift < 7 * MAX_INT_BYTES; shift += 7) {
+            next = in.get();
+            value |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than an int");
+    }
+
+    /**
+     * Reads an unsigned varint as a long.
+     * @param in: The buffer to read from, at its position.
+     * @return the number.
+     * @throws IllegalArgumentException if the varint is longer than a long.
+     */
+    public static long getLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 7 * MAX_LONG_BYTES; shift += 7) {
+            byte next = in.get();
+            value |= (long) (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than a long");
+    }
+
+    /**
+     * Reads a zigzag varint as an int that may be negative.
+     * @param in: The buffer to read from, at its position.
+     * @return the number.
+     */
+    public static int getSignedInt(ByteBuffer in) {
+        int zigzag = getInt(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Works out how many bytes an int takes up as an unsigned varint.
+     * @param value: The number, read as unsigned.
+     * @return the number of bytes, from 1 to 5.
+     */
+    public static int sizeOfInt(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
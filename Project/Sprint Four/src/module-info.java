@@ -1,7 +1,8 @@
 module com.fierydragon {
     requires javafx.controls;
     requires javafx.fxml;
-    requires javafx.web;
+    requires jdk.httpserver;
+    requires java.management;
 
     opens com.fierydragon to javafx.fxml;
     exports com.fierydragon;
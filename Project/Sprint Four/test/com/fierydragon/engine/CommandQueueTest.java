@@ -0,0 +1,131 @@
+package com.fierydragon.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the CommandQueue, with one thread and with many threads putting commands in.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see CommandQueue
+ */
+
+class CommandQueueTest {
+    /**
+     * The number of threads putting commands in at once.
+     */
+    private static final int NUM_PRODUCERS = 4;
+    /**
+     * The number of commands each thread puts in.
+     */
+    private static final int COMMANDS_PER_PRODUCER = 20_000;
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(64, new CommandQueue<Integer>(64).getCapacity());
+        assertEquals(64, new CommandQueue<Integer>(33).getCapacity());
+        assertEquals(1, new CommandQueue<Integer>(1).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new CommandQueue<Integer>(0));
+    }
+
+    @Test
+    void drainsOldestFirst() {
+        CommandQueue<Integer> queue = new CommandQueue<>(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer(i));
+        }
+        List<Integer> taken = new ArrayList<>();
+        assertEquals(3, queue.drain(taken::add, 3));
+        assertEquals(2, queue.drain(taken::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), taken);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void refusesCommandsWhenFullAndTakesThemAgainOnceDrained() {
+        CommandQueue<Integer> queue = new CommandQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+
+        // Each slot is freed for the next lap as it is drained.
+        List<Integer> taken = new ArrayList<>();
+        assertEquals(1, queue.drain(taken::add, 1));
+        assertTrue(queue.offer(4));
+        assertFalse(queue.offer(5));
+        queue.drain(taken::add, 10);
+        assertEquals(List.of(0, 1, 2, 3, 4), taken);
+    }
+
+    @Test
+    void manyProducersLoseNothingAndKeepTheirOwnOrder() throws InterruptedException {
+        CommandQueue<long[]> queue = new CommandQueue<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<Thread> producers = new ArrayList<>();
+        for (int producer = 0; producer < NUM_PRODUCERS; producer++) {
+            long id = producer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // A refused command is offered again once the consumer has had a chance to run.
+                for (long sequence = 0; sequence < COMMANDS_PER_PRODUCER && !stopped.get(); sequence++) {
+                    long[] command = {id, sequence};
+                    while (!queue.offer(command) && !stopped.get()) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            producers.add(thread);
+        }
+
+        // The single consumer checks each producer's commands come out in the order they went in.
+        long[] next = new long[NUM_PRODUCERS];
+        long[] outOfOrder = new long[1];
+        int total = NUM_PRODUCERS * COMMANDS_PER_PRODUCER;
+        int received = 0;
+        start.countDown();
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (received < total && System.nanoTime() < deadline) {
+            int taken = queue.drain(command -> {
+                int producer = (int) command[0];
+                if (command[1] != next[producer]) {
+                    outOfOrder[0]++;
+                }
+                next[producer] = command[1] + 1;
+            }, GameLoop.BATCH_SIZE);
+            if (taken == 0) {
+                Thread.yield();
+            }
+            received += taken;
+        }
+        stopped.set(true);
+        for (Thread thread : producers) {
+            thread.join();
+        }
+
+        assertEquals(total, received);
+        assertEquals(0, outOfOrder[0]);
+        for (int producer = 0; producer < NUM_PRODUCERS; producer++) {
+            assertEquals(COMMANDS_PER_PRODUCER, next[producer]);
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package com.fierydragon.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the commands a GameLoop carries out and turns away.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameLoop
+ */
+
+class GameLoopTest {
+    /**
+     * The Chit Cards flipped by the loop, in order.
+     */
+    private List<Integer> flipped;
+    /**
+     * The phase the handler moves the loop to after a flip, or null to leave it.
+     */
+    private TurnPhase nextPhase;
+    /**
+     * The loop under test.
+     */
+    private GameLoop loop;
+
+    @BeforeEach
+    void createLoop() {
+        flipped = new ArrayList<>();
+        nextPhase = null;
+        loop = new GameLoop(new GameLoop.FlipHandler() {
+            @Override
+            public boolean isFlipped(int chit) {
+                return flipped.contains(chit);
+            }
+
+            @Override
+            public void flip(int chit) {
+                flipped.add(chit);
+                if (nextPhase == TurnPhase.ANIMATING) {
+                    loop.endTurn();
+                }
+                else if (nextPhase == TurnPhase.GAME_OVER) {
+                    loop.endGame();
+                }
+            }
+        });
+    }
+
+    @Test
+    void carriesOutFlipsInTheOrderSubmitted() {
+        loop.submit(3);
+        loop.submit(1);
+        loop.submit(2);
+        assertEquals(3, loop.tick());
+        assertEquals(List.of(3, 1, 2), flipped);
+        assertEquals(TurnPhase.AWAITING_FLIP, loop.getPhase());
+        assertEquals(0, loop.getNumRejected());
+    }
+
+    @Test
+    void rejectsDuplicateFlips() {
+        loop.submit(5);
+        loop.submit(5);
+        loop.tick();
+        assertEquals(List.of(5), flipped);
+        assertEquals(1, loop.getNumRejected());
+    }
+
+    @Test
+    void rejectsStaleFlipsFromAnEarlierTurn() {
+        FlipCommand stale = new FlipCommand(4, loop.getTurn());
+        loop.endTurn();
+        loop.startTurn();
+        loop.submit(stale);
+        loop.submit(6);
+        loop.tick();
+        assertEquals(List.of(6), flipped);
+        assertEquals(1, loop.getNumRejected());
+    }
+
+    @Test
+    void rejectsFlipsAfterTheTurnEndsInTheSameBatch() {
+        nextPhase = TurnPhase.ANIMATING;
+        loop.submit(0);
+        loop.submit(1);
+        loop.tick();
+        assertEquals(List.of(0), flipped);
+        assertEquals(TurnPhase.ANIMATING, loop.getPhase());
+        assertEquals(1, loop.getNumRejected());
+    }
+
+    @Test
+    void rejectsFlipsOnceTheGameIsOver() {
+        nextPhase = TurnPhase.GAME_OVER;
+        loop.submit(0);
+        loop.tick();
+        loop.submit(1);
+        loop.tick();
+        assertEquals(List.of(0), flipped);
+        assertEquals(1, loop.getNumRejected());
+    }
+
+    @Test
+    void refusesFlipsWhenTheQueueIsFull() {
+        for (int chit = 0; chit < GameLoop.QUEUE_CAPACITY; chit++) {
+            assertTrue(loop.submit(chit));
+        }
+        assertFalse(loop.submit(GameLoop.QUEUE_CAPACITY));
+        assertEquals(1, loop.getNumRefused());
+
+        // Each tick only carries out one batch, leaving the rest for the next.
+        assertEquals(GameLoop.BATCH_SIZE, loop.tick());
+        assertTrue(loop.hasCommands());
+        while (loop.hasCommands()) {
+            loop.tick();
+        }
+        assertEquals(GameLoop.QUEUE_CAPACITY, flipped.size());
+    }
+}
@@ -0,0 +1,217 @@
+package com.fierydragon.engine;
+
+import com.fierydragon.bots.RandomPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the rules a GameState plays by, on a small board of twelve Bat Squares with a Cave on every third Square,
+ * and of a dealt game saved, loaded and hashed.
+ * The two Dragons start in Caves 0 and 2, outside Squares 1 and 7. Chit Card n - 1 shows n Bats, and the last Chit Card
+ * shows one Spider, which never matches.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameState
+ */
+
+class GameStateTest {
+    /**
+     * The number of Squares on the small board.
+     */
+    private static final int SQUARES = 12;
+    /**
+     * The Square each Cave of the small board is joined to.
+     */
+    private static final int[] CAVE_SQUARES = {1, 4, 7, 10};
+    /**
+     * The Chit Card showing one Spider.
+     */
+    private static final int SPIDER = 15;
+    /**
+     * The board the dealt games are dealt from.
+     */
+    private static final String BOARD = "standard";
+
+    @Test
+    void aMatchingChitCardMovesTheDragonAndKeepsItsTurn() {
+        GameState state = smallGame(SPIDER + 1);
+
+        assertEquals(FlipOutcome.MOVED, state.flip(bats(1)));
+        assertEquals(1, state.getPosition(0));
+        // The first time a Dragon goes past its own Cave, the Cave and the Square it comes back out on are free, so two
+        // Bats take it from Square 1 to Square 3.
+        assertEquals(FlipOutcome.MOVED, state.flip(bats(2)));
+        assertEquals(3, state.getPosition(0));
+        assertEquals(0, state.getCurrent());
+        assertEquals(0, state.getTurns());
+    }
+
+    @Test
+    void aChitCardThatDoesNotMatchPassesTheTurnAndTurnsTheChitCardsBack() {
+        GameState state = smallGame(SPIDER + 1);
+        state.flip(bats(1));
+
+        assertEquals(FlipOutcome.NO_MATCH, state.flip(SPIDER));
+        assertEquals(1, state.getPosition(0));
+        assertEquals(1, state.getCurrent());
+        assertEquals(1, state.getTurns());
+        assertEquals(0, state.getNumFlipped());
+        assertTrue(state.isRevealed(bats(1)));
+    }
+
+    @Test
+    void landingOnADragonStunsItAndItMissesItsTurn() {
+        GameState state = smallGame(SPIDER + 1);
+        state.flip(bats(1));
+        state.flip(SPIDER);
+        // The second Dragon comes out onto Square 7.
+        state.flip(bats(1));
+        state.flip(SPIDER);
+
+        assertEquals(FlipOutcome.ATTACKED, state.flip(bats(6)));
+        // The attacker stays where it was, and the stunned Dragon's turn is skipped, which is where it recovers.
+        assertEquals(1, state.getPosition(0));
+        assertEquals(7, state.getPosition(1));
+        assertEquals(0, state.getCurrent());
+        assertEquals(3, state.getTurns());
+        assertFalse(state.isStunned(1));
+    }
+
+    @Test
+    void goingPastItsOwnCaveIsAnOvershootAndLandingInItWins() {
+        GameState state = smallGame(SPIDER + 1);
+        state.flip(bats(1));
+        state.flip(bats(2));
+
+        assertEquals(FlipOutcome.OVERSHOT, state.flip(bats(12)));
+        assertEquals(3, state.getPosition(0));
+        assertEquals(1, state.getCurrent());
+        state.flip(SPIDER);
+
+        assertEquals(FlipOutcome.WON, state.flip(bats(11)));
+        assertTrue(state.isOver());
+        assertEquals(0, state.getWinner());
+        assertEquals(SQUARES, state.getPosition(0));
+        assertThrows(IllegalStateException.class, () -> state.flip(bats(3)));
+    }
+
+    @Test
+    void aPirateDragonInACaveDoesNothing() {
+        GameState withPirate = gameWith(new byte[] {ChitDeck.face(ChitDeck.PIRATE_DRAGON, 1),
+                ChitDeck.face(AnimalType.BAT.ordinal(), 1)});
+        assertEquals(FlipOutcome.NOTHING, withPirate.flip(0));
+        assertEquals(SQUARES, withPirate.getPosition(0));
+        assertEquals(0, withPirate.getCurrent());
+    }
+
+    @Test
+    void theTurnPassesWhenEveryChitCardIsFaceUp() {
+        GameState state = smallGame(2);
+
+        assertEquals(FlipOutcome.MOVED, state.flip(bats(1)));
+        assertEquals(FlipOutcome.MOVED, state.flip(bats(2)));
+        // Both moves keep the turn, but with nothing left to flip it passes anyway.
+        assertEquals(1, state.getCurrent());
+        assertEquals(1, state.getTurns());
+        assertEquals(0, state.getNumFlipped());
+    }
+
+    @Test
+    void progressSavedAndLoadedCarriesOnTheSameGame() {
+        CompiledLayout layout = LayoutCache.getInstance().load(BOARD);
+        GameState played = GameState.deal(layout, 3, new Random(21));
+        Random random = new Random(4);
+        RandomPolicy policy = new RandomPolicy();
+        for (int i = 0; i < 40 && !played.isOver(); i++) {
+            played.flip(policy.choose(played, random));
+        }
+
+        byte[] progress = played.saveProgress();
+        GameState loaded = GameState.deal(layout, 3, new Random(21));
+        loaded.loadProgress(progress);
+        assertEquals(played.stateHash(), loaded.stateHash());
+        assertArrayEquals(progress, loaded.saveProgress());
+
+        // Both copies go on to play the same flips the same way.
+        Random again = new Random(9);
+        for (int i = 0; i < 200 && !played.isOver(); i++) {
+            int chit = policy.choose(played, again);
+            assertEquals(played.flip(chit), loaded.flip(chit));
+            assertEquals(played.stateHash(), loaded.stateHash());
+        }
+    }
+
+    @Test
+    void theHashOnlyDependsOnTheGame() {
+        CompiledLayout layout = LayoutCache.getInstance().load(BOARD);
+        GameState one = GameState.deal(layout, 2, new Random(8));
+        GameState two = GameState.deal(layout, 2, new Random(8));
+        assertEquals(one.stateHash(), two.stateHash());
+        assertNotEquals(one.stateHash(), GameState.deal(layout, 2, new Random(9)).stateHash());
+
+        long dealt = one.stateHash();
+        int chit = new RandomPolicy().choose(one, new Random(1));
+        one.flip(chit);
+        assertNotEquals(dealt, one.stateHash());
+        two.flip(chit);
+        assertEquals(one.stateHash(), two.stateHash());
+    }
+
+    /**
+     * Makes a game on the small board with the first Chit Cards of its deck.
+     * @param numChits: The number of Chit Cards, from the one showing one Bat up to the Spider.
+     * @return the game, with the first Dragon to move.
+     */
+    private static GameState smallGame(int numChits) {
+        byte[] faces = new byte[SPIDER + 1];
+        for (int value = 1; value <= SPIDER; value++) {
+            faces[bats(value)] = ChitDeck.face(AnimalType.BAT.ordinal(), value);
+        }
+        faces[SPIDER] = ChitDeck.face(AnimalType.SPIDER.ordinal(), 1);
+        return gameWith(Arrays.copyOf(faces, numChits));
+    }
+
+    /**
+     * Makes a game of two Dragons on the small board with the given deck.
+     * @param faces: The face of each Chit Card.
+     * @return the game, with the first Dragon to move.
+     */
+    private static GameState gameWith(byte[] faces) {
+        int[] squareX = new int[SQUARES];
+        for (int square = 0; square < SQUARES; square++) {
+            squareX[square] = square;
+        }
+        byte[] squareAnimals = new byte[SQUARES];
+        Arrays.fill(squareAnimals, (byte) AnimalType.BAT.ordinal());
+        byte[] caveAnimals = new byte[CAVE_SQUARES.length];
+        Arrays.fill(caveAnimals, (byte) AnimalType.BAT.ordinal());
+        BoardTopology topology = new BoardTopology(CAVE_SQUARES.length, SQUARES / CAVE_SQUARES.length, squareX,
+                new int[SQUARES], squareAnimals, CAVE_SQUARES, new int[CAVE_SQUARES.length],
+                new int[CAVE_SQUARES.length], caveAnimals);
+        ChitDeck deck = new ChitDeck(faces.length, faces.length);
+        for (int chit = 0; chit < faces.length; chit++) {
+            deck.setFace(chit, faces[chit]);
+        }
+        return new GameState(topology, deck, 2, 0);
+    }
+
+    /**
+     * A method to return the Chit Card showing a number of Bats.
+     * @param value: The number of Bats.
+     * @return the number of the Chit Card.
+     */
+    private static int bats(int value) {
+        return value - 1;
+    }
+}
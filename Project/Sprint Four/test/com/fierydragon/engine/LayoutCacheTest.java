@@ -0,0 +1,43 @@
+package com.fierydragon.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the layouts a LayoutCache keeps in memory and the board names it accepts.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see LayoutCache
+ */
+
+class LayoutCacheTest {
+    /**
+     * The board the tests load.
+     */
+    private static final String BOARD = "standard";
+
+    @Test
+    void aLoadedLayoutIsReturnedUntilTheBoardIsReloaded() {
+        LayoutCache cache = new LayoutCache();
+        CompiledLayout layout = cache.load(BOARD);
+
+        assertSame(layout, cache.load(BOARD));
+        // The definition file has not changed, so a reload keeps the same layout.
+        assertSame(layout, cache.reload(BOARD));
+        assertSame(layout, cache.load(BOARD));
+    }
+
+    @Test
+    void namesThatCouldReachOutsideTheBoardsFolderAreRejected() {
+        LayoutCache cache = new LayoutCache();
+
+        assertThrows(IllegalArgumentException.class, () -> cache.load("../" + BOARD));
+        assertThrows(IllegalArgumentException.class, () -> cache.load("boards/" + BOARD));
+        assertThrows(IllegalArgumentException.class, () -> cache.reload(BOARD + ".board"));
+        assertThrows(IllegalArgumentException.class, () -> cache.load(""));
+    }
+}
@@ -0,0 +1,170 @@
+package com.fierydragon.lockstep;
+
+import com.fierydragon.bots.RandomPolicy;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.engine.LayoutCache;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of two LockstepPeers playing a game over the loopback address, dealt from the same seed and from different
+ * seeds, and losing packets.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see LockstepPeer
+ */
+
+class LockstepPeerTest {
+    /**
+     * The board the games are dealt from.
+     */
+    private static final String BOARD = "standard";
+    /**
+     * The seconds a peer is given to finish, well short of the time it waits before giving up on silent peers.
+     */
+    private static final long FINISH_SECONDS = 5;
+    /**
+     * The percentage of packets lost in the tests of a lossy network.
+     */
+    private static final double LOST_PERCENT = 20;
+
+    @Test
+    void peersDealtFromTheSameSeedPlayTheSameGame() throws Exception {
+        InetSocketAddress[] peers = freeAddresses(2);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<GameState> first = threads.submit(() -> play(peers, 0, 5));
+            Future<GameState> second = threads.submit(() -> play(peers, 1, 5));
+            GameState one = first.get(FINISH_SECONDS, TimeUnit.SECONDS);
+            GameState two = second.get(FINISH_SECONDS, TimeUnit.SECONDS);
+            assertTrue(one.isOver());
+            assertEquals(one.stateHash(), two.stateHash());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void lostHashesAreSentAgainUntilHeard() throws Exception {
+        InetSocketAddress[] peers = freeAddresses(2);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<LockstepPeer> first = threads.submit(() -> playLosing(peers, 0));
+            Future<LockstepPeer> second = threads.submit(() -> playLosing(peers, 1));
+            LockstepPeer one = first.get(FINISH_SECONDS, TimeUnit.SECONDS);
+            LockstepPeer two = second.get(FINISH_SECONDS, TimeUnit.SECONDS);
+            assertEquals(one.getState().stateHash(), two.getState().stateHash());
+            // Each peer heard the other's hash of the last flip, however many packets carrying it were lost.
+            assertEquals(one.getNumHashes(), one.getNumHashesHeard(1));
+            assertEquals(two.getNumHashes(), two.getNumHashesHeard(0));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void bothPeersStopWhenTheirGamesDiffer() throws Exception {
+        InetSocketAddress[] peers = freeAddresses(2);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<GameState> first = threads.submit(() -> play(peers, 0, 1));
+            Future<GameState> second = threads.submit(() -> play(peers, 1, 2));
+            // The peer that did not find the desync is told of it, rather than waiting for flips that never come.
+            assertDesync(first);
+            assertDesync(second);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks a peer stopped in time because the games differ.
+     * @param peer: The peer's game being played.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws TimeoutException if the peer did not stop in time.
+     */
+    private static void assertDesync(Future<GameState> peer) throws InterruptedException, TimeoutException {
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> peer.get(FINISH_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+        assertTrue(thrown.getCause().getMessage().startsWith("Desync"), thrown.getCause().getMessage());
+    }
+
+    /**
+     * Deals a game and plays one peer's side of it with random flips.
+     * @param peers: The address of each peer.
+     * @param me: The number of the peer.
+     * @param seed: The seed the game is dealt from.
+     * @return the game, once it is over.
+     * @throws IOException if the other peer cannot be reached or is lost.
+     */
+    private static GameState play(InetSocketAddress[] peers, int me, long seed) throws IOException {
+        CompiledLayout layout = LayoutCache.getInstance().load(BOARD);
+        GameState state = GameState.deal(layout, 2, new Random(seed));
+        try (LockstepPeer peer = new LockstepPeer(state, peers, me, LockstepPeer.DEFAULT_HASH_INTERVAL)) {
+            return peer.play(new RandomPolicy(), new Random(me));
+        }
+    }
+
+    /**
+     * Deals a game and plays one peer's side of it with random flips, losing some of the packets it sends and hashing
+     * the game after every flip.
+     * @param peers: The address of each peer.
+     * @param me: The number of the peer.
+     * @return the peer, closed once the game is over.
+     * @throws IOException if the other peer cannot be reached or is lost.
+     */
+    private static LockstepPeer playLosing(InetSocketAddress[] peers, int me) throws IOException {
+        CompiledLayout layout = LayoutCache.getInstance().load(BOARD);
+        GameState state = GameState.deal(layout, 2, new Random(5));
+        try (LockstepPeer peer = new LockstepPeer(state, peers, me, 1)) {
+            peer.setDropPercent(LOST_PERCENT);
+            peer.play(new RandomPolicy(), new Random(me));
+            return peer;
+        }
+    }
+
+    /**
+     * Finds ports on the loopback address that are free for now.
+     * @param count: The number of ports.
+     * @return an address for each port.
+     * @throws IOException if no port can be opened.
+     */
+    private static InetSocketAddress[] freeAddresses(int count) throws IOException {
+        InetSocketAddress[] addresses = new InetSocketAddress[count];
+        DatagramSocket[] sockets = new DatagramSocket[count];
+        try {
+            // Hold every port open until all are found, so the same one is not handed out twice.
+            for (int i = 0; i < count; i++) {
+                sockets[i] = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+                addresses[i] = new InetSocketAddress(InetAddress.getLoopbackAddress(), sockets[i].getLocalPort());
+            }
+        } finally {
+            for (DatagramSocket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+        return addresses;
+    }
+}
@@ -0,0 +1,294 @@
+package com.fierydragon.router;
+
+import com.fierydragon.bots.RandomPolicy;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.engine.LayoutCache;
+import com.fierydragon.server.GameClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Tests of a SessionRouter in front of two WorkerProcesses, with two players connected to the router playing a game
+ * while it is moved between the workers, rebalanced, drained off a worker and brought back after its worker is killed.
+ * Every flip is checked against a GameState played alongside, and the game is exported from whichever worker hosts it
+ * to check nothing was lost or played twice.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see SessionRouter
+ * @see WorkerProcess
+ */
+
+@Timeout(value = 60, unit = TimeUnit.SECONDS)
+class SessionRouterTest {
+    /**
+     * The board the games are dealt from.
+     */
+    private static final String BOARD = "standard";
+    /**
+     * The number of Dragons in the game played.
+     */
+    private static final int PLAYERS = 2;
+    /**
+     * The seed the game played is dealt from.
+     */
+    private static final long SEED = 31;
+    /**
+     * The number of flips made between the steps of a test.
+     */
+    private static final int FLIPS = 8;
+    /**
+     * The number of times the game is moved while it is played.
+     */
+    private static final int MOVES = 4;
+    /**
+     * The number of games created besides the one played, to rebalance.
+     */
+    private static final int OTHER_GAMES = 3;
+    /**
+     * The milliseconds to let a worker's journal commit the flips before the worker is killed.
+     */
+    private static final long COMMIT_MILLIS = 100;
+    /**
+     * The longest to wait for a killed worker to be started again.
+     */
+    private static final long RESTART_MILLIS = 30_000;
+    /**
+     * A folder of its own for each test, holding the journals of the workers.
+     */
+    @TempDir
+    Path folder;
+    /**
+     * The router under test.
+     */
+    private SessionRouter router;
+    /**
+     * The connection of each player, by seat.
+     */
+    private GameClient[] players;
+    /**
+     * The number of the game played.
+     */
+    private long id;
+    /**
+     * The same game played without the router, to check every flip against.
+     */
+    private GameState shadow;
+    /**
+     * The Random choosing the flips.
+     */
+    private Random random;
+
+    @BeforeEach
+    void startRouter() throws IOException {
+        router = new SessionRouter(0, InetAddress.getLoopbackAddress(), 2, folder,
+                List.of("-Xmx64m", "-Dfierydragon.layoutCache=" + folder.resolve("layouts")));
+        router.start();
+        players = new GameClient[PLAYERS];
+        for (int seat = 0; seat < PLAYERS; seat++) {
+            players[seat] = connect();
+        }
+        id = players[0].create(BOARD, PLAYERS, SEED);
+        for (int seat = 0; seat < PLAYERS; seat++) {
+            String[] joined = players[seat].join(id);
+            assertEquals(seat, Integer.parseInt(joined[2]));
+        }
+        shadow = GameState.deal(LayoutCache.getInstance().load(BOARD), PLAYERS, new Random(SEED));
+        random = new Random(7);
+    }
+
+    @AfterEach
+    void closeRouter() throws IOException {
+        for (GameClient player : players) {
+            if (player != null) {
+                player.close();
+            }
+        }
+        router.close();
+    }
+
+    @Test
+    void aGameMovedRebalancedAndDrainedWhileItIsPlayedLosesNoTurns() throws Exception {
+        play(FLIPS);
+        SessionRouter.GameRoute route = router.getRoute(id);
+        assertNotNull(route);
+
+        // Move the game back and forth while the players go on flipping, so flips arrive during every step of a move.
+        ExecutorService mover = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> moved = mover.submit(() -> {
+                int numMoved = 0;
+                for (int i = 0; i < MOVES; i++) {
+                    if (router.move(route, otherWorker(route.getOwner()))) {
+                        numMoved++;
+                    }
+                }
+                return numMoved;
+            });
+            while (!moved.isDone() && !shadow.isOver()) {
+                play(1);
+            }
+            assertEquals(MOVES, moved.get());
+        } finally {
+            mover.shutdownNow();
+        }
+        assertMatchesShadow();
+
+        // Pile every game onto the first worker, and let the router spread them again.
+        WorkerProcess first = router.getWorkers().get(0);
+        WorkerProcess second = router.getWorkers().get(1);
+        try (GameClient creator = connect()) {
+            for (int i = 0; i < OTHER_GAMES; i++) {
+                creator.create(BOARD, PLAYERS, SEED + 1 + i);
+            }
+            for (SessionRouter.GameRoute other : new ArrayList<>(router.getRoutes())) {
+                assertTrue(router.move(other, first));
+            }
+            assertTrue(router.rebalance() > 0);
+            assertTrue(Math.abs(first.getNumGames() - second.getNumGames()) <= 1,
+                    first.getNumGames() + " and " + second.getNumGames());
+            play(FLIPS);
+            assertMatchesShadow();
+
+            // Draining the second worker hands every game it hosts to the first and stops it.
+            router.drain(second);
+            assertTrue(second.isStopped());
+            for (SessionRouter.GameRoute other : router.getRoutes()) {
+                assertEquals(first, other.getOwner());
+            }
+            play(FLIPS);
+            assertMatchesShadow();
+        }
+    }
+
+    @Test
+    void aWorkerThatDiesIsStartedAgainAndItsPlayersCarryOn() throws Exception {
+        play(FLIPS);
+        SessionRouter.GameRoute route = router.getRoute(id);
+        WorkerProcess owner = route.getOwner();
+        Process killed = owner.getProcess();
+        // Only turns already on disk are kept when a worker dies.
+        Thread.sleep(COMMIT_MILLIS);
+        owner.kill();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESTART_MILLIS);
+        while (!isRestarted(owner, killed, route) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(isRestarted(owner, killed, route));
+        assertEquals(owner, route.getOwner());
+
+        // The players took their seats again without doing anything, and go on where they were.
+        play(FLIPS);
+        assertMatchesShadow();
+    }
+
+    /**
+     * Connects a client to the router.
+     * @return the client.
+     * @throws IOException if the router cannot be reached.
+     */
+    private GameClient connect() throws IOException {
+        return new GameClient(InetAddress.getLoopbackAddress().getHostAddress(), router.getPort());
+    }
+
+    /**
+     * Makes flips for whichever Dragon's turn it is, through the router and on the shadow, checking every player is
+     * told of each flip as the shadow played it.
+     * @param numFlips: The number of flips, made unless the game is over first.
+     * @throws IOException if the router cannot be reached.
+     */
+    private void play(int numFlips) throws IOException {
+        RandomPolicy policy = new RandomPolicy();
+        for (int i = 0; i < numFlips && !shadow.isOver(); i++) {
+            int seat = shadow.getCurrent();
+            int chit = policy.choose(shadow, random);
+            players[seat].flip(chit);
+            shadow.flip(chit);
+            for (GameClient player : players) {
+                // FLIPPED seat chit kind value outcome current winner
+                String[] flipped = nextFlipped(player);
+                assertEquals(seat, Integer.parseInt(flipped[1]));
+                assertEquals(chit, Integer.parseInt(flipped[2]));
+                assertEquals(shadow.getCurrent(), Integer.parseInt(flipped[6]));
+            }
+        }
+        assertFalse(shadow.isOver(), "The game ended before the test did");
+    }
+
+    /**
+     * Reads lines from a player until the next FLIPPED line, failing on an ERROR line.
+     * @param player: The player.
+     * @return the words of the FLIPPED line.
+     * @throws IOException if the router cannot be reached.
+     */
+    private static String[] nextFlipped(GameClient player) throws IOException {
+        while (true) {
+            String line = player.readLine();
+            if (line == null) {
+                fail("The router closed the connection");
+            }
+            if (line.startsWith("ERROR")) {
+                fail(line);
+            }
+            if (line.startsWith("FLIPPED ")) {
+                return line.split(" ");
+            }
+        }
+    }
+
+    /**
+     * Exports the game from the worker hosting it and checks its progress is the shadow's.
+     * @throws IOException if the worker cannot be reached.
+     */
+    private void assertMatchesShadow() throws IOException {
+        // EXPORTED id board players seed joined progress
+        String[] exported = router.getRoute(id).getOwner().request("EXPORT " + id, "EXPORTED");
+        assertArrayEquals(shadow.saveProgress(), Base64.getDecoder().decode(exported[6]));
+    }
+
+    /**
+     * A method to return the worker that is not the given one.
+     * @param worker: One of the two workers.
+     * @return the other worker.
+     */
+    private WorkerProcess otherWorker(WorkerProcess worker) {
+        List<WorkerProcess> workers = router.getWorkers();
+        return (workers.get(0) == worker) ? workers.get(1) : workers.get(0);
+    }
+
+    /**
+     * A method to check whether a killed worker has been started again and its game let through to it.
+     * @param worker: The worker.
+     * @param killed: The process that was killed.
+     * @param route: The route of the game the worker hosts.
+     * @return True once the worker runs a new process and the game's lines are no longer held back.
+     */
+    private static boolean isRestarted(WorkerProcess worker, Process killed, SessionRouter.GameRoute route) {
+        Process process = worker.getProcess();
+        return process != killed && process != null && process.isAlive() && !route.isMoving();
+    }
+}
@@ -0,0 +1,173 @@
+package com.fierydragon.server;
+
+import com.fierydragon.wire.FrameCodec;
+import com.fierydragon.wire.FrameReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the lines and frames a ClientConnection sends, and of a seated client that stops reading them.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see ClientConnection
+ * @see BinaryConnection
+ */
+
+class ClientConnectionTest {
+    /**
+     * The milliseconds a client waits for a line before the test fails.
+     */
+    private static final int READ_TIMEOUT_MILLIS = 10_000;
+    /**
+     * The most bytes of commands the client that stops reading sends before the test gives up on it.
+     */
+    private static final long FLOOD_BYTES = 64L * 1024 * 1024;
+    /**
+     * The server holding the game.
+     */
+    private GameServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new GameServer(0, InetAddress.getLoopbackAddress());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void clientThatStopsReadingIsDisconnectedWithoutHoldingUpTheGame() throws Exception {
+        long id = server.createSession("standard", 2, 42L).getId();
+        try (Socket player = connect(0); Socket stalled = connect(4096)) {
+            BufferedReader lines = new BufferedReader(new InputStreamReader(player.getInputStream(),
+                    StandardCharsets.UTF_8));
+            send(player, "JOIN " + id);
+            assertTrue(readUntil(lines, "JOINED ").startsWith("JOINED " + id + " 0 "));
+            send(stalled, "JOIN " + id);
+            readUntil(lines, "SEATED 1");
+
+            // The second player asks for the state over and over and never reads the answers.
+            AtomicBoolean cut = new AtomicBoolean();
+            Thread flood = new Thread(() -> {
+                byte[] commands = new byte[64 * 1024];
+                byte[] state = "STATE\n".getBytes(StandardCharsets.US_ASCII);
+                for (int i = 0; i + state.length <= commands.length; i += state.length) {
+                    System.arraycopy(state, 0, commands, i, state.length);
+                }
+                try {
+                    OutputStream out = stalled.getOutputStream();
+                    for (long sent = 0; sent < FLOOD_BYTES; sent += commands.length) {
+                        out.write(commands);
+                    }
+                } catch (IOException e) {
+                    cut.set(true);
+                }
+            });
+            flood.setDaemon(true);
+            flood.start();
+            flood.join(READ_TIMEOUT_MILLIS * 3L);
+            assertTrue(cut.get(), "The client that stopped reading was not disconnected");
+
+            // The game goes on for the player still reading.
+            readUntil(lines, "LEFT 1");
+            send(player, "FLIP 0");
+            assertTrue(readUntil(lines, "FLIPPED ").startsWith("FLIPPED 0 0 "));
+        }
+    }
+
+    @Test
+    void binaryClientsAreSentFramesThroughTheirOutboxes() throws IOException {
+        BinaryEndpoint endpoint = new BinaryEndpoint(server, 0, InetAddress.getLoopbackAddress());
+        endpoint.start();
+        try (BinaryClient first = new BinaryClient("127.0.0.1", endpoint.getPort());
+             BinaryClient second = new BinaryClient("127.0.0.1", endpoint.getPort())) {
+            long id = first.create("standard", 2, 42L);
+            assertEquals("0", first.join(id)[2]);
+            assertEquals("1", second.join(id)[2]);
+
+            // Both seats are sent the same DELTA frame of the flip.
+            first.flip(0);
+            for (BinaryClient client : new BinaryClient[] {first, second}) {
+                int type;
+                while ((type = client.next()) != FrameCodec.DELTA) {
+                    assertNotEquals(FrameReader.NONE, type);
+                }
+                assertEquals(0, client.getDelta().getSeat());
+                assertEquals(0, client.getDelta().getChit());
+            }
+
+            second.heartbeat();
+            int type;
+            while ((type = second.next()) != FrameCodec.HEARTBEAT) {
+                assertNotEquals(FrameReader.NONE, type);
+            }
+            assertTrue(second.getRoundTripNanos() > 0);
+        } finally {
+            endpoint.close();
+        }
+    }
+
+    /**
+     * Connects a client to the server.
+     * @param receiveBuffer: The bytes of the client's receive buffer, or 0 for the usual size.
+     * @return the socket of the client.
+     * @throws IOException if the server cannot be reached.
+     */
+    private Socket connect(int receiveBuffer) throws IOException {
+        Socket socket = new Socket();
+        if (receiveBuffer > 0) {
+            socket.setReceiveBufferSize(receiveBuffer);
+        }
+        socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+        socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+        return socket;
+    }
+
+    /**
+     * Sends a command line to the server.
+     * @param socket: The socket of the client.
+     * @param line: The command.
+     * @throws IOException if the server cannot be reached.
+     */
+    private static void send(Socket socket, String line) throws IOException {
+        socket.getOutputStream().write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+    }
+
+    /**
+     * Reads lines until one starts with a prefix, skipping the rest.
+     * @param lines: The lines from the server.
+     * @param prefix: The start of the line wanted.
+     * @return the line.
+     * @throws IOException if the server closed the connection or took too long.
+     */
+    private static String readUntil(BufferedReader lines, String prefix) throws IOException {
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        throw new IOException("The server closed the connection before sending " + prefix);
+    }
+}
@@ -0,0 +1,221 @@
+package com.fierydragon.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the games a GameJournal brings back: after a clean close, after a crash tore or damaged the last record,
+ * and after the process writing it was killed in the middle of a game.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameJournal
+ */
+
+class GameJournalTest {
+    /**
+     * A folder of its own for each test.
+     */
+    @TempDir
+    Path folder;
+
+    @Test
+    void bringsBackOnlyTheGamesStillBeingPlayed() throws IOException {
+        Path file = folder.resolve("games.journal");
+        try (GameJournal journal = new GameJournal(file, 1)) {
+            journal.created(1, "standard", 2, 11);
+            journal.created(2, "standard", 3, 12);
+            journal.flipped(1, 4);
+            journal.flipped(2, 0);
+            journal.flipped(1, 9);
+            journal.ended(2);
+        }
+
+        try (GameJournal journal = new GameJournal(file, 1)) {
+            List<GameJournal.RecoveredGame> games = new ArrayList<>(journal.getRecovered());
+            assertEquals(1, games.size());
+            GameJournal.RecoveredGame game = games.get(0);
+            assertEquals(1, game.getId());
+            assertEquals("standard", game.getBoardName());
+            assertEquals(2, game.getNumPlayers());
+            assertEquals(11, game.getSeed());
+            assertArrayEquals(new int[] {4, 9}, game.getFlips());
+        }
+    }
+
+    @Test
+    void dropsARecordTornByACrash() throws IOException {
+        Path file = writeGame(3, 5, 7);
+        // Cut the last flip short, as a crash in the middle of a write would.
+        truncate(file, Files.size(file) - 3);
+        assertArrayEquals(new int[] {3, 5}, recoverFlips(file));
+    }
+
+    @Test
+    void dropsARecordWithABadChecksum() throws IOException {
+        Path file = writeGame(3, 5, 7);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x40;
+        Files.write(file, bytes);
+        assertArrayEquals(new int[] {3, 5}, recoverFlips(file));
+    }
+
+    @Test
+    void ignoresGarbageAfterTheLastRecord() throws IOException {
+        Path file = writeGame(3, 5, 7);
+        Files.write(file, new byte[] {0, 0, 0, 12, 1, 2, 3}, StandardOpenOption.APPEND);
+        assertArrayEquals(new int[] {3, 5, 7}, recoverFlips(file));
+    }
+
+    @Test
+    void keepsRecordsWrittenAfterATornTail() throws IOException {
+        Path file = writeGame(3, 5, 7);
+        truncate(file, Files.size(file) - 3);
+        // Opening the journal rewrites it without the torn record, so new flips are not hidden behind it.
+        try (GameJournal journal = new GameJournal(file, 1)) {
+            journal.flipped(1, 8);
+        }
+        assertArrayEquals(new int[] {3, 5, 8}, recoverFlips(file));
+    }
+
+    @Test
+    void bringsBackTheGameInProgressAfterAKill() throws IOException, InterruptedException {
+        Path file = folder.resolve("killed.journal");
+        Process writer = new ProcessBuilder(javaCommand(), "-cp", classPath(),
+                JournalCrashWriter.class.getName(), file.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        long committedId;
+        try {
+            BufferedReader output = new BufferedReader(new InputStreamReader(writer.getInputStream(),
+                    StandardCharsets.UTF_8));
+            String line = output.readLine();
+            assertNotNull(line, "The writer exited before committing");
+            assertTrue(line.startsWith(JournalCrashWriter.COMMITTED), line);
+            committedId = Long.parseLong(line.substring(JournalCrashWriter.COMMITTED.length()).trim());
+            // Let it play on for a while, so the kill lands somewhere in a game.
+            Thread.sleep(150);
+        } finally {
+            // SIGKILL: no shutdown hooks, no last commit.
+            writer.destroyForcibly();
+            assertTrue(writer.waitFor(10, TimeUnit.SECONDS));
+        }
+
+        try (GameJournal journal = new GameJournal(file, 1)) {
+            List<GameJournal.RecoveredGame> games = new ArrayList<>(journal.getRecovered());
+            // The games that ended were recorded as ended, so only the one being played is brought back.
+            assertEquals(1, games.size(), "Brought back " + games.size() + " games");
+            for (GameJournal.RecoveredGame game : games) {
+                assertTrue(game.getId() >= committedId, "Game " + game.getId() + " had ended");
+                int[] flips = game.getFlips();
+                // Whatever was kept is exactly the start of the game, with nothing torn or out of order.
+                int[] expected = JournalCrashWriter.expectedFlips(game.getId(), flips.length);
+                assertArrayEquals(expected, flips);
+                assertEquals(game.getId(), game.getSeed());
+            }
+
+            // The server deals each game again and plays the flips kept, ready for its players to join again.
+            GameServer server = new GameServer(0, InetAddress.getLoopbackAddress());
+            try {
+                assertEquals(games.size(), server.recover(journal));
+                for (GameJournal.RecoveredGame game : games) {
+                    GameSession session = server.getSession(game.getId());
+                    assertNotNull(session);
+                    assertFalse(session.getSnapshot().isOver());
+                }
+            } finally {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Writes a journal holding one game with the given flips.
+     * @param flips: The Chit Cards flipped, in order.
+     * @return the journal file.
+     * @throws IOException if the journal cannot be written.
+     */
+    private Path writeGame(int... flips) throws IOException {
+        Path file = folder.resolve("game.journal");
+        try (GameJournal journal = new GameJournal(file, 1)) {
+            journal.created(1, "standard", 2, 1);
+            for (int chit : flips) {
+                journal.flipped(1, chit);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Opens a journal holding one game and reads back its flips.
+     * @param file: The journal file.
+     * @return the Chit Cards flipped, in order.
+     * @throws IOException if the journal cannot be read.
+     */
+    private static int[] recoverFlips(Path file) throws IOException {
+        try (GameJournal journal = new GameJournal(file, 1)) {
+            List<GameJournal.RecoveredGame> games = new ArrayList<>(journal.getRecovered());
+            assertEquals(1, games.size());
+            return games.get(0).getFlips();
+        }
+    }
+
+    /**
+     * Cuts a file short.
+     * @param file: The file.
+     * @param size: The bytes to keep.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    /**
+     * A method to return the java command of the running Java runtime.
+     * @return the path of the java command.
+     */
+    private static String javaCommand() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    /**
+     * Makes a class path holding the classes and tests, however the tests were started.
+     * @return the class path.
+     */
+    private static String classPath() {
+        List<String> entries = new ArrayList<>();
+        for (String property : new String[] {"java.class.path", "jdk.module.path"}) {
+            String value = System.getProperty(property);
+            if (value != null && !value.isEmpty()) {
+                entries.addAll(Arrays.asList(value.split(File.pathSeparator)));
+            }
+        }
+        // The tests may be patched into the module rather than on either path.
+        entries.add(Path.of("target", "test-classes").toAbsolutePath().toString());
+        return String.join(File.pathSeparator, entries);
+    }
+}
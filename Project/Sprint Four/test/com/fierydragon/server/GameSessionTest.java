@@ -0,0 +1,138 @@
+package com.fierydragon.server;
+
+import com.fierydragon.bots.RandomPolicy;
+import com.fierydragon.engine.GameSnapshot;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.engine.LayoutCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of a GameSession passivated and brought back while it is played, checked against a GameState played alongside
+ * it with the same flips.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameSession
+ */
+
+class GameSessionTest {
+    /**
+     * The board the game is dealt from.
+     */
+    private static final String BOARD = "standard";
+    /**
+     * The number of Dragons in the game.
+     */
+    private static final int PLAYERS = 2;
+    /**
+     * The seed the game is dealt from.
+     */
+    private static final long SEED = 11;
+    /**
+     * The number of flips made before the game is passivated, and again after.
+     */
+    private static final int FLIPS = 12;
+    /**
+     * The server hosting the game.
+     */
+    private GameServer server;
+    /**
+     * The game under test.
+     */
+    private GameSession session;
+    /**
+     * The same game played without the server, to check the session against.
+     */
+    private GameState shadow;
+    /**
+     * The lines the game answered with, in order.
+     */
+    private List<String> replies;
+
+    @BeforeEach
+    void createGame() throws IOException {
+        server = new GameServer(0, InetAddress.getLoopbackAddress());
+        session = server.createSession(BOARD, PLAYERS, SEED);
+        shadow = GameState.deal(LayoutCache.getInstance().load(BOARD), PLAYERS, new Random(SEED));
+        replies = new ArrayList<>();
+    }
+
+    @AfterEach
+    void closeServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void aPassivatedGameIsBroughtBackAsItWasLeft() {
+        Random random = new Random(3);
+        play(random);
+        long versionBefore = session.getVersion();
+        long footprintBefore = session.getFootprint();
+
+        assertTrue(session.passivate());
+        assertFalse(session.isResident());
+        assertEquals(1, server.getNumPassivations());
+        // Only the shell and a few bytes of progress are left, and readers are still answered from the snapshot.
+        assertTrue(session.getFootprint() < footprintBefore - session.getStateFootprint() / 2,
+                session.getFootprint() + " of " + footprintBefore);
+        assertEquals(versionBefore, session.getVersion());
+        assertEquals(GameSnapshot.of(shadow, versionBefore).getContentHash(), session.getSnapshot().getContentHash());
+
+        // The next flip deals the game again from its progress and carries on from where it was left.
+        play(random);
+        assertTrue(session.isResident());
+        assertEquals(1, server.getNumRehydrations());
+        assertEquals(GameSnapshot.of(shadow, 0).getContentHash(), session.getSnapshot().getContentHash());
+        session.export(replies::add);
+        String[] exported = replies.get(replies.size() - 1).split(" ");
+        assertEquals("EXPORTED", exported[0]);
+        assertArrayEquals(shadow.saveProgress(), Base64.getDecoder().decode(exported[6]));
+    }
+
+    @Test
+    void watchersAndDeltasAreOnlyMadeOnceNeeded() {
+        long idle = session.getFootprint();
+        play(new Random(5));
+        // Nobody watches, so flipping makes nothing beyond the new snapshot.
+        assertTrue(session.getFootprint() - idle < 64, (session.getFootprint() - idle) + " bytes");
+
+        session.watch(replies::add);
+        assertTrue(session.getFootprint() > idle);
+        int before = replies.size();
+        play(new Random(6));
+        assertTrue(replies.size() > before);
+    }
+
+    /**
+     * Makes flips for whichever Dragon's turn it is, on the game and on the shadow, until enough are made or the game
+     * is over, checking each flip is accepted.
+     * @param random: The Random choosing the flips.
+     */
+    private void play(Random random) {
+        RandomPolicy policy = new RandomPolicy();
+        for (int i = 0; i < FLIPS && !shadow.isOver(); i++) {
+            int seat = shadow.getCurrent();
+            int chit = policy.choose(shadow, random);
+            List<String> answers = new ArrayList<>();
+            session.flip(answers::add, seat, chit);
+            shadow.flip(chit);
+            assertEquals(1, answers.size(), answers.toString());
+            assertTrue(answers.get(0).startsWith("FLIPPED " + seat + " " + chit + " "), answers.get(0));
+        }
+    }
+}
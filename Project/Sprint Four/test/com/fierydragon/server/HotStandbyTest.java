@@ -0,0 +1,206 @@
+package com.fierydragon.server;
+
+import com.fierydragon.bots.RandomPolicy;
+import com.fierydragon.engine.GameSnapshot;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.engine.LayoutCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of hot-standby replication between a leader and a standby GameServer on the loopback address: a standby that
+ * starts following in the middle of a game is sent a snapshot of it and then its flips, keeps a replica that matches a
+ * GameState played alongside the leader, and takes over the leader's port within a second of losing it.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see HotStandby
+ * @see ReplicationServer
+ */
+
+class HotStandbyTest {
+    /**
+     * The board the game is dealt from.
+     */
+    private static final String BOARD = "standard";
+    /**
+     * The number of Dragons in the game.
+     */
+    private static final int PLAYERS = 3;
+    /**
+     * The seed the game is dealt from.
+     */
+    private static final long SEED = 17;
+    /**
+     * The number of flips made before the standby follows, again while it follows, and again once it has taken over.
+     */
+    private static final int FLIPS = 10;
+    /**
+     * The longest the standby may take to take over once the leader is lost.
+     */
+    private static final long TAKEOVER_MILLIS = 1000;
+    /**
+     * The longest the test waits for the standby to catch up.
+     */
+    private static final long WAIT_MILLIS = 5000;
+    /**
+     * A folder of its own for each test.
+     */
+    @TempDir
+    Path folder;
+    /**
+     * The journal of the leader, which ships its batches to the standby.
+     */
+    private GameJournal leaderJournal;
+    /**
+     * The leader the game is played on first.
+     */
+    private GameServer leader;
+    /**
+     * The leader's end of replication.
+     */
+    private ReplicationServer replication;
+    /**
+     * The journal of the standby.
+     */
+    private GameJournal standbyJournal;
+    /**
+     * The standby keeping the replica.
+     */
+    private GameServer standby;
+    /**
+     * The thread the standby follows the leader on.
+     */
+    private ExecutorService following;
+    /**
+     * The same game played without a server, to check both servers against.
+     */
+    private GameState shadow;
+
+    @BeforeEach
+    void startLeader() throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        leaderJournal = new GameJournal(folder.resolve("leader.journal"), 1);
+        leader = new GameServer(0, loopback);
+        leader.recover(leaderJournal);
+        replication = new ReplicationServer(leader, leaderJournal, 0, loopback);
+        replication.start();
+        standbyJournal = new GameJournal(folder.resolve("standby.journal"), 1);
+        standby = new GameServer(0, loopback);
+        standby.recover(standbyJournal);
+        following = Executors.newSingleThreadExecutor();
+        shadow = GameState.deal(LayoutCache.getInstance().load(BOARD), PLAYERS, new Random(SEED));
+    }
+
+    @AfterEach
+    void closeServers() throws IOException {
+        following.shutdownNow();
+        replication.close();
+        leader.close();
+        leaderJournal.close();
+        standby.close();
+        standbyJournal.close();
+    }
+
+    @Test
+    void aStandbyFollowingMidGameKeepsTheGameAndTakesOverWithinASecond() throws Exception {
+        GameSession played = leader.createSession(BOARD, PLAYERS, SEED);
+        long id = played.getId();
+        Random random = new Random(2);
+        play(played, random);
+        // Let the journal commit the flips made so far, so the standby only hears of the game through its snapshot.
+        Thread.sleep(ReplicationServer.HEARTBEAT_MILLIS);
+
+        int leaderPort = leader.getPort();
+        HotStandby hotStandby = new HotStandby(standby, InetAddress.getLoopbackAddress().getHostAddress(),
+                replication.getPort());
+        Future<Long> takeover = following.submit(() -> hotStandby.follow(leaderPort,
+                InetAddress.getLoopbackAddress()));
+        // The snapshot is recorded in the standby's journal as the game being created and its progress.
+        awaitStandbyRecords(2);
+        assertNotNull(standby.getSession(id));
+        assertEquals(1, replication.getNumFollowers());
+
+        play(played, random);
+        awaitStandbyRecords(2 + FLIPS);
+
+        // Lose the leader: its clients' port and the stream to the standby close together, as when its process dies.
+        long lost = System.nanoTime();
+        leader.close();
+        replication.close();
+        long takeoverMillis = takeover.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        long elapsedMillis = (System.nanoTime() - lost) / 1_000_000;
+        assertTrue(takeoverMillis < TAKEOVER_MILLIS, takeoverMillis + " ms");
+        assertTrue(elapsedMillis < TAKEOVER_MILLIS, elapsedMillis + " ms");
+        assertEquals(leaderPort, standby.getPort());
+
+        // The promoted replica is published as the leader left it, and carries on from there.
+        GameSession promoted = standby.getSession(id);
+        assertEquals(GameSnapshot.of(shadow, 0).getContentHash(), promoted.getSnapshot().getContentHash());
+        assertEquals(played.getSnapshot().getContentHash(), promoted.getSnapshot().getContentHash());
+        play(promoted, random);
+        assertEquals(GameSnapshot.of(shadow, 0).getContentHash(), promoted.getSnapshot().getContentHash());
+
+        // The standby journaled the snapshot and only the flips after it, so it brings the game back by itself too.
+        standbyJournal.close();
+        try (GameJournal reopened = new GameJournal(folder.resolve("standby.journal"), 1)) {
+            List<GameJournal.RecoveredGame> games = new ArrayList<>(reopened.getRecovered());
+            assertEquals(1, games.size());
+            GameJournal.RecoveredGame game = games.get(0);
+            assertEquals(id, game.getId());
+            assertNotNull(game.getProgress());
+            assertEquals(2 * FLIPS, game.getFlips().length);
+        }
+    }
+
+    /**
+     * Makes flips for whichever Dragon's turn it is, on a game and on the shadow, until enough are made or the game is
+     * over, checking each flip is accepted.
+     * @param session: The game to flip on.
+     * @param random: The Random choosing the flips.
+     */
+    private void play(GameSession session, Random random) {
+        RandomPolicy policy = new RandomPolicy();
+        for (int i = 0; i < FLIPS && !shadow.isOver(); i++) {
+            int seat = shadow.getCurrent();
+            int chit = policy.choose(shadow, random);
+            List<String> answers = new ArrayList<>();
+            session.flip(answers::add, seat, chit);
+            shadow.flip(chit);
+            assertEquals(1, answers.size(), answers.toString());
+            assertTrue(answers.get(0).startsWith("FLIPPED " + seat + " " + chit + " "), answers.get(0));
+        }
+    }
+
+    /**
+     * Waits until the standby has recorded a number of records in its journal, as it does for every record of the
+     * game it applies.
+     * @param numRecords: The number of records.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private void awaitStandbyRecords(long numRecords) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+        while (standbyJournal.getNumRecords() < numRecords && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(numRecords, standbyJournal.getNumRecords());
+    }
+}
@@ -0,0 +1,156 @@
+package com.fierydragon.server;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the answers the HttpApi gives to good and bad requests.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see HttpApi
+ */
+
+class HttpApiTest {
+    /**
+     * The server holding the games.
+     */
+    private static GameServer server;
+    /**
+     * The API under test.
+     */
+    private static HttpApi api;
+    /**
+     * The number of the game the requests are made to.
+     */
+    private static long gameId;
+
+    @BeforeAll
+    static void startApi() throws IOException {
+        server = new GameServer(0, InetAddress.getLoopbackAddress());
+        api = new HttpApi(server, 0, InetAddress.getLoopbackAddress());
+        api.start();
+        gameId = server.createSession("standard", 2, 42L).getId();
+    }
+
+    @AfterAll
+    static void stopApi() throws IOException {
+        api.close();
+        server.close();
+    }
+
+    @Test
+    void flipWithAChitThatIsNotANumberIsABadRequest() throws IOException {
+        Response response = request("POST", "/games/" + gameId + "/flips?seat=0&chit=zz", null);
+        assertEquals(400, response.status);
+        assertTrue(response.body.contains("error"), response.body);
+    }
+
+    @Test
+    void flipWithoutParametersIsABadRequest() throws IOException {
+        assertEquals(400, request("POST", "/games/" + gameId + "/flips", null).status);
+    }
+
+    @Test
+    void gameNumberThatIsNotANumberIsABadRequest() throws IOException {
+        assertEquals(400, request("GET", "/games/abc", null).status);
+    }
+
+    @Test
+    void createWithPlayersThatIsNotANumberIsABadRequest() throws IOException {
+        assertEquals(400, request("POST", "/games?players=x", null).status);
+    }
+
+    @Test
+    void createWithTooManyPlayersIsABadRequest() throws IOException {
+        assertEquals(400, request("POST", "/games?players=99", null).status);
+    }
+
+    @Test
+    void unknownGameIsNotFound() throws IOException {
+        assertEquals(404, request("GET", "/games/999999", null).status);
+    }
+
+    @Test
+    void stateIsNotSentAgainUntilTheGameChanges() throws IOException {
+        long id = server.createSession("standard", 2, 7L).getId();
+        Response first = request("GET", "/games/" + id, null);
+        assertEquals(200, first.status);
+        assertEquals(304, request("GET", "/games/" + id, first.etag).status);
+
+        // Any flip changes the game, matching or not.
+        Response flip = request("POST", "/games/" + id + "/flips?seat=0&chit=0", null);
+        assertEquals(200, flip.status, flip.body);
+        Response second = request("GET", "/games/" + id, first.etag);
+        assertEquals(200, second.status);
+        assertNotEquals(first.etag, second.etag);
+    }
+
+    /**
+     * Sends a request to the API and reads the answer.
+     * @param method: The HTTP method.
+     * @param path: The path and query.
+     * @param ifNoneMatch: The ETag to send in If-None-Match, or null.
+     * @return the answer.
+     * @throws IOException if the API cannot be reached.
+     */
+    private static Response request(String method, String path, String ifNoneMatch) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + api.getPort() + path)
+                .openConnection();
+        try {
+            connection.setRequestMethod(method);
+            if (ifNoneMatch != null) {
+                connection.setRequestProperty("If-None-Match", ifNoneMatch);
+            }
+            int status = connection.getResponseCode();
+            InputStream in = (status >= 400) ? connection.getErrorStream() : connection.getInputStream();
+            String body = (in == null) ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return new Response(status, body, connection.getHeaderField("ETag"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * An answer from the API.
+     */
+    private static final class Response {
+        /**
+         * The HTTP status.
+         */
+        private final int status;
+        /**
+         * The body, empty if there was none.
+         */
+        private final String body;
+        /**
+         * The ETag sent, or null.
+         */
+        private final String etag;
+
+        /**
+         * Response Constructor.
+         * @param status: The HTTP status.
+         * @param body: The body, empty if there was none.
+         * @param etag: The ETag sent, or null.
+         */
+        private Response(int status, String body, String etag) {
+            this.status = status;
+            this.body = body;
+            this.etag = etag;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.fierydragon.server;
+
+import com.fierydragon.bots.RandomPolicy;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.GameState;
+import com.fierydragon.engine.LayoutCache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A program run as a process of its own by GameJournalTest, which plays games one after another and records them in a
+ * journal until it is killed. Game N is dealt from seed N and played by a RandomPolicy seeded with N, so the test can
+ * play the same flips again and check what the journal kept.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see GameJournalTest
+ */
+
+public class JournalCrashWriter {
+    /**
+     * The board the games are dealt from.
+     */
+    static final String BOARD = "standard";
+    /**
+     * The number of Dragons in each game.
+     */
+    static final int NUM_PLAYERS = 2;
+    /**
+     * The line printed once some flips are known to be on disk.
+     */
+    static final String COMMITTED = "COMMITTED";
+
+    /**
+     * Plays and records games until killed.
+     * @param args: The journal file.
+     * @throws IOException if the journal cannot be written.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        GameJournal journal = new GameJournal(Path.of(args[0]), GameJournal.DEFAULT_COMMIT_MILLIS);
+        CompiledLayout layout = LayoutCache.getInstance().load(BOARD);
+        boolean told = false;
+        for (long id = 1; ; id++) {
+            GameState state = GameState.deal(layout, NUM_PLAYERS, new Random(id));
+            journal.created(id, BOARD, NUM_PLAYERS, id);
+            Random random = new Random(id);
+            RandomPolicy policy = new RandomPolicy();
+            while (!state.isOver()) {
+                int chit = policy.choose(state, random);
+                state.flip(chit);
+                journal.flipped(id, chit);
+                // Once a few games are in, wait for a commit and tell the test it can kill at any time.
+                if (!told && id > 2) {
+                    Thread.sleep(50);
+                    System.out.println(COMMITTED + " " + id);
+                    System.out.flush();
+                    told = true;
+                }
+                Thread.sleep(0, 200_000);
+            }
+            journal.ended(id);
+        }
+    }
+
+    /**
+     * Plays a game the way the writer does, up to a number of flips.
+     * @param id: The number of the game, which is also its seed.
+     * @param maxFlips: The most flips to play.
+     * @return the Chit Cards flipped, in order.
+     */
+    static int[] expectedFlips(long id, int maxFlips) {
+        CompiledLayout layout = LayoutCache.getInstance().load(BOARD);
+        GameState state = GameState.deal(layout, NUM_PLAYERS, new Random(id));
+        Random random = new Random(id);
+        RandomPolicy policy = new RandomPolicy();
+        int[] flips = new int[maxFlips];
+        int numFlips = 0;
+        while (numFlips < maxFlips && !state.isOver()) {
+            int chit = policy.choose(state, random);
+            state.flip(chit);
+            flips[numFlips++] = chit;
+        }
+        return Arrays.copyOf(flips, numFlips);
+    }
+}
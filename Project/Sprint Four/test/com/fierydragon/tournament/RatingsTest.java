@@ -0,0 +1,64 @@
+package com.fierydragon.tournament;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the Elo ratings Ratings fits to the results of a tournament.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Ratings
+ */
+
+class RatingsTest {
+    /**
+     * The Elo points two ratings may differ from the expected ones by.
+     */
+    private static final double ELO_TOLERANCE = 1e-3;
+
+    @Test
+    void evenResultsGiveEveryBotTheBaseRating() {
+        List<Rating> ratings = Ratings.fit(List.of("a", "b"), new double[][] {{0, 50}, {50, 0}},
+                new int[][] {{0, 100}, {100, 0}});
+
+        for (Rating rating : ratings) {
+            assertEquals(Ratings.BASE_ELO, rating.getElo(), ELO_TOLERANCE);
+            assertEquals(100, rating.getGames());
+            assertEquals(0.5, rating.getScore(), 1e-12);
+        }
+    }
+
+    @Test
+    void twoBotsAreRatedApartByTheirShareOfPoints() {
+        List<Rating> ratings = Ratings.fit(List.of("weak", "strong"), new double[][] {{0, 25}, {75, 0}},
+                new int[][] {{0, 100}, {100, 0}});
+
+        assertEquals("strong", ratings.get(0).getName());
+        // With one drawn game added as a prior, the strong bot scored 75.5 of 101.
+        double expected = 400 * Math.log10(75.5 / 25.5);
+        assertEquals(expected, ratings.get(0).getElo() - ratings.get(1).getElo(), ELO_TOLERANCE);
+        assertEquals(2 * Ratings.BASE_ELO, ratings.get(0).getElo() + ratings.get(1).getElo(), ELO_TOLERANCE);
+        assertEquals(0.75, ratings.get(0).getScore(), 1e-12);
+    }
+
+    @Test
+    void botsAreRankedBestFirstAndOneThatNeverWonIsStillRated() {
+        double[][] points = {{0, 30, 40}, {10, 0, 40}, {0, 0, 0}};
+        int[][] games = {{0, 40, 40}, {40, 0, 40}, {40, 40, 0}};
+        List<Rating> ratings = Ratings.fit(List.of("first", "second", "last"), points, games);
+
+        assertEquals("first", ratings.get(0).getName());
+        assertEquals("second", ratings.get(1).getName());
+        assertEquals("last", ratings.get(2).getName());
+        Rating last = ratings.get(2);
+        assertEquals(0, last.getScore(), 1e-12);
+        assertTrue(Double.isFinite(last.getElo()) && last.getElo() < Ratings.BASE_ELO, String.valueOf(last.getElo()));
+        assertTrue(Double.isFinite(last.getEloError()) && last.getEloError() > 0, String.valueOf(last.getEloError()));
+    }
+}
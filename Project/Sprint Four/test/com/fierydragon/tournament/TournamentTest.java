@@ -0,0 +1,88 @@
+package com.fierydragon.tournament;
+
+import com.fierydragon.bots.ChitPolicy;
+import com.fierydragon.bots.MemoryPolicy;
+import com.fierydragon.bots.RandomPolicy;
+import com.fierydragon.engine.CompiledLayout;
+import com.fierydragon.engine.LayoutCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of a Tournament played between bots: its games, its ratings and the same seed playing the same games.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Tournament
+ */
+
+class TournamentTest {
+    /**
+     * The board the games are dealt from.
+     */
+    private static final String BOARD = "standard";
+    /**
+     * The number of boards each pairing plays.
+     */
+    private static final int BOARDS = 40;
+
+    @Test
+    void everyPairingPlaysEveryBoardInBothRotations() throws InterruptedException {
+        List<ChitPolicy> bots = List.of(new RandomPolicy(), new MemoryPolicy(0.5), new MemoryPolicy(1.0));
+        TournamentResult result = new Tournament(bots, layout(), BOARDS, 3, 1).run();
+
+        assertEquals(3 * BOARDS * Tournament.NUM_PLAYERS, result.getNumGames());
+        double totalScore = 0;
+        for (Rating rating : result.getRatings()) {
+            assertEquals(2 * BOARDS * Tournament.NUM_PLAYERS, rating.getGames());
+            totalScore += rating.getScore();
+        }
+        // Every game hands out one point, so the shares add up to half the number of bots.
+        assertEquals(1.5, totalScore, 1e-9);
+    }
+
+    @Test
+    void aBotThatRemembersChitCardsIsRatedAboveOneThatGuesses() throws InterruptedException {
+        TournamentResult result = new Tournament(List.of(new RandomPolicy(), new MemoryPolicy(1.0)), layout(),
+                BOARDS, 5, 1).run();
+
+        Rating best = result.getRatings().get(0);
+        assertEquals("memory-100", best.getName());
+        assertTrue(best.getScore() > 0.75, String.valueOf(best.getScore()));
+    }
+
+    @Test
+    void theSameSeedPlaysTheSameGamesOnAnyNumberOfThreads() throws InterruptedException {
+        List<ChitPolicy> bots = List.of(new RandomPolicy(), new MemoryPolicy(0.5));
+        List<Rating> one = new Tournament(bots, layout(), BOARDS, 11, 1).run().getRatings();
+        List<Rating> two = new Tournament(bots, layout(), BOARDS, 11, 2).run().getRatings();
+
+        for (int i = 0; i < one.size(); i++) {
+            assertEquals(one.get(i).getName(), two.get(i).getName());
+            assertEquals(one.get(i).getScore(), two.get(i).getScore());
+            assertEquals(one.get(i).getElo(), two.get(i).getElo());
+        }
+        assertEquals(Tournament.boardSeed(11, 4), Tournament.boardSeed(11, 4));
+        assertTrue(Tournament.boardSeed(11, 4) != Tournament.boardSeed(11, 5));
+    }
+
+    @Test
+    void aTournamentNeedsTwoBots() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Tournament(List.of(new RandomPolicy()), layout(), BOARDS, 1, 1));
+    }
+
+    /**
+     * Loads the layout of the board the games are dealt from.
+     * @return the compiled layout.
+     */
+    private static CompiledLayout layout() {
+        return LayoutCache.getInstance().load(BOARD);
+    }
+}
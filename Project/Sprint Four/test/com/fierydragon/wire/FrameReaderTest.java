@@ -0,0 +1,183 @@
+package com.fierydragon.wire;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the frames a FrameReader cuts out of the bytes read, however the reads split them, and of the frames it
+ * refuses to read.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see FrameReader
+ * @see FrameCodec
+ */
+
+class FrameReaderTest {
+    /**
+     * The size of the buffers read into, as a BufferPool would hand out.
+     */
+    private static final int BUFFER_SIZE = 256;
+
+    @Test
+    void framesComeBackAsWritten() throws IOException {
+        byte[] line = "CHAT hello".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        FrameCodec.putFlip(out, 300);
+        FrameCodec.putJoin(out, 1L << 40);
+        FrameCodec.putText(out, line, 0, line.length);
+        FrameCodec.putHeartbeat(out, 123_456_789L);
+
+        FrameReader reader = new FrameReader(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        assertTrue(reader.fill(new ChunkedChannel(written(out))));
+        ByteBuffer body = reader.getBuffer();
+        assertEquals(FrameCodec.FLIP, reader.next());
+        assertEquals(300, Varint.getInt(body));
+        assertEquals(FrameCodec.JOIN, reader.next());
+        assertEquals(1L << 40, Varint.getLong(body));
+        assertEquals(FrameCodec.TEXT, reader.next());
+        byte[] text = new byte[body.remaining()];
+        body.get(text);
+        assertEquals("CHAT hello", new String(text, StandardCharsets.UTF_8));
+        // A frame whose body is not read is still skipped whole.
+        assertEquals(FrameCodec.HEARTBEAT, reader.next());
+        assertEquals(FrameReader.NONE, reader.next());
+    }
+
+    @Test
+    void frameSplitAcrossReadsIsHandedOverOnceWhole() throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        FrameCodec.putFlip(out, 5);
+        FrameCodec.putJoin(out, 1_000_000L);
+        byte[] bytes = written(out);
+
+        // One byte a read, so every frame is cut short at every place it can be.
+        byte[][] chunks = new byte[bytes.length][];
+        for (int i = 0; i < bytes.length; i++) {
+            chunks[i] = new byte[] {bytes[i]};
+        }
+        ChunkedChannel channel = new ChunkedChannel(chunks);
+        FrameReader reader = new FrameReader(ByteBuffer.allocate(BUFFER_SIZE));
+        int[] types = new int[2];
+        int numFrames = 0;
+        while (reader.fill(channel)) {
+            int type;
+            while ((type = reader.next()) != FrameReader.NONE) {
+                types[numFrames++] = type;
+                if (type == FrameCodec.JOIN) {
+                    assertEquals(1_000_000L, Varint.getLong(reader.getBuffer()));
+                }
+            }
+        }
+        assertEquals(2, numFrames);
+        assertEquals(FrameCodec.FLIP, types[0]);
+        assertEquals(FrameCodec.JOIN, types[1]);
+    }
+
+    @Test
+    void longFrameWithALengthOfTwoBytesIsRead() throws IOException {
+        byte[] line = new byte[200];
+        Arrays.fill(line, (byte) 'a');
+        ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        FrameCodec.putText(out, line, 0, line.length);
+
+        FrameReader reader = new FrameReader(ByteBuffer.allocate(BUFFER_SIZE));
+        reader.fill(new ChunkedChannel(written(out)));
+        assertEquals(FrameCodec.TEXT, reader.next());
+        assertEquals(line.length, reader.getBuffer().remaining());
+    }
+
+    @Test
+    void emptyFrameCannotBeRead() throws IOException {
+        FrameReader reader = new FrameReader(ByteBuffer.allocate(BUFFER_SIZE));
+        reader.fill(new ChunkedChannel(new byte[] {0, FrameCodec.FLIP}));
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void frameLongerThanTheBufferCannotBeRead() throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(Varint.MAX_INT_BYTES);
+        Varint.putInt(out, BUFFER_SIZE);
+        FrameReader reader = new FrameReader(ByteBuffer.allocate(BUFFER_SIZE));
+        reader.fill(new ChunkedChannel(written(out)));
+        // Refused at once, rather than waiting for bytes that could never fit.
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void lengthLongerThanAnIntCannotBeRead() throws IOException {
+        byte[] bytes = new byte[Varint.MAX_INT_BYTES + 1];
+        Arrays.fill(bytes, (byte) 0x80);
+        FrameReader reader = new FrameReader(ByteBuffer.allocate(BUFFER_SIZE));
+        reader.fill(new ChunkedChannel(bytes));
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void lengthCutShortWaitsForTheRest() throws IOException {
+        FrameReader reader = new FrameReader(ByteBuffer.allocate(BUFFER_SIZE));
+        ChunkedChannel channel = new ChunkedChannel(new byte[] {(byte) 0x81});
+        assertTrue(reader.fill(channel));
+        assertEquals(FrameReader.NONE, reader.next());
+        assertFalse(reader.fill(channel));
+    }
+
+    /**
+     * Copies out the bytes written to a buffer.
+     * @param out: The buffer, positioned after the bytes written.
+     * @return the bytes written.
+     */
+    private static byte[] written(ByteBuffer out) {
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * A channel that gives back the bytes it was made with, one chunk a read, and then ends.
+     */
+    private static final class ChunkedChannel implements ReadableByteChannel {
+        /**
+         * The chunks not yet read.
+         */
+        private final Deque<byte[]> chunks;
+
+        /**
+         * ChunkedChannel Constructor.
+         * @param chunks: The chunks to give back, in order.
+         */
+        private ChunkedChannel(byte[]... chunks) {
+            this.chunks = new ArrayDeque<>(Arrays.asList(chunks));
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            byte[] chunk = chunks.poll();
+            if (chunk == null) {
+                return -1;
+            }
+            dst.put(chunk);
+            return chunk.length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.fierydragon.wire;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the numbers Varint writes and reads back, and of the bytes it refuses to read.
+ * Created by:
+ * @author agent
+ * Modified by:
+ * @version 1.0
+ * @see Varint
+ */
+
+class VarintTest {
+    /**
+     * Ints at the edges of each varint size, read as unsigned.
+     */
+    private static final int[] INTS = {0, 1, 127, 128, 16_383, 16_384, 2_097_151, 2_097_152, 268_435_455,
+            268_435_456, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+    /**
+     * Longs at the edges of the varint sizes, read as unsigned.
+     */
+    private static final long[] LONGS = {0L, 127L, 128L, 1L << 35, (1L << 56) - 1, 1L << 56, Long.MAX_VALUE, -1L,
+            Long.MIN_VALUE};
+
+    @Test
+    void intsComeBackAsWrittenInTheBytesCounted() {
+        for (int value : INTS) {
+            ByteBuffer buffer = ByteBuffer.allocate(Varint.MAX_INT_BYTES);
+            Varint.putInt(buffer, value);
+            assertEquals(Varint.sizeOfInt(value), buffer.position(), "Size of " + value);
+            buffer.flip();
+            assertEquals(value, Varint.getInt(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    void longsComeBackAsWritten() {
+        for (long value : LONGS) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Varint.MAX_LONG_BYTES);
+            Varint.putLong(buffer, value);
+            buffer.flip();
+            assertEquals(value, Varint.getLong(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    void smallNegativeIntsTakeOneByte() {
+        for (int value : new int[] {0, -1, 1, -64, 63, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            ByteBuffer buffer = ByteBuffer.allocate(Varint.MAX_INT_BYTES);
+            Varint.putSignedInt(buffer, value);
+            if (value >= -64 && value <= 63) {
+                assertEquals(1, buffer.position(), "Size of " + value);
+            }
+            buffer.flip();
+            assertEquals(value, Varint.getSignedInt(buffer));
+        }
+    }
+
+    @Test
+    void varintCutShortCannotBeRead() {
+        ByteBuffer buffer = ByteBuffer.allocate(Varint.MAX_INT_BYTES);
+        Varint.putInt(buffer, 300_000);
+        buffer.flip().limit(buffer.limit() - 1);
+        assertThrows(BufferUnderflowException.class, () -> Varint.getInt(buffer));
+        assertThrows(BufferUnderflowException.class, () -> Varint.getLong(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    void varintLongerThanItsTypeCannotBeRead() {
+        // Every byte says another follows.
+        ByteBuffer ints = ByteBuffer.allocate(Varint.MAX_INT_BYTES + 1);
+        while (ints.hasRemaining()) {
+            ints.put((byte) 0x80);
+        }
+        ints.flip();
+        assertThrows(IllegalArgumentException.class, () -> Varint.getInt(ints));
+
+        ByteBuffer longs = ByteBuffer.allocate(Varint.MAX_LONG_BYTES + 1);
+        while (longs.hasRemaining()) {
+            longs.put((byte) 0xFF);
+        }
+        longs.flip();
+        assertThrows(IllegalArgumentException.class, () -> Varint.getLong(longs));
+    }
+}